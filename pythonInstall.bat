@@ -8,7 +8,8 @@ set "PY_SHORT_PRIMARY=313"
 set "PY_SHORT_FALLBACK=312"
 set "ARCH=amd64"
 set "VENV_DIR=.venv"
-set "REQ_FILE=requirements.txt"
+REM REQ_FILE may be passed in by the app (versioned runtime directory)
+if not defined REQ_FILE set "REQ_FILE=requirements.txt"
 set "DEFAULT_PKGS=praat-parselmouth numpy matplotlib pandas joblib scikit-learn"
 
 set "REQ_HASH_FILE=%VENV_DIR%\.req.sha256"
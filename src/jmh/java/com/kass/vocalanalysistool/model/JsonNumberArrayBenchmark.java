@@ -0,0 +1,108 @@
+package com.kass.vocalanalysistool.model;
+
+import com.google.gson.Gson;
+import java.nio.charset.StandardCharsets;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares {@link JsonNumberArray} with the {@code Gson.fromJson(json, double[].class)} it
+ * replaced, on a legacy track column of 30,000 values in the form the python script writes
+ * them.
+ *
+ * <p>Run with {@code mvn -Pjmh test-compile exec:exec}; add {@code -Djmh.args="-prof gc"} to
+ * see the bytes each parse allocates.</p>
+ *
+ * @author Kassie Whitney
+ * @version 1/10/2026
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JsonNumberArrayBenchmark {
+
+    /**
+     * Values in the track, five minutes of 10 ms frames.
+     */
+    private static final int VALUES = 30_000;
+
+    /**
+     * The track parsed: the time sequence, or a formant track with five decimals.
+     */
+    @Param({"time", "formant"})
+    String myTrack;
+
+    /**
+     * The column's UTF-8 bytes, as sqlite-jdbc's getBytes hands them out.
+     */
+    private byte[] myJson;
+
+    /**
+     * The parser, reused across parses as each connection reuses its own.
+     */
+    private final JsonNumberArray myParser = new JsonNumberArray();
+
+    /**
+     * The Gson instance, shared so only the parse is measured.
+     */
+    private final Gson myGson = new Gson();
+
+    /**
+     * Writes the track as python's json.dumps would.
+     */
+    @Setup
+    public void writeTrack() {
+        final StringJoiner json = new StringJoiner(", ", "[", "]");
+        for (int i = 0; i < VALUES; i++) {
+            final double value = "time".equals(myTrack) ? Math.round(i * 0.01 * 100) / 100.0
+                    : Math.round((500 + 120 * Math.sin(i / 25.0) + i % 7 * 0.37) * 1e5) / 1e5;
+            json.add(Double.toString(value));
+        }
+        myJson = json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Parses into the reused buffer, as the track migration does.
+     *
+     * @return the number of values.
+     */
+    @Benchmark
+    public int jsonNumberArray() {
+        return myParser.parse(myJson);
+    }
+
+    /**
+     * Parses and copies the values out, as reading a track for a scene does.
+     *
+     * @return the values.
+     */
+    @Benchmark
+    public double[] jsonNumberArrayCopy() {
+        myParser.parse(myJson);
+        return myParser.toArray();
+    }
+
+    /**
+     * Parses the way the column was read before: decoded to a String, then read by Gson.
+     *
+     * @return the values.
+     */
+    @Benchmark
+    public double[] gson() {
+        return myGson.fromJson(new String(myJson, StandardCharsets.UTF_8), double[].class);
+    }
+}
@@ -0,0 +1,105 @@
+package com.kass.vocalanalysistool.common;
+
+import java.time.Duration;
+
+/**
+ * How long each phase of an analysis workflow may take before it is abandoned. Every limit can
+ * be overridden in seconds with a system property, e.g.
+ * {@code -Dvocalanalysis.timeout.analysis=600}.
+ *
+ * @author Kassie Whitney
+ * @version 1/10/2026
+ */
+public final class AnalysisTimeouts {
+
+    /**
+     * Property for the pip install and import probe limit.
+     */
+    public static final String DEPENDENCIES_PROPERTY = "vocalanalysis.timeout.dependencies";
+
+    /**
+     * Property for the part of a recording's analysis limit that does not depend on its length.
+     */
+    public static final String ANALYSIS_PROPERTY = "vocalanalysis.timeout.analysis";
+
+    /**
+     * Property for the seconds added to the analysis limit per second of audio.
+     */
+    public static final String ANALYSIS_PER_SECOND_PROPERTY =
+            "vocalanalysis.timeout.analysisPerAudioSecond";
+
+    /**
+     * Property for how long a write waits for a locked database.
+     */
+    public static final String PERSISTENCE_PROPERTY = "vocalanalysis.timeout.persistence";
+
+    /**
+     * Default dependency limit; a first install downloads the whole scientific stack.
+     */
+    private static final long DEFAULT_DEPENDENCIES_SECONDS = 900;
+
+    /**
+     * Default analysis limit before the allowance for the recording's length.
+     */
+    private static final long DEFAULT_ANALYSIS_SECONDS = 300;
+
+    /**
+     * Default allowance per second of audio; the script runs several times faster than real
+     * time, so a session recording of an hour or more still finishes well within it.
+     */
+    private static final long DEFAULT_ANALYSIS_PER_SECOND = 1;
+
+    /**
+     * Default persistence limit.
+     */
+    private static final long DEFAULT_PERSISTENCE_SECONDS = 30;
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private AnalysisTimeouts() {
+    }
+
+    /**
+     * Gets the limit for checking and installing the python dependencies.
+     *
+     * @return the limit.
+     */
+    public static Duration dependencies() {
+        return read(DEPENDENCIES_PROPERTY, DEFAULT_DEPENDENCIES_SECONDS);
+    }
+
+    /**
+     * Gets the limit for analyzing one recording, from sending the job to its result: a base
+     * plus an allowance for every second of audio, so a long session is not cut off.
+     *
+     * @param theAudioSeconds the length of the recording; 0 if it is not known.
+     * @return the limit.
+     */
+    public static Duration analysis(final double theAudioSeconds) {
+        final Duration allowance = read(ANALYSIS_PER_SECOND_PROPERTY,
+                DEFAULT_ANALYSIS_PER_SECOND).multipliedBy((long) Math.ceil(Math.max(0, theAudioSeconds)));
+        return read(ANALYSIS_PROPERTY, DEFAULT_ANALYSIS_SECONDS).plus(allowance);
+    }
+
+    /**
+     * Gets how long a database write waits for a lock held by another writer.
+     *
+     * @return the limit.
+     */
+    public static Duration persistence() {
+        return read(PERSISTENCE_PROPERTY, DEFAULT_PERSISTENCE_SECONDS);
+    }
+
+    /**
+     * Reads a limit, falling back to the default when the property is missing or not positive.
+     *
+     * @param theProperty the system property.
+     * @param theDefault  the default in seconds.
+     * @return the limit.
+     */
+    private static Duration read(final String theProperty, final long theDefault) {
+        final long seconds = Long.getLong(theProperty, theDefault);
+        return Duration.ofSeconds(seconds > 0 ? seconds : theDefault);
+    }
+}
@@ -27,6 +27,11 @@ public enum ChangeEvents {
      */
     STOP_RECORDING,
 
+    /**
+     * Notifies the viewer that the recording could not be saved and was stopped
+     */
+    RECORDING_FAILED,
+
     /**
      * Notifies the viewer the status of the audio recording
      */
@@ -56,4 +61,9 @@ public enum ChangeEvents {
      * The workFlow Result
      */
     WORKFLOW_RESULT,
+
+    /**
+     * The user asked to stop the running analysis
+     */
+    CANCEL_ANALYSIS,
 }
@@ -1,17 +1,18 @@
 package com.kass.vocalanalysistool.controller;
 
 import com.kass.vocalanalysistool.common.ChangeEvents;
+import com.kass.vocalanalysistool.model.UserSampleDatabase;
 import com.kass.vocalanalysistool.view.LoadingScreenController;
 import com.kass.vocalanalysistool.view.util.EnvironmentUtils;
+import com.kass.vocalanalysistool.view.util.ResourceExtractor;
+import com.kass.vocalanalysistool.workflow.PythonWorker;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
 import java.io.BufferedReader;
-import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicReference;
@@ -70,6 +71,15 @@ public class Main extends Application implements PropertyChangeListener {
 
     }
 
+    /**
+     * Stops the warm analysis worker and closes the database together with the application.
+     */
+    @Override
+    public void stop() {
+        PythonWorker.shutdownShared();
+        UserSampleDatabase.closeShared();
+    }
+
     /**
      * Launches the stages.
      *
@@ -222,12 +232,6 @@ public class Main extends Application implements PropertyChangeListener {
         final Path venvPy = dataDir.resolve(".venv").resolve("Scripts").resolve("python.exe");
         final boolean venvReady = Files.exists(readyMark) && Files.exists(venvPy);
 
-        final Path setupBat = extractResourceToDir(
-                "/pythonInstall.bat",
-                dataDir,
-                "pythonInstall.bat"
-        );
-
         if (venvReady) {
             logger.info("Venv already ready. Skipping setup.");
             myChanges.firePropertyChange(ChangeEvents.SKIP_INSTALL.name(), null, null);
@@ -237,12 +241,26 @@ public class Main extends Application implements PropertyChangeListener {
 
         myChanges.firePropertyChange(ChangeEvents.NEW_INSTALL.name(), null, 0.05);
 
+        final Path runtimeDir = ResourceExtractor.runtimeDir(dataDir);
+        final Path setupBat = ResourceExtractor.extract(
+                "/pythonInstall.bat",
+                runtimeDir,
+                "pythonInstall.bat"
+        );
+        final Path requirements = ResourceExtractor.extract(
+                "/VocalAnalysisToolKit/requirements.txt",
+                runtimeDir,
+                "requirements.txt"
+        );
+
+        // The batch file creates .venv in its working directory and reads REQ_FILE
         final ProcessBuilder setupPB = new ProcessBuilder(
-                "cmd.exe", "/c", "call", setupBat.getFileName().toString()
+                "cmd.exe", "/c", "call", setupBat.toString()
         );
 
         setupPB.directory(dataDir.toFile());
         setupPB.redirectErrorStream(true);
+        setupPB.environment().put("REQ_FILE", requirements.toString());
 
         final Process setupProc = setupPB.start();
 
@@ -275,38 +293,41 @@ public class Main extends Application implements PropertyChangeListener {
                     return -1;
                 }
             };
-                myChanges.firePropertyChange(ChangeEvents.NEW_INSTALL.name(), "Installing " +
-                        "dependencies...", 0.95);
-        int code;
+        int code = 0;
         final String pythonExe = venvPy.toString();
 
-        final Path requirements = extractResourceToDir(
-                "/VocalAnalysisToolKit/requirements.txt",
-                dataDir,
-                "requirements.txt"
-        );
-
-        if (Files.exists(requirements)) {
-            logger.info("Installing requirements from: " + requirements);
+        final String fingerprint = EnvironmentUtils.requirementsFingerprint(dataDir, requirements);
+        final boolean fingerprintCurrent = EnvironmentUtils.isFingerprintCurrent(dataDir,
+                fingerprint);
 
-            code = run.apply(new String[]{pythonExe, "-m", "pip", "install", "-r", requirements.toString()});
-            if (code != 0)
-                throw new IllegalStateException("pip install -r failed with code " + code);
+        if (fingerprintCurrent) {
+            logger.info("Requirements fingerprint unchanged; skipping pip and import probe.");
         } else {
-            // Minimal guarantee
-            logger.info("requirements.txt not found in " + dataDir + " — installing matplotlib explicitly.");
-            code = run.apply(new String[]{pythonExe, "-m", "pip", "install", "matplotlib"});
-            if (code != 0)
-                throw new IllegalStateException("pip install matplotlib failed with code " + code);
-        }
+            myChanges.firePropertyChange(ChangeEvents.NEW_INSTALL.name(), "Installing " +
+                    "dependencies...", 0.95);
+
+            if (Files.exists(requirements)) {
+                logger.info("Installing requirements from: " + requirements);
+
+                code = run.apply(new String[]{pythonExe, "-m", "pip", "install", "-r", requirements.toString()});
+                if (code != 0)
+                    throw new IllegalStateException("pip install -r failed with code " + code);
+            } else {
+                // Minimal guarantee
+                logger.info("requirements.txt not found in " + dataDir + " — installing matplotlib explicitly.");
+                code = run.apply(new String[]{pythonExe, "-m", "pip", "install", "matplotlib"});
+                if (code != 0)
+                    throw new IllegalStateException("pip install matplotlib failed with code " + code);
+            }
 
-        myChanges.firePropertyChange(ChangeEvents.UPDATE_PROGRESS.toString(),
-                "Importing dependencies...", (double) 64 / 100);
-        // 4) Probe: show interpreter & matplotlib version (fail fast if missing)
-        code = run.apply(new String[]{pythonExe, "-c",
-                "import sys; print('[PyProbe] exe:', sys.executable); " +
-                        "import matplotlib; print('[PyProbe] matplotlib version:', matplotlib.__version__)"
-        });
+            myChanges.firePropertyChange(ChangeEvents.UPDATE_PROGRESS.toString(),
+                    "Importing dependencies...", (double) 64 / 100);
+            // 4) Probe: show interpreter & matplotlib version (fail fast if missing)
+            code = run.apply(new String[]{pythonExe, "-c",
+                    "import sys; print('[PyProbe] exe:', sys.executable); " +
+                            "import matplotlib; print('[PyProbe] matplotlib version:', matplotlib.__version__)"
+            });
+        }
 
         final int setupExit = setupProc.waitFor();
         if (setupExit != 0) {
@@ -314,6 +335,9 @@ public class Main extends Application implements PropertyChangeListener {
         }
 
         if(code == 0) {
+            if (!fingerprintCurrent) {
+                EnvironmentUtils.writeFingerprint(dataDir, fingerprint);
+            }
             myChanges.firePropertyChange(ChangeEvents.NEW_INSTALL.name(), null, 1.0);
         } else {
             throw new InternalError("Unable to set up environment!");
@@ -349,32 +373,6 @@ public class Main extends Application implements PropertyChangeListener {
     }
 
 
-    /**
-     * Extracts a resource from the jar into a stable, writable directory.
-     *
-     * @param resourcePath the path of the resource file.
-     * @param outDir       the directory to copy to.
-     * @param filename     the filename to write as.
-     * @return returns the path of the extracted file.
-     * @throws IOException Thrown if the input stream is null
-     */
-    private static Path extractResourceToDir(final String resourcePath,
-                                             final Path outDir,
-                                             final String filename) throws IOException {
-
-        Files.createDirectories(outDir);
-        final Path out = outDir.resolve(filename);
-
-        try (final InputStream in = Main.class.getResourceAsStream(resourcePath)) {
-            if (in == null) {
-                throw new IOException("Resource not found");
-            }
-            Files.copy(in, out, StandardCopyOption.REPLACE_EXISTING);
-        }
-
-        return out;
-    }
-
     /**
      * Helper method to condense code. Gets the process object based on the process builder.
      *
@@ -0,0 +1,65 @@
+package com.kass.vocalanalysistool.model;
+
+/**
+ * The inputs of the gender perception model, in the order the trained pipeline expects them.
+ * The column names are the keys of the python script's feature row.
+ *
+ * @author Kassie Whitney
+ * @version 1/10/2026
+ */
+public enum GenderFeature {
+
+    F0_MED("F0_med"),
+    F0_P5("F0_p5"),
+    F0_P95("F0_p95"),
+    F1_MED("F1_med"),
+    F2_MED("F2_med"),
+    F3_MED("F3_med"),
+    F4_MED("F4_med"),
+    F2_OVER_F1("F2_over_F1"),
+    F3_OVER_F2("F3_over_F2"),
+    F4_OVER_F3("F4_over_F3"),
+    F0_MEAN_HZ("f0_mean_hz"),
+    F0_SD_HZ("f0_sd_hz"),
+    F0_MIN_HZ("f0_min_hz"),
+    F0_MAX_HZ("f0_max_hz"),
+    F0_P5_HZ("f0_p5_hz"),
+    F0_P95_HZ("f0_p95_hz"),
+    RANGE_SEMITONES("range_semitones"),
+    RANGE_ST_5_95("range_st_5_95"),
+    SLOPE_ST_PER_SEC("slope_st_per_sec"),
+    F0_SD_ST("f0_sd_st"),
+    VOICED_FRAC("voiced_frac"),
+    HNR_MEAN_DB("hnr_mean_db"),
+    HNR_MEDIAN_DB("hnr_median_db"),
+    HNR_VOICED_FRACTION("hnr_voiced_fraction"),
+    BREATHINESS_INDEX("breathiness_index"),
+
+    /**
+     * Engineered: F0_med - F0_p5.
+     */
+    PITCH_SUPPORT_GAP_HZ("pitch_support_gap_hz"),
+
+    /**
+     * Engineered: F0_p5 / F0_med.
+     */
+    PITCH_SUPPORT_RATIO("pitch_support_ratio");
+
+    /**
+     * The feature's column name in the python script and the exported model.
+     */
+    private final String myColumnName;
+
+    GenderFeature(final String theColumnName) {
+        myColumnName = theColumnName;
+    }
+
+    /**
+     * Gets the column name.
+     *
+     * @return the name used by the python script.
+     */
+    public String columnName() {
+        return myColumnName;
+    }
+}
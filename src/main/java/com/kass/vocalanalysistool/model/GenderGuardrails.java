@@ -0,0 +1,391 @@
+package com.kass.vocalanalysistool.model;
+
+import static com.kass.vocalanalysistool.model.GenderFeature.BREATHINESS_INDEX;
+import static com.kass.vocalanalysistool.model.GenderFeature.F0_MAX_HZ;
+import static com.kass.vocalanalysistool.model.GenderFeature.F0_MEAN_HZ;
+import static com.kass.vocalanalysistool.model.GenderFeature.F0_MED;
+import static com.kass.vocalanalysistool.model.GenderFeature.F0_MIN_HZ;
+import static com.kass.vocalanalysistool.model.GenderFeature.F0_P5;
+import static com.kass.vocalanalysistool.model.GenderFeature.F0_P5_HZ;
+import static com.kass.vocalanalysistool.model.GenderFeature.F0_P95;
+import static com.kass.vocalanalysistool.model.GenderFeature.F0_SD_ST;
+import static com.kass.vocalanalysistool.model.GenderFeature.F1_MED;
+import static com.kass.vocalanalysistool.model.GenderFeature.F2_MED;
+import static com.kass.vocalanalysistool.model.GenderFeature.F2_OVER_F1;
+import static com.kass.vocalanalysistool.model.GenderFeature.F3_MED;
+import static com.kass.vocalanalysistool.model.GenderFeature.F3_OVER_F2;
+import static com.kass.vocalanalysistool.model.GenderFeature.HNR_MEAN_DB;
+import static com.kass.vocalanalysistool.model.GenderFeature.PITCH_SUPPORT_GAP_HZ;
+import static com.kass.vocalanalysistool.model.GenderFeature.PITCH_SUPPORT_RATIO;
+import static com.kass.vocalanalysistool.model.GenderFeature.RANGE_SEMITONES;
+import static com.kass.vocalanalysistool.model.GenderFeature.RANGE_ST_5_95;
+import static com.kass.vocalanalysistool.model.GenderFeature.VOICED_FRAC;
+
+import java.util.List;
+
+/**
+ * The hand-written rules the python script's {@code __predict__} applies on top of the logistic
+ * regression, compiled into Java.
+ *
+ * <p>Every comparison is written the way the script writes it. A missing feature is NaN, and
+ * like a pandas NaN it fails every comparison, so the rules fail the same way the script's do.
+ * Keep this class in step with the script whenever a guardrail is tuned there.</p>
+ *
+ * @author Kassie Whitney
+ * @version 1/10/2026
+ */
+public final class GenderGuardrails {
+
+    /**
+     * The revision of these rules. Bump it whenever a rule, threshold or rounding changes, so
+     * the stored history is scored again; see {@link GenderModel#getVersion()}.
+     */
+    static final int VERSION = 1;
+
+    /**
+     * How much larger the winning probability must be to count as a confident decision.
+     */
+    private static final double SIGNIFICANCE_MULTIPLIER = 1.25;
+
+    /**
+     * Probability difference treated as a tie.
+     */
+    private static final double ANDRO_THRESHOLD = 0.05;
+
+    /**
+     * Guards the significance ratio against zero probabilities.
+     */
+    private static final double EPS = 1e-9;
+
+    /**
+     * The acoustic pattern of a rule.
+     */
+    @FunctionalInterface
+    private interface Condition {
+
+        /**
+         * Evaluates the pattern.
+         *
+         * @param theF     the feature vector.
+         * @param theMasc  the MASC probability.
+         * @param theFemme the FEMME probability.
+         * @return true if the pattern is present.
+         */
+        boolean test(double[] theF, double theMasc, double theFemme);
+    }
+
+    /**
+     * A falsetto override: when its condition holds the label becomes a fixed falsetto label.
+     *
+     * @param theLabel     the label to report.
+     * @param theCondition the acoustic pattern.
+     */
+    private record FalsettoRule(String theLabel, Condition theCondition) { }
+
+    /**
+     * The falsetto overrides of a confident decision, in the script's order; later matches win.
+     */
+    private static final List<FalsettoRule> FALSETTO_RULES = List.of(
+            new FalsettoRule("FEMME_FALSETTO", (theF, theMasc, theFemme) ->
+                    (v(theF, F0_MIN_HZ) > 290 || v(theF, F0_P5_HZ) > 280)
+                            && (v(theF, F2_MED) < 1650
+                            || v(theF, HNR_MEAN_DB) < 16
+                            || v(theF, F0_SD_ST) < 2.4)),
+            new FalsettoRule("ANDRO_FALSETTO", GenderGuardrails::androFalsetto),
+            new FalsettoRule("MASC_FALSETTO", (theF, theMasc, theFemme) ->
+                    v(theF, F0_MIN_HZ) <= 80 && v(theF, F0_MED) > 140
+                            && v(theF, F0_MAX_HZ) > 480
+                            && v(theF, RANGE_ST_5_95) > 18
+                            && (v(theF, RANGE_SEMITONES) > 28
+                            || v(theF, F0_SD_ST) > 5.5
+                            || v(theF, HNR_MEAN_DB) < 12)
+                            && v(theF, F3_OVER_F2) < 1.55
+                            && v(theF, F2_OVER_F1) < 3.2));
+
+    /**
+     * The falsetto score.
+     */
+    private static final double FALSETTO_SCORE = 0.5;
+
+    private GenderGuardrails() { }
+
+    /**
+     * Turns the model's probabilities into the final label and score.
+     *
+     * @param theFeatures the capped feature vector from {@link GenderModel#vectorOf}.
+     * @param theMasc     the MASC probability.
+     * @param theFemme    the FEMME probability.
+     * @return the label and score.
+     */
+    static GenderModel.Prediction apply(final double[] theFeatures, final double theMasc,
+                                       final double theFemme) {
+        final double low = Math.min(theMasc, theFemme);
+
+        final boolean significant = Math.max(theMasc, theFemme) + EPS
+                > SIGNIFICANCE_MULTIPLIER * (low + EPS);
+
+        GenderModel.Prediction result;
+
+        if (significant) {
+            if (theFemme > theMasc) {
+                result = v(theFeatures, F3_MED) > 2500
+                        ? prediction("FEMME", theFemme) : prediction("MASC", theMasc);
+            } else {
+                result = prediction("MASC", theFemme);
+            }
+
+            if (unstableExpressive(theFeatures)) {
+                final double diff = theFemme - theMasc;
+                if (Math.abs(diff) <= ANDRO_THRESHOLD) {
+                    result = prediction("ANDRO", Math.max(theFemme - low, theMasc + low));
+                } else {
+                    result = diff > 0 && v(theFeatures, BREATHINESS_INDEX) < -11
+                            ? prediction("FEMME", theFemme) : prediction("MASC", theFemme);
+                }
+            }
+
+            for (final FalsettoRule rule : FALSETTO_RULES) {
+                if (rule.theCondition().test(theFeatures, theMasc, theFemme)) {
+                    result = prediction(rule.theLabel(), FALSETTO_SCORE);
+                }
+            }
+        } else {
+            final double diff = theFemme - theMasc;
+            if (Math.abs(diff) <= ANDRO_THRESHOLD) {
+                // The script returns here, before the support guardrails
+                return prediction("ANDRO", Math.max(0.5 - low, 0.5 + low));
+            }
+
+            result = diff > 0 && (v(theFeatures, BREATHINESS_INDEX) < -11
+                    || v(theFeatures, F1_MED) > 450)
+                    ? prediction("ANDRO_FEMME", Math.max(theFemme, theMasc))
+                    : prediction("ANDRO_MASC", low);
+        }
+
+        return supportGuardrails(theFeatures, result, theMasc, theFemme);
+    }
+
+    /**
+     * Re-checks FEMME and MASC decisions against the acoustic support for them.
+     *
+     * @param theFeatures the feature vector.
+     * @param theResult   the decision so far.
+     * @param theMasc     the MASC probability.
+     * @param theFemme    the FEMME probability.
+     * @return the final decision.
+     */
+    private static GenderModel.Prediction supportGuardrails(final double[] theFeatures,
+                                                            final GenderModel.Prediction theResult,
+                                                            final double theMasc,
+                                                            final double theFemme) {
+        final String label = theResult.theLabel();
+        GenderModel.Prediction result = theResult;
+        double androThreshold = Math.min(0.5 - Math.min(theFemme, theMasc),
+                0.5 + Math.min(theFemme, theMasc));
+
+        if (label.equals("FEMME")) {
+            if (pitchSpikeTrap(theFeatures)) {
+                // Penalize for not having proper vocal support
+                final double f1 = v(theFeatures, F1_MED);
+                if (f1 < 400) {
+                    final double penalty = Math.abs(f1 - 400) / 1000;
+                    final double score = Math.abs(0.55 - penalty);
+                    if (score < 0.45) {
+                        result = prediction("ANDRO_MASC", score);
+                    } else if (score > 0.55) {
+                        result = prediction("ANDRO_FEMME", score);
+                    } else {
+                        result = prediction("ANDRO", score);
+                    }
+                } else {
+                    result = prediction("ANDRO", Math.min(androThreshold, theFemme));
+                }
+
+            } else if (femmeRequiresSupport(theFeatures)) {
+                final double f0 = v(theFeatures, F0_MED);
+                final double f2f1 = v(theFeatures, F2_OVER_F1);
+                final double f3f2 = v(theFeatures, F3_OVER_F2);
+
+                if (f0 < 140) {
+                    androThreshold = Math.min(androThreshold, 0.45);
+                }
+
+                if (0.45 < androThreshold && androThreshold < 0.55) {
+                    result = prediction("ANDRO", androThreshold);
+                } else if (3.55 <= f2f1 && f2f1 < 4.0 && f3f2 > 1.5 && f0 < 165) {
+                    double score = 0.65 - Math.abs(f2f1 - 4.0);
+                    if (f0 < 145) {
+                        score -= 0.15;
+                    }
+                    result = prediction("ANDRO_MASC", score);
+                } else if (f0 > 165 && f3f2 > 1.5) {
+                    final double penalty = round2(Math.abs(round2(f2f1) - 3.54) / 10);
+                    result = prediction("ANDRO_FEMME", 0.65 - penalty);
+                } else {
+                    result = prediction("MASC", androThreshold);
+                }
+            }
+        }
+
+        if (label.equals("MASC") && softMascAndrogyny(theFeatures, theMasc, theFemme)) {
+            result = prediction("ANDRO_MASC", theMasc);
+        }
+
+        return result;
+    }
+
+    /**
+     * Expressive speech whose pitch center collapses in the low tail.
+     *
+     * @param theF the feature vector.
+     * @return true if the confident decision needs to be re-checked.
+     */
+    private static boolean unstableExpressive(final double[] theF) {
+        return v(theF, F0_MED) >= 160
+                && v(theF, PITCH_SUPPORT_GAP_HZ) >= 60
+                && v(theF, PITCH_SUPPORT_RATIO) <= 0.70
+                && (v(theF, RANGE_SEMITONES) >= 28 || v(theF, F0_SD_ST) >= 5);
+    }
+
+    /**
+     * Falsetto over a dark, thin resonance, or a high, flat, breathy falsetto.
+     *
+     * @param theF     the feature vector.
+     * @param theMasc  the MASC probability.
+     * @param theFemme the FEMME probability.
+     * @return true if the decision becomes ANDRO_FALSETTO.
+     */
+    private static boolean androFalsetto(final double[] theF, final double theMasc,
+                                         final double theFemme) {
+        return (theFemme > theMasc && v(theF, F1_MED) <= 315
+                && v(theF, VOICED_FRAC) < 0.60
+                && v(theF, F2_MED) < 1600
+                && v(theF, F2_OVER_F1) < 4.5)
+                || ((v(theF, F0_MED) >= 240 || v(theF, F0_P5_HZ) >= 215)
+                && v(theF, RANGE_ST_5_95) < 10.8
+                && v(theF, F0_SD_ST) < 4.5
+                && v(theF, VOICED_FRAC) < 0.6
+                && v(theF, BREATHINESS_INDEX) < -18);
+    }
+
+    /**
+     * Blocks false FEMME when pitch spikes sit on top of masculine resonance and a noisy or
+     * weakly voiced signal. Mirrors {@code _pitch_spike_trap_guardrail}.
+     *
+     * @param theF the feature vector.
+     * @return true if a FEMME decision should be overridden.
+     */
+    private static boolean pitchSpikeTrap(final double[] theF) {
+        final boolean mascAnchor = v(theF, F1_MED) <= 410.0;
+        final boolean noisyOrUnvoiced = v(theF, HNR_MEAN_DB) <= 12.5
+                || v(theF, VOICED_FRAC) <= 0.50;
+        final boolean pitchSpike = v(theF, F0_MAX_HZ) >= 430.0
+                || v(theF, RANGE_SEMITONES) >= 26.0
+                || v(theF, F0_P95) >= 225.0;
+        final boolean notClearlyFemmePitch = v(theF, F0_MED) < 220.0;
+
+        return mascAnchor && noisyOrUnvoiced && pitchSpike && notClearlyFemmePitch;
+    }
+
+    /**
+     * Requires pitch, voicing, noise and resonance support for a FEMME decision. Mirrors
+     * {@code _femme_requires_support_guardrail}.
+     *
+     * @param theF the feature vector.
+     * @return true if FEMME lacks support and should be downgraded.
+     */
+    private static boolean femmeRequiresSupport(final double[] theF) {
+        final double f0Med = v(theF, F0_MED);
+        final double f0Mean = v(theF, F0_MEAN_HZ);
+        final double f1 = v(theF, F1_MED);
+        final double f3f2 = v(theF, F3_OVER_F2);
+        final double f2f1 = v(theF, F2_OVER_F1);
+
+        final boolean strongPitch = f0Med >= 200 && f0Mean >= 205
+                && (v(theF, F0_P5_HZ) >= 175 || v(theF, F0_P5) >= 170);
+        final boolean pitchSupported = f0Med >= 175 && f0Mean >= 180;
+        final boolean voicingSupported = v(theF, VOICED_FRAC) >= (strongPitch ? 0.40 : 0.58);
+        final boolean noiseSupported = v(theF, HNR_MEAN_DB) >= 12.4;
+        final boolean resonanceSupported = f1 >= 450.0
+                || (f1 >= 410.0 && f3f2 >= 1.55)
+                || (f1 >= 410.0 && f2f1 >= 3.3 && f3f2 >= 1.52);
+
+        if (strongPitch) {
+            return count(voicingSupported, noiseSupported, resonanceSupported) < 2;
+        }
+        return count(pitchSupported, voicingSupported, resonanceSupported, noiseSupported) < 3;
+    }
+
+    /**
+     * Downgrades a confident MASC to ANDRO_MASC for soft-masc voices: masc resonance, a pitch
+     * center of 150-175 Hz and expressive prosody. Mirrors
+     * {@code _soft_masc_androgyny_guardrail}.
+     *
+     * @param theF     the feature vector.
+     * @param theMasc  the MASC probability.
+     * @param theFemme the FEMME probability.
+     * @return true if MASC should become ANDRO_MASC.
+     */
+    private static boolean softMascAndrogyny(final double[] theF, final double theMasc,
+                                             final double theFemme) {
+        final double f0Med = v(theF, F0_MED);
+        final boolean mascResonance = v(theF, F1_MED) <= 440.0;
+        final boolean softMascCenter = 150.0 <= f0Med && f0Med <= 175.0;
+        final boolean expressive = v(theF, RANGE_ST_5_95) >= 16.0
+                || v(theF, F0_SD_ST) >= 4.9
+                || v(theF, F0_P95) >= 185.0
+                || v(theF, F0_MAX_HZ) >= 430.0;
+        final boolean notExtremeMasc = (theMasc + EPS) / (theFemme + EPS) <= 4.5;
+
+        return mascResonance && softMascCenter && expressive && notExtremeMasc;
+    }
+
+    /**
+     * Reads a feature.
+     *
+     * @param theF       the feature vector.
+     * @param theFeature the feature.
+     * @return its value, NaN if missing.
+     */
+    private static double v(final double[] theF, final GenderFeature theFeature) {
+        return theF[theFeature.ordinal()];
+    }
+
+    /**
+     * Counts the satisfied conditions.
+     *
+     * @param theConditions the conditions.
+     * @return how many are true.
+     */
+    private static int count(final boolean... theConditions) {
+        int supports = 0;
+        for (final boolean condition : theConditions) {
+            supports += condition ? 1 : 0;
+        }
+        return supports;
+    }
+
+    /**
+     * Rounds to two decimals the way the script's round() on a numpy float64 does: scaled by
+     * 100, rounded half to even and scaled back. This differs from rounding the exact decimal
+     * value, e.g. 3.195 becomes 3.2 rather than 3.19.
+     *
+     * @param theValue the value.
+     * @return the rounded value.
+     */
+    private static double round2(final double theValue) {
+        return Math.rint(theValue * 100) / 100;
+    }
+
+    /**
+     * Shorthand for a prediction.
+     *
+     * @param theLabel the label.
+     * @param theScore the score.
+     * @return the prediction.
+     */
+    private static GenderModel.Prediction prediction(final String theLabel,
+                                                     final double theScore) {
+        return new GenderModel.Prediction(theLabel, theScore);
+    }
+}
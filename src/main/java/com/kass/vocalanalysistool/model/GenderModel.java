@@ -0,0 +1,294 @@
+package com.kass.vocalanalysistool.model;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Map;
+
+/**
+ * The gender perception model evaluated in the JVM.
+ *
+ * <p>Reads the pipeline exported by the python script's {@code export_model} (median
+ * imputation, standard scaling and logistic regression) and runs the same steps
+ * {@code __predict__} does: engineered pitch-support columns, caps, imputation, scaling, the
+ * logistic function and finally the {@link GenderGuardrails}. Scoring a feature row takes
+ * microseconds and needs neither python nor the CSV round trip.</p>
+ *
+ * @author Kassie Whitney
+ * @version 1/10/2026
+ */
+public final class GenderModel {
+
+    /**
+     * The exported model bundled with the python toolkit.
+     */
+    private static final String MODEL_RESOURCE = "/VocalAnalysisToolKit/gender_model.json";
+
+    /**
+     * The supported export format.
+     */
+    private static final int FORMAT = 1;
+
+    /**
+     * Guards the engineered ratio against a zero median, as the script does.
+     */
+    private static final double RATIO_EPS = 1e-6;
+
+    /**
+     * The bundled model, loaded on first use.
+     */
+    private static GenderModel BUNDLED;
+
+    /**
+     * Lower caps per feature (NaN when uncapped).
+     */
+    private final double[] myCapLow;
+
+    /**
+     * Upper caps per feature (NaN when uncapped).
+     */
+    private final double[] myCapHigh;
+
+    /**
+     * Imputer medians.
+     */
+    private final double[] myMedian;
+
+    /**
+     * Scaler means.
+     */
+    private final double[] myMean;
+
+    /**
+     * Scaler standard deviations.
+     */
+    private final double[] myScale;
+
+    /**
+     * Logistic regression weights.
+     */
+    private final double[] myCoefficients;
+
+    /**
+     * Logistic regression intercept.
+     */
+    private final double myIntercept;
+
+    /**
+     * Identifies the weights and the guardrail revision together.
+     */
+    private final String myVersion;
+
+    /**
+     * A prediction.
+     *
+     * @param theLabel the perception label, e.g. FEMME or ANDRO_MASC.
+     * @param theScore the score stored with the label.
+     */
+    public record Prediction(String theLabel, double theScore) { }
+
+    /**
+     * Builds the model from the JSON written by {@code export_model}.
+     *
+     * @param theExport the parsed export.
+     */
+    private GenderModel(final JsonObject theExport) {
+        final int n = GenderFeature.values().length;
+
+        final int format = theExport.get("format").getAsInt();
+        if (format != FORMAT) {
+            throw new IllegalStateException("Unsupported model format " + format);
+        }
+
+        final JsonArray features = theExport.getAsJsonArray("features");
+        if (features == null || features.size() != n) {
+            throw new IllegalStateException("The model expects " + features
+                    + " but the guardrails were written for " + Arrays.toString(
+                    GenderFeature.values()));
+        }
+        for (final GenderFeature feature : GenderFeature.values()) {
+            final String name = features.get(feature.ordinal()).getAsString();
+            if (!feature.columnName().equals(name)) {
+                throw new IllegalStateException("Model feature " + feature.ordinal() + " is "
+                        + name + ", expected " + feature.columnName());
+            }
+        }
+
+        myCapLow = new double[n];
+        myCapHigh = new double[n];
+        Arrays.fill(myCapLow, Double.NaN);
+        Arrays.fill(myCapHigh, Double.NaN);
+        final JsonObject caps = theExport.getAsJsonObject("caps");
+        if (caps != null) {
+            for (final GenderFeature feature : GenderFeature.values()) {
+                final JsonArray cap = caps.getAsJsonArray(feature.columnName());
+                if (cap != null) {
+                    myCapLow[feature.ordinal()] = cap.get(0).getAsDouble();
+                    myCapHigh[feature.ordinal()] = cap.get(1).getAsDouble();
+                }
+            }
+        }
+
+        myMedian = values(theExport, "impute_median", n);
+        myMean = values(theExport, "scaler_mean", n);
+        myScale = values(theExport, "scaler_scale", n);
+        myCoefficients = values(theExport, "coef", n);
+        myIntercept = theExport.get("intercept").getAsDouble();
+        myVersion = fingerprint();
+    }
+
+    /**
+     * Gets the model bundled with the application.
+     *
+     * @return the bundled model.
+     */
+    public static synchronized GenderModel bundled() {
+        if (BUNDLED == null) {
+            try (final InputStream in = GenderModel.class.getResourceAsStream(MODEL_RESOURCE)) {
+                if (in == null) {
+                    throw new IOException("Resource not found: " + MODEL_RESOURCE);
+                }
+                BUNDLED = load(new InputStreamReader(in, StandardCharsets.UTF_8));
+            } catch (final IOException theException) {
+                throw new IllegalStateException("Unable to load the gender model", theException);
+            }
+        }
+        return BUNDLED;
+    }
+
+    /**
+     * Reads an exported model.
+     *
+     * @param theReader the JSON written by {@code export_model}.
+     * @return the model.
+     */
+    public static GenderModel load(final Reader theReader) {
+        try {
+            return new GenderModel(JsonParser.parseReader(theReader).getAsJsonObject());
+        } catch (final RuntimeException theException) {
+            throw new IllegalStateException("Malformed gender model", theException);
+        }
+    }
+
+    /**
+     * Builds the model input from a feature row: the engineered pitch-support columns are
+     * derived and the caps applied. Missing features stay NaN for the imputer.
+     *
+     * @param theRow the feature row, keyed by the python column names.
+     * @return the feature vector in {@link GenderFeature} order.
+     */
+    public double[] vectorOf(final Map<String, Double> theRow) {
+        final double[] vector = new double[GenderFeature.values().length];
+        for (final GenderFeature feature : GenderFeature.values()) {
+            final Double value = theRow.get(feature.columnName());
+            vector[feature.ordinal()] = value == null ? Double.NaN : value;
+        }
+
+        final double f0Med = vector[GenderFeature.F0_MED.ordinal()];
+        final double f0P5 = vector[GenderFeature.F0_P5.ordinal()];
+        vector[GenderFeature.PITCH_SUPPORT_GAP_HZ.ordinal()] = f0Med - f0P5;
+        vector[GenderFeature.PITCH_SUPPORT_RATIO.ordinal()] =
+                (f0P5 + RATIO_EPS) / (f0Med + RATIO_EPS);
+
+        for (int i = 0; i < vector.length; i++) {
+            if (!Double.isNaN(myCapLow[i]) && !Double.isNaN(vector[i])) {
+                vector[i] = Math.min(Math.max(vector[i], myCapLow[i]), myCapHigh[i]);
+            }
+        }
+        return vector;
+    }
+
+    /**
+     * Runs the imputer, scaler and logistic regression.
+     *
+     * @param theVector a vector from {@link #vectorOf(Map)}.
+     * @return the probability of the FEMME class; MASC is one minus this.
+     */
+    public double femmeProbability(final double[] theVector) {
+        double logit = myIntercept;
+        for (int i = 0; i < theVector.length; i++) {
+            final double value = Double.isNaN(theVector[i]) ? myMedian[i] : theVector[i];
+            logit += myCoefficients[i] * (value - myMean[i]) / myScale[i];
+        }
+        return 1.0 / (1.0 + Math.exp(-logit));
+    }
+
+    /**
+     * Scores a feature row exactly like the python script's {@code __predict__}.
+     *
+     * @param theRow the feature row, keyed by the python column names.
+     * @return the label and score.
+     */
+    public Prediction predict(final Map<String, Double> theRow) {
+        final double[] vector = vectorOf(theRow);
+        final double femme = femmeProbability(vector);
+        return GenderGuardrails.apply(vector, 1.0 - femme, femme);
+    }
+
+    /**
+     * Gets the version of the scores this model gives: a digest of its weights and caps and
+     * the revision of the {@link GenderGuardrails}. Two models with the same version score
+     * every feature row alike.
+     *
+     * @return the version, as hex.
+     */
+    public String getVersion() {
+        return myVersion;
+    }
+
+    /**
+     * Digests the weights, caps and guardrail revision.
+     *
+     * @return the digest, as hex.
+     */
+    private String fingerprint() {
+        final ByteBuffer values = ByteBuffer.allocate(Double.BYTES
+                * (myCapLow.length * 6 + 1) + Integer.BYTES);
+        for (final double[] array : new double[][]{myCapLow, myCapHigh, myMedian, myMean,
+                myScale, myCoefficients}) {
+            for (final double value : array) {
+                values.putDouble(value);
+            }
+        }
+        values.putDouble(myIntercept).putInt(GenderGuardrails.VERSION);
+
+        try {
+            return HexFormat.of().formatHex(
+                    MessageDigest.getInstance("SHA-256").digest(values.array()));
+        } catch (final NoSuchAlgorithmException theException) {
+            throw new IllegalStateException("SHA-256 is not available", theException);
+        }
+    }
+
+    /**
+     * Reads an exported array.
+     *
+     * @param theExport the export.
+     * @param theName   the JSON key.
+     * @param theLength the expected length.
+     * @return the values.
+     */
+    private static double[] values(final JsonObject theExport, final String theName,
+                                   final int theLength) {
+        final JsonArray array = theExport.getAsJsonArray(theName);
+        if (array == null || array.size() != theLength) {
+            throw new IllegalStateException("Model field " + theName + " must have "
+                    + theLength + " values");
+        }
+        final double[] values = new double[theLength];
+        for (int i = 0; i < theLength; i++) {
+            values[i] = array.get(i).getAsDouble();
+        }
+        return values;
+    }
+}
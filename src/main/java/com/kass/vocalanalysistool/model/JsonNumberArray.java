@@ -0,0 +1,310 @@
+package com.kass.vocalanalysistool.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Parses the JSON number arrays the python script writes, such as {@code [0.01, 0.02, 1e-05]},
+ * into a primitive buffer that is reused from one array to the next.
+ *
+ * <p>The column's UTF-8 bytes are read as they are, without building a {@code String} or
+ * boxing a value. A number whose digits fit a double exactly and whose exponent is at most
+ * 22 is computed from its digits with one correctly rounded operation; the rare rest, like
+ * the 17 digit reprs python writes for some values, fall back to
+ * {@link Double#parseDouble}. {@code null}, {@code NaN} and {@code Infinity}, which python's
+ * json module writes for non-finite floats, are read as NaN and infinities.</p>
+ *
+ * <p>An instance is not thread safe; each database connection keeps its own.</p>
+ *
+ * @author Kassie Whitney
+ * @version 1/10/2026
+ */
+final class JsonNumberArray {
+
+    /**
+     * The powers of ten a double holds exactly.
+     */
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    /**
+     * Largest mantissa a double holds exactly.
+     */
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    /**
+     * Most digits accumulated before the mantissa could overflow a long.
+     */
+    private static final int MAX_DIGITS = 18;
+
+    /**
+     * The values of the last array parsed, followed by stale ones.
+     */
+    private double[] myValues = new double[1024];
+
+    /**
+     * Number of values in the last array parsed.
+     */
+    private int mySize;
+
+    /**
+     * The bytes being parsed.
+     */
+    private byte[] myJson;
+
+    /**
+     * Position in {@link #myJson}.
+     */
+    private int myPos;
+
+    /**
+     * Parses an array, replacing the values of the previous one.
+     *
+     * @param theJson the UTF-8 bytes of the array.
+     * @return the number of values.
+     * @throws IllegalArgumentException if the bytes are not a JSON array of numbers.
+     */
+    int parse(final byte[] theJson) {
+        myJson = theJson;
+        myPos = 0;
+        mySize = 0;
+        try {
+            skipSpace();
+            expect('[');
+            skipSpace();
+            if (peek() == ']') {
+                myPos++;
+            } else {
+                while (true) {
+                    add(value());
+                    skipSpace();
+                    final int separator = next();
+                    if (separator == ']') {
+                        break;
+                    }
+                    if (separator != ',') {
+                        throw error("expected , or ]");
+                    }
+                    skipSpace();
+                }
+            }
+            skipSpace();
+            if (myPos != theJson.length) {
+                throw error("trailing characters");
+            }
+            return mySize;
+        } finally {
+            myJson = null;
+        }
+    }
+
+    /**
+     * Gets the number of values in the last array parsed.
+     *
+     * @return the count.
+     */
+    int size() {
+        return mySize;
+    }
+
+    /**
+     * Gets the buffer holding the last array parsed. It is overwritten by the next parse.
+     *
+     * @return the buffer; only the first {@link #size()} values belong to the array.
+     */
+    double[] values() {
+        return myValues;
+    }
+
+    /**
+     * Copies the last array parsed.
+     *
+     * @return a new array of exactly {@link #size()} values.
+     */
+    double[] toArray() {
+        return Arrays.copyOf(myValues, mySize);
+    }
+
+    /**
+     * Appends a value, growing the buffer if it is full.
+     *
+     * @param theValue the value.
+     */
+    private void add(final double theValue) {
+        if (mySize == myValues.length) {
+            myValues = Arrays.copyOf(myValues, 2 * myValues.length);
+        }
+        myValues[mySize++] = theValue;
+    }
+
+    /**
+     * Parses one array element.
+     *
+     * @return the value.
+     */
+    private double value() {
+        final int start = myPos;
+        final boolean negative = peek() == '-';
+        if (negative) {
+            myPos++;
+        }
+        switch (peek()) {
+            case 'n':
+                literal("null");
+                return Double.NaN;
+            case 'N':
+                literal("NaN");
+                return Double.NaN;
+            case 'I':
+                literal("Infinity");
+                return negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+            default:
+                break;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean exact = true;
+        boolean any = false;
+
+        while (isDigit(peek())) {
+            any = true;
+            final int digit = next() - '0';
+            if (digits < MAX_DIGITS) {
+                mantissa = 10 * mantissa + digit;
+                if (mantissa != 0) {
+                    digits++;
+                }
+            } else {
+                exponent++;
+                exact &= digit == 0;
+            }
+        }
+        if (peek() == '.') {
+            myPos++;
+            while (isDigit(peek())) {
+                any = true;
+                final int digit = next() - '0';
+                if (digits < MAX_DIGITS) {
+                    mantissa = 10 * mantissa + digit;
+                    exponent--;
+                    if (mantissa != 0) {
+                        digits++;
+                    }
+                } else {
+                    exact &= digit == 0;
+                }
+            }
+        }
+        if (!any) {
+            throw error("expected a number");
+        }
+        if (peek() == 'e' || peek() == 'E') {
+            myPos++;
+            final boolean negativeExponent = peek() == '-';
+            if (peek() == '-' || peek() == '+') {
+                myPos++;
+            }
+            if (!isDigit(peek())) {
+                throw error("expected an exponent");
+            }
+            int power = 0;
+            while (isDigit(peek())) {
+                // Saturate; anything this large is out of range either way
+                power = Math.min(10 * power + next() - '0', 100_000);
+            }
+            exponent += negativeExponent ? -power : power;
+        }
+
+        if (mantissa == 0) {
+            return negative ? -0.0 : 0.0;
+        }
+        if (exact && mantissa <= MAX_EXACT_MANTISSA
+                && Math.abs(exponent) < POWERS_OF_TEN.length) {
+            // Both operands are exact, so the one rounding of the product is correct
+            final double value = exponent >= 0 ? mantissa * POWERS_OF_TEN[exponent]
+                    : mantissa / POWERS_OF_TEN[-exponent];
+            return negative ? -value : value;
+        }
+        return Double.parseDouble(new String(myJson, start, myPos - start,
+                StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Consumes a keyword.
+     *
+     * @param theWord the keyword.
+     */
+    private void literal(final String theWord) {
+        for (int i = 0; i < theWord.length(); i++) {
+            if (next() != theWord.charAt(i)) {
+                throw error("expected " + theWord);
+            }
+        }
+    }
+
+    /**
+     * Consumes an expected character.
+     *
+     * @param theChar the character.
+     */
+    private void expect(final char theChar) {
+        if (next() != theChar) {
+            throw error("expected " + theChar);
+        }
+    }
+
+    /**
+     * Skips JSON whitespace.
+     */
+    private void skipSpace() {
+        while (myPos < myJson.length) {
+            final byte b = myJson[myPos];
+            if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+                return;
+            }
+            myPos++;
+        }
+    }
+
+    /**
+     * Looks at the next character.
+     *
+     * @return the character, or -1 at the end.
+     */
+    private int peek() {
+        return myPos < myJson.length ? myJson[myPos] : -1;
+    }
+
+    /**
+     * Consumes the next character.
+     *
+     * @return the character, or -1 at the end.
+     */
+    private int next() {
+        return myPos < myJson.length ? myJson[myPos++] : -1;
+    }
+
+    /**
+     * Tells whether a character is a decimal digit.
+     *
+     * @param theChar the character.
+     * @return true for 0-9.
+     */
+    private static boolean isDigit(final int theChar) {
+        return theChar >= '0' && theChar <= '9';
+    }
+
+    /**
+     * Builds the error for malformed input.
+     *
+     * @param theProblem what was wrong.
+     * @return the exception.
+     */
+    private IllegalArgumentException error(final String theProblem) {
+        return new IllegalArgumentException("Malformed number array at " + myPos + ": "
+                + theProblem);
+    }
+}
@@ -0,0 +1,494 @@
+package com.kass.vocalanalysistool.model;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A mergeable quantile sketch of a stream of values, after Karnin, Lang and Liberty (KLL).
+ *
+ * <p>Values are kept in levels of float arrays; an item on level h stands for 2^h values.
+ * When a level outgrows its capacity it is sorted and every other item is promoted to the
+ * next level, so memory stays bounded by about 3k floats however many values are added, and
+ * a quantile is off by a rank error of well under 1% for the default k. Until the bottom level
+ * first fills, nothing has been compacted and quantiles are exact, with the linear
+ * interpolation numpy uses by default.</p>
+ *
+ * <p>Two sketches with the same k merge into one that summarizes both streams, so frames,
+ * segments, sessions and days can each keep a sketch and combine them later without the raw
+ * values. {@link #toBytes()} stores a sketch in a few bytes per retained item.</p>
+ *
+ * <p>Compaction alternates which half it keeps instead of flipping a coin, so the same input
+ * always gives the same sketch. Sketches are not thread safe.</p>
+ *
+ * @author Kassie Whitney
+ * @version 1/10/2026
+ */
+public final class QuantileSketch {
+
+    /**
+     * Capacity of the top level, the k of the sketch.
+     */
+    public static final int DEFAULT_K = 1024;
+
+    /**
+     * Smallest allowed k.
+     */
+    private static final int MIN_K = 8;
+
+    /**
+     * Each level below the top holds this share of the level above it.
+     */
+    private static final double LEVEL_SHRINK = 2.0 / 3.0;
+
+    /**
+     * Smallest capacity of a level.
+     */
+    private static final int MIN_LEVEL_CAPACITY = 8;
+
+    /**
+     * First byte of the serialized form.
+     */
+    private static final byte FORMAT_VERSION = 1;
+
+    /**
+     * Capacity of the top level.
+     */
+    private final int myK;
+
+    /**
+     * The items of each level; only the first {@code mySizes[h]} of level h are used.
+     */
+    private float[][] myLevels = new float[1][];
+
+    /**
+     * Items held per level.
+     */
+    private int[] mySizes = new int[1];
+
+    /**
+     * Items held in all levels.
+     */
+    private int myRetained;
+
+    /**
+     * Sum of the level capacities; reaching it triggers a compaction.
+     */
+    private int myMaxRetained;
+
+    /**
+     * Which half the next compaction of a level keeps, one bit per level.
+     */
+    private long myParity;
+
+    /**
+     * Values added.
+     */
+    private long myCount;
+
+    /**
+     * The smallest value added.
+     */
+    private double myMin = Double.NaN;
+
+    /**
+     * The largest value added.
+     */
+    private double myMax = Double.NaN;
+
+    /**
+     * The retained items sorted by value, or null after a change.
+     */
+    private float[] mySortedValues;
+
+    /**
+     * The weight of each item in {@link #mySortedValues}.
+     */
+    private long[] mySortedWeights;
+
+    /**
+     * Creates an empty sketch with the default k.
+     */
+    public QuantileSketch() {
+        this(DEFAULT_K);
+    }
+
+    /**
+     * Creates an empty sketch.
+     *
+     * @param theK the capacity of the top level; larger is more accurate and larger.
+     * @throws IllegalArgumentException if theK is below 8.
+     */
+    public QuantileSketch(final int theK) {
+        if (theK < MIN_K) {
+            throw new IllegalArgumentException("k must be at least " + MIN_K + ": " + theK);
+        }
+        myK = theK;
+        myLevels[0] = new float[MIN_LEVEL_CAPACITY];
+        myMaxRetained = capacity(0);
+    }
+
+    /**
+     * Adds a value. NaN is ignored.
+     *
+     * @param theValue the value.
+     */
+    public void add(final double theValue) {
+        if (Double.isNaN(theValue)) {
+            return;
+        }
+        if (myCount == 0) {
+            myMin = theValue;
+            myMax = theValue;
+        } else {
+            myMin = Math.min(myMin, theValue);
+            myMax = Math.max(myMax, theValue);
+        }
+        myCount++;
+        mySortedValues = null;
+
+        if (mySizes[0] == myLevels[0].length) {
+            myLevels[0] = Arrays.copyOf(myLevels[0], 2 * mySizes[0]);
+        }
+        myLevels[0][mySizes[0]++] = (float) theValue;
+        if (++myRetained >= myMaxRetained) {
+            compress();
+        }
+    }
+
+    /**
+     * Adds every value of another sketch to this one. The other sketch is left unchanged.
+     *
+     * @param theOther the sketch to merge in.
+     * @throws IllegalArgumentException if the sketches have different k.
+     */
+    public void merge(final QuantileSketch theOther) {
+        if (theOther.myK != myK) {
+            throw new IllegalArgumentException("Can not merge sketches with k " + myK
+                    + " and " + theOther.myK);
+        }
+        if (theOther.myCount == 0) {
+            return;
+        }
+        if (myCount == 0) {
+            myMin = theOther.myMin;
+            myMax = theOther.myMax;
+        } else {
+            myMin = Math.min(myMin, theOther.myMin);
+            myMax = Math.max(myMax, theOther.myMax);
+        }
+        myCount += theOther.myCount;
+        mySortedValues = null;
+
+        while (myLevels.length < theOther.myLevels.length) {
+            grow();
+        }
+        for (int h = 0; h < theOther.myLevels.length; h++) {
+            append(h, theOther.myLevels[h], theOther.mySizes[h]);
+        }
+        while (myRetained >= myMaxRetained) {
+            compress();
+        }
+    }
+
+    /**
+     * Gets the number of values added.
+     *
+     * @return the count.
+     */
+    public long count() {
+        return myCount;
+    }
+
+    /**
+     * Tells whether no value was added.
+     *
+     * @return true if the sketch is empty.
+     */
+    public boolean isEmpty() {
+        return myCount == 0;
+    }
+
+    /**
+     * Tells whether nothing has been compacted yet, so the sketch still holds every value
+     * (as a float) and its quantiles are exact up to that rounding.
+     *
+     * @return true if every value added is still retained.
+     */
+    public boolean isExact() {
+        return myRetained == myCount;
+    }
+
+    /**
+     * Gets the smallest value added, exactly.
+     *
+     * @return the minimum, or NaN if the sketch is empty.
+     */
+    public double min() {
+        return myMin;
+    }
+
+    /**
+     * Gets the largest value added, exactly.
+     *
+     * @return the maximum, or NaN if the sketch is empty.
+     */
+    public double max() {
+        return myMax;
+    }
+
+    /**
+     * Estimates a quantile with linear interpolation between neighbouring ranks.
+     *
+     * @param theFraction the quantile, 0 to 1; 0.5 is the median.
+     * @return the estimate, or NaN if the sketch is empty.
+     * @throws IllegalArgumentException if theFraction is outside 0 to 1.
+     */
+    public double quantile(final double theFraction) {
+        if (!(theFraction >= 0 && theFraction <= 1)) {
+            throw new IllegalArgumentException("A quantile lies between 0 and 1: "
+                    + theFraction);
+        }
+        if (myCount == 0) {
+            return Double.NaN;
+        }
+        if (theFraction == 0) {
+            return myMin;
+        }
+        if (theFraction == 1) {
+            return myMax;
+        }
+        sort();
+
+        final long total = totalWeight();
+        final double position = theFraction * (total - 1);
+        final long low = (long) Math.floor(position);
+        final double lowValue = valueAtRank(low);
+        if (position == low) {
+            return lowValue;
+        }
+        return lowValue + (valueAtRank(low + 1) - lowValue) * (position - low);
+    }
+
+    /**
+     * Serializes the sketch.
+     *
+     * @return the bytes, to be read back with {@link #fromBytes(byte[])}.
+     */
+    public byte[] toBytes() {
+        final ByteBuffer buffer = ByteBuffer.allocate(1 + 4 + 8 + 8 + 8 + 8 + 1
+                + 4 * myLevels.length + 4 * myRetained);
+        buffer.put(FORMAT_VERSION).putInt(myK).putLong(myCount).putDouble(myMin)
+                .putDouble(myMax).putLong(myParity).put((byte) myLevels.length);
+        for (int h = 0; h < myLevels.length; h++) {
+            buffer.putInt(mySizes[h]);
+            for (int i = 0; i < mySizes[h]; i++) {
+                buffer.putFloat(myLevels[h][i]);
+            }
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Reads a sketch written by {@link #toBytes()}.
+     *
+     * @param theBytes the serialized sketch.
+     * @return the sketch.
+     * @throws IllegalArgumentException if the bytes are not a sketch.
+     */
+    public static QuantileSketch fromBytes(final byte[] theBytes) {
+        try {
+            final ByteBuffer buffer = ByteBuffer.wrap(theBytes);
+            final byte version = buffer.get();
+            if (version != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unknown sketch format " + version);
+            }
+            final QuantileSketch sketch = new QuantileSketch(buffer.getInt());
+            sketch.myCount = buffer.getLong();
+            sketch.myMin = buffer.getDouble();
+            sketch.myMax = buffer.getDouble();
+            sketch.myParity = buffer.getLong();
+            final int levels = buffer.get();
+            if (levels < 1 || levels > Long.SIZE) {
+                throw new IllegalArgumentException("Corrupt sketch: " + levels + " levels");
+            }
+            while (sketch.myLevels.length < levels) {
+                sketch.grow();
+            }
+            for (int h = 0; h < levels; h++) {
+                final int size = buffer.getInt();
+                if (size < 0 || size > buffer.remaining() / 4) {
+                    throw new IllegalArgumentException("Corrupt sketch: level " + h
+                            + " holds " + size + " items");
+                }
+                final float[] items = new float[size];
+                for (int i = 0; i < size; i++) {
+                    items[i] = buffer.getFloat();
+                }
+                sketch.append(h, items, size);
+            }
+            if (buffer.hasRemaining()) {
+                throw new IllegalArgumentException("Corrupt sketch: trailing bytes");
+            }
+            return sketch;
+        } catch (final BufferUnderflowException theException) {
+            throw new IllegalArgumentException("Corrupt sketch: truncated", theException);
+        }
+    }
+
+    /**
+     * Compacts the lowest full level and, as long as the sketch is still over its total
+     * capacity, the levels above it.
+     */
+    private void compress() {
+        for (int h = 0; h < myLevels.length; h++) {
+            if (mySizes[h] >= capacity(h)) {
+                if (h + 1 == myLevels.length) {
+                    grow();
+                }
+                compact(h);
+                if (myRetained < myMaxRetained) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Sorts a level and promotes every other item of an even-length run to the level above.
+     * An odd item stays behind, so no weight is lost.
+     *
+     * @param theLevel the level.
+     */
+    private void compact(final int theLevel) {
+        final float[] items = myLevels[theLevel];
+        final int size = mySizes[theLevel];
+        Arrays.sort(items, 0, size);
+
+        final int pairs = size / 2;
+        final int offset = (int) ((myParity >>> theLevel) & 1);
+        myParity ^= 1L << theLevel;
+
+        final float[] promoted = new float[pairs];
+        for (int i = 0; i < pairs; i++) {
+            promoted[i] = items[2 * i + offset];
+        }
+        if ((size & 1) == 1) {
+            items[0] = items[size - 1];
+        }
+        mySizes[theLevel] = size & 1;
+        myRetained -= size - (size & 1);
+        append(theLevel + 1, promoted, pairs);
+    }
+
+    /**
+     * Appends items to a level, growing its array if needed.
+     *
+     * @param theLevel the level.
+     * @param theItems the items.
+     * @param theCount the number of items to take from theItems.
+     */
+    private void append(final int theLevel, final float[] theItems, final int theCount) {
+        final int size = mySizes[theLevel];
+        if (size + theCount > myLevels[theLevel].length) {
+            myLevels[theLevel] = Arrays.copyOf(myLevels[theLevel],
+                    Math.max(size + theCount, capacity(theLevel)));
+        }
+        System.arraycopy(theItems, 0, myLevels[theLevel], size, theCount);
+        mySizes[theLevel] = size + theCount;
+        myRetained += theCount;
+    }
+
+    /**
+     * Adds a level on top.
+     */
+    private void grow() {
+        if (myLevels.length == Long.SIZE) {
+            throw new IllegalStateException("The sketch can not hold more values");
+        }
+        myLevels = Arrays.copyOf(myLevels, myLevels.length + 1);
+        mySizes = Arrays.copyOf(mySizes, mySizes.length + 1);
+        myLevels[myLevels.length - 1] = new float[0];
+
+        myMaxRetained = 0;
+        for (int h = 0; h < myLevels.length; h++) {
+            myMaxRetained += capacity(h);
+        }
+    }
+
+    /**
+     * Gets the capacity of a level; lower levels are smaller, since their items weigh less.
+     *
+     * @param theLevel the level.
+     * @return the number of items the level holds before it is compacted.
+     */
+    private int capacity(final int theLevel) {
+        final int depth = myLevels.length - 1 - theLevel;
+        return Math.max(MIN_LEVEL_CAPACITY, (int) Math.ceil(myK * Math.pow(LEVEL_SHRINK,
+                depth)));
+    }
+
+    /**
+     * Gets the number of values the retained items stand for.
+     *
+     * @return the total weight, equal to the count.
+     */
+    private long totalWeight() {
+        long total = 0;
+        for (final long weight : mySortedWeights) {
+            total += weight;
+        }
+        return total;
+    }
+
+    /**
+     * Finds the value at a rank of the weighted, sorted items.
+     *
+     * @param theRank the rank, 0 for the smallest.
+     * @return the value of the item covering the rank.
+     */
+    private double valueAtRank(final long theRank) {
+        long covered = 0;
+        for (int i = 0; i < mySortedValues.length; i++) {
+            covered += mySortedWeights[i];
+            if (theRank < covered) {
+                return mySortedValues[i];
+            }
+        }
+        return mySortedValues[mySortedValues.length - 1];
+    }
+
+    /**
+     * Merges the sorted levels into one weighted sorted list, unless it is still current.
+     */
+    private void sort() {
+        if (mySortedValues != null) {
+            return;
+        }
+        float[] values = new float[0];
+        long[] weights = new long[0];
+        for (int h = 0; h < myLevels.length; h++) {
+            final float[] level = Arrays.copyOf(myLevels[h], mySizes[h]);
+            Arrays.sort(level);
+            final long weight = 1L << h;
+
+            final float[] mergedValues = new float[values.length + level.length];
+            final long[] mergedWeights = new long[mergedValues.length];
+            int a = 0;
+            int b = 0;
+            for (int i = 0; i < mergedValues.length; i++) {
+                if (b == level.length || a < values.length && values[a] <= level[b]) {
+                    mergedValues[i] = values[a];
+                    mergedWeights[i] = weights[a++];
+                } else {
+                    mergedValues[i] = level[b++];
+                    mergedWeights[i] = weight;
+                }
+            }
+            values = mergedValues;
+            weights = mergedWeights;
+        }
+        mySortedValues = values;
+        mySortedWeights = weights;
+    }
+}
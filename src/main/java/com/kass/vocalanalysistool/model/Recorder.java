@@ -1,6 +1,9 @@
 package com.kass.vocalanalysistool.model;
 
 import com.kass.vocalanalysistool.common.ChangeEvents;
+import com.kass.vocalanalysistool.model.audio.CaptureEngine;
+import com.kass.vocalanalysistool.model.audio.PcmConsumer;
+import com.kass.vocalanalysistool.model.audio.WavFileWriter;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
@@ -14,9 +17,7 @@ import javafx.animation.Animation;
 import javafx.animation.KeyFrame;
 import javafx.animation.Timeline;
 import javafx.util.Duration;
-import javax.sound.sampled.AudioFileFormat;
 import javax.sound.sampled.AudioFormat;
-import javax.sound.sampled.AudioInputStream;
 import javax.sound.sampled.AudioSystem;
 import javax.sound.sampled.DataLine;
 import javax.sound.sampled.LineUnavailableException;
@@ -84,18 +85,24 @@ public class Recorder implements PropertyChangeListener {
     private static TargetDataLine LINE;
 
     /**
-     * Reads bytes from the live mic line
+     * Length of a capture chunk; short enough for live meters to stay responsive
      */
-    private static AudioInputStream INPUT_STREAM;
+    private static final int CHUNK_MILLIS = 10;
 
     /**
-     * The file that the audio data will be recorded on
+     * Fans the live mic audio out to the WAV writer and any other consumer
      */
-    private static File AUDIO_FILE;
+    private final CaptureEngine myCaptureEngine = new CaptureEngine(FORMAT, CHUNK_MILLIS,
+            CaptureEngine.DEFAULT_BUFFER_SECONDS);
 
     private Path myAudioPath;
     private MediaPlayer myPlayer;
 
+    /**
+     * Saves the microphone audio to {@link #myAudioPath}
+     */
+    private WavFileWriter myWriter;
+
 
     /**
      * The constructor
@@ -105,11 +112,11 @@ public class Recorder implements PropertyChangeListener {
 
             LINE = (TargetDataLine) AudioSystem.getLine(INFO);
 
-            INPUT_STREAM = new AudioInputStream(LINE);
             myAudioPath = Path.of(System.getProperty("user.home"),
                     "VocalAnalysisTool", "Vocal_Sample.wav");
             Files.createDirectories(myAudioPath.getParent());
-            AUDIO_FILE = myAudioPath.toFile();
+            myWriter = new WavFileWriter(myAudioPath);
+            myCaptureEngine.subscribe(myWriter);
 
         } catch (final LineUnavailableException theException) {
             throwLineError();
@@ -137,6 +144,11 @@ public class Recorder implements PropertyChangeListener {
      * Increments the seconds field
      */
     private void tick() {
+        if (myCaptureEngine.isRunning() && myCaptureEngine.failureOf(myWriter) != null) {
+            // The file can not be written, so keeping the microphone open is pointless
+            stopRecording();
+            return;
+        }
         SEC++;
         myChanges.firePropertyChange(ChangeEvents.SEC.toString(), null, numToString(SEC));
         if (SEC == 60) {
@@ -175,18 +187,7 @@ public class Recorder implements PropertyChangeListener {
     private void startRecording() {
         try {
             LINE.open(FORMAT);
-            LINE.start();
-
-            Thread writer = new Thread(() -> {
-                try {
-
-                    AudioSystem.write(INPUT_STREAM, AudioFileFormat.Type.WAVE, AUDIO_FILE);
-                } catch (final IOException theException) {
-                    LOGGER.log(Level.SEVERE, theException.getMessage());
-                }
-            }, "wav-writer");
-
-            writer.start();
+            myCaptureEngine.start(LINE);
 
         } catch (LineUnavailableException e) {
             throwLineError();
@@ -195,12 +196,20 @@ public class Recorder implements PropertyChangeListener {
 
 
     /**
-     * Stops the recording.
+     * Stops the recording and tells the viewer if the file could not be written.
      */
     private void stopRecording() {
-        LINE.stop();
-        LINE.close();
+        final boolean recording = myCaptureEngine.isRunning();
+        // Returns once the WAV file is complete
+        myCaptureEngine.stop();
         stopTimer();
+
+        final Exception failure = myCaptureEngine.failureOf(myWriter);
+        if (recording && failure != null) {
+            myChanges.firePropertyChange(ChangeEvents.RECORDING_FAILED.name(), null,
+                    "The recording could not be saved to " + myAudioPath + ":\n"
+                            + failure.getMessage());
+        }
     }
 
     /**
@@ -267,6 +276,25 @@ public class Recorder implements PropertyChangeListener {
     }
 
 
+    /**
+     * Lets another component (a meter, a live analyzer) receive the microphone audio while it
+     * is being recorded. The consumer runs on its own thread and never delays the recording.
+     *
+     * @param theConsumer the consumer.
+     */
+    public void addPcmConsumer(final PcmConsumer theConsumer) {
+        myCaptureEngine.subscribe(theConsumer);
+    }
+
+    /**
+     * Stops sending the microphone audio to a consumer.
+     *
+     * @param theConsumer the consumer.
+     */
+    public void removePcmConsumer(final PcmConsumer theConsumer) {
+        myCaptureEngine.unsubscribe(theConsumer);
+    }
+
     /**
      * Adds an external component as a listener to this model.
      *
@@ -291,6 +319,11 @@ public class Recorder implements PropertyChangeListener {
     public void propertyChange(final PropertyChangeEvent theEvent) {
         switch (theEvent.getPropertyName()) {
             case "START_RECORDING": {
+                if (myPlayer != null) {
+                    // The player keeps the last take open, which blocks overwriting it on Windows
+                    myPlayer.dispose();
+                    myPlayer = null;
+                }
                 startTimer();
                 startRecording();
                 break;
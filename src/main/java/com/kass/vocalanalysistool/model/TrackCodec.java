@@ -0,0 +1,313 @@
+package com.kass.vocalanalysistool.model;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Binary encoding of the per-frame tracks (time, F0, F1, F2) stored in the database.
+ *
+ * <p>A track is a 12-byte header followed by its payload:</p>
+ * <pre>
+ *   byte    format version (1)
+ *   byte    encoding: 0 = float32, 1 = delta fixed point
+ *   byte    flags: bit 0 set when the payload is deflated
+ *   byte    reserved (0)
+ *   int32   number of values, little-endian
+ *   int32   fixed point scale (values per unit), 0 for float32
+ * </pre>
+ *
+ * <p>Fixed point stores round(value * scale) as the zigzag varint of its difference to the
+ * previous value. Times advance in whole 10 ms steps and formants move a few Hz per frame, so
+ * most values take one or two bytes before deflate squeezes the runs. Tracks with NaN or
+ * values too large for the scale fall back to float32. The python script's
+ * {@code encode_track} and {@code decode_track} implement the same format; keep them in
+ * step.</p>
+ *
+ * @author Kassie Whitney
+ * @version 1/10/2026
+ */
+public final class TrackCodec {
+
+    /**
+     * Fixed point steps per Hz or per second: 0.01, the precision the script rounds times to.
+     */
+    public static final int SCALE = 100;
+
+    /**
+     * The format version written in the first byte.
+     */
+    private static final byte VERSION = 1;
+
+    /**
+     * Encoding of raw little-endian float32 values.
+     */
+    private static final byte FLOAT32 = 0;
+
+    /**
+     * Encoding of zigzag varint deltas of fixed point values.
+     */
+    private static final byte DELTA_FIXED = 1;
+
+    /**
+     * Flag of a deflated payload.
+     */
+    private static final byte DEFLATED = 1;
+
+    /**
+     * Header length in bytes.
+     */
+    private static final int HEADER_BYTES = 12;
+
+    /**
+     * Payloads shorter than this are not worth deflating.
+     */
+    private static final int MIN_DEFLATE_BYTES = 64;
+
+    /**
+     * Largest fixed point magnitude that still fits a long after differencing.
+     */
+    private static final double MAX_FIXED = 1L << 52;
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private TrackCodec() {
+    }
+
+    /**
+     * Encodes a track.
+     *
+     * @param theValues the values.
+     * @return the encoded track.
+     */
+    public static byte[] encode(final double[] theValues) {
+        return encode(theValues, theValues.length);
+    }
+
+    /**
+     * Encodes the first values of a buffer as a track.
+     *
+     * @param theValues the buffer.
+     * @param theCount  the number of values to encode.
+     * @return the encoded track.
+     */
+    public static byte[] encode(final double[] theValues, final int theCount) {
+        boolean fixed = true;
+        for (int i = 0; i < theCount; i++) {
+            if (!(Math.abs(theValues[i] * SCALE) < MAX_FIXED)) {
+                fixed = false;
+                break;
+            }
+        }
+
+        final byte[] payload = fixed ? deltas(theValues, theCount)
+                : floats(theValues, theCount);
+        byte flags = 0;
+        byte[] body = payload;
+        if (payload.length >= MIN_DEFLATE_BYTES) {
+            final byte[] deflated = deflate(payload);
+            if (deflated.length < payload.length) {
+                body = deflated;
+                flags = DEFLATED;
+            }
+        }
+
+        final ByteBuffer out = ByteBuffer.allocate(HEADER_BYTES + body.length)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        out.put(VERSION).put(fixed ? DELTA_FIXED : FLOAT32).put(flags).put((byte) 0)
+                .putInt(theCount).putInt(fixed ? SCALE : 0).put(body);
+        return out.array();
+    }
+
+    /**
+     * Decodes a track.
+     *
+     * @param theTrack the encoded track.
+     * @return the values.
+     * @throws IllegalArgumentException if the bytes are not an encoded track.
+     */
+    public static double[] decode(final byte[] theTrack) {
+        if (theTrack == null || theTrack.length < HEADER_BYTES) {
+            throw new IllegalArgumentException("Not an encoded track");
+        }
+        final ByteBuffer header = ByteBuffer.wrap(theTrack).order(ByteOrder.LITTLE_ENDIAN);
+        final byte version = header.get();
+        final byte encoding = header.get();
+        final byte flags = header.get();
+        header.get();
+        final int count = header.getInt();
+        final int scale = header.getInt();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unknown track format " + version);
+        }
+        if (count < 0) {
+            throw new IllegalArgumentException("Corrupt track: " + count + " values");
+        }
+
+        byte[] payload = Arrays.copyOfRange(theTrack, HEADER_BYTES, theTrack.length);
+        if ((flags & DEFLATED) != 0) {
+            payload = inflate(payload, encoding == FLOAT32 ? 4L * count : 10L * count);
+        }
+        return switch (encoding) {
+            case FLOAT32 -> fromFloats(payload, count);
+            case DELTA_FIXED -> fromDeltas(payload, count, scale);
+            default -> throw new IllegalArgumentException("Unknown track encoding " + encoding);
+        };
+    }
+
+    /**
+     * Writes the values as float32.
+     *
+     * @param theValues the values.
+     * @param theCount  the number of values.
+     * @return the payload.
+     */
+    private static byte[] floats(final double[] theValues, final int theCount) {
+        final ByteBuffer out = ByteBuffer.allocate(4 * theCount)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < theCount; i++) {
+            out.putFloat((float) theValues[i]);
+        }
+        return out.array();
+    }
+
+    /**
+     * Reads float32 values.
+     *
+     * @param thePayload the payload.
+     * @param theCount   the number of values.
+     * @return the values.
+     */
+    private static double[] fromFloats(final byte[] thePayload, final int theCount) {
+        if (thePayload.length != 4L * theCount) {
+            throw new IllegalArgumentException("Corrupt track: " + thePayload.length
+                    + " bytes for " + theCount + " floats");
+        }
+        final ByteBuffer in = ByteBuffer.wrap(thePayload).order(ByteOrder.LITTLE_ENDIAN);
+        final double[] values = new double[theCount];
+        for (int i = 0; i < theCount; i++) {
+            values[i] = in.getFloat();
+        }
+        return values;
+    }
+
+    /**
+     * Writes the values as zigzag varint deltas of their fixed point form.
+     *
+     * @param theValues the values.
+     * @param theCount  the number of values.
+     * @return the payload.
+     */
+    private static byte[] deltas(final double[] theValues, final int theCount) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(2 * theCount);
+        long previous = 0;
+        for (int i = 0; i < theCount; i++) {
+            final long fixed = Math.round(theValues[i] * SCALE);
+            long zigzag = ((fixed - previous) << 1) ^ ((fixed - previous) >> 63);
+            previous = fixed;
+            while ((zigzag & ~0x7FL) != 0) {
+                out.write((int) (zigzag & 0x7F) | 0x80);
+                zigzag >>>= 7;
+            }
+            out.write((int) zigzag);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Reads zigzag varint deltas.
+     *
+     * @param thePayload the payload.
+     * @param theCount   the number of values.
+     * @param theScale   fixed point steps per unit.
+     * @return the values.
+     */
+    private static double[] fromDeltas(final byte[] thePayload, final int theCount,
+                                       final int theScale) {
+        if (theScale <= 0) {
+            throw new IllegalArgumentException("Corrupt track: scale " + theScale);
+        }
+        final double[] values = new double[theCount];
+        long previous = 0;
+        int at = 0;
+        for (int i = 0; i < theCount; i++) {
+            long zigzag = 0;
+            int shift = 0;
+            int b;
+            do {
+                if (at == thePayload.length || shift > 63) {
+                    throw new IllegalArgumentException("Corrupt track: truncated at value " + i);
+                }
+                b = thePayload[at++];
+                zigzag |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            previous += (zigzag >>> 1) ^ -(zigzag & 1);
+            values[i] = (double) previous / theScale;
+        }
+        if (at != thePayload.length) {
+            throw new IllegalArgumentException("Corrupt track: trailing bytes");
+        }
+        return values;
+    }
+
+    /**
+     * Deflates a payload.
+     *
+     * @param thePayload the payload.
+     * @return the deflated bytes.
+     */
+    private static byte[] deflate(final byte[] thePayload) {
+        final Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(thePayload);
+            deflater.finish();
+            final ByteArrayOutputStream out = new ByteArrayOutputStream(thePayload.length / 2);
+            final byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Inflates a payload.
+     *
+     * @param theDeflated the deflated bytes.
+     * @param theLimit    the most bytes the payload can hold.
+     * @return the payload.
+     */
+    private static byte[] inflate(final byte[] theDeflated, final long theLimit) {
+        final Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(theDeflated);
+            final ByteArrayOutputStream out = new ByteArrayOutputStream(
+                    4 * theDeflated.length);
+            final byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                final int inflated = inflater.inflate(buffer);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalArgumentException("Corrupt track: truncated payload");
+                }
+                out.write(buffer, 0, inflated);
+                if (out.size() > theLimit) {
+                    throw new IllegalArgumentException("Corrupt track: payload too long");
+                }
+            }
+            return out.toByteArray();
+        } catch (final DataFormatException theException) {
+            throw new IllegalArgumentException("Corrupt track: " + theException.getMessage(),
+                    theException);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package com.kass.vocalanalysistool.model;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.kass.vocalanalysistool.common.AnalysisTimeouts;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.sql.Connection;
@@ -9,12 +12,20 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.OptionalDouble;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import org.sqlite.SQLiteConfig;
 import org.sqlite.SQLiteDataSource;
 
 /**
@@ -27,15 +38,42 @@ import org.sqlite.SQLiteDataSource;
  *   <li>Providing query helpers for the UI</li>
  * </ul>
  *
+ * <p>The application shares one instance, see {@link #getShared()}. It opens the database
+ * once, in WAL mode, and keeps one writer connection and a few read-only connections open,
+ * each with its prepared statements cached. Writes are serialized on the writer and run as one
+ * transaction each; reads borrow a reader, and in WAL mode they never wait for the writer.</p>
+ *
  * @author Kassie Whitney
  * @version 12/31/2025
  */
 public class UserSampleDatabase {
 
     /**
-     * The data source object.
+     * The connection all writes go through, one at a time.
+     */
+    private Session myWriter;
+
+    /**
+     * Guards {@link #myWriter}.
+     */
+    private final Object myWriteLock = new Object();
+
+    /**
+     * The newest analysis, or null until it is read after a write.
      */
-    private SQLiteDataSource myDs;
+    private volatile SessionSnapshot myLatestSession;
+
+    /**
+     * Counts the committed writes. It only changes under {@link #myWriteLock}; reads are volatile
+     * snapshots, which {@link #getLatestSession()} compares before and after its read to tell
+     * whether a write committed in between.
+     */
+    private volatile long myGeneration;
+
+    /**
+     * The idle read-only connections.
+     */
+    private final BlockingQueue<Session> myReaders = new ArrayBlockingQueue<>(READER_COUNT);
 
     /**
      * The resolved DB path on disk.
@@ -52,40 +90,224 @@ public class UserSampleDatabase {
      */
     private static final String DB_FILE_NAME = "Vocal_Analysis.db";
 
+    /**
+     * Read-only connections kept open next to the writer.
+     */
+    private static final int READER_COUNT = 2;
+
+    /**
+     * Page cache of each connection, in KiB.
+     */
+    private static final int CACHE_KIB = 8 * 1024;
+
+    /**
+     * Bytes of the database file each connection may memory-map.
+     */
+    private static final long MMAP_BYTES = 64L * 1024 * 1024;
+
+    /**
+     * The database shared by the application, opened on first use.
+     */
+    private static UserSampleDatabase SHARED;
+
+    /**
+     * Work done on a connection.
+     *
+     * @param <T> the result type.
+     */
+    @FunctionalInterface
+    private interface SqlWork<T> {
+
+        /**
+         * Runs the work.
+         *
+         * @param theSession the connection.
+         * @return the result.
+         * @throws SQLException thrown if a statement fails.
+         */
+        T run(Session theSession) throws SQLException;
+    }
+
     /**
      * Creates the user_formants table if it does not exist.
      *
      * <p>IMPORTANT: Keep this schema aligned with what your Python script writes and
      * what your queries read.
+     *
+     * <p>A row with a source_id is a reused analysis: it only holds its time and score, and
+     * its tracks, medians, plot and feature row are read from the source row.</p>
      */
     private static final String CREATE_USER_FORMANTS_TABLE = """
             CREATE TABLE IF NOT EXISTS user_formants (
                 id INTEGER PRIMARY KEY AUTOINCREMENT,
-                timestamp TEXT NOT NULL,
+                timestamp TIMESTAMP DEFAULT (datetime('now', 'localtime')),
+
+                time_json TEXT NOT NULL CHECK (json_valid(time_json)),
+                f0_json TEXT NOT NULL CHECK (json_valid(f0_json)),
+                f1_json TEXT NOT NULL CHECK (json_valid(f1_json)),
+                f1_med REAL NOT NULL CHECK (f1_med >= 0),
+                f2_json TEXT NOT NULL CHECK (json_valid(f2_json)),
+                f2_med REAL NOT NULL CHECK (f2_med >= 0),
+                f3_med REAL NOT NULL CHECK (f3_med >= 0),
+                f4_med REAL NOT NULL CHECK (f4_med >= 0),
+
+                formant_med_json TEXT NOT NULL CHECK (json_valid(formant_med_json)),
+
+                scatter_plot BLOB NOT NULL,
 
-                f0_json TEXT,
-                f1_json TEXT,
-                f2_json TEXT,
-                f3_json TEXT,
-                f4_json TEXT,
+                gender_label TEXT NOT NULL CHECK (gender_label IN (
+                    'MASC', 'FEMME', 'ANDRO_MASC', 'ANDRO_FEMME', 'ANDRO',
+                    'FEMME_FALSETTO', 'MASC_FALSETTO', 'ANDRO_FALSETTO')),
+                gender_score REAL NOT NULL CHECK (gender_score >= 0 AND gender_score <= 1),
 
-                formant_avg_json TEXT,
+                features_json TEXT CHECK (features_json IS NULL OR json_valid(features_json)),
+
+                time_track BLOB,
+                f0_track BLOB,
+                f1_track BLOB,
+                f2_track BLOB,
+
+                source_id INTEGER
+            );
+            """;
+
+    /**
+     * Creates the analysis_cache table if it does not exist. Maps the sampled hash of a
+     * recording (plus the script and model versions) to the user_formants row it produced,
+     * and keeps the hash of the whole recording to confirm a hit with.
+     */
+    private static final String CREATE_ANALYSIS_CACHE_TABLE = """
+            CREATE TABLE IF NOT EXISTS analysis_cache (
+                cache_key TEXT PRIMARY KEY,
+                formant_id INTEGER NOT NULL,
+                content_digest TEXT,
+                created TIMESTAMP DEFAULT (datetime('now', 'localtime'))
+            );
+            """;
 
-                scatter_plot BLOB,
+    /**
+     * Creates the daily_score_rollup table if it does not exist. One row per day keeps the
+     * count, median, min and max of the gender scores stored that day and the quantile sketch
+     * they are derived from, so trend charts never scan the history.
+     */
+    private static final String CREATE_DAILY_SCORE_ROLLUP_TABLE = """
+            CREATE TABLE IF NOT EXISTS daily_score_rollup (
+                day TEXT PRIMARY KEY,
+                sample_count INTEGER NOT NULL CHECK (sample_count > 0),
+                median_score REAL NOT NULL,
+                min_score REAL NOT NULL,
+                max_score REAL NOT NULL,
+                score_sketch BLOB NOT NULL
+            );
+            """;
 
-                gender_label TEXT,
-                gender_score REAL
+    /**
+     * Creates the table remembering the newest user_formants row folded into the rollup.
+     * Databases from before the rollup have no row, so their whole history is folded once.
+     */
+    private static final String CREATE_ROLLUP_STATE_TABLE = """
+            CREATE TABLE IF NOT EXISTS daily_score_rollup_state (
+                id INTEGER PRIMARY KEY CHECK (id = 1),
+                last_formant_id INTEGER NOT NULL
             );
             """;
 
+    /**
+     * Creates the table remembering which {@link GenderModel#getVersion() model version}
+     * scored the stored history. Databases from before it have no row, so their history is
+     * scored again once.
+     */
+    private static final String CREATE_MODEL_STATE_TABLE = """
+            CREATE TABLE IF NOT EXISTS gender_model_state (
+                id INTEGER PRIMARY KEY CHECK (id = 1),
+                model_version TEXT NOT NULL
+            );
+            """;
+
+    /**
+     * Makes finding the newest analysis a single index lookup.
+     */
+    private static final String CREATE_LATEST_INDEX = """
+            CREATE INDEX IF NOT EXISTS user_formants_latest
+            ON user_formants(timestamp DESC, id DESC);
+            """;
+
+    /**
+     * The columns that hold the tracks as {@link TrackCodec} blobs. Rows stored before them
+     * keep their tracks in the JSON columns until {@link #migrateTracks()} converts them.
+     */
+    private static final String[] TRACK_COLUMNS = {"time_track", "f0_track", "f1_track",
+            "f2_track"};
+
+    /**
+     * Rows converted per transaction by {@link #migrateTracks()}.
+     */
+    private static final int MIGRATION_BATCH = 100;
+
+    /**
+     * Inserts one analysis. Mirrors the insert done by the python script. The tracks go to
+     * their blobs; the JSON track columns are NOT NULL, so they keep an empty array.
+     */
+    private static final String INSERT_USER_FORMANTS = """
+            INSERT INTO user_formants(time_json, f0_json, f1_json, f1_med, f2_json, f2_med,
+                                      f3_med, f4_med, formant_med_json, scatter_plot,
+                                      gender_label, gender_score, features_json,
+                                      time_track, f0_track, f1_track, f2_track)
+            VALUES ('[]', '[]', '[]', ?, '[]', ?, ?, ?, json(?), ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    /**
+     * Overwrites the prediction of one row.
+     */
+    private static final String UPDATE_GENDER = """
+            UPDATE user_formants SET gender_label = ?, gender_score = ? WHERE id = ?
+            """;
+
     /**
      * Constructor for the SQL database.
      *
      * @param theDebugger Sets the debugger status flag.
+     * @param theDbPath   the database file.
      */
-    public UserSampleDatabase(final boolean theDebugger) {
+    private UserSampleDatabase(final boolean theDebugger, final Path theDbPath) {
         setDebugger(theDebugger);
-        initializeDatabase();
+        initializeDatabase(theDbPath);
+    }
+
+    /**
+     * Gets the database shared by the application, opening it and checking its schema on
+     * first use.
+     *
+     * @return the shared database.
+     */
+    public static synchronized UserSampleDatabase getShared() {
+        if (SHARED == null) {
+            SHARED = new UserSampleDatabase(false, resolveDbPath());
+            SHARED.startMaintenance();
+        }
+        return SHARED;
+    }
+
+    /**
+     * Closes the connections of the shared database, if it was opened. The next
+     * {@link #getShared()} opens it again.
+     */
+    public static synchronized void closeShared() {
+        if (SHARED != null) {
+            SHARED.close();
+            SHARED = null;
+        }
+    }
+
+    /**
+     * Opens a database file apart from the shared one, without the background maintenance.
+     * Tests open one on a temporary file and {@link #close()} it.
+     *
+     * @param theDbPath the database file; created with its schema if missing.
+     * @return the database.
+     */
+    static UserSampleDatabase open(final Path theDbPath) {
+        return new UserSampleDatabase(false, theDbPath);
     }
 
     /**
@@ -103,30 +325,128 @@ public class UserSampleDatabase {
 
     /**
      * Initializes the database connection and ensures schema exists.
+     *
+     * @param theDbPath the database file.
      */
-    private void initializeDatabase() {
+    private void initializeDatabase(final Path theDbPath) {
         try {
-            myDbPath = resolveDbPath();
+            myDbPath = theDbPath;
 
             // Make sure directory exists
             Files.createDirectories(Objects.requireNonNull(myDbPath.getParent()));
 
             final String dbUrl = "jdbc:sqlite:" + myDbPath.toAbsolutePath();
 
-            myDs = new SQLiteDataSource();
-            myDs.setUrl(dbUrl);
+            // The writer switches the file to WAL before any reader opens it
+            myWriter = new Session(dataSource(dbUrl, false).getConnection());
+            ensureSchema();
+
+            final SQLiteDataSource readers = dataSource(dbUrl, true);
+            for (int i = 0; i < READER_COUNT; i++) {
+                myReaders.add(new Session(readers.getConnection()));
+            }
 
             MY_LOGGER.info("Database path: " + myDbPath.toAbsolutePath());
             MY_LOGGER.info("Database connection established successfully");
 
-            ensureSchema();
-
         } catch (final Exception theException) {
             MY_LOGGER.log(Level.SEVERE, "Failed to initialize database", theException);
             throw new RuntimeException("Failed to initialize database: ", theException);
         }
     }
 
+    /**
+     * Creates the data source of the writer or of the readers.
+     *
+     * @param theUrl      the JDBC URL.
+     * @param theReadOnly true for the readers.
+     * @return the data source.
+     */
+    private static SQLiteDataSource dataSource(final String theUrl,
+                                               final boolean theReadOnly) {
+        final SQLiteConfig config = new SQLiteConfig();
+        if (theReadOnly) {
+            config.setReadOnly(true);
+        } else {
+            config.setJournalMode(SQLiteConfig.JournalMode.WAL);
+        }
+        // WAL stays consistent at NORMAL; only the last commits may be lost on power failure
+        config.setSynchronous(SQLiteConfig.SynchronousMode.NORMAL);
+        config.setTempStore(SQLiteConfig.TempStore.MEMORY);
+        config.setCacheSize(-CACHE_KIB);
+        config.setPragma(SQLiteConfig.Pragma.MMAP_SIZE, String.valueOf(MMAP_BYTES));
+        // A writer blocked by another one gives up instead of hanging the workflow
+        config.setBusyTimeout((int) AnalysisTimeouts.persistence().toMillis());
+
+        final SQLiteDataSource dataSource = new SQLiteDataSource(config);
+        dataSource.setUrl(theUrl);
+        return dataSource;
+    }
+
+    /**
+     * Closes every connection; statements cached on them are closed with them.
+     */
+    void close() {
+        synchronized (myWriteLock) {
+            myWriter.close();
+        }
+        Session reader;
+        while ((reader = myReaders.poll()) != null) {
+            reader.close();
+        }
+    }
+
+    /**
+     * Runs work on an idle reader, waiting for one if all are busy.
+     *
+     * @param theWork the work.
+     * @param <T>     the result type.
+     * @return the result of the work.
+     * @throws SQLException thrown if the work fails or the wait is interrupted.
+     */
+    private <T> T read(final SqlWork<T> theWork) throws SQLException {
+        final Session session;
+        try {
+            session = myReaders.take();
+        } catch (final InterruptedException theException) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection", theException);
+        }
+        try {
+            return theWork.run(session);
+        } finally {
+            myReaders.add(session);
+        }
+    }
+
+    /**
+     * Runs work on the writer as one transaction, rolled back if the work fails.
+     *
+     * @param theWork the work.
+     * @param <T>     the result type.
+     * @return the result of the work.
+     * @throws SQLException thrown if the work or the commit fails.
+     */
+    private <T> T write(final SqlWork<T> theWork) throws SQLException {
+        synchronized (myWriteLock) {
+            final Connection conn = myWriter.myConnection;
+            conn.setAutoCommit(false);
+            try {
+                final T result = theWork.run(myWriter);
+                conn.commit();
+                return result;
+            } catch (final SQLException | RuntimeException theException) {
+                conn.rollback();
+                throw theException;
+            } finally {
+                conn.setAutoCommit(true);
+                // Any write may have replaced the newest analysis
+                myGeneration++;
+                myLatestSession = null;
+            }
+        }
+    }
+
     /**
      * Resolves a stable DB location:
      *
@@ -137,7 +457,7 @@ public class UserSampleDatabase {
      *
      * @return the resolved DB file path.
      */
-    private Path resolveDbPath() {
+    private static Path resolveDbPath() {
         final String jpackageAppPath = System.getProperty("jpackage.app-path");
 
         // Packaged EXE: store in LocalAppData (stable + writable)
@@ -158,10 +478,45 @@ public class UserSampleDatabase {
      * Ensures required tables exist.
      */
     private void ensureSchema() {
-        try (final Connection conn = myDs.getConnection();
-             final Statement stmt = conn.createStatement()) {
+        try (final Statement stmt = myWriter.myConnection.createStatement()) {
 
             stmt.execute(CREATE_USER_FORMANTS_TABLE);
+            stmt.execute(CREATE_ANALYSIS_CACHE_TABLE);
+            stmt.execute(CREATE_LATEST_INDEX);
+            stmt.execute(CREATE_DAILY_SCORE_ROLLUP_TABLE);
+            stmt.execute(CREATE_ROLLUP_STATE_TABLE);
+            stmt.execute(CREATE_MODEL_STATE_TABLE);
+
+            // Databases created before the feature row, the track blobs or reused rows were
+            // stored lack their columns
+            final List<String> columns = new ArrayList<>();
+            try (final ResultSet rs = stmt.executeQuery("PRAGMA table_info(user_formants)")) {
+                while (rs.next()) {
+                    columns.add(rs.getString("name"));
+                }
+            }
+            if (!columns.contains("features_json")) {
+                stmt.execute("ALTER TABLE user_formants ADD COLUMN features_json TEXT");
+            }
+            for (final String track : TRACK_COLUMNS) {
+                if (!columns.contains(track)) {
+                    stmt.execute("ALTER TABLE user_formants ADD COLUMN " + track + " BLOB");
+                }
+            }
+            if (!columns.contains("source_id")) {
+                stmt.execute("ALTER TABLE user_formants ADD COLUMN source_id INTEGER");
+            }
+
+            // Cache entries from before the confirmation hash have none, so they never hit
+            boolean confirmable = false;
+            try (final ResultSet rs = stmt.executeQuery("PRAGMA table_info(analysis_cache)")) {
+                while (rs.next()) {
+                    confirmable |= "content_digest".equals(rs.getString("name"));
+                }
+            }
+            if (!confirmable) {
+                stmt.execute("ALTER TABLE analysis_cache ADD COLUMN content_digest TEXT");
+            }
 
         } catch (final SQLException theEvent) {
             MY_LOGGER.log(Level.SEVERE, "Failed to ensure schema", theEvent);
@@ -170,62 +525,281 @@ public class UserSampleDatabase {
     }
 
     /**
-     * Deletes all records from the 'user_formants' table.
+     * Brings older databases up to date on a background thread, so opening a large history
+     * does not wait for it: the history is scored again if the bundled model changed, the
+     * daily score rollup is backfilled, then the tracks are converted to blobs. Rows not
+     * converted yet are still read from their JSON.
+     */
+    private void startMaintenance() {
+        final Thread thread = new Thread(() -> {
+            try {
+                final int rescored = rescoreIfModelChanged(GenderModel.bundled());
+                if (rescored > 0) {
+                    MY_LOGGER.info("Scored " + rescored + " samples with the new model");
+                }
+                final int folded = backfillDailyScores();
+                if (folded > 0) {
+                    MY_LOGGER.info("Rolled up the scores of " + folded + " samples");
+                }
+                final int converted = migrateTracks();
+                if (converted > 0) {
+                    MY_LOGGER.info("Converted the tracks of " + converted + " samples");
+                }
+            } catch (final RuntimeException theException) {
+                MY_LOGGER.log(Level.WARNING, "Database maintenance stopped", theException);
+            }
+        }, "DatabaseMaintenance");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Converts the JSON tracks of rows stored before the track blobs, a batch per
+     * transaction so inserts are not held up.
+     *
+     * <p>The file is not vacuumed afterwards. VACUUM rewrites the whole database while
+     * holding the writer, which would block every insert for as long as it takes on a large
+     * history, and incremental vacuum only works on databases created with it. The pages the
+     * JSON text leaves free go on SQLite's free list and are filled by later analyses, so the
+     * file stops growing until they are used up.</p>
+     *
+     * @return the number of rows converted.
+     */
+    public final int migrateTracks() {
+        final String query = """
+                SELECT id, time_json, f0_json, f1_json, f2_json
+                FROM user_formants
+                WHERE time_track IS NULL AND source_id IS NULL
+                LIMIT ?
+                """;
+        final String update = """
+                UPDATE user_formants
+                SET time_track = ?, f0_track = ?, f1_track = ?, f2_track = ?,
+                    time_json = '[]', f0_json = '[]', f1_json = '[]', f2_json = '[]'
+                WHERE id = ?
+                """;
+
+        try {
+            int converted = 0;
+            int batch;
+            do {
+                batch = write(theSession -> {
+                    final JsonNumberArray numbers = theSession.myNumbers;
+                    final PreparedStatement select = theSession.prepare(query);
+                    final PreparedStatement convert = theSession.prepare(update);
+                    select.setInt(1, MIGRATION_BATCH);
+                    int count = 0;
+                    try (final ResultSet rs = select.executeQuery()) {
+                        while (rs.next()) {
+                            for (int i = 0; i < TRACK_COLUMNS.length; i++) {
+                                final byte[] json = rs.getBytes(i + 2);
+                                final int size = json == null ? 0 : numbers.parse(json);
+                                convert.setBytes(i + 1,
+                                        TrackCodec.encode(numbers.values(), size));
+                            }
+                            convert.setLong(TRACK_COLUMNS.length + 1, rs.getLong("id"));
+                            convert.addBatch();
+                            count++;
+                        }
+                    }
+                    convert.executeBatch();
+                    return count;
+                });
+                converted += batch;
+            } while (batch == MIGRATION_BATCH);
+            return converted;
+
+        } catch (final SQLException theException) {
+            MY_LOGGER.log(Level.SEVERE, "Unable to convert the stored tracks", theException);
+            throw new RuntimeException("Unable to convert the stored tracks: "
+                    + theException.getMessage(), theException);
+        }
+    }
+
+    /**
+     * Deletes all records from the 'user_formants' table and the analysis cache that points at them.
      */
     public final void clearDatabase() {
         final String deleteSQL = "DELETE FROM user_formants";
-        try (final Connection conn = myDs.getConnection();
-             final Statement stmt = conn.createStatement()) {
-            stmt.executeUpdate(deleteSQL);
+        try {
+            write(theSession -> {
+                theSession.prepare(deleteSQL).executeUpdate();
+                theSession.prepare("DELETE FROM analysis_cache").executeUpdate();
+                clearRollup(theSession);
+                return null;
+            });
         } catch (final SQLException theEvent) {
             MY_LOGGER.log(Level.SEVERE, "Error clearing database: " + theEvent.getMessage(), theEvent);
         }
     }
 
     /**
-     * Retrieves the formant data from the sqlite database.
+     * The newest analysis, every column of its row read at once. The snapshot is cached and
+     * shared, so the array accessors hand out copies and no caller can change what the next
+     * one sees.
      *
-     * @return Returns a matrix where the rows are the formants and the columns are the time.
+     * @param theId          the row id.
+     * @param theTimestamp   when it was stored, or null if the column is not a SQLite
+     *                       datetime.
+     * @param theTime        the time sequence.
+     * @param theF0          the pitch track.
+     * @param theF1          the F1 track.
+     * @param theF2          the F2 track.
+     * @param theMedians     the F0-F4 medians.
+     * @param theScatterPlot the PNG scatter plot.
+     * @param theGenderLabel the predicted label.
+     * @param theGenderScore the predicted score.
+     * @param theFeatures    the model's feature row as JSON, or null.
      */
-    public final double[][] getFormants() {
-        final double[][] results = new double[5][];
-        String f0_str = "";
-        String f1_str = "";
-        String f2_str = "";
+    public record SessionSnapshot(long theId, LocalDateTime theTimestamp, double[] theTime,
+                                  double[] theF0, double[] theF1, double[] theF2,
+                                  double[] theMedians, byte[] theScatterPlot,
+                                  String theGenderLabel, double theGenderScore,
+                                  String theFeatures) {
+
+        /**
+         * Gets the time sequence.
+         *
+         * @return a copy of the times, or null.
+         */
+        @Override
+        public double[] theTime() {
+            return theTime == null ? null : theTime.clone();
+        }
+
+        /**
+         * Gets the pitch track.
+         *
+         * @return a copy of the track, or null.
+         */
+        @Override
+        public double[] theF0() {
+            return theF0 == null ? null : theF0.clone();
+        }
+
+        /**
+         * Gets the F1 track.
+         *
+         * @return a copy of the track, or null.
+         */
+        @Override
+        public double[] theF1() {
+            return theF1 == null ? null : theF1.clone();
+        }
+
+        /**
+         * Gets the F2 track.
+         *
+         * @return a copy of the track, or null.
+         */
+        @Override
+        public double[] theF2() {
+            return theF2 == null ? null : theF2.clone();
+        }
+
+        /**
+         * Gets the F0-F4 medians.
+         *
+         * @return a copy of the medians, or null.
+         */
+        @Override
+        public double[] theMedians() {
+            return theMedians == null ? null : theMedians.clone();
+        }
+
+        /**
+         * Gets the scatter plot.
+         *
+         * @return a copy of the PNG, or null.
+         */
+        @Override
+        public byte[] theScatterPlot() {
+            return theScatterPlot == null ? null : theScatterPlot.clone();
+        }
+
+        /**
+         * Gets the tracks in the shape of {@link #getFormants()}.
+         *
+         * @return copies of rows F0, F1 and F2; rows 3 and 4 are null.
+         */
+        public double[][] formants() {
+            return new double[][]{theF0(), theF1(), theF2(), null, null};
+        }
+    }
+
+    /**
+     * Gets the newest analysis. The snapshot is read with one indexed query and kept until
+     * the next write, so the scenes that show it share a single read. A reused analysis is
+     * read with its source row's tracks, plot and feature row.
+     *
+     * @return the snapshot, or empty if nothing was analyzed yet.
+     */
+    public final Optional<SessionSnapshot> getLatestSession() {
+        final SessionSnapshot cached = myLatestSession;
+        if (cached != null) {
+            return Optional.of(cached);
+        }
 
         final String query = """
-                SELECT f0_json, f1_json, f2_json
-                FROM user_formants
-                ORDER BY timestamp DESC, id DESC
+                SELECT latest.id, latest.timestamp, latest.gender_label, latest.gender_score,
+                       stored.time_json, stored.f0_json, stored.f1_json, stored.f2_json,
+                       stored.formant_med_json, stored.scatter_plot, stored.features_json,
+                       stored.time_track, stored.f0_track, stored.f1_track, stored.f2_track
+                FROM user_formants AS latest
+                JOIN user_formants AS stored ON stored.id = COALESCE(latest.source_id, latest.id)
+                ORDER BY latest.timestamp DESC, latest.id DESC
                 LIMIT 1
                 """;
 
-        try (final Connection conn = myDs.getConnection();
-             final Statement stmt = conn.createStatement();
-             final ResultSet rs = stmt.executeQuery(query)) {
-
-            if (rs.next()) {
-                f0_str = rs.getString("f0_json");
-                f1_str = rs.getString("f1_json");
-                f2_str = rs.getString("f2_json");
-            }
+        try {
+            final long generation = myGeneration;
+            final SessionSnapshot snapshot = read(theSession -> {
+                try (final ResultSet rs = theSession.prepare(query).executeQuery()) {
+                    if (!rs.next()) {
+                        return null;
+                    }
+                    final JsonNumberArray numbers = theSession.myNumbers;
+                    return new SessionSnapshot(rs.getLong("id"),
+                            timestamp(rs.getString("timestamp")),
+                            track(numbers, rs, "time"),
+                            track(numbers, rs, "f0"),
+                            track(numbers, rs, "f1"),
+                            track(numbers, rs, "f2"),
+                            series(numbers, rs.getBytes("formant_med_json")),
+                            rs.getBytes("scatter_plot"), rs.getString("gender_label"),
+                            rs.getDouble("gender_score"), rs.getString("features_json"));
+                }
+            });
 
-            if (f0_str == null || f1_str == null || f2_str == null
-                    || f0_str.isBlank() || f1_str.isBlank() || f2_str.isBlank()) {
-                MY_LOGGER.severe("Formants are empty. Unable to retrieve them!");
-                throw new RuntimeException("Formants are empty.");
+            // A write that committed during the read made the snapshot stale already
+            synchronized (myWriteLock) {
+                if (snapshot != null && generation == myGeneration) {
+                    myLatestSession = snapshot;
+                }
             }
-
-            results[0] = new Gson().fromJson(f0_str, double[].class);
-            results[1] = new Gson().fromJson(f1_str, double[].class);
-            results[2] = new Gson().fromJson(f2_str, double[].class);
+            return Optional.ofNullable(snapshot);
 
         } catch (final SQLException theException) {
-            MY_LOGGER.log(Level.SEVERE, "Unable to execute SQL query!", theException);
-            throw new RuntimeException(theException.getMessage(), theException);
+            MY_LOGGER.log(Level.SEVERE, "Unable to read the latest analysis", theException);
+            throw new RuntimeException("Unable to read the latest analysis: "
+                    + theException.getMessage(), theException);
         }
+    }
 
-        return results;
+    /**
+     * Retrieves the formant data from the sqlite database.
+     *
+     * @return Returns a matrix where the rows are the formants and the columns are the time.
+     */
+    public final double[][] getFormants() {
+        final double[][] formants = getLatestSession().map(SessionSnapshot::formants)
+                .orElse(null);
+        if (formants == null || formants[0] == null || formants[1] == null
+                || formants[2] == null) {
+            MY_LOGGER.severe("Formants are empty. Unable to retrieve them!");
+            throw new RuntimeException("Formants are empty.");
+        }
+        return formants;
     }
 
     /**
@@ -234,167 +808,469 @@ public class UserSampleDatabase {
      * @return Returns an array of average formants from f0-f4.
      */
     public final double[] getMedian() {
-        String f_med = "";
+        return getLatestSession().map(SessionSnapshot::theMedians)
+                .orElseThrow(() -> new RuntimeException("No average formant data found!"));
+    }
 
-        final String query = """
-                SELECT formant_med_json
-                FROM user_formants
-                ORDER BY timestamp DESC, id DESC
-                LIMIT 1
-                """;
+    /**
+     * Gets the scatter plot image from the database.
+     *
+     * @return Returns a binary byte array of the image.
+     */
+    public final byte[] getScatterPlot() {
+        final SessionSnapshot latest = getLatestSession()
+                .orElseThrow(() -> new RuntimeException("There are no images present!"));
+        final byte[] bytes = latest.theScatterPlot();
+        if (bytes == null || bytes.length == 0) {
+            throw new RuntimeException("Scatter plot was null/empty!");
+        }
+        return bytes;
+    }
 
-        try (final Connection conn = myDs.getConnection();
-             final Statement stmt = conn.createStatement();
-             final ResultSet rs = stmt.executeQuery(query)) {
+    /**
+     * Retrieves the users gender perception label.
+     *
+     * @return The gender perception of the users vocal sample.
+     */
+    public final String getGenderLabel() {
+        final SessionSnapshot latest = getLatestSession()
+                .orElseThrow(() -> new RuntimeException("No gender_labels were found!"));
+        final String label = latest.theGenderLabel();
+        if (label == null || label.isBlank()) {
+            throw new RuntimeException("Gender label was null/empty!");
+        }
+        return label;
+    }
 
-            if (rs.next()) {
-                f_med = rs.getString("formant_avg_json");
-            }
 
-            if (f_med == null || f_med.isBlank()) {
-                throw new RuntimeException("No average formant data found!");
-            }
+    /**
+     * Gets the latest time sequences
+     *
+     * @return the array of timeSequence.
+     */
+    public final double[] getTimeSequence() {
+        return getLatestSession().map(SessionSnapshot::theTime)
+                .orElseThrow(() -> new RuntimeException("No time sequences were found!"));
+    }
 
-            return new Gson().fromJson(f_med, double[].class);
+    /**
+     * Get the latest gender score for the day.
+     *
+     * @return an OptionalDouble object where the result may return a double or empty.
+     */
+    public final OptionalDouble getLatestScore() {
+        final SessionSnapshot latest = getLatestSession().orElse(null);
+        if (latest == null || latest.theTimestamp() == null
+                || !latest.theTimestamp().toLocalDate().equals(LocalDate.now())) {
+            return OptionalDouble.empty();
+        }
+        return OptionalDouble.of(latest.theGenderScore());
+    }
 
-        } catch (final SQLException theEvent) {
-            MY_LOGGER.log(Level.SEVERE, "Unable to retrieve the average formant data", theEvent);
-            throw new RuntimeException("Unable to retrieve the average formant data: " + theEvent.getMessage(), theEvent);
+    /**
+     * Parses a JSON number array column from its UTF-8 bytes; the driver's character stream
+     * would decode the whole column into a String first.
+     *
+     * @param theParser the connection's parser.
+     * @param theJson   the column.
+     * @return the values, or null if the column is empty.
+     */
+    private static double[] series(final JsonNumberArray theParser, final byte[] theJson) {
+        if (theJson == null || theJson.length == 0) {
+            return null;
         }
+        theParser.parse(theJson);
+        return theParser.toArray();
     }
 
     /**
-     * Gets the scatter plot image from the database.
+     * Reads a track from its blob, or from its JSON column if the row was not converted yet.
      *
-     * @return Returns a binary byte array of the image.
+     * @param theParser the connection's parser of the JSON column.
+     * @param theRs     the row.
+     * @param theName   the track name: time, f0, f1 or f2.
+     * @return the values, or null if the row has neither.
+     * @throws SQLException thrown if a column can not be read.
      */
-    public final byte[] getScatterPlot() {
-        final String query = """
-                SELECT scatter_plot, timestamp, id
-                FROM user_formants
-                ORDER BY timestamp DESC, id DESC
-                LIMIT 1
-                """;
+    private static double[] track(final JsonNumberArray theParser, final ResultSet theRs,
+                                  final String theName) throws SQLException {
+        final byte[] blob = theRs.getBytes(theName + "_track");
+        return blob != null ? TrackCodec.decode(blob)
+                : series(theParser, theRs.getBytes(theName + "_json"));
+    }
 
-        try (final Connection conn = myDs.getConnection();
-             final PreparedStatement ps = conn.prepareStatement(query);
-             final ResultSet rs = ps.executeQuery()) {
+    /**
+     * Parses a timestamp column written by SQLite's datetime().
+     *
+     * @param theTimestamp the column.
+     * @return the time, or null if the column holds something else.
+     */
+    private static LocalDateTime timestamp(final String theTimestamp) {
+        if (theTimestamp == null) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(theTimestamp.replace(' ', 'T'));
+        } catch (final DateTimeParseException theException) {
+            return null;
+        }
+    }
 
-            if (rs.next()) {
-                final byte[] bytes = rs.getBytes("scatter_plot");
-                if (bytes == null || bytes.length == 0) {
-                    throw new RuntimeException("Scatter plot was null/empty!");
-                }
-                return bytes;
-            } else {
-                throw new RuntimeException("There are no images present!");
+    /**
+     * One analyzed recording, in the shape of a user_formants row.
+     *
+     * @param theTime        the time sequence.
+     * @param theF0          the pitch track.
+     * @param theF1          the F1 track.
+     * @param theF2          the F2 track.
+     * @param theMedians     the F0-F4 medians.
+     * @param theScatterPlot the PNG scatter plot.
+     * @param theGenderLabel the predicted label.
+     * @param theGenderScore the predicted score.
+     * @param theFeatures    the model's feature row as JSON, or null.
+     */
+    public record FormantSample(double[] theTime, double[] theF0, double[] theF1,
+                                double[] theF2, double[] theMedians, byte[] theScatterPlot,
+                                String theGenderLabel, double theGenderScore,
+                                String theFeatures) {
+
+        /**
+         * Scores the sample's feature row with the given model, so every stored analysis is
+         * labeled by the same model whichever analyzer measured it. A sample without a
+         * feature row, or one the table would reject the new score of, keeps its prediction.
+         *
+         * @param theModel the model to score with.
+         * @return the sample with the model's label and score.
+         */
+        public FormantSample scoredWith(final GenderModel theModel) {
+            if (theFeatures == null) {
+                return this;
             }
-
-        } catch (final SQLException theEvent) {
-            MY_LOGGER.log(Level.SEVERE, "Unable to retrieve the image", theEvent);
-            throw new RuntimeException("Unable to get the image: " + theEvent.getMessage(), theEvent);
+            final GenderModel.Prediction prediction = theModel.predict(featureRow(theFeatures));
+            if (!isStorable(prediction)) {
+                return this;
+            }
+            return new FormantSample(theTime, theF0, theF1, theF2, theMedians, theScatterPlot,
+                    prediction.theLabel(), prediction.theScore(), theFeatures);
         }
     }
 
     /**
-     * Retrieves the users gender perception label.
+     * Stores a batch of analyses in a single transaction; either every sample is stored or
+     * none is.
      *
-     * @return The gender perception of the users vocal sample.
+     * @param theSamples the analyzed recordings.
      */
-    public final String getGenderLabel() {
-        final String query = """
-                SELECT gender_label, timestamp, id
-                FROM user_formants
-                ORDER BY timestamp DESC, id DESC
-                LIMIT 1
-                """;
+    public final void insertSamples(final List<FormantSample> theSamples) {
+        if (theSamples.isEmpty()) {
+            return;
+        }
 
-        try (final Connection conn = myDs.getConnection();
-             final PreparedStatement ps = conn.prepareStatement(query);
-             final ResultSet rs = ps.executeQuery()) {
+        final Gson gson = new Gson();
 
-            if (rs.next()) {
-                final String label = rs.getString("gender_label");
-                if (label == null || label.isBlank()) {
-                    throw new RuntimeException("Gender label was null/empty!");
+        try {
+            write(theSession -> {
+                final PreparedStatement ps = theSession.prepare(INSERT_USER_FORMANTS);
+                for (final FormantSample sample : theSamples) {
+                    bindSample(ps, sample, gson);
+                    ps.addBatch();
                 }
-                return label;
-            }
+                ps.executeBatch();
+                rollUp(theSession);
+                return null;
+            });
 
-            throw new RuntimeException("No gender_labels were found!");
+            MY_LOGGER.info("Stored " + theSamples.size() + " samples in one transaction");
 
-        } catch (final SQLException theEvent) {
-            MY_LOGGER.log(Level.SEVERE, "Unable to retrieve the gender label", theEvent);
-            throw new RuntimeException("Unable to retrieve the gender label: " + theEvent.getMessage(), theEvent);
+        } catch (final SQLException theException) {
+            MY_LOGGER.log(Level.SEVERE, "Unable to store the batch of samples", theException);
+            throw new RuntimeException("Unable to store the batch of samples: "
+                    + theException.getMessage(), theException);
         }
     }
 
+    /**
+     * Stores one analysis and remembers which row it produced for the given cache key, in one
+     * transaction.
+     *
+     * @param theSample        the analyzed recording.
+     * @param theCacheKey      the key from the analysis cache.
+     * @param theContentDigest the hash of the whole recording, to confirm later hits with.
+     */
+    public final void insertSample(final FormantSample theSample, final String theCacheKey,
+                                   final String theContentDigest) {
+        try {
+            write(theSession -> {
+                final PreparedStatement insert =
+                        theSession.prepareReturningKeys(INSERT_USER_FORMANTS);
+                final PreparedStatement remember = theSession.prepare("""
+                        INSERT OR REPLACE INTO analysis_cache(cache_key, formant_id,
+                                                              content_digest)
+                        VALUES (?, ?, ?)
+                        """);
+
+                bindSample(insert, theSample, new Gson());
+                insert.executeUpdate();
+
+                try (final ResultSet keys = insert.getGeneratedKeys()) {
+                    if (!keys.next()) {
+                        throw new SQLException("No id was generated for the sample");
+                    }
+                    remember.setString(1, theCacheKey);
+                    remember.setLong(2, keys.getLong(1));
+                    remember.setString(3, theContentDigest);
+                }
+                remember.executeUpdate();
+                rollUp(theSession);
+                return null;
+            });
+
+        } catch (final SQLException theException) {
+            MY_LOGGER.log(Level.SEVERE, "Unable to store the sample", theException);
+            throw new RuntimeException("Unable to store the sample: "
+                    + theException.getMessage(), theException);
+        }
+    }
 
     /**
-     * Gets the latest time sequences
+     * Gets the hash of the whole recording a cache entry was made from.
      *
-     * @return the array of timeSequence.
+     * @param theCacheKey the key from the analysis cache.
+     * @return the hash, or null if the key is unknown or predates the hash.
      */
-    public final double[] getTimeSequence() {
-        String time_seq = "";
-        final String query = """
-                SELECT time_json
+    public final String getCachedContentDigest(final String theCacheKey) {
+        try {
+            return read(theSession -> {
+                final PreparedStatement ps = theSession.prepare(
+                        "SELECT content_digest FROM analysis_cache WHERE cache_key = ?");
+                ps.setString(1, theCacheKey);
+                try (final ResultSet rs = ps.executeQuery()) {
+                    return rs.next() ? rs.getString(1) : null;
+                }
+            });
+
+        } catch (final SQLException theException) {
+            MY_LOGGER.log(Level.SEVERE, "Unable to look up the analysis cache", theException);
+            throw new RuntimeException("Unable to look up the analysis cache: "
+                    + theException.getMessage(), theException);
+        }
+    }
+
+    /**
+     * Reuses a cached analysis: a row pointing at the one it produced is stored as the latest
+     * analysis, so the data scene shows it and the history counts it like a fresh run. The new
+     * row only copies the medians and the score; the tracks, plot and feature row are not
+     * stored again.
+     *
+     * @param theCacheKey      the key from the analysis cache.
+     * @param theContentDigest the hash of the whole recording; the entry must have been made
+     *                         from the same one.
+     * @return true on a hit; false if the key is unknown, was made from another recording or
+     * its row was deleted since.
+     */
+    public final boolean reuseCachedSample(final String theCacheKey,
+                                           final String theContentDigest) {
+        // The JSON columns are NOT NULL, so they keep an empty array like the tracks' do
+        final String reuse = """
+                INSERT INTO user_formants(time_json, f0_json, f1_json, f1_med, f2_json, f2_med,
+                                          f3_med, f4_med, formant_med_json, scatter_plot,
+                                          gender_label, gender_score, source_id)
+                SELECT '[]', '[]', '[]', f1_med, '[]', f2_med, f3_med, f4_med, '[]', X'',
+                       gender_label, gender_score, COALESCE(source_id, id)
                 FROM user_formants
-                ORDER BY timestamp DESC, id DESC
+                WHERE id = (SELECT formant_id FROM analysis_cache
+                            WHERE cache_key = ? AND content_digest = ?)
                 """;
 
-        try (final Connection conn = myDs.getConnection();
-             final PreparedStatement ps = conn.prepareStatement(query);
-             final ResultSet rs = ps.executeQuery()) {
+        try {
+            return write(theSession -> {
+                final PreparedStatement insert = theSession.prepare(reuse);
+
+                insert.setString(1, theCacheKey);
+                insert.setString(2, theContentDigest);
+                final boolean hit = insert.executeUpdate() == 1;
+
+                if (hit) {
+                    rollUp(theSession);
+                } else {
+                    final PreparedStatement forget = theSession.prepare(
+                            "DELETE FROM analysis_cache WHERE cache_key = ?");
+                    forget.setString(1, theCacheKey);
+                    forget.executeUpdate();
+                }
+                return hit;
+            });
 
-            if (rs.next()) {
-                time_seq = rs.getString("time_json");
-            }
+        } catch (final SQLException theException) {
+            MY_LOGGER.log(Level.SEVERE, "Unable to reuse the cached analysis", theException);
+            throw new RuntimeException("Unable to reuse the cached analysis: "
+                    + theException.getMessage(), theException);
+        }
+    }
 
-            if (time_seq == null || time_seq.isBlank()) {
-                throw new RuntimeException("No time sequences were found!");
-            }
+    /**
+     * Binds a sample to {@link #INSERT_USER_FORMANTS}.
+     *
+     * @param thePs     the insert statement.
+     * @param theSample the sample.
+     * @param theGson   serializes the medians.
+     * @throws SQLException thrown if a parameter can not be set.
+     */
+    private static void bindSample(final PreparedStatement thePs, final FormantSample theSample,
+                                   final Gson theGson) throws SQLException {
+        thePs.setDouble(1, theSample.theMedians()[1]);
+        thePs.setDouble(2, theSample.theMedians()[2]);
+        thePs.setDouble(3, theSample.theMedians()[3]);
+        thePs.setDouble(4, theSample.theMedians()[4]);
+        thePs.setString(5, theGson.toJson(theSample.theMedians()));
+        thePs.setBytes(6, theSample.theScatterPlot());
+        thePs.setString(7, theSample.theGenderLabel());
+        thePs.setDouble(8, theSample.theGenderScore());
+        thePs.setString(9, theSample.theFeatures());
+        thePs.setBytes(10, TrackCodec.encode(theSample.theTime()));
+        thePs.setBytes(11, TrackCodec.encode(theSample.theF0()));
+        thePs.setBytes(12, TrackCodec.encode(theSample.theF1()));
+        thePs.setBytes(13, TrackCodec.encode(theSample.theF2()));
+    }
 
-            return new Gson().fromJson(time_seq, double[].class);
+    /**
+     * Re-scores every stored analysis that kept its feature row with the given model, in one
+     * transaction. Rows analyzed before feature rows were stored are left untouched; reused
+     * analyses take the score of their source row.
+     *
+     * @param theModel the model to score with.
+     * @return the number of rows updated.
+     */
+    public final int rescoreHistory(final GenderModel theModel) {
+        try {
+            final int updated = write(theSession -> rescore(theSession, theModel));
 
-        } catch (final SQLException theEvent) {
-            MY_LOGGER.log(Level.SEVERE, "Unable to retrieve time sequences", theEvent);
-            throw new RuntimeException("Unable to retrieve time sequences: " + theEvent.getMessage(), theEvent);
+            MY_LOGGER.info("Re-scored " + updated + " samples");
+            return updated;
+
+        } catch (final SQLException theException) {
+            MY_LOGGER.log(Level.SEVERE, "Unable to re-score the stored samples", theException);
+            throw new RuntimeException("Unable to re-score the stored samples: "
+                    + theException.getMessage(), theException);
         }
     }
 
     /**
-     * Get the latest gender score for the day.
+     * Re-scores the stored history with the given model unless it was already scored by a
+     * model of the same {@link GenderModel#getVersion() version}. Runs at startup, so a new
+     * model or a guardrail change also applies to past analyses.
      *
-     * @return an OptionalDouble object where the result may return a double or empty.
+     * @param theModel the model to score with.
+     * @return the number of rows updated, 0 if the history was up to date.
      */
-    public final OptionalDouble getLatestScore() {
+    public final int rescoreIfModelChanged(final GenderModel theModel) {
+        try {
+            return write(theSession -> {
+                try (final ResultSet rs = theSession.prepare(
+                        "SELECT model_version FROM gender_model_state WHERE id = 1")
+                        .executeQuery()) {
+                    if (rs.next() && theModel.getVersion().equals(rs.getString(1))) {
+                        return 0;
+                    }
+                }
+
+                final int count = rescore(theSession, theModel);
+                final PreparedStatement mark = theSession.prepare("""
+                        INSERT OR REPLACE INTO gender_model_state(id, model_version)
+                        VALUES (1, ?)
+                        """);
+                mark.setString(1, theModel.getVersion());
+                mark.executeUpdate();
+                return count;
+            });
+        } catch (final SQLException theException) {
+            MY_LOGGER.log(Level.SEVERE, "Unable to re-score the stored samples", theException);
+            throw new RuntimeException("Unable to re-score the stored samples: "
+                    + theException.getMessage(), theException);
+        }
+    }
+
+    /**
+     * Re-scores the rows that kept their feature row, copies the new predictions to the rows
+     * reusing them and folds the history into the rollup again. Runs inside the caller's
+     * transaction.
+     *
+     * @param theSession the writer.
+     * @param theModel   the model to score with.
+     * @return the number of rows updated.
+     * @throws SQLException thrown if the rows can not be read or updated.
+     */
+    private static int rescore(final Session theSession, final GenderModel theModel)
+            throws SQLException {
         final String query = """
-                SELECT gender_score
+                SELECT id, features_json
                 FROM user_formants
-                WHERE date(timestamp) = date('now', 'localtime')
-                ORDER BY timestamp DESC, id DESC
-                LIMIT 1
+                WHERE features_json IS NOT NULL
                 """;
 
-        try (final Connection conn = myDs.getConnection();
-             final PreparedStatement ps = conn.prepareStatement(query);
-             final ResultSet rs = ps.executeQuery()) {
-
-            if (rs.next()) {
-                final double score = rs.getDouble("gender_score");
-                if (rs.wasNull()) {
-                    return OptionalDouble.empty();
+        int count = 0;
+        final PreparedStatement update = theSession.prepare(UPDATE_GENDER);
+        try (final ResultSet rs = theSession.prepare(query).executeQuery()) {
+            while (rs.next()) {
+                final long id = rs.getLong("id");
+                final GenderModel.Prediction prediction =
+                        theModel.predict(featureRow(rs.getString("features_json")));
+
+                // The table rejects scores outside [0, 1]; keep the old prediction
+                if (!isStorable(prediction)) {
+                    MY_LOGGER.warning("Skipping sample " + id + ": score "
+                            + prediction.theScore());
+                    continue;
                 }
-                return OptionalDouble.of(score);
+
+                update.setString(1, prediction.theLabel());
+                update.setDouble(2, prediction.theScore());
+                update.setLong(3, id);
+                update.addBatch();
+                count++;
             }
+        }
+        update.executeBatch();
+
+        // Reused analyses take the new prediction of their source row
+        count += theSession.prepare("""
+                UPDATE user_formants
+                SET (gender_label, gender_score) = (
+                    SELECT source.gender_label, source.gender_score
+                    FROM user_formants AS source
+                    WHERE source.id = user_formants.source_id)
+                WHERE source_id IS NOT NULL
+                """).executeUpdate();
+        // The scores of past days changed; fold the history again
+        clearRollup(theSession);
+        rollUp(theSession);
+        return count;
+    }
 
-            return OptionalDouble.empty();
+    /**
+     * Tells whether the table accepts a prediction's score.
+     *
+     * @param thePrediction the prediction.
+     * @return true if the score is within [0, 1].
+     */
+    private static boolean isStorable(final GenderModel.Prediction thePrediction) {
+        return thePrediction.theScore() >= 0 && thePrediction.theScore() <= 1;
+    }
 
-        } catch (final SQLException theEvent) {
-            MY_LOGGER.log(Level.SEVERE, "Unable to retrieve latest query", theEvent);
-            throw new RuntimeException("Unable to retrieve latest query: " + theEvent.getMessage(), theEvent);
+    /**
+     * Parses a stored feature row. Nulls (NaN in python) become NaN again.
+     *
+     * @param theJson the features_json column.
+     * @return the feature row keyed by column name.
+     */
+    private static Map<String, Double> featureRow(final String theJson) {
+        final Map<String, Double> row = new HashMap<>();
+        for (final Map.Entry<String, JsonElement> entry
+                : JsonParser.parseString(theJson).getAsJsonObject().entrySet()) {
+            final JsonElement value = entry.getValue();
+            row.put(entry.getKey(), value.isJsonNull() ? Double.NaN : value.getAsDouble());
         }
+        return row;
     }
 
     /**
@@ -406,56 +1282,298 @@ public class UserSampleDatabase {
     public record DailyMedian(LocalDate theDate, double theMedianGenderScore) { }
 
     /**
-     * Gets the daily median gender scores.
+     * Gets the daily median gender scores of the last seven days.
      *
      * @return returns a list of median gender scores.
      */
     public List<DailyMedian> getLast7dayMedianScore() {
+        return getDailyMedianScores(7);
+    }
 
+    /**
+     * Gets the daily median gender scores of the days before today, from the rollup, so the
+     * cost depends on the days asked for (e.g. 7, 30 or 365) and not on the history.
+     *
+     * @param theDays how many days before today to include.
+     * @return the medians, oldest first; days without samples are left out.
+     */
+    public List<DailyMedian> getDailyMedianScores(final int theDays) {
         final String query = """
-            WITH ranked AS (
-              SELECT
-                date(timestamp) AS day,
-                gender_score,
-                ROW_NUMBER() OVER (
-                  PARTITION BY date(timestamp)
-                  ORDER BY gender_score
-                ) AS rn,
-                COUNT(*) OVER (
-                  PARTITION BY date(timestamp)
-                ) AS cnt
-              FROM user_formants
-              WHERE date(timestamp) < date('now', 'localtime')
-                AND date(timestamp) >= date('now', '-7 days')
-            )
-            SELECT
-              day,
-              AVG(gender_score) AS median_gender_score
-            FROM ranked
-            WHERE rn IN ((cnt + 1) / 2, (cnt + 2) / 2)
-            GROUP BY day
-            ORDER BY day
-            """;
+                SELECT day, median_score
+                FROM daily_score_rollup
+                WHERE day < date('now', 'localtime')
+                  AND day >= date('now', 'localtime', ?)
+                ORDER BY day
+                """;
 
-        final List<DailyMedian> results = new ArrayList<>();
+        try {
+            return read(theSession -> {
+                final List<DailyMedian> results = new ArrayList<>();
+                final PreparedStatement ps = theSession.prepare(query);
+                ps.setString(1, "-" + theDays + " days");
+                try (final ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        results.add(new DailyMedian(LocalDate.parse(rs.getString("day")),
+                                rs.getDouble("median_score")));
+                    }
+                }
+                return results;
+            });
+
+        } catch (final SQLException theException) {
+            MY_LOGGER.log(Level.SEVERE, "Unable to retrieve daily median gender scores",
+                    theException);
+            throw new RuntimeException("Unable to retrieve daily median gender scores",
+                    theException);
+        }
+    }
+
+    /**
+     * Folds every stored analysis not yet in the daily score rollup into it. Databases from
+     * before the rollup are backfilled from their whole history; later it picks up rows the
+     * python script stored on its own.
+     *
+     * @return the number of rows folded.
+     */
+    public final int backfillDailyScores() {
+        try {
+            return write(UserSampleDatabase::rollUp);
+        } catch (final SQLException theException) {
+            MY_LOGGER.log(Level.SEVERE, "Unable to backfill the daily scores", theException);
+            throw new RuntimeException("Unable to backfill the daily scores: "
+                    + theException.getMessage(), theException);
+        }
+    }
 
-        try (final Connection conn = myDs.getConnection();
-             final PreparedStatement ps = conn.prepareStatement(query);
-             final ResultSet rs = ps.executeQuery()) {
+    /**
+     * Folds the rows stored since the last fold into the daily score rollup. Runs inside the
+     * transaction that stored them.
+     *
+     * <p>A day with fewer samples than fill its sketch gets the exact median of its stored
+     * scores, as the query before the rollup computed it. Only a busier day takes the median
+     * from its sketch, which rounds the scores to float and is off by under 1% in rank.</p>
+     *
+     * @param theSession the writer.
+     * @return the number of rows folded.
+     * @throws SQLException thrown if the rollup can not be read or written.
+     */
+    private static int rollUp(final Session theSession) throws SQLException {
+        long last = 0;
+        try (final ResultSet rs = theSession.prepare(
+                "SELECT last_formant_id FROM daily_score_rollup_state WHERE id = 1")
+                .executeQuery()) {
+            if (rs.next()) {
+                last = rs.getLong(1);
+            }
+        }
 
+        final Map<String, QuantileSketch> days = new HashMap<>();
+        long newest = last;
+        int folded = 0;
+        final PreparedStatement rows = theSession.prepare("""
+                SELECT id, date(timestamp) AS day, gender_score
+                FROM user_formants
+                WHERE id > ?
+                ORDER BY id
+                """);
+        rows.setLong(1, last);
+        try (final ResultSet rs = rows.executeQuery()) {
             while (rs.next()) {
-                final LocalDate date = LocalDate.parse(rs.getString("day"));
-                final double median = rs.getDouble("median_gender_score");
-                if (!rs.wasNull()) {
-                    results.add(new DailyMedian(date, median));
+                newest = rs.getLong("id");
+                final String day = rs.getString("day");
+                if (day == null) {
+                    continue;
+                }
+                QuantileSketch sketch = days.get(day);
+                if (sketch == null) {
+                    sketch = daySketch(theSession, day);
+                    days.put(day, sketch);
                 }
+                sketch.add(rs.getDouble("gender_score"));
+                folded++;
+            }
+        }
+        if (newest == last) {
+            return 0;
+        }
+
+        final PreparedStatement store = theSession.prepare("""
+                INSERT OR REPLACE INTO daily_score_rollup(day, sample_count, median_score,
+                                                          min_score, max_score, score_sketch)
+                VALUES (?, ?, ?, ?, ?, ?)
+                """);
+        for (final Map.Entry<String, QuantileSketch> entry : days.entrySet()) {
+            final QuantileSketch sketch = entry.getValue();
+            if (sketch.isEmpty()) {
+                continue;
             }
+            store.setString(1, entry.getKey());
+            store.setLong(2, sketch.count());
+            store.setDouble(3, sketch.isExact() ? exactMedian(theSession, entry.getKey())
+                    : sketch.quantile(0.5));
+            store.setDouble(4, sketch.min());
+            store.setDouble(5, sketch.max());
+            store.setBytes(6, sketch.toBytes());
+            store.addBatch();
+        }
+        store.executeBatch();
 
-            return results;
+        final PreparedStatement mark = theSession.prepare(
+                "INSERT OR REPLACE INTO daily_score_rollup_state(id, last_formant_id) VALUES (1, ?)");
+        mark.setLong(1, newest);
+        mark.executeUpdate();
+        return folded;
+    }
 
-        } catch (final SQLException theException) {
-            MY_LOGGER.log(Level.SEVERE, "Unable to retrieve daily median gender scores", theException);
-            throw new RuntimeException("Unable to retrieve daily median gender scores", theException);
+    /**
+     * Computes the median score of a day from its stored rows, the average of the two middle
+     * scores when the day has an even number of them.
+     *
+     * @param theSession the writer.
+     * @param theDay     the day, as yyyy-MM-dd.
+     * @return the median, or NaN if the day has no rows.
+     * @throws SQLException thrown if the rows can not be read.
+     */
+    private static double exactMedian(final Session theSession, final String theDay)
+            throws SQLException {
+        // The range lets the timestamp index narrow the scan to the day
+        final PreparedStatement ps = theSession.prepare("""
+                SELECT gender_score
+                FROM user_formants
+                WHERE timestamp >= ? AND timestamp < date(?, '+1 day')
+                  AND date(timestamp) = ?
+                ORDER BY gender_score
+                """);
+        ps.setString(1, theDay);
+        ps.setString(2, theDay);
+        ps.setString(3, theDay);
+        final List<Double> scores = new ArrayList<>();
+        try (final ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                scores.add(rs.getDouble(1));
+            }
+        }
+        if (scores.isEmpty()) {
+            return Double.NaN;
+        }
+        final int middle = scores.size() / 2;
+        return scores.size() % 2 == 1 ? scores.get(middle)
+                : (scores.get(middle - 1) + scores.get(middle)) / 2;
+    }
+
+    /**
+     * Reads the sketch of a day from the rollup.
+     *
+     * @param theSession the writer.
+     * @param theDay     the day, as yyyy-MM-dd.
+     * @return the day's sketch, or an empty one for a new day.
+     * @throws SQLException thrown if the rollup can not be read.
+     */
+    private static QuantileSketch daySketch(final Session theSession, final String theDay)
+            throws SQLException {
+        final PreparedStatement ps = theSession.prepare(
+                "SELECT score_sketch FROM daily_score_rollup WHERE day = ?");
+        ps.setString(1, theDay);
+        try (final ResultSet rs = ps.executeQuery()) {
+            return rs.next() ? QuantileSketch.fromBytes(rs.getBytes(1)) : new QuantileSketch();
+        }
+    }
+
+    /**
+     * Empties the daily score rollup, so the next fold starts over from the oldest row.
+     *
+     * @param theSession the writer.
+     * @throws SQLException thrown if the rollup can not be cleared.
+     */
+    private static void clearRollup(final Session theSession) throws SQLException {
+        theSession.prepare("DELETE FROM daily_score_rollup").executeUpdate();
+        theSession.prepare("DELETE FROM daily_score_rollup_state").executeUpdate();
+    }
+
+    /**
+     * An open connection and the statements prepared on it.
+     */
+    private static final class Session {
+
+        /**
+         * The connection.
+         */
+        private final Connection myConnection;
+
+        /**
+         * Statements by their SQL.
+         */
+        private final Map<String, PreparedStatement> myStatements = new HashMap<>();
+
+        /**
+         * Statements that return generated keys, by their SQL.
+         */
+        private final Map<String, PreparedStatement> myKeyStatements = new HashMap<>();
+
+        /**
+         * Parses the JSON number columns read on this connection, reusing its buffer.
+         */
+        private final JsonNumberArray myNumbers = new JsonNumberArray();
+
+        /**
+         * Wraps a connection.
+         *
+         * @param theConnection the connection.
+         */
+        private Session(final Connection theConnection) {
+            myConnection = theConnection;
+        }
+
+        /**
+         * Gets the statement for some SQL, preparing it on first use.
+         *
+         * @param theSql the SQL.
+         * @return the cached statement; it must not be closed.
+         * @throws SQLException thrown if the SQL can not be prepared.
+         */
+        private PreparedStatement prepare(final String theSql) throws SQLException {
+            PreparedStatement statement = myStatements.get(theSql);
+            if (statement == null) {
+                statement = myConnection.prepareStatement(theSql);
+                myStatements.put(theSql, statement);
+            }
+            return statement;
+        }
+
+        /**
+         * Gets the statement for an insert whose generated keys are read back.
+         *
+         * @param theSql the SQL.
+         * @return the cached statement; it must not be closed.
+         * @throws SQLException thrown if the SQL can not be prepared.
+         */
+        private PreparedStatement prepareReturningKeys(final String theSql)
+                throws SQLException {
+            PreparedStatement statement = myKeyStatements.get(theSql);
+            if (statement == null) {
+                statement = myConnection.prepareStatement(theSql,
+                        Statement.RETURN_GENERATED_KEYS);
+                myKeyStatements.put(theSql, statement);
+            }
+            return statement;
+        }
+
+        /**
+         * Closes the statements and the connection.
+         */
+        private void close() {
+            try {
+                for (final PreparedStatement statement : myStatements.values()) {
+                    statement.close();
+                }
+                for (final PreparedStatement statement : myKeyStatements.values()) {
+                    statement.close();
+                }
+                myConnection.close();
+            } catch (final SQLException theException) {
+                MY_LOGGER.log(Level.WARNING, "Unable to close a database connection",
+                        theException);
+            }
         }
     }
 }
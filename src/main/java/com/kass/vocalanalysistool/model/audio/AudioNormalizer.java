@@ -0,0 +1,574 @@
+package com.kass.vocalanalysistool.model.audio;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.logging.Logger;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * Brings PCM into the one format the analysis needs: 16-bit little-endian mono at the analysis
+ * rate, without DC offset.
+ *
+ * <p>Channels are averaged, a one-pole DC blocker removes offsets below about 10 Hz and a
+ * polyphase windowed-sinc filter resamples to the analysis rate. Pitch and F1-F4 (with Praat's
+ * 5500 Hz formant ceiling) need nothing above 8 kHz, so the default rate of 16 kHz cuts every
+ * later per-sample cost by 2.75 for 44.1 kHz recordings and by 6 for 96 kHz files. Audio
+ * already at or below the analysis rate is not resampled.</p>
+ *
+ * <p>The normalizer is a {@link PcmConsumer} that forwards to another one, so it can sit in
+ * front of the live analyzer on the capture engine as well as in front of a file writer. It
+ * allocates its filter bank once per session; processing a chunk does not allocate.</p>
+ *
+ * @author Kassie Whitney
+ * @version 1/10/2026
+ */
+public final class AudioNormalizer implements PcmConsumer {
+
+    /**
+     * System property for the analysis rate in Hz, e.g.
+     * {@code -Dvocalanalysis.analysisRate=11025}.
+     */
+    public static final String ANALYSIS_RATE_PROPERTY = "vocalanalysis.analysisRate";
+
+    /**
+     * Default analysis rate.
+     */
+    public static final float DEFAULT_ANALYSIS_RATE = 16000f;
+
+    /**
+     * Lowest analysis rate: twice Praat's 5500 Hz formant ceiling, rounded up to a standard
+     * rate.
+     */
+    public static final float MIN_ANALYSIS_RATE = 11025f;
+
+    /**
+     * Logger for rejected settings.
+     */
+    private static final Logger LOGGER = Logger.getLogger(AudioNormalizer.class.getName());
+
+    /**
+     * Zero crossings of the sinc kernel on each side of the output sample.
+     */
+    private static final int ZERO_CROSSINGS = 16;
+
+    /**
+     * Share of the output Nyquist frequency that is passed; the rest is the transition band.
+     */
+    private static final double ROLLOFF = 0.90;
+
+    /**
+     * Phases of the filter bank when the exact ratio would need more.
+     */
+    private static final int MAX_PHASES = 512;
+
+    /**
+     * Corner frequency of the DC blocker.
+     */
+    private static final double DC_CORNER_HZ = 10.0;
+
+    /**
+     * Bytes collected before they are forwarded.
+     */
+    private static final int OUTPUT_BYTES = 4096;
+
+    /**
+     * Receives the normalized PCM.
+     */
+    private final PcmConsumer myDownstream;
+
+    /**
+     * The rate asked for.
+     */
+    private final float myAnalysisRate;
+
+    /**
+     * Collects output samples between forwards.
+     */
+    private final byte[] myOutput = new byte[OUTPUT_BYTES];
+
+    /**
+     * Bytes held in {@link #myOutput}.
+     */
+    private int myOutputFill;
+
+    /**
+     * Channels of the input.
+     */
+    private int myChannels;
+
+    /**
+     * Bytes per input frame.
+     */
+    private int myFrameSize;
+
+    /**
+     * Whether the input is resampled.
+     */
+    private boolean myResampling;
+
+    /**
+     * Input samples consumed per {@link #myUp} output samples.
+     */
+    private long myDown;
+
+    /**
+     * Output samples produced per {@link #myDown} input samples.
+     */
+    private long myUp;
+
+    /**
+     * The filter bank, one row of taps per phase.
+     */
+    private double[][] myTaps;
+
+    /**
+     * Taps per phase.
+     */
+    private int myTapCount;
+
+    /**
+     * Input history, at least the taps of the next output.
+     */
+    private double[] myHistory;
+
+    /**
+     * Samples held in {@link #myHistory}.
+     */
+    private int myHistoryFill;
+
+    /**
+     * Index in the whole input of {@code myHistory[0]}.
+     */
+    private long myHistoryStart;
+
+    /**
+     * Input samples received this session.
+     */
+    private long myInputCount;
+
+    /**
+     * Output samples produced this session.
+     */
+    private long myOutputCount;
+
+    /**
+     * DC blocker pole.
+     */
+    private double myPole;
+
+    /**
+     * DC blocker: last input.
+     */
+    private double myLastIn;
+
+    /**
+     * DC blocker: last output.
+     */
+    private double myLastOut;
+
+    /**
+     * Bytes of an input frame split across two chunks.
+     */
+    private final byte[] myPartial = new byte[32];
+
+    /**
+     * Bytes held in {@link #myPartial}.
+     */
+    private int myPartialFill;
+
+    /**
+     * Creates a normalizer for the configured analysis rate.
+     *
+     * @param theDownstream receives the normalized PCM.
+     */
+    public AudioNormalizer(final PcmConsumer theDownstream) {
+        this(theDownstream, analysisRate());
+    }
+
+    /**
+     * Creates a normalizer.
+     *
+     * @param theDownstream   receives the normalized PCM.
+     * @param theAnalysisRate the rate to resample to, in Hz.
+     */
+    public AudioNormalizer(final PcmConsumer theDownstream, final float theAnalysisRate) {
+        if (theAnalysisRate < MIN_ANALYSIS_RATE) {
+            throw new IllegalArgumentException("The analysis rate must be at least "
+                    + MIN_ANALYSIS_RATE + " Hz, not " + theAnalysisRate);
+        }
+        myDownstream = theDownstream;
+        myAnalysisRate = theAnalysisRate;
+    }
+
+    /**
+     * Gets the configured analysis rate.
+     *
+     * @return the rate from {@link #ANALYSIS_RATE_PROPERTY}, or the default.
+     */
+    public static float analysisRate() {
+        final String value = System.getProperty(ANALYSIS_RATE_PROPERTY);
+        if (value == null || value.isBlank()) {
+            return DEFAULT_ANALYSIS_RATE;
+        }
+        try {
+            final float rate = Float.parseFloat(value.trim());
+            if (rate >= MIN_ANALYSIS_RATE) {
+                return rate;
+            }
+        } catch (final NumberFormatException theException) {
+            // Reported below
+        }
+        LOGGER.warning("Ignoring " + ANALYSIS_RATE_PROPERTY + "=" + value + "; using "
+                + DEFAULT_ANALYSIS_RATE + " Hz");
+        return DEFAULT_ANALYSIS_RATE;
+    }
+
+    /**
+     * Gets the format the normalizer produces for an input.
+     *
+     * @param theInput      the input format.
+     * @param theAnalysisRate the analysis rate.
+     * @return 16-bit little-endian mono at the lower of the two rates.
+     */
+    public static AudioFormat outputFormat(final AudioFormat theInput,
+                                           final float theAnalysisRate) {
+        final float rate = Math.min(theInput.getSampleRate(), theAnalysisRate);
+        return new AudioFormat(AudioFormat.Encoding.PCM_SIGNED, rate, 16, 1, 2, rate, false);
+    }
+
+    /**
+     * Tells whether normalizing would change an input, apart from removing DC.
+     *
+     * @param theInput        the input format.
+     * @param theAnalysisRate the analysis rate.
+     * @return true if the input has several channels, another encoding or a higher rate.
+     */
+    public static boolean changes(final AudioFormat theInput, final float theAnalysisRate) {
+        return !theInput.matches(outputFormat(theInput, theAnalysisRate));
+    }
+
+    /**
+     * Gets the length of a recording from its header, without decoding it.
+     *
+     * @param theAudioFile the recording.
+     * @return the length in seconds, or NaN if the file can not be decoded or does not say.
+     * @throws IOException thrown if the file can not be read.
+     */
+    public static double durationOf(final Path theAudioFile) throws IOException {
+        try (final AudioInputStream pcm = openPcm(theAudioFile)) {
+            if (pcm == null || pcm.getFrameLength() == AudioSystem.NOT_SPECIFIED) {
+                return Double.NaN;
+            }
+            return pcm.getFrameLength() / (double) pcm.getFormat().getFrameRate();
+        }
+    }
+
+    /**
+     * Writes a normalized copy of a recording.
+     *
+     * @param theSource the recording.
+     * @param theTarget the WAV file to write.
+     * @return false if the recording can not be decoded or it is already normalized; the
+     * target is not written then.
+     * @throws IOException thrown if a file can not be read or written.
+     */
+    public static boolean normalize(final Path theSource, final Path theTarget)
+            throws IOException {
+        final float rate = analysisRate();
+        try (final AudioInputStream audio = openPcm(theSource)) {
+            if (audio == null || !changes(audio.getFormat(), rate)) {
+                return false;
+            }
+            final AudioNormalizer normalizer =
+                    new AudioNormalizer(new WavFileWriter(theTarget), rate);
+            final byte[] buffer = new byte[64 * 1024 - 64 * 1024 % audio.getFormat()
+                    .getFrameSize()];
+            normalizer.onStart(audio.getFormat());
+            try {
+                int read;
+                while ((read = audio.read(buffer)) > 0) {
+                    normalizer.onPcm(buffer, read);
+                }
+            } finally {
+                normalizer.onStop();
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Opens a recording as 16-bit little-endian PCM with its own rate and channel count.
+     * Uncompressed WAV and AIFF are read through a {@link PcmFileReader}, so long
+     * recordings never pass through the heap; anything else is left to Java Sound.
+     *
+     * @param theAudioFile the recording.
+     * @return the stream, or null if the file can not be decoded.
+     * @throws IOException thrown if the file can not be read.
+     */
+    static AudioInputStream openPcm(final Path theAudioFile) throws IOException {
+        final AudioInputStream direct = PcmFileReader.open(theAudioFile);
+        if (direct != null) {
+            return direct;
+        }
+
+        final AudioInputStream source;
+        try {
+            source = AudioSystem.getAudioInputStream(theAudioFile.toFile());
+        } catch (final UnsupportedAudioFileException theException) {
+            return null;
+        }
+
+        final AudioFormat format = source.getFormat();
+        final AudioFormat pcm = new AudioFormat(AudioFormat.Encoding.PCM_SIGNED,
+                format.getSampleRate(), 16, format.getChannels(), 2 * format.getChannels(),
+                format.getSampleRate(), false);
+        if (format.matches(pcm)) {
+            return source;
+        }
+        if (!AudioSystem.isConversionSupported(pcm, format)) {
+            source.close();
+            return null;
+        }
+        return AudioSystem.getAudioInputStream(pcm, source);
+    }
+
+    @Override
+    public void onStart(final AudioFormat theFormat) throws IOException {
+        if (!AudioFormat.Encoding.PCM_SIGNED.equals(theFormat.getEncoding())
+                || theFormat.getSampleSizeInBits() != 16 || theFormat.isBigEndian()
+                || theFormat.getFrameSize() > myPartial.length) {
+            throw new IOException("The normalizer needs 16-bit little-endian PCM, not "
+                    + theFormat);
+        }
+
+        final AudioFormat output = outputFormat(theFormat, myAnalysisRate);
+        myChannels = theFormat.getChannels();
+        myFrameSize = theFormat.getFrameSize();
+        myResampling = output.getSampleRate() < theFormat.getSampleRate();
+        myPole = Math.exp(-2 * Math.PI * DC_CORNER_HZ / theFormat.getSampleRate());
+        myLastIn = 0;
+        myLastOut = 0;
+        myPartialFill = 0;
+        myOutputFill = 0;
+        myInputCount = 0;
+        myOutputCount = 0;
+        myHistoryFill = 0;
+        myHistoryStart = 0;
+        if (myResampling) {
+            buildFilterBank(theFormat.getSampleRate(), output.getSampleRate());
+        }
+
+        myDownstream.onStart(output);
+    }
+
+    @Override
+    public void onPcm(final byte[] theChunk, final int theLength) throws IOException {
+        int i = 0;
+        if (myPartialFill > 0) {
+            while (myPartialFill < myFrameSize && i < theLength) {
+                myPartial[myPartialFill++] = theChunk[i++];
+            }
+            if (myPartialFill < myFrameSize) {
+                return;
+            }
+            accept(mix(myPartial, 0));
+            myPartialFill = 0;
+        }
+        for (; i + myFrameSize <= theLength; i += myFrameSize) {
+            accept(mix(theChunk, i));
+        }
+        while (i < theLength) {
+            myPartial[myPartialFill++] = theChunk[i++];
+        }
+    }
+
+    @Override
+    public void onStop() throws IOException {
+        try {
+            if (myResampling) {
+                // The kernel reaches past the last input; it sees silence there
+                final long outputs = (myInputCount * myUp + myDown - 1) / myDown;
+                while (myOutputCount < outputs) {
+                    emit(convolve());
+                }
+            }
+            flush();
+        } finally {
+            myDownstream.onStop();
+        }
+    }
+
+    /**
+     * Downmixes one input frame.
+     *
+     * @param theBytes  the buffer.
+     * @param theOffset the first byte of the frame.
+     * @return the mono sample, -1 to 1.
+     */
+    private double mix(final byte[] theBytes, final int theOffset) {
+        int sum = 0;
+        for (int c = 0; c < myChannels; c++) {
+            final int at = theOffset + 2 * c;
+            sum += (short) ((theBytes[at + 1] << 8) | (theBytes[at] & 0xFF));
+        }
+        return sum / (myChannels * 32768.0);
+    }
+
+    /**
+     * Removes DC from a sample and resamples or forwards it.
+     *
+     * @param theSample the mono sample.
+     * @throws IOException thrown if the downstream consumer fails.
+     */
+    private void accept(final double theSample) throws IOException {
+        final double filtered = theSample - myLastIn + myPole * myLastOut;
+        myLastIn = theSample;
+        myLastOut = filtered;
+        myInputCount++;
+
+        if (!myResampling) {
+            emit(filtered);
+            return;
+        }
+
+        if (myHistoryFill == myHistory.length) {
+            // Keep what the next output still needs
+            final long keepFrom = firstTap(myOutputCount);
+            final int drop = (int) Math.max(0, Math.min(myHistoryFill, keepFrom
+                    - myHistoryStart));
+            System.arraycopy(myHistory, drop, myHistory, 0, myHistoryFill - drop);
+            myHistoryFill -= drop;
+            myHistoryStart += drop;
+        }
+        myHistory[myHistoryFill++] = filtered;
+
+        while (firstTap(myOutputCount) + myTapCount <= myInputCount) {
+            emit(convolve());
+        }
+    }
+
+    /**
+     * Gets the input index of the first tap of an output sample.
+     *
+     * @param theOutput the output sample.
+     * @return the input index, possibly negative at the start.
+     */
+    private long firstTap(final long theOutput) {
+        return theOutput * myDown / myUp - myTapCount / 2 + 1;
+    }
+
+    /**
+     * Computes the next output sample from the history.
+     *
+     * @return the output sample.
+     */
+    private double convolve() {
+        final long position = myOutputCount * myDown;
+        final long remainder = position % myUp;
+        int phase = (int) (remainder * myTaps.length / myUp);
+        long first = firstTap(myOutputCount);
+        if (myTaps.length < myUp
+                && remainder * myTaps.length % myUp * 2 >= myUp) {
+            phase++;
+        }
+        if (phase == myTaps.length) {
+            phase = 0;
+            first++;
+        }
+
+        final double[] taps = myTaps[phase];
+        double sum = 0;
+        for (int k = 0; k < myTapCount; k++) {
+            final long index = first + k - myHistoryStart;
+            if (index >= 0 && index < myHistoryFill) {
+                sum += taps[k] * myHistory[(int) index];
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Designs the polyphase filter bank for a conversion.
+     *
+     * @param theInputRate  the input rate.
+     * @param theOutputRate the output rate.
+     */
+    private void buildFilterBank(final float theInputRate, final float theOutputRate) {
+        final long in = Math.round(theInputRate);
+        final long out = Math.round(theOutputRate);
+        final long gcd = gcd(in, out);
+        myUp = out / gcd;
+        myDown = in / gcd;
+
+        // Cut-off relative to the input Nyquist frequency, and the kernel length it needs
+        final double cutoff = ROLLOFF * out / in;
+        myTapCount = 2 * (int) Math.ceil(ZERO_CROSSINGS / cutoff);
+        final int phases = (int) Math.min(myUp, MAX_PHASES);
+        myTaps = new double[phases][myTapCount];
+
+        final double halfWidth = myTapCount / 2.0;
+        for (int p = 0; p < phases; p++) {
+            final double fraction = (double) p / phases;
+            double gain = 0;
+            for (int k = 0; k < myTapCount; k++) {
+                // Distance from the output position to this tap, in input samples
+                final double distance = k - (myTapCount / 2.0 - 1) - fraction;
+                final double x = Math.PI * cutoff * distance;
+                final double sinc = x == 0 ? 1.0 : Math.sin(x) / x;
+                final double w = distance / halfWidth;
+                final double blackman = Math.abs(w) >= 1 ? 0
+                        : 0.42 + 0.5 * Math.cos(Math.PI * w) + 0.08 * Math.cos(2 * Math.PI * w);
+                myTaps[p][k] = sinc * blackman;
+                gain += myTaps[p][k];
+            }
+            for (int k = 0; k < myTapCount; k++) {
+                myTaps[p][k] /= gain;
+            }
+        }
+
+        myHistory = new double[Math.max(4 * myTapCount, 4096)];
+    }
+
+    /**
+     * Queues an output sample.
+     *
+     * @param theSample the sample, -1 to 1.
+     * @throws IOException thrown if the downstream consumer fails.
+     */
+    private void emit(final double theSample) throws IOException {
+        final long value = Math.round(theSample * 32768.0);
+        final short pcm = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, value));
+        myOutput[myOutputFill++] = (byte) pcm;
+        myOutput[myOutputFill++] = (byte) (pcm >> 8);
+        myOutputCount++;
+        if (myOutputFill == myOutput.length) {
+            flush();
+        }
+    }
+
+    /**
+     * Forwards the queued output.
+     *
+     * @throws IOException thrown if the downstream consumer fails.
+     */
+    private void flush() throws IOException {
+        if (myOutputFill > 0) {
+            myDownstream.onPcm(myOutput, myOutputFill);
+            myOutputFill = 0;
+        }
+    }
+
+    /**
+     * Greatest common divisor.
+     *
+     * @param theA a positive number.
+     * @param theB a positive number.
+     * @return their greatest common divisor.
+     */
+    private static long gcd(final long theA, final long theB) {
+        return theB == 0 ? theA : gcd(theB, theA % theB);
+    }
+}
@@ -0,0 +1,391 @@
+package com.kass.vocalanalysistool.model.audio;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.TargetDataLine;
+
+/**
+ * Captures a {@link TargetDataLine} into a {@link PcmRingBuffer} and fans the audio out to any
+ * number of {@link PcmConsumer}s.
+ *
+ * <p>A dedicated capture thread does nothing but {@code read} the line into the ring's
+ * preallocated chunks, so a slow disk or a busy analyzer can not make the line overflow. Every
+ * consumer drains the ring on its own thread and is woken after each chunk. {@link #stop()}
+ * returns only after every consumer received the last chunk and finished {@code onStop}, so a
+ * file written by a consumer is complete by then. A consumer that throws, or that
+ * {@linkplain PcmConsumer#needsEveryChunk() needs every chunk} and fell a whole ring behind, is
+ * dropped for the rest of the session and its exception kept for
+ * {@link #failureOf(PcmConsumer)}.</p>
+ *
+ * @author Kassie Whitney
+ * @version 1/10/2026
+ */
+public final class CaptureEngine {
+
+    /**
+     * Length of one chunk.
+     */
+    public static final int DEFAULT_CHUNK_MILLIS = 20;
+
+    /**
+     * How much audio the ring holds for a consumer that falls behind.
+     */
+    public static final int DEFAULT_BUFFER_SECONDS = 5;
+
+    /**
+     * Longest a consumer sleeps before looking at the ring again on its own.
+     */
+    private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    /**
+     * The logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(CaptureEngine.class.getName());
+
+    /**
+     * The format the line is opened with.
+     */
+    private final AudioFormat myFormat;
+
+    /**
+     * The captured audio.
+     */
+    private final PcmRingBuffer myRing;
+
+    /**
+     * Every subscribed consumer.
+     */
+    private final List<Subscription> mySubscriptions = new CopyOnWriteArrayList<>();
+
+    /**
+     * The line being captured, null when idle.
+     */
+    private TargetDataLine myLine;
+
+    /**
+     * The thread reading the line.
+     */
+    private Thread myCaptureThread;
+
+    /**
+     * True while the capture thread should keep reading.
+     */
+    private volatile boolean myCapturing;
+
+    /**
+     * True from start until every chunk of the session was published.
+     */
+    private volatile boolean myRunning;
+
+    /**
+     * Creates an engine with 20 ms chunks and five seconds of buffering.
+     *
+     * @param theFormat the capture format.
+     */
+    public CaptureEngine(final AudioFormat theFormat) {
+        this(theFormat, DEFAULT_CHUNK_MILLIS, DEFAULT_BUFFER_SECONDS);
+    }
+
+    /**
+     * Creates an engine.
+     *
+     * @param theFormat        the capture format.
+     * @param theChunkMillis   the length of one chunk.
+     * @param theBufferSeconds how much audio the ring holds.
+     */
+    public CaptureEngine(final AudioFormat theFormat, final int theChunkMillis,
+                         final int theBufferSeconds) {
+        myFormat = theFormat;
+        final int frames = Math.max(1, Math.round(theFormat.getFrameRate() * theChunkMillis
+                / 1000f));
+        myRing = new PcmRingBuffer(frames * theFormat.getFrameSize(),
+                theBufferSeconds * 1000 / theChunkMillis);
+    }
+
+    /**
+     * Gets the capture format.
+     *
+     * @return the format.
+     */
+    public AudioFormat getFormat() {
+        return myFormat;
+    }
+
+    /**
+     * Adds a consumer. A consumer added during a capture starts with the next chunk.
+     *
+     * @param theConsumer the consumer.
+     */
+    public synchronized void subscribe(final PcmConsumer theConsumer) {
+        final Subscription subscription = new Subscription(theConsumer);
+        mySubscriptions.add(subscription);
+        if (myRunning) {
+            subscription.start();
+        }
+    }
+
+    /**
+     * Removes a consumer. If a capture is running, the consumer's {@code onStop} is called on its
+     * own thread shortly after.
+     *
+     * @param theConsumer the consumer.
+     */
+    public synchronized void unsubscribe(final PcmConsumer theConsumer) {
+        for (final Subscription subscription : mySubscriptions) {
+            if (subscription.myConsumer == theConsumer) {
+                mySubscriptions.remove(subscription);
+                subscription.cancel();
+            }
+        }
+    }
+
+    /**
+     * Starts capturing an opened line.
+     *
+     * @param theLine the line, opened with {@link #getFormat()}.
+     */
+    public synchronized void start(final TargetDataLine theLine) {
+        if (myRunning) {
+            throw new IllegalStateException("The capture engine is already running");
+        }
+        myLine = theLine;
+        myRunning = true;
+        myCapturing = true;
+
+        for (final Subscription subscription : mySubscriptions) {
+            subscription.start();
+        }
+
+        theLine.start();
+        myCaptureThread = new Thread(this::capture, "pcm-capture");
+        myCaptureThread.setDaemon(true);
+        myCaptureThread.setPriority(Thread.MAX_PRIORITY);
+        myCaptureThread.start();
+    }
+
+    /**
+     * Stops and closes the line, then waits until every consumer handled the last chunk.
+     */
+    public synchronized void stop() {
+        if (!myRunning) {
+            return;
+        }
+
+        myCapturing = false;
+        myLine.stop();
+        boolean interrupted = join(myCaptureThread);
+        myLine.close();
+
+        myRunning = false;
+        for (final Subscription subscription : mySubscriptions) {
+            interrupted |= subscription.finish();
+        }
+
+        myLine = null;
+        myCaptureThread = null;
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Gets what stopped a consumer in the current or last session.
+     *
+     * @param theConsumer the consumer.
+     * @return the exception it threw, or null if it did not fail or is not subscribed.
+     */
+    public Exception failureOf(final PcmConsumer theConsumer) {
+        for (final Subscription subscription : mySubscriptions) {
+            if (subscription.myConsumer == theConsumer) {
+                return subscription.myFailure;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks whether a capture is running.
+     *
+     * @return true between {@link #start(TargetDataLine)} and {@link #stop()}.
+     */
+    public boolean isRunning() {
+        return myRunning;
+    }
+
+    /**
+     * The capture loop: reads the line straight into the ring until stopped.
+     */
+    private void capture() {
+        final TargetDataLine line = myLine;
+        final int chunkBytes = myRing.chunkBytes();
+
+        while (true) {
+            final byte[] chunk = myRing.beginWrite();
+            final int read = line.read(chunk, 0, chunkBytes);
+            myRing.endWrite(read);
+            for (final Subscription subscription : mySubscriptions) {
+                subscription.wake();
+            }
+            // Once stopped, read returns what was left in the line's buffer
+            if (!myCapturing && read <= 0) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Waits for a thread to end.
+     *
+     * @param theThread the thread.
+     * @return true if the waiting thread was interrupted.
+     */
+    private static boolean join(final Thread theThread) {
+        if (theThread == null) {
+            return false;
+        }
+        boolean interrupted = false;
+        while (theThread.isAlive()) {
+            try {
+                theThread.join();
+            } catch (final InterruptedException theException) {
+                interrupted = true;
+            }
+        }
+        return interrupted;
+    }
+
+    /**
+     * A consumer, its cursor into the ring and the thread that feeds it.
+     */
+    private final class Subscription {
+
+        /**
+         * The consumer.
+         */
+        private final PcmConsumer myConsumer;
+
+        /**
+         * Receives copies of the chunks, reused for every chunk.
+         */
+        private final byte[] myScratch = new byte[myRing.chunkBytes()];
+
+        /**
+         * The thread of the current session, null when idle.
+         */
+        private volatile Thread myThread;
+
+        /**
+         * True once the consumer was removed mid-session.
+         */
+        private volatile boolean myCancelled;
+
+        /**
+         * The first exception the consumer threw this session, null while it works.
+         */
+        private volatile Exception myFailure;
+
+        /**
+         * Creates a subscription.
+         *
+         * @param theConsumer the consumer.
+         */
+        private Subscription(final PcmConsumer theConsumer) {
+            myConsumer = theConsumer;
+        }
+
+        /**
+         * Starts feeding the consumer from the next published chunk.
+         */
+        private void start() {
+            myCancelled = false;
+            myFailure = null;
+            final PcmRingBuffer.Cursor cursor = myRing.newCursor();
+            final Thread thread = new Thread(() -> deliver(cursor),
+                    "pcm-consumer-" + myConsumer.getClass().getSimpleName());
+            thread.setDaemon(true);
+            myThread = thread;
+            thread.start();
+        }
+
+        /**
+         * Wakes the consumer thread after a chunk was published.
+         */
+        private void wake() {
+            final Thread thread = myThread;
+            if (thread != null) {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        /**
+         * Stops feeding the consumer without waiting for it.
+         */
+        private void cancel() {
+            myCancelled = true;
+            wake();
+        }
+
+        /**
+         * Lets the consumer drain the ring and waits for its {@code onStop}.
+         *
+         * @return true if the waiting thread was interrupted.
+         */
+        private boolean finish() {
+            final Thread thread = myThread;
+            wake();
+            final boolean interrupted = join(thread);
+            myThread = null;
+            return interrupted;
+        }
+
+        /**
+         * The consumer loop.
+         *
+         * @param theCursor the consumer's position in the ring.
+         */
+        private void deliver(final PcmRingBuffer.Cursor theCursor) {
+            try {
+                myConsumer.onStart(myFormat);
+                while (!myCancelled) {
+                    // Read the flag first: once it is false every chunk is already published
+                    final boolean live = myRunning;
+                    final int length = theCursor.read(myScratch);
+                    if (theCursor.lostChunks() > 0 && myConsumer.needsEveryChunk()) {
+                        throw new IOException("It fell behind the microphone and "
+                                + theCursor.lostChunks() + " chunks of audio were lost");
+                    }
+                    if (length >= 0) {
+                        myConsumer.onPcm(myScratch, length);
+                    } else if (!live) {
+                        break;
+                    } else {
+                        LockSupport.parkNanos(this, PARK_NANOS);
+                    }
+                }
+            } catch (final IOException | RuntimeException theException) {
+                LOGGER.log(Level.SEVERE, "PCM consumer " + myConsumer + " failed", theException);
+                myFailure = theException;
+            } finally {
+                try {
+                    myConsumer.onStop();
+                } catch (final IOException | RuntimeException theException) {
+                    LOGGER.log(Level.SEVERE, "PCM consumer " + myConsumer
+                            + " failed to stop", theException);
+                    if (myFailure == null) {
+                        myFailure = theException;
+                    }
+                }
+                if (theCursor.lostChunks() > 0) {
+                    LOGGER.warning("PCM consumer " + myConsumer + " fell behind and missed "
+                            + theCursor.lostChunks() + " chunks");
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,742 @@
+package com.kass.vocalanalysistool.model.audio;
+
+import com.kass.vocalanalysistool.model.QuantileSketch;
+import com.kass.vocalanalysistool.model.dsp.FormantTracker;
+import com.kass.vocalanalysistool.model.dsp.FrameFilter;
+import com.kass.vocalanalysistool.model.dsp.Harmonicity;
+import com.kass.vocalanalysistool.model.dsp.PitchTracker;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * Analyzes a recording while it is being captured, so the result is ready when it stops.
+ *
+ * <p>Pitch is tracked sample by sample. Every two seconds the finished block, with a short
+ * margin of audio on both sides, goes through the formant tracker and the harmonicity
+ * measure; its frames are filtered as the python script filters them and only the kept
+ * frames and the pitch estimates are retained. The samples themselves are dropped once their
+ * block is done, so memory grows with the number of 10 ms frames, not with the audio.</p>
+ *
+ * <p>The statistics go into a {@link Summary} as the frames are finished: quantile sketches
+ * for the medians and percentiles, and running sums for the moments and the pitch slope.
+ * Summaries of consecutive parts of a recording merge into the summary of the whole, which is
+ * how {@link SegmentedAnalysis} analyzes long files in parallel.</p>
+ *
+ * <p>Placed behind an {@link AudioNormalizer}, the analyzer works at the analysis rate rather
+ * than the capture rate, which makes every per-sample step proportionally cheaper.</p>
+ *
+ * <p>Stopping analyzes the last partial block; {@link #finish()} then only aggregates the
+ * feature row the gender model needs. All callbacks run on the capture engine's consumer
+ * thread; {@link #finish()} may be called from any thread once the capture has stopped.</p>
+ *
+ * @author Kassie Whitney
+ * @version 1/10/2026
+ */
+public final class IncrementalAnalyzer implements PcmConsumer {
+
+    /**
+     * System property that turns the in-process analysis of recordings on, e.g.
+     * {@code -Dvocalanalysis.incrementalAnalysis=true}. It is off by default, so recordings go
+     * to python like files do until the trackers match Praat on the reference recordings.
+     */
+    public static final String ENABLED_PROPERTY = "vocalanalysis.incrementalAnalysis";
+
+    /**
+     * Audio analyzed at a time.
+     */
+    private static final double BLOCK_SECONDS = 2.0;
+
+    /**
+     * Audio kept on both sides of a block for the analysis windows.
+     */
+    private static final double PAD_SECONDS = 0.1;
+
+    /**
+     * Reference pitch of the semitone scale, as in the script.
+     */
+    private static final double SEMITONE_REF_HZ = 55.0;
+
+    /**
+     * The kept frames and the feature row of a recording.
+     *
+     * @param theTime     the kept frame times.
+     * @param theF0       F0 per kept frame.
+     * @param theF1       F1 per kept frame.
+     * @param theF2       F2 per kept frame.
+     * @param theF3       F3 per kept frame.
+     * @param theF4       F4 per kept frame.
+     * @param theMedians  the medians of F0-F4.
+     * @param theFeatures the feature row, keyed by the python column names.
+     */
+    public record Result(double[] theTime, double[] theF0, double[] theF1, double[] theF2,
+                         double[] theF3, double[] theF4, double[] theMedians,
+                         Map<String, Double> theFeatures) { }
+
+    /**
+     * Filters the frames as they are tracked.
+     */
+    private final FrameFilter myFilter = new FrameFilter();
+
+    /**
+     * Times of the pitch estimates.
+     */
+    private final Series myPitchTime = new Series();
+
+    /**
+     * The pitch estimates, NaN when unvoiced.
+     */
+    private final Series myPitchF0 = new Series();
+
+    /**
+     * Seconds added to every time, the start of this part within the whole recording.
+     */
+    private final double myTimeOffset;
+
+    /**
+     * F0-F4 of the frame being filtered.
+     */
+    private final double[] myFrame = new double[FormantTracker.TRACKED_FORMANTS + 1];
+
+    /**
+     * The pitch tracker of the current sample rate.
+     */
+    private PitchTracker myPitchTracker;
+
+    /**
+     * The formant tracker of the current sample rate.
+     */
+    private FormantTracker myFormantTracker;
+
+    /**
+     * Frame times and F1-F4 of the block being analyzed, reused from block to block.
+     */
+    private double[][] myFormants;
+
+    /**
+     * Samples per second.
+     */
+    private double mySampleRate;
+
+    /**
+     * Samples per block.
+     */
+    private int myBlock;
+
+    /**
+     * Samples of margin per side.
+     */
+    private int myPad;
+
+    /**
+     * The samples not analyzed yet, plus the margin before them.
+     */
+    private double[] mySamples = new double[0];
+
+    /**
+     * Samples held in {@link #mySamples}.
+     */
+    private int myFill;
+
+    /**
+     * Index in the whole recording of {@code mySamples[0]}.
+     */
+    private long myBufferStart;
+
+    /**
+     * Index in the whole recording of the first sample not analyzed yet.
+     */
+    private long myNextBlock;
+
+    /**
+     * Low byte of a sample split across two chunks, or -1.
+     */
+    private int myPendingByte = -1;
+
+    /**
+     * Samples received this session.
+     */
+    private long mySampleCount;
+
+    /**
+     * Pitch estimates already summarized.
+     */
+    private int mySummarized;
+
+    /**
+     * The statistics of this session.
+     */
+    private Summary mySummary = new Summary();
+
+    /**
+     * Set once the session stopped and every block was analyzed.
+     */
+    private volatile boolean myFinished;
+
+    /**
+     * Creates an analyzer for a whole recording.
+     */
+    public IncrementalAnalyzer() {
+        this(0.0);
+    }
+
+    /**
+     * Creates an analyzer for a part of a recording.
+     *
+     * @param theTimeOffset where the part starts in the recording, in seconds.
+     */
+    public IncrementalAnalyzer(final double theTimeOffset) {
+        myTimeOffset = theTimeOffset;
+    }
+
+    @Override
+    public void onStart(final AudioFormat theFormat) throws IOException {
+        if (!AudioFormat.Encoding.PCM_SIGNED.equals(theFormat.getEncoding())
+                || theFormat.getSampleSizeInBits() != 16 || theFormat.getChannels() != 1
+                || theFormat.isBigEndian()) {
+            throw new IOException("Incremental analysis needs 16-bit little-endian mono PCM, "
+                    + "not " + theFormat);
+        }
+
+        if (myPitchTracker == null || mySampleRate != theFormat.getSampleRate()) {
+            mySampleRate = theFormat.getSampleRate();
+            myPitchTracker = new PitchTracker(mySampleRate, this::addPitch);
+            myFormantTracker = new FormantTracker(mySampleRate);
+            myBlock = (int) Math.round(BLOCK_SECONDS * mySampleRate);
+            myPad = (int) Math.round(PAD_SECONDS * mySampleRate);
+            myFormants = new double[FormantTracker.TRACKED_FORMANTS + 1]
+                    [myFormantTracker.frames(myBlock + 2 * myPad)];
+            mySamples = new double[myBlock + 3 * myPad];
+        } else {
+            myPitchTracker.reset();
+        }
+
+        myFilter.reset();
+        myPitchTime.clear();
+        myPitchF0.clear();
+        mySummarized = 0;
+        mySummary = new Summary();
+        myFill = 0;
+        myBufferStart = 0;
+        myNextBlock = 0;
+        myPendingByte = -1;
+        mySampleCount = 0;
+        myFinished = false;
+    }
+
+    @Override
+    public void onPcm(final byte[] theChunk, final int theLength) {
+        final int first = myFill;
+
+        int i = 0;
+        if (myPendingByte >= 0 && theLength > 0) {
+            append((short) ((theChunk[i++] << 8) | myPendingByte) / 32768.0);
+            myPendingByte = -1;
+        }
+        for (; i + 1 < theLength; i += 2) {
+            append((short) ((theChunk[i + 1] << 8) | (theChunk[i] & 0xFF)) / 32768.0);
+        }
+        if (i < theLength) {
+            myPendingByte = theChunk[i] & 0xFF;
+        }
+        mySampleCount += myFill - first;
+        myPitchTracker.process(mySamples, first, myFill - first);
+
+        while (myBufferStart + myFill >= myNextBlock + myBlock + myPad) {
+            analyzeBlock(myNextBlock + myBlock);
+        }
+    }
+
+    @Override
+    public void onStop() {
+        final long end = myBufferStart + myFill;
+        if (end > myNextBlock) {
+            analyzeBlock(end);
+        }
+        myFinished = true;
+    }
+
+    /**
+     * Tells whether the last session captured exactly the audio of a recording, so its result
+     * can stand in for analyzing the file. The session may have been resampled, so the
+     * durations are compared; a single lost capture chunk is 10 ms and shows.
+     *
+     * @param theAudioFile the recording the session was written to.
+     * @return true if the session finished and received all of the file's audio.
+     */
+    public boolean covers(final Path theAudioFile) {
+        if (!myFinished) {
+            return false;
+        }
+        try {
+            final AudioFileFormat file = AudioSystem.getAudioFileFormat(theAudioFile.toFile());
+            final double fileSeconds = file.getFrameLength() / file.getFormat().getFrameRate();
+            return file.getFrameLength() >= 0
+                    && Math.abs(fileSeconds - mySampleCount / mySampleRate)
+                    <= 2 / mySampleRate;
+        } catch (final IOException | UnsupportedAudioFileException theException) {
+            return false;
+        }
+    }
+
+    /**
+     * Gets the statistics of the last session.
+     *
+     * @return the summary, to be merged or turned into a result.
+     */
+    public Summary summary() {
+        if (!myFinished) {
+            throw new IllegalStateException("The recording is still being analyzed");
+        }
+        return mySummary;
+    }
+
+    /**
+     * Aggregates the frames of the last session into the feature row.
+     *
+     * @return the result, or null if the session has no valid frames.
+     */
+    public Result finish() {
+        return summary().toResult();
+    }
+
+    /**
+     * Analyzes the samples from {@link #myNextBlock} up to theEnd: HNR for the pitch estimates
+     * in that range, then formants, filtered and paired with the nearest pitch estimate.
+     *
+     * @param theEnd index in the whole recording one past the last sample of the block.
+     */
+    private void analyzeBlock(final long theEnd) {
+        final long bufferEnd = myBufferStart + myFill;
+        final long segmentStart = Math.max(myBufferStart, myNextBlock - myPad);
+        final long segmentEnd = Math.min(bufferEnd, theEnd + myPad);
+        final int offset = (int) (segmentStart - myBufferStart);
+
+        while (mySummarized < myPitchTime.size()) {
+            final double time = myPitchTime.get(mySummarized);
+            final long centre = Math.round(time * mySampleRate);
+            if (centre >= theEnd && theEnd < bufferEnd) {
+                break;
+            }
+            final double f0 = myPitchF0.get(mySummarized++);
+            mySummary.addEstimate(time + myTimeOffset, f0, f0 > 0 ? Harmonicity.hnr(mySamples,
+                    myFill, (int) (centre - myBufferStart), f0, mySampleRate) : Double.NaN);
+        }
+
+        final int length = (int) (segmentEnd - segmentStart);
+        if (myFormants[0].length < myFormantTracker.frames(length)) {
+            myFormants = new double[myFormants.length][myFormantTracker.frames(length)];
+        }
+        final double[][] formants = myFormants;
+        final int frames = myFormantTracker.track(mySamples, offset, length, formants);
+        final double blockStart = myNextBlock / mySampleRate;
+        final double blockEnd = theEnd / mySampleRate;
+        for (int frame = 0; frame < frames; frame++) {
+            final double time = segmentStart / mySampleRate + formants[0][frame];
+            if (time < blockStart || time >= blockEnd) {
+                continue;
+            }
+            myFrame[0] = pitchAt(time);
+            if (Double.isNaN(myFrame[0])) {
+                continue;
+            }
+            for (int n = 1; n < myFrame.length; n++) {
+                // The script's formant matrix holds 0 where a frame has fewer formants
+                myFrame[n] = Double.isNaN(formants[n][frame]) ? 0.0 : formants[n][frame];
+            }
+
+            final double rounded = Math.round((time + myTimeOffset) * 100) / 100.0;
+            if (myFilter.accept(rounded, myFrame)) {
+                mySummary.addFrame(rounded, myFrame);
+            }
+        }
+
+        myNextBlock = theEnd;
+        final int drop = (int) Math.max(0, myNextBlock - myPad - myBufferStart);
+        System.arraycopy(mySamples, drop, mySamples, 0, myFill - drop);
+        myFill -= drop;
+        myBufferStart += drop;
+    }
+
+    /**
+     * Finds the pitch estimate nearest to a time.
+     *
+     * @param theTime the time in seconds.
+     * @return the estimate, or NaN if it is unvoiced or none is within a hop.
+     */
+    private double pitchAt(final double theTime) {
+        final int count = myPitchTime.size();
+        if (count == 0) {
+            return Double.NaN;
+        }
+        final double first = myPitchTime.get(0);
+        final int index = (int) Math.min(count - 1, Math.max(0,
+                Math.round((theTime - first) / PitchTracker.HOP_SECONDS)));
+        return Math.abs(myPitchTime.get(index) - theTime) <= PitchTracker.HOP_SECONDS
+                ? myPitchF0.get(index) : Double.NaN;
+    }
+
+    /**
+     * Receives an estimate from the pitch tracker.
+     *
+     * @param theTime the frame centre.
+     * @param theF0   the pitch, NaN when unvoiced.
+     */
+    private void addPitch(final double theTime, final double theF0) {
+        myPitchTime.add(theTime);
+        myPitchF0.add(theF0);
+    }
+
+    /**
+     * Appends a sample, growing the buffer if a chunk arrives before a block is analyzed.
+     *
+     * @param theSample the sample, -1 to 1.
+     */
+    private void append(final double theSample) {
+        if (myFill == mySamples.length) {
+            mySamples = Arrays.copyOf(mySamples, 2 * mySamples.length);
+        }
+        mySamples[myFill++] = theSample;
+    }
+
+    /**
+     * The mergeable statistics of a recording or of a part of it.
+     *
+     * <p>Medians and percentiles come from {@link QuantileSketch}es, means, deviations and
+     * the pitch slope from running sums, and the kept frames are held for the scatter plot.
+     * Summaries are merged in recording order.</p>
+     */
+    public static final class Summary {
+
+        /**
+         * The positive F0-F4 of the kept frames.
+         */
+        private final QuantileSketch[] myFormants = {new QuantileSketch(),
+                new QuantileSketch(), new QuantileSketch(), new QuantileSketch(),
+                new QuantileSketch()};
+
+        /**
+         * The voiced pitch estimates.
+         */
+        private final QuantileSketch myPitch = new QuantileSketch();
+
+        /**
+         * The HNR of the voiced pitch estimates.
+         */
+        private final QuantileSketch myHnr = new QuantileSketch();
+
+        /**
+         * The kept frames: time, then F0-F4.
+         */
+        private final Series[] myKept = {new Series(), new Series(), new Series(),
+                new Series(), new Series(), new Series()};
+
+        /**
+         * Pitch estimates, voiced or not.
+         */
+        private long myEstimates;
+
+        /**
+         * Sum of the voiced pitch in Hz.
+         */
+        private double mySumHz;
+
+        /**
+         * Sum of the squared voiced pitch.
+         */
+        private double mySumHzSquared;
+
+        /**
+         * Sum of the voiced pitch in semitones.
+         */
+        private double mySumSt;
+
+        /**
+         * Sum of the squared semitones.
+         */
+        private double mySumStSquared;
+
+        /**
+         * Sum of the times of the voiced estimates.
+         */
+        private double mySumTime;
+
+        /**
+         * Sum of the squared times.
+         */
+        private double mySumTimeSquared;
+
+        /**
+         * Sum of time times semitones.
+         */
+        private double mySumTimeSt;
+
+        /**
+         * Sum of the finite HNR values.
+         */
+        private double mySumHnr;
+
+        /**
+         * Adds a finished pitch estimate.
+         *
+         * @param theTime the time in the whole recording.
+         * @param theF0   the pitch, NaN or 0 when unvoiced.
+         * @param theHnr  the HNR, NaN when unvoiced or unmeasurable.
+         */
+        private void addEstimate(final double theTime, final double theF0,
+                                 final double theHnr) {
+            myEstimates++;
+            if (theF0 > 0) {
+                final double semitones = 12.0 * Math.log(theF0 / SEMITONE_REF_HZ) / Math.log(2);
+                myPitch.add(theF0);
+                mySumHz += theF0;
+                mySumHzSquared += theF0 * theF0;
+                mySumSt += semitones;
+                mySumStSquared += semitones * semitones;
+                mySumTime += theTime;
+                mySumTimeSquared += theTime * theTime;
+                mySumTimeSt += theTime * semitones;
+            }
+            if (Double.isFinite(theHnr)) {
+                myHnr.add(theHnr);
+                mySumHnr += theHnr;
+            }
+        }
+
+        /**
+         * Counts silence cut from the ends of the recording as unvoiced pitch estimates, as
+         * the script counts it, so the voiced fractions are those of the untrimmed take.
+         *
+         * @param theSeconds the length of the cut silence.
+         */
+        void addTrimmedSilence(final double theSeconds) {
+            myEstimates += Math.round(theSeconds / PitchTracker.HOP_SECONDS);
+        }
+
+        /**
+         * Adds a kept frame.
+         *
+         * @param theTime  the time in the whole recording.
+         * @param theFrame F0-F4, 0 for a missing formant.
+         */
+        private void addFrame(final double theTime, final double[] theFrame) {
+            myKept[0].add(theTime);
+            for (int n = 0; n < theFrame.length; n++) {
+                myKept[n + 1].add(theFrame[n]);
+                if (theFrame[n] > 0) {
+                    myFormants[n].add(theFrame[n]);
+                }
+            }
+        }
+
+        /**
+         * Adds the statistics of the part of the recording that follows this one.
+         *
+         * @param theLater the later part.
+         */
+        public void merge(final Summary theLater) {
+            for (int n = 0; n < myFormants.length; n++) {
+                myFormants[n].merge(theLater.myFormants[n]);
+            }
+            myPitch.merge(theLater.myPitch);
+            myHnr.merge(theLater.myHnr);
+            for (int n = 0; n < myKept.length; n++) {
+                myKept[n].addAll(theLater.myKept[n]);
+            }
+            myEstimates += theLater.myEstimates;
+            mySumHz += theLater.mySumHz;
+            mySumHzSquared += theLater.mySumHzSquared;
+            mySumSt += theLater.mySumSt;
+            mySumStSquared += theLater.mySumStSquared;
+            mySumTime += theLater.mySumTime;
+            mySumTimeSquared += theLater.mySumTimeSquared;
+            mySumTimeSt += theLater.mySumTimeSt;
+            mySumHnr += theLater.mySumHnr;
+        }
+
+        /**
+         * Aggregates the statistics into the feature row.
+         *
+         * @return the result, or null if no frame was kept.
+         */
+        public Result toResult() {
+            if (myKept[0].size() == 0) {
+                return null;
+            }
+
+            final double[] medians = new double[myFormants.length];
+            for (int n = 0; n < medians.length; n++) {
+                medians[n] = myFormants[n].quantile(0.5);
+            }
+
+            final Map<String, Double> features = new LinkedHashMap<>();
+            features.put("F0_med", medians[0]);
+            features.put("F0_p5", myFormants[0].quantile(0.05));
+            features.put("F0_p95", myFormants[0].quantile(0.95));
+            features.put("F1_med", medians[1]);
+            features.put("F2_med", medians[2]);
+            features.put("F3_med", medians[3]);
+            features.put("F4_med", medians[4]);
+            features.put("F2_over_F1", medians[2] / medians[1]);
+            features.put("F3_over_F2", medians[3] / medians[2]);
+            features.put("F4_over_F3", medians[4] / medians[3]);
+            putIntonation(features);
+            putBreathiness(features);
+
+            return new Result(myKept[0].toArray(), myKept[1].toArray(), myKept[2].toArray(),
+                    myKept[3].toArray(), myKept[4].toArray(), myKept[5].toArray(), medians,
+                    features);
+        }
+
+        /**
+         * Adds the intonation features, computed over every voiced pitch estimate as the
+         * script's {@code extract_breathiness_and_intonation} does.
+         *
+         * @param theFeatures the feature row.
+         */
+        private void putIntonation(final Map<String, Double> theFeatures) {
+            final String[] names = {"f0_mean_hz", "f0_sd_hz", "f0_min_hz", "f0_max_hz",
+                    "f0_p5_hz", "f0_p95_hz", "range_semitones", "range_st_5_95",
+                    "slope_st_per_sec", "f0_sd_st", "voiced_frac"};
+            final long n = myPitch.count();
+            if (n < 5) {
+                for (final String name : names) {
+                    theFeatures.put(name, Double.NaN);
+                }
+                return;
+            }
+
+            final double slopeDenominator = n * mySumTimeSquared - mySumTime * mySumTime;
+            final double p5 = myPitch.quantile(0.05);
+            final double p95 = myPitch.quantile(0.95);
+            theFeatures.put("f0_mean_hz", mySumHz / n);
+            theFeatures.put("f0_sd_hz", sampleDeviation(n, mySumHz, mySumHzSquared));
+            theFeatures.put("f0_min_hz", myPitch.min());
+            theFeatures.put("f0_max_hz", myPitch.max());
+            theFeatures.put("f0_p5_hz", p5);
+            theFeatures.put("f0_p95_hz", p95);
+            theFeatures.put("range_semitones", 12.0 * Math.log(myPitch.max() / myPitch.min())
+                    / Math.log(2));
+            theFeatures.put("range_st_5_95", 12.0 * Math.log(p95 / p5) / Math.log(2));
+            theFeatures.put("slope_st_per_sec", slopeDenominator == 0 ? 0.0
+                    : (n * mySumTimeSt - mySumTime * mySumSt) / slopeDenominator);
+            theFeatures.put("f0_sd_st", sampleDeviation(n, mySumSt, mySumStSquared));
+            theFeatures.put("voiced_frac", (double) n / myEstimates);
+        }
+
+        /**
+         * Adds the breathiness features from the HNR of the voiced estimates.
+         *
+         * @param theFeatures the feature row.
+         */
+        private void putBreathiness(final Map<String, Double> theFeatures) {
+            final long voiced = myHnr.count();
+            final double mean = voiced == 0 ? Double.NaN : mySumHnr / voiced;
+            theFeatures.put("hnr_mean_db", mean);
+            theFeatures.put("hnr_median_db", myHnr.quantile(0.5));
+            theFeatures.put("hnr_voiced_fraction",
+                    myEstimates == 0 ? Double.NaN : (double) voiced / myEstimates);
+            theFeatures.put("breathiness_index", -mean);
+        }
+
+        /**
+         * Computes the sample standard deviation from running sums.
+         *
+         * @param theCount      the number of values.
+         * @param theSum        their sum.
+         * @param theSumSquared the sum of their squares.
+         * @return the deviation with one degree of freedom removed, 0 for a single value.
+         */
+        private static double sampleDeviation(final long theCount, final double theSum,
+                                              final double theSumSquared) {
+            if (theCount < 2) {
+                return 0.0;
+            }
+            final double squares = theSumSquared - theSum * theSum / theCount;
+            return Math.sqrt(Math.max(0, squares) / (theCount - 1));
+        }
+    }
+
+    /**
+     * A growable array of doubles.
+     */
+    private static final class Series {
+
+        /**
+         * The values.
+         */
+        private double[] myValues = new double[1024];
+
+        /**
+         * Number of values held.
+         */
+        private int mySize;
+
+        /**
+         * Appends a value.
+         *
+         * @param theValue the value.
+         */
+        private void add(final double theValue) {
+            if (mySize == myValues.length) {
+                myValues = Arrays.copyOf(myValues, 2 * mySize);
+            }
+            myValues[mySize++] = theValue;
+        }
+
+        /**
+         * Gets a value.
+         *
+         * @param theIndex the index.
+         * @return the value.
+         */
+        private double get(final int theIndex) {
+            return myValues[theIndex];
+        }
+
+        /**
+         * Gets the number of values.
+         *
+         * @return the size.
+         */
+        private int size() {
+            return mySize;
+        }
+
+        /**
+         * Removes every value.
+         */
+        private void clear() {
+            mySize = 0;
+        }
+
+        /**
+         * Appends the values of another series.
+         *
+         * @param theOther the series.
+         */
+        private void addAll(final Series theOther) {
+            if (mySize + theOther.mySize > myValues.length) {
+                myValues = Arrays.copyOf(myValues, Math.max(2 * myValues.length,
+                        mySize + theOther.mySize));
+            }
+            System.arraycopy(theOther.myValues, 0, myValues, mySize, theOther.mySize);
+            mySize += theOther.mySize;
+        }
+
+        /**
+         * Copies the values.
+         *
+         * @return a new array of the values.
+         */
+        private double[] toArray() {
+            return Arrays.copyOf(myValues, mySize);
+        }
+    }
+}
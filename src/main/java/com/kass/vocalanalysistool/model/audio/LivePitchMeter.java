@@ -0,0 +1,130 @@
+package com.kass.vocalanalysistool.model.audio;
+
+import com.kass.vocalanalysistool.model.dsp.PitchTracker;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * Tracks the pitch of the recording while it is being captured, for live feedback.
+ *
+ * <p>Runs {@link PitchTracker} on the capture stream and keeps the most recent estimates in a
+ * preallocated history. Nothing is allocated per audio block. The view polls the history once
+ * per frame instead of being called per estimate, so a burst of estimates costs one redraw.
+ * The history has a single writer (the consumer thread); readers see every estimate up to
+ * {@link #latestIndex()}.</p>
+ *
+ * @author Kassie Whitney
+ * @version 1/10/2026
+ */
+public final class LivePitchMeter implements PcmConsumer {
+
+    /**
+     * Default history: five seconds of 10 ms estimates.
+     */
+    public static final int DEFAULT_HISTORY = 512;
+
+    /**
+     * The estimates, indexed by estimate number modulo the capacity.
+     */
+    private final double[] myHistory;
+
+    /**
+     * Number of estimates published so far.
+     */
+    private final AtomicLong myCount = new AtomicLong();
+
+    /**
+     * The tracker of the current session.
+     */
+    private PitchTracker myTracker;
+
+    /**
+     * The sample rate the tracker was built for.
+     */
+    private float mySampleRate;
+
+    /**
+     * Creates a meter with five seconds of history.
+     */
+    public LivePitchMeter() {
+        this(DEFAULT_HISTORY);
+    }
+
+    /**
+     * Creates a meter.
+     *
+     * @param theHistory the number of estimates kept.
+     */
+    public LivePitchMeter(final int theHistory) {
+        myHistory = new double[theHistory];
+    }
+
+    @Override
+    public void onStart(final AudioFormat theFormat) {
+        if (myTracker == null || mySampleRate != theFormat.getSampleRate()) {
+            mySampleRate = theFormat.getSampleRate();
+            myTracker = new PitchTracker(mySampleRate, this::publish);
+        } else {
+            myTracker.reset();
+        }
+        myCount.set(0);
+    }
+
+    @Override
+    public void onPcm(final byte[] theChunk, final int theLength) {
+        myTracker.process(theChunk, 0, theLength);
+    }
+
+    /**
+     * Gets the number of estimates made this session.
+     *
+     * @return the index one past the newest estimate.
+     */
+    public long latestIndex() {
+        return myCount.get();
+    }
+
+    /**
+     * Gets the number of estimates kept.
+     *
+     * @return the history capacity.
+     */
+    public int capacity() {
+        return myHistory.length;
+    }
+
+    /**
+     * Gets an estimate from the history.
+     *
+     * @param theIndex the estimate number; only the last {@link #capacity()} are kept.
+     * @return the F0 in Hz, or NaN if the frame was unvoiced or is no longer kept.
+     */
+    public double f0At(final long theIndex) {
+        final long count = myCount.get();
+        if (theIndex < 0 || theIndex >= count || theIndex < count - myHistory.length) {
+            return Double.NaN;
+        }
+        return myHistory[(int) (theIndex % myHistory.length)];
+    }
+
+    /**
+     * Gets the newest estimate.
+     *
+     * @return the F0 in Hz, or NaN if the last frame was unvoiced.
+     */
+    public double currentF0() {
+        return f0At(myCount.get() - 1);
+    }
+
+    /**
+     * Stores an estimate and publishes it.
+     *
+     * @param theTime the frame time (unused; estimates are 10 ms apart).
+     * @param theF0   the estimate.
+     */
+    private void publish(final double theTime, final double theF0) {
+        final long count = myCount.get();
+        myHistory[(int) (count % myHistory.length)] = theF0;
+        myCount.set(count + 1);
+    }
+}
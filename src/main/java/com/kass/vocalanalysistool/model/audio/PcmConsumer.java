@@ -0,0 +1,57 @@
+package com.kass.vocalanalysistool.model.audio;
+
+import java.io.IOException;
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * Receives the PCM captured by a {@link CaptureEngine}.
+ *
+ * <p>Each consumer runs on its own thread with its own read position in the ring buffer, so a
+ * slow consumer never stalls the capture or the other consumers. Chunks arrive in capture
+ * order; the array passed to {@link #onPcm(byte[], int)} is reused and only valid during the
+ * call.</p>
+ *
+ * @author Kassie Whitney
+ * @version 1/10/2026
+ */
+@FunctionalInterface
+public interface PcmConsumer {
+
+    /**
+     * Called on the consumer's thread before the first chunk of a capture session.
+     *
+     * @param theFormat the format of the PCM that follows.
+     * @throws IOException thrown if the consumer can not start; it then receives nothing more.
+     */
+    default void onStart(final AudioFormat theFormat) throws IOException {
+    }
+
+    /**
+     * Called for every captured chunk, in order.
+     *
+     * @param theChunk  the PCM bytes.
+     * @param theLength the number of valid bytes in the chunk.
+     * @throws IOException thrown if the chunk can not be handled; the consumer then receives
+     *                     nothing more this session.
+     */
+    void onPcm(byte[] theChunk, int theLength) throws IOException;
+
+    /**
+     * Tells whether the consumer is useless once it missed a chunk, as a file of the take is.
+     * Such a consumer fails as soon as it falls a whole ring behind; any other one skips ahead
+     * to the oldest chunk still held.
+     *
+     * @return true if a gap in the audio is a failure.
+     */
+    default boolean needsEveryChunk() {
+        return false;
+    }
+
+    /**
+     * Called once the session ended and every captured chunk was delivered.
+     *
+     * @throws IOException thrown if the consumer can not finish its work.
+     */
+    default void onStop() throws IOException {
+    }
+}
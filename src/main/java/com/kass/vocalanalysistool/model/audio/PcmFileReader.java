@@ -0,0 +1,531 @@
+package com.kass.vocalanalysistool.model.audio;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+
+/**
+ * Reads the PCM of a WAV, RF64 or AIFF file a buffer at a time.
+ *
+ * <p>Only the headers are parsed up front; the sample data is read with positional
+ * {@link FileChannel#read(ByteBuffer, long)} calls into one reused direct buffer and converted
+ * to 16-bit little-endian PCM as it is read, so memory stays flat however long the recording
+ * is and skipping (as the silence trimmer does) costs nothing. 8, 16, 24 and 32-bit integer
+ * and 32 and 64-bit float samples are understood, in either byte order, which covers what Java
+ * Sound refuses (files over 2 GiB, RF64, most float and 24-bit files) as well as everything
+ * the recorder writes.</p>
+ *
+ * <p>Nothing is memory-mapped, so closing the stream releases the file at once; a mapping
+ * would keep it locked on Windows until garbage collection and stop the recorder from
+ * overwriting it.</p>
+ *
+ * @author Kassie Whitney
+ * @version 1/10/2026
+ */
+public final class PcmFileReader {
+
+    /**
+     * Bytes read at a time.
+     */
+    private static final int BUFFER_BYTES = 1024 * 1024;
+
+    /**
+     * WAVE format tag of integer PCM.
+     */
+    private static final int WAVE_PCM = 1;
+
+    /**
+     * WAVE format tag of IEEE float.
+     */
+    private static final int WAVE_FLOAT = 3;
+
+    /**
+     * WAVE format tag of WAVE_FORMAT_EXTENSIBLE; the real tag starts its sub-format GUID.
+     */
+    private static final int WAVE_EXTENSIBLE = 0xFFFE;
+
+    /**
+     * RIFF sizes of this value are stored in the RF64 ds64 chunk instead.
+     */
+    private static final long RF64_PLACEHOLDER = 0xFFFF_FFFFL;
+
+    /**
+     * Where the sample data is and how it is encoded.
+     *
+     * @param theOffset     byte offset of the first frame.
+     * @param theBytes      length of the sample data in bytes.
+     * @param theSampleRate frames per second.
+     * @param theChannels   samples per frame.
+     * @param theBits       bits per sample.
+     * @param theFloat      true for IEEE float samples.
+     * @param theBigEndian  true for big-endian samples.
+     */
+    private record Layout(long theOffset, long theBytes, float theSampleRate, int theChannels,
+                          int theBits, boolean theFloat, boolean theBigEndian) {
+
+        /**
+         * Gets the size of a source sample.
+         *
+         * @return bytes per sample.
+         */
+        private int sampleBytes() {
+            return (theBits + 7) / 8;
+        }
+    }
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private PcmFileReader() {
+    }
+
+    /**
+     * Opens a recording as 16-bit little-endian PCM with its own rate and channel count.
+     *
+     * @param theAudioFile the recording.
+     * @return the stream, or null if the file is not uncompressed WAV, RF64 or AIFF.
+     * @throws IOException thrown if the file can not be read.
+     */
+    public static AudioInputStream open(final Path theAudioFile) throws IOException {
+        final FileChannel channel = FileChannel.open(theAudioFile, StandardOpenOption.READ);
+        try {
+            final Layout layout = parse(channel);
+            if (layout == null) {
+                channel.close();
+                return null;
+            }
+            final AudioFormat format = new AudioFormat(AudioFormat.Encoding.PCM_SIGNED,
+                    layout.theSampleRate(), 16, layout.theChannels(), 2 * layout.theChannels(),
+                    layout.theSampleRate(), false);
+            final long frames = layout.theBytes() / (layout.sampleBytes()
+                    * (long) layout.theChannels());
+            return new AudioInputStream(new PcmStream(channel, layout), format, frames);
+        } catch (final IOException | RuntimeException theException) {
+            channel.close();
+            throw theException;
+        }
+    }
+
+    /**
+     * Reads the headers.
+     *
+     * @param theChannel the file.
+     * @return the layout, or null if the file is not a supported format.
+     * @throws IOException thrown if the file can not be read.
+     */
+    private static Layout parse(final FileChannel theChannel) throws IOException {
+        final ByteBuffer head = read(theChannel, 0, 12, ByteOrder.LITTLE_ENDIAN);
+        if (head == null) {
+            return null;
+        }
+        final String container = ascii(head, 0);
+        final String type = ascii(head, 8);
+        if (("RIFF".equals(container) || "RF64".equals(container)) && "WAVE".equals(type)) {
+            return parseWave(theChannel, "RF64".equals(container));
+        }
+        if ("FORM".equals(container) && ("AIFF".equals(type) || "AIFC".equals(type))) {
+            return parseAiff(theChannel, "AIFC".equals(type));
+        }
+        return null;
+    }
+
+    /**
+     * Reads the chunks of a WAV or RF64 file.
+     *
+     * @param theChannel the file.
+     * @param theRf64    true if the sizes may live in a ds64 chunk.
+     * @return the layout, or null if the samples are not PCM or float.
+     * @throws IOException thrown if the file can not be read.
+     */
+    private static Layout parseWave(final FileChannel theChannel, final boolean theRf64)
+            throws IOException {
+        final long fileSize = theChannel.size();
+        long position = 12;
+        long ds64DataSize = -1;
+        ByteBuffer fmt = null;
+
+        while (position + 8 <= fileSize) {
+            final ByteBuffer header = read(theChannel, position, 8, ByteOrder.LITTLE_ENDIAN);
+            final String id = ascii(header, 0);
+            long size = header.getInt(4) & RF64_PLACEHOLDER;
+            final long body = position + 8;
+
+            switch (id) {
+                case "ds64" -> {
+                    if (theRf64) {
+                        ds64DataSize = read(theChannel, body, 16, ByteOrder.LITTLE_ENDIAN)
+                                .getLong(8);
+                    }
+                }
+                case "fmt " -> fmt = read(theChannel, body, (int) Math.min(size, 40),
+                        ByteOrder.LITTLE_ENDIAN);
+                case "data" -> {
+                    if (fmt == null) {
+                        return null;
+                    }
+                    if (theRf64 && size == RF64_PLACEHOLDER && ds64DataSize >= 0) {
+                        size = ds64DataSize;
+                    }
+                    // Recorders that are cut off leave the size unset or too large
+                    size = Math.min(size, fileSize - body);
+                    return waveLayout(fmt, body, size);
+                }
+                default -> { }
+            }
+            position = body + size + (size & 1);
+        }
+        return null;
+    }
+
+    /**
+     * Interprets a WAVE fmt chunk.
+     *
+     * @param theFmt    the chunk body.
+     * @param theOffset where the samples start.
+     * @param theBytes  the size of the samples.
+     * @return the layout, or null if the samples are not PCM or float.
+     */
+    private static Layout waveLayout(final ByteBuffer theFmt, final long theOffset,
+                                     final long theBytes) {
+        if (theFmt == null || theFmt.limit() < 16) {
+            return null;
+        }
+        int tag = theFmt.getShort(0) & 0xFFFF;
+        if (tag == WAVE_EXTENSIBLE && theFmt.limit() >= 26) {
+            tag = theFmt.getShort(24) & 0xFFFF;
+        }
+        final int channels = theFmt.getShort(2) & 0xFFFF;
+        final float rate = theFmt.getInt(4);
+        final int bits = theFmt.getShort(14) & 0xFFFF;
+
+        final boolean supported = tag == WAVE_PCM && (bits == 8 || bits == 16 || bits == 24
+                || bits == 32) || tag == WAVE_FLOAT && (bits == 32 || bits == 64);
+        if (!supported || channels == 0 || rate <= 0) {
+            return null;
+        }
+        return new Layout(theOffset, theBytes, rate, channels, bits, tag == WAVE_FLOAT, false);
+    }
+
+    /**
+     * Reads the chunks of an AIFF or AIFF-C file.
+     *
+     * @param theChannel the file.
+     * @param theAifc    true if COMM names a compression type.
+     * @return the layout, or null if the samples are compressed.
+     * @throws IOException thrown if the file can not be read.
+     */
+    private static Layout parseAiff(final FileChannel theChannel, final boolean theAifc)
+            throws IOException {
+        final long fileSize = theChannel.size();
+        long position = 12;
+        ByteBuffer comm = null;
+
+        while (position + 8 <= fileSize) {
+            final ByteBuffer header = read(theChannel, position, 8, ByteOrder.BIG_ENDIAN);
+            final String id = ascii(header, 0);
+            long size = header.getInt(4) & RF64_PLACEHOLDER;
+            final long body = position + 8;
+
+            if ("COMM".equals(id)) {
+                comm = read(theChannel, body, (int) Math.min(size, 22), ByteOrder.BIG_ENDIAN);
+            } else if ("SSND".equals(id)) {
+                if (comm == null || comm.limit() < 18) {
+                    return null;
+                }
+                final long dataOffset = read(theChannel, body, 8, ByteOrder.BIG_ENDIAN)
+                        .getInt(0) & RF64_PLACEHOLDER;
+                size = Math.min(size, fileSize - body);
+                return aiffLayout(comm, theAifc, body + 8 + dataOffset,
+                        size - 8 - dataOffset);
+            }
+            position = body + size + (size & 1);
+        }
+        return null;
+    }
+
+    /**
+     * Interprets an AIFF COMM chunk.
+     *
+     * @param theComm   the chunk body.
+     * @param theAifc   true if the chunk names a compression type.
+     * @param theOffset where the samples start.
+     * @param theBytes  the size of the samples.
+     * @return the layout, or null if the samples are compressed.
+     */
+    private static Layout aiffLayout(final ByteBuffer theComm, final boolean theAifc,
+                                     final long theOffset, final long theBytes) {
+        final int channels = theComm.getShort(0) & 0xFFFF;
+        final int bits = theComm.getShort(6) & 0xFFFF;
+        final double rate = extended(theComm, 8);
+
+        boolean floating = false;
+        boolean bigEndian = true;
+        if (theAifc && theComm.limit() >= 22) {
+            final String compression = ascii(theComm, 18);
+            switch (compression) {
+                case "NONE" -> { }
+                case "sowt" -> bigEndian = false;
+                case "fl32", "FL32", "fl64", "FL64" -> floating = true;
+                default -> {
+                    return null;
+                }
+            }
+        }
+
+        final boolean supported = floating ? bits == 32 || bits == 64
+                : bits == 8 || bits == 16 || bits == 24 || bits == 32;
+        if (!supported || channels == 0 || rate <= 0 || theBytes <= 0) {
+            return null;
+        }
+        return new Layout(theOffset, theBytes, (float) rate, channels, bits, floating,
+                bigEndian);
+    }
+
+    /**
+     * Decodes the 80-bit IEEE extended float AIFF stores its sample rate in.
+     *
+     * @param theBuffer the buffer.
+     * @param theIndex  the first byte.
+     * @return the value.
+     */
+    private static double extended(final ByteBuffer theBuffer, final int theIndex) {
+        final int exponent = theBuffer.getShort(theIndex) & 0x7FFF;
+        final long mantissa = theBuffer.getLong(theIndex + 2);
+        if (exponent == 0 && mantissa == 0) {
+            return 0;
+        }
+        // The mantissa is unsigned with an explicit integer bit
+        final double unsigned = (mantissa >>> 1) * 2.0 + (mantissa & 1);
+        return unsigned * Math.pow(2, exponent - 16383 - 63);
+    }
+
+    /**
+     * Reads a few header bytes.
+     *
+     * @param theChannel  the file.
+     * @param thePosition the first byte.
+     * @param theLength   the number of bytes.
+     * @param theOrder    the byte order of the numbers in them.
+     * @return the bytes, or null if the file ends first.
+     * @throws IOException thrown if the file can not be read.
+     */
+    private static ByteBuffer read(final FileChannel theChannel, final long thePosition,
+                                   final int theLength, final ByteOrder theOrder)
+            throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(theLength).order(theOrder);
+        while (buffer.hasRemaining()) {
+            if (theChannel.read(buffer, thePosition + buffer.position()) < 0) {
+                return null;
+            }
+        }
+        return buffer.flip();
+    }
+
+    /**
+     * Reads a four character code.
+     *
+     * @param theBuffer the buffer.
+     * @param theIndex  the first byte.
+     * @return the code.
+     */
+    private static String ascii(final ByteBuffer theBuffer, final int theIndex) {
+        final byte[] code = new byte[4];
+        theBuffer.get(theIndex, code);
+        return new String(code, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * The sample data as 16-bit little-endian PCM, read a buffer at a time.
+     */
+    private static final class PcmStream extends InputStream {
+
+        /**
+         * The file.
+         */
+        private final FileChannel myChannel;
+
+        /**
+         * The sample data.
+         */
+        private final Layout myLayout;
+
+        /**
+         * Bytes per source frame.
+         */
+        private final int myFrameBytes;
+
+        /**
+         * Frames in the file.
+         */
+        private final long myFrames;
+
+        /**
+         * The frames read last, allocated on the first read and reused after that.
+         */
+        private ByteBuffer myWindow;
+
+        /**
+         * Index of the first frame in {@link #myWindow}.
+         */
+        private long myWindowFirst;
+
+        /**
+         * Frames in {@link #myWindow}.
+         */
+        private long myWindowFrames;
+
+        /**
+         * The next frame to read.
+         */
+        private long myFrame;
+
+        /**
+         * Creates the stream.
+         *
+         * @param theChannel the file, closed with the stream.
+         * @param theLayout  the sample data.
+         */
+        private PcmStream(final FileChannel theChannel, final Layout theLayout) {
+            myChannel = theChannel;
+            myLayout = theLayout;
+            myFrameBytes = theLayout.sampleBytes() * theLayout.theChannels();
+            myFrames = theLayout.theBytes() / myFrameBytes;
+        }
+
+        @Override
+        public int read() throws IOException {
+            throw new IOException("PCM is read in whole frames");
+        }
+
+        @Override
+        public int read(final byte[] theBuffer, final int theOffset, final int theLength)
+                throws IOException {
+            final int channels = myLayout.theChannels();
+            final long wanted = Math.min(theLength / (2L * channels), myFrames - myFrame);
+            if (wanted <= 0) {
+                return theLength == 0 ? 0 : -1;
+            }
+
+            int out = theOffset;
+            if (myLayout.theBits() == 16 && !myLayout.theFloat() && !myLayout.theBigEndian()) {
+                // Already in the output format, copy whole window runs
+                long remaining = wanted;
+                while (remaining > 0) {
+                    if (myFrame >= myWindowFirst + myWindowFrames || myFrame < myWindowFirst) {
+                        fill(remaining);
+                    }
+                    final int frames = (int) Math.min(remaining,
+                            myWindowFirst + myWindowFrames - myFrame);
+                    myWindow.get((int) ((myFrame - myWindowFirst) * myFrameBytes), theBuffer,
+                            out, frames * myFrameBytes);
+                    out += frames * myFrameBytes;
+                    myFrame += frames;
+                    remaining -= frames;
+                }
+                return out - theOffset;
+            }
+
+            for (long f = 0; f < wanted; f++) {
+                if (myFrame >= myWindowFirst + myWindowFrames || myFrame < myWindowFirst) {
+                    fill(wanted - f);
+                }
+                int at = (int) ((myFrame - myWindowFirst) * myFrameBytes);
+                for (int c = 0; c < channels; c++) {
+                    final short sample = sample(at);
+                    theBuffer[out++] = (byte) sample;
+                    theBuffer[out++] = (byte) (sample >> 8);
+                    at += myLayout.sampleBytes();
+                }
+                myFrame++;
+            }
+            return out - theOffset;
+        }
+
+        @Override
+        public long skip(final long theBytes) {
+            final long frames = Math.min(Math.max(0, theBytes) / (2L * myLayout.theChannels()),
+                    myFrames - myFrame);
+            myFrame += frames;
+            return frames * 2L * myLayout.theChannels();
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(Integer.MAX_VALUE,
+                    (myFrames - myFrame) * 2L * myLayout.theChannels());
+        }
+
+        @Override
+        public void close() throws IOException {
+            myChannel.close();
+        }
+
+        /**
+         * Reads the frames starting at the next frame into the buffer: a whole buffer when
+         * reading on from the last one, only what the caller needs after a skip, so sampling
+         * a few blocks of a long file reads no more than those.
+         *
+         * @param theNeeded the frames the current read still needs.
+         * @throws IOException thrown if the file can not be read or ended early.
+         */
+        private void fill(final long theNeeded) throws IOException {
+            if (myWindow == null) {
+                final long frames = Math.min(Math.max(1, BUFFER_BYTES / myFrameBytes), myFrames);
+                myWindow = ByteBuffer.allocateDirect((int) frames * myFrameBytes)
+                        .order(myLayout.theBigEndian() ? ByteOrder.BIG_ENDIAN
+                                : ByteOrder.LITTLE_ENDIAN);
+            }
+            final long start = myLayout.theOffset() + myFrame * myFrameBytes;
+            final boolean onwards = myFrame == myWindowFirst + myWindowFrames;
+            final long wanted = Math.min(onwards ? myWindow.capacity() / myFrameBytes
+                    : Math.min(theNeeded, myWindow.capacity() / myFrameBytes), myFrames - myFrame);
+            myWindow.clear().limit((int) wanted * myFrameBytes);
+            while (myWindow.hasRemaining()) {
+                if (myChannel.read(myWindow, start + myWindow.position()) < 0) {
+                    break;
+                }
+            }
+            myWindowFirst = myFrame;
+            myWindowFrames = myWindow.position() / myFrameBytes;
+            if (myWindowFrames == 0) {
+                throw new EOFException("The recording ended at frame " + myFrame + " of "
+                        + myFrames);
+            }
+        }
+
+        /**
+         * Converts one source sample.
+         *
+         * @param theIndex the sample's first byte in the window.
+         * @return the sample as 16-bit PCM.
+         */
+        private short sample(final int theIndex) {
+            final ByteBuffer w = myWindow;
+            final boolean big = myLayout.theBigEndian();
+            final int bytes = myLayout.sampleBytes();
+
+            if (myLayout.theFloat()) {
+                final double value = bytes == 4 ? w.getFloat(theIndex) : w.getDouble(theIndex);
+                final double scaled = Math.round(value * 32767.0);
+                return (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, scaled));
+            }
+            if (bytes == 1) {
+                // WAV stores 8-bit samples unsigned, AIFF signed
+                final int value = w.get(theIndex);
+                return (short) ((big ? value : (value & 0xFF) - 128) << 8);
+            }
+            // Keep the two most significant bytes
+            final int high = big ? theIndex : theIndex + bytes - 1;
+            final int next = big ? theIndex + 1 : theIndex + bytes - 2;
+            return (short) ((w.get(high) << 8) | (w.get(next) & 0xFF));
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.kass.vocalanalysistool.model.audio;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free ring of preallocated PCM chunks with one producer and any number of readers.
+ *
+ * <p>The producer fills chunks in place (straight from {@code TargetDataLine.read}) and never
+ * waits. Every reader keeps its own {@link Cursor}. A reader that falls more than a full ring
+ * behind loses the oldest chunks instead of slowing the capture; the loss is counted. Each slot
+ * carries the sequence number of the chunk it holds, so a reader detects a slot overwritten
+ * while it was copying it (a seqlock).</p>
+ *
+ * @author Kassie Whitney
+ * @version 1/10/2026
+ */
+public final class PcmRingBuffer {
+
+    /**
+     * Marks a slot the producer is currently filling.
+     */
+    private static final long WRITING = -1;
+
+    /**
+     * The preallocated chunks.
+     */
+    private final byte[][] myChunks;
+
+    /**
+     * Valid bytes per chunk.
+     */
+    private final int[] myLengths;
+
+    /**
+     * The sequence number held by each slot, or {@link #WRITING}.
+     */
+    private final AtomicLongArray mySlotSequences;
+
+    /**
+     * Maps a sequence number to its slot.
+     */
+    private final int myMask;
+
+    /**
+     * Number of chunks published so far.
+     */
+    private final AtomicLong myPublished = new AtomicLong();
+
+    /**
+     * Sequence number of the chunk being written; producer thread only.
+     */
+    private long myNextWrite;
+
+    /**
+     * Creates a ring.
+     *
+     * @param theChunkBytes the capacity of one chunk.
+     * @param theChunkCount the number of chunks, rounded up to a power of two.
+     */
+    public PcmRingBuffer(final int theChunkBytes, final int theChunkCount) {
+        if (theChunkBytes <= 0 || theChunkCount <= 0) {
+            throw new IllegalArgumentException("Invalid ring size " + theChunkCount + " x "
+                    + theChunkBytes);
+        }
+        final int count = Integer.highestOneBit(Math.max(1, theChunkCount - 1)) << 1;
+        myChunks = new byte[count][theChunkBytes];
+        myLengths = new int[count];
+        mySlotSequences = new AtomicLongArray(count);
+        for (int i = 0; i < count; i++) {
+            mySlotSequences.set(i, WRITING);
+        }
+        myMask = count - 1;
+    }
+
+    /**
+     * Gets the capacity of one chunk.
+     *
+     * @return bytes per chunk.
+     */
+    public int chunkBytes() {
+        return myChunks[0].length;
+    }
+
+    /**
+     * Gets the number of chunks in the ring.
+     *
+     * @return the chunk count.
+     */
+    public int chunkCount() {
+        return myChunks.length;
+    }
+
+    /**
+     * Claims the next chunk for writing. Producer thread only; must be followed by
+     * {@link #endWrite(int)}.
+     *
+     * @return the chunk to fill.
+     */
+    public byte[] beginWrite() {
+        final int slot = (int) (myNextWrite & myMask);
+        mySlotSequences.set(slot, WRITING);
+        // Readers must see the slot marked before any of its bytes change
+        VarHandle.storeStoreFence();
+        return myChunks[slot];
+    }
+
+    /**
+     * Publishes the chunk claimed by {@link #beginWrite()}.
+     *
+     * @param theLength the number of valid bytes written into it.
+     */
+    public void endWrite(final int theLength) {
+        final int slot = (int) (myNextWrite & myMask);
+        myLengths[slot] = Math.max(0, theLength);
+        mySlotSequences.set(slot, myNextWrite);
+        myNextWrite++;
+        myPublished.set(myNextWrite);
+    }
+
+    /**
+     * Creates a reader positioned at the next chunk to be published.
+     *
+     * @return the cursor.
+     */
+    public Cursor newCursor() {
+        return new Cursor(myPublished.get());
+    }
+
+    /**
+     * One reader's position in the ring. Not thread safe; each reader thread owns its cursor.
+     */
+    public final class Cursor {
+
+        /**
+         * Sequence number of the next chunk to read.
+         */
+        private long myNext;
+
+        /**
+         * Chunks overwritten before this reader got to them.
+         */
+        private long myLost;
+
+        /**
+         * Creates a cursor.
+         *
+         * @param theStart the first sequence number to read.
+         */
+        private Cursor(final long theStart) {
+            myNext = theStart;
+        }
+
+        /**
+         * Copies the next chunk.
+         *
+         * @param theDestination receives the chunk; at least {@link #chunkBytes()} long.
+         * @return the number of bytes copied, or -1 when no new chunk is available.
+         */
+        public int read(final byte[] theDestination) {
+            while (true) {
+                final long published = myPublished.get();
+                if (myNext >= published) {
+                    return -1;
+                }
+                if (published - myNext > myChunks.length) {
+                    myLost += published - myChunks.length - myNext;
+                    myNext = published - myChunks.length;
+                }
+
+                final int slot = (int) (myNext & myMask);
+                if (mySlotSequences.get(slot) == myNext) {
+                    final int length = myLengths[slot];
+                    System.arraycopy(myChunks[slot], 0, theDestination, 0, length);
+                    // The copy must be complete before the slot is checked again
+                    VarHandle.acquireFence();
+                    if (mySlotSequences.get(slot) == myNext) {
+                        myNext++;
+                        return length;
+                    }
+                }
+
+                // Overwritten while (or before) we read it
+                myLost++;
+                myNext++;
+            }
+        }
+
+        /**
+         * Gets the number of chunks this reader missed because it fell too far behind.
+         *
+         * @return the lost chunk count.
+         */
+        public long lostChunks() {
+            return myLost;
+        }
+    }
+}
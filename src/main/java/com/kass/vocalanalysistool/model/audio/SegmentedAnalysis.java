@@ -0,0 +1,209 @@
+package com.kass.vocalanalysistool.model.audio;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+
+/**
+ * Analyzes a long recording on every core by splitting it at its silences.
+ *
+ * <p>The recording from its first to its last voiced region, pauses included, is cut into
+ * segments of about half a minute, each starting where a voiced region does. Each segment is
+ * read on its own (the file reader makes seeking free), normalized and fed to its own
+ * {@link IncrementalAnalyzer}, with the segment's offset in the trimmed timeline, so the times
+ * match what the python script sees. The {@link IncrementalAnalyzer.Summary} of every segment
+ * is merged in order into the summary of the whole recording; the medians and percentiles
+ * come from merged quantile sketches, never from a sort of all frames. The silence before and
+ * after the voice is counted as unvoiced, as python counts it.</p>
+ *
+ * <p>Segments are cut in silence, so cutting there loses nothing but the frame filter's memory
+ * of the previous voiced frame, which python carries across the pause.</p>
+ *
+ * @author Kassie Whitney
+ * @version 1/10/2026
+ */
+public final class SegmentedAnalysis {
+
+    /**
+     * System property that analyzes long recordings here instead of in python, e.g.
+     * {@code -Dvocalanalysis.segmentedAnalysis=true}. It is off by default: the gender model
+     * was trained on Praat's measurements, so the trackers have to match Praat on the
+     * reference recordings before they score anything by default.
+     */
+    public static final String ENABLED_PROPERTY = "vocalanalysis.segmentedAnalysis";
+
+    /**
+     * Recordings shorter than this are left to python; splitting them gains little.
+     */
+    public static final double MIN_RECORDING_SECONDS = 120.0;
+
+    /**
+     * Audio per segment.
+     */
+    private static final double SEGMENT_SECONDS = 30.0;
+
+    /**
+     * A stretch of the recording analyzed on its own.
+     *
+     * @param theSpan       the stretch.
+     * @param theKeptBefore frames of the trimmed recording before the segment.
+     */
+    private record Segment(VoiceActivityDetector.Region theSpan, long theKeptBefore) { }
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private SegmentedAnalysis() {
+    }
+
+    /**
+     * Tells whether long recordings are analyzed here.
+     *
+     * @return true if {@link #ENABLED_PROPERTY} is set to true.
+     */
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(ENABLED_PROPERTY);
+    }
+
+    /**
+     * Analyzes a recording segment by segment on a pool of one thread per core.
+     *
+     * @param theAudioFile    the recording.
+     * @param theAnalysisRate the rate the segments are analyzed at.
+     * @return the summary of the recording, empty if it is silent, or null if it is too short
+     * or can not be decoded and should go to python.
+     * @throws IOException          thrown if the recording can not be read.
+     * @throws InterruptedException thrown if the thread was interrupted.
+     */
+    public static IncrementalAnalyzer.Summary analyze(final Path theAudioFile,
+                                                      final float theAnalysisRate)
+            throws IOException, InterruptedException {
+        final AudioFormat format;
+        final long total;
+        try (final AudioInputStream audio = AudioNormalizer.openPcm(theAudioFile)) {
+            if (audio == null) {
+                return null;
+            }
+            format = audio.getFormat();
+            total = audio.getFrameLength();
+        }
+        if (total < MIN_RECORDING_SECONDS * format.getFrameRate()) {
+            return null;
+        }
+
+        final List<VoiceActivityDetector.Region> regions =
+                VoiceActivityDetector.detect(theAudioFile);
+        if (regions == null) {
+            return null;
+        }
+        if (regions.isEmpty()) {
+            return new IncrementalAnalyzer.Summary();
+        }
+        final List<Segment> segments = split(regions, Math.round(SEGMENT_SECONDS
+                * format.getFrameRate()));
+
+        final int threads = Math.min(segments.size(),
+                Runtime.getRuntime().availableProcessors());
+        final AtomicInteger threadCount = new AtomicInteger();
+        final ExecutorService executor = Executors.newFixedThreadPool(threads,
+                theRunnable -> {
+                    final Thread thread = new Thread(theRunnable,
+                            "SegmentedAnalysis-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        try {
+            final List<Future<IncrementalAnalyzer.Summary>> parts = new ArrayList<>();
+            for (final Segment segment : segments) {
+                final double offset = segment.theKeptBefore() / format.getFrameRate();
+                final Callable<IncrementalAnalyzer.Summary> task = () ->
+                        analyzeSegment(theAudioFile, segment.theSpan(), offset,
+                                theAnalysisRate);
+                parts.add(executor.submit(task));
+            }
+
+            IncrementalAnalyzer.Summary whole = null;
+            for (final Future<IncrementalAnalyzer.Summary> part : parts) {
+                final IncrementalAnalyzer.Summary summary = part.get();
+                if (whole == null) {
+                    whole = summary;
+                } else {
+                    whole.merge(summary);
+                }
+            }
+            final long trimmed = regions.get(0).theStartFrame()
+                    + total - regions.get(regions.size() - 1).theEndFrame();
+            whole.addTrimmedSilence(trimmed / format.getFrameRate());
+            return whole;
+        } catch (final ExecutionException theException) {
+            if (theException.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException("A segment could not be analyzed", theException.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Cuts the recording from its first to its last voiced region into segments.
+     *
+     * @param theRegions the voiced regions, in order; not empty.
+     * @param theFrames  frames after which a segment is closed at the next region.
+     * @return the segments, in order.
+     */
+    private static List<Segment> split(final List<VoiceActivityDetector.Region> theRegions,
+                                       final long theFrames) {
+        final List<Segment> segments = new ArrayList<>();
+        final long first = theRegions.get(0).theStartFrame();
+        long start = first;
+        for (final VoiceActivityDetector.Region region : theRegions) {
+            if (region.theStartFrame() - start >= theFrames) {
+                segments.add(new Segment(new VoiceActivityDetector.Region(start,
+                        region.theStartFrame()), start - first));
+                start = region.theStartFrame();
+            }
+        }
+        segments.add(new Segment(new VoiceActivityDetector.Region(start,
+                theRegions.get(theRegions.size() - 1).theEndFrame()), start - first));
+        return segments;
+    }
+
+    /**
+     * Analyzes one segment.
+     *
+     * @param theAudioFile    the recording.
+     * @param theSpan         the segment.
+     * @param theOffset       the segment's start in the trimmed recording, in seconds.
+     * @param theAnalysisRate the rate the segment is analyzed at.
+     * @return the summary of the segment.
+     * @throws IOException          thrown if the recording can not be read.
+     * @throws InterruptedException thrown if the thread was interrupted, e.g. by
+     *                              {@link ExecutorService#shutdownNow()} when the analysis is
+     *                              cancelled.
+     */
+    private static IncrementalAnalyzer.Summary analyzeSegment(
+            final Path theAudioFile, final VoiceActivityDetector.Region theSpan,
+            final double theOffset, final float theAnalysisRate)
+            throws IOException, InterruptedException {
+        final IncrementalAnalyzer analyzer = new IncrementalAnalyzer(theOffset);
+        try (final AudioInputStream audio = AudioNormalizer.openPcm(theAudioFile)) {
+            if (audio == null) {
+                throw new IOException("The recording can no longer be decoded: "
+                        + theAudioFile);
+            }
+            VoiceActivityDetector.copy(audio, List.of(theSpan),
+                    new AudioNormalizer(analyzer, theAnalysisRate));
+        }
+        return analyzer.summary();
+    }
+}
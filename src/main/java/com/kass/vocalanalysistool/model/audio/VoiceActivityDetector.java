@@ -0,0 +1,432 @@
+package com.kass.vocalanalysistool.model.audio;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+
+/**
+ * Finds the voiced parts of a recording and writes a copy without the silence before and after
+ * them.
+ *
+ * <p>The audio is cut into 10 ms frames, the analysis hop of the python script. A frame is
+ * voiced when its energy clears a threshold derived from the recording's own noise floor and
+ * its zero-crossing rate is low enough to rule out hiss. Short gaps inside speech are bridged,
+ * blips are dropped and every region keeps a margin on both sides so pitch and formant windows
+ * still see the onsets and offsets.</p>
+ *
+ * <p>Only the leading and trailing silence is cut; pauses between the voiced regions stay. The
+ * voiced fractions and the pitch slope are features of the gender model, tuned on whole takes,
+ * so the analysis also counts the cut silence as unvoiced frames (see
+ * {@link Trim#trimmedSeconds()}) and a trimmed take scores like the untrimmed one.</p>
+ *
+ * <p>Detection keeps one float per frame; the copy is streamed region by region through an
+ * {@link AudioNormalizer} into a {@link WavFileWriter}, so neither pass holds the recording in
+ * memory and the copy is already at the analysis rate. Both passes check for interruption once
+ * per frame or buffer, so a cancelled analysis stops within milliseconds.</p>
+ *
+ * @author Kassie Whitney
+ * @version 1/10/2026
+ */
+public final class VoiceActivityDetector {
+
+    /**
+     * System property that turns trimming off, e.g. {@code -Dvocalanalysis.keepSilence=true}.
+     */
+    public static final String KEEP_SILENCE_PROPERTY = "vocalanalysis.keepSilence";
+
+    /**
+     * Frame length in seconds.
+     */
+    private static final double FRAME_SECONDS = 0.01;
+
+    /**
+     * Frames are never voiced below this level, however quiet the room is.
+     */
+    private static final double ABSOLUTE_FLOOR_DB = -55.0;
+
+    /**
+     * Percentile of the frame energies taken as the noise floor.
+     */
+    private static final double NOISE_PERCENTILE = 0.10;
+
+    /**
+     * How far above the noise floor a frame has to be to count as voiced.
+     */
+    private static final double NOISE_MARGIN_DB = 10.0;
+
+    /**
+     * The threshold never sits closer than this to the loudest frame, so a recording that is
+     * speech from end to end is not mistaken for noise.
+     */
+    private static final double PEAK_RANGE_DB = 30.0;
+
+    /**
+     * Zero crossings per sample above which a frame is hiss or a fricative, not voicing.
+     */
+    private static final double MAX_ZERO_CROSSING_RATE = 0.25;
+
+    /**
+     * Pauses shorter than this do not split a region.
+     */
+    private static final double BRIDGE_SECONDS = 0.25;
+
+    /**
+     * Voiced runs shorter than this are clicks or breaths.
+     */
+    private static final double MIN_VOICED_SECONDS = 0.06;
+
+    /**
+     * Audio kept before and after every region.
+     */
+    private static final double MARGIN_SECONDS = 0.10;
+
+    /**
+     * A recording is only rewritten when trimming removes at least this share of it.
+     */
+    private static final double MIN_SAVING = 0.10;
+
+    /**
+     * Bytes copied at a time.
+     */
+    private static final int COPY_BYTES = 64 * 1024;
+
+    /**
+     * A voiced region.
+     *
+     * @param theStartFrame the first sample frame.
+     * @param theEndFrame   one past the last sample frame.
+     */
+    public record Region(long theStartFrame, long theEndFrame) {
+
+        /**
+         * Gets the length of the region.
+         *
+         * @return the number of sample frames.
+         */
+        public long frames() {
+            return theEndFrame - theStartFrame;
+        }
+    }
+
+    /**
+     * The outcome of trimming a recording.
+     *
+     * @param theAudio       the file to analyze: the trimmed copy, or the source when it is
+     *                       already normalized and trimming would not save enough.
+     * @param theRegions     the voiced regions of the source.
+     * @param theKeptFrames  the source's sample frames in theAudio.
+     * @param theTotalFrames the sample frames in the source.
+     * @param theFrameRate   the sample frames per second of the source.
+     */
+    public record Trim(Path theAudio, List<Region> theRegions, long theKeptFrames,
+                       long theTotalFrames, float theFrameRate) {
+
+        /**
+         * Gets the length of the silence cut from the ends of the recording.
+         *
+         * @return the seconds of the source that are not in theAudio.
+         */
+        public double trimmedSeconds() {
+            return (theTotalFrames - theKeptFrames) / (double) theFrameRate;
+        }
+
+        /**
+         * Tells whether the recording has no voiced audio at all.
+         *
+         * @return true if nothing is left to analyze.
+         */
+        public boolean isSilent() {
+            return theRegions.isEmpty();
+        }
+    }
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private VoiceActivityDetector() {
+    }
+
+    /**
+     * Finds the voiced regions of a recording.
+     *
+     * @param theAudioFile the recording.
+     * @return the regions in order, margins included, or null if the file can not be
+     * decoded.
+     * @throws IOException          thrown if the file can not be read.
+     * @throws InterruptedException thrown if the thread was interrupted.
+     */
+    public static List<Region> detect(final Path theAudioFile)
+            throws IOException, InterruptedException {
+        try (final AudioInputStream audio = AudioNormalizer.openPcm(theAudioFile)) {
+            return audio == null ? null : detect(audio);
+        }
+    }
+
+    /**
+     * Writes a normalized copy of a recording from the start of its first voiced region to the
+     * end of its last one.
+     *
+     * @param theSource       the recording.
+     * @param theTarget       where the trimmed WAV is written; left alone when the recording
+     *                        is already normalized and trimming is not worth it.
+     * @param theAnalysisRate the rate of the copy, see {@link AudioNormalizer}.
+     * @return the outcome, or null if the recording can not be decoded and it has to be
+     * analyzed as it is.
+     * @throws IOException          thrown if a file can not be read or written.
+     * @throws InterruptedException thrown if the thread was interrupted; the target may hold
+     *                              a partial copy.
+     */
+    public static Trim trim(final Path theSource, final Path theTarget,
+                            final float theAnalysisRate)
+            throws IOException, InterruptedException {
+        final List<Region> regions;
+        final long total;
+        final float rate;
+        final boolean normalize;
+        try (final AudioInputStream audio = AudioNormalizer.openPcm(theSource)) {
+            if (audio == null) {
+                return null;
+            }
+            total = audio.getFrameLength();
+            rate = audio.getFormat().getFrameRate();
+            normalize = AudioNormalizer.changes(audio.getFormat(), theAnalysisRate);
+            regions = detect(audio);
+        }
+
+        if (regions.isEmpty()) {
+            return new Trim(theSource, regions, 0, total, rate);
+        }
+        Region span = new Region(regions.get(0).theStartFrame(),
+                regions.get(regions.size() - 1).theEndFrame());
+        long kept = span.frames();
+        // Without a known length the trailing silence could not be counted
+        if (total < 0 || kept > (1 - MIN_SAVING) * total) {
+            if (!normalize) {
+                return new Trim(theSource, regions, total, total, rate);
+            }
+            // Not worth trimming, but still worth normalizing
+            span = new Region(0, total < 0 ? Long.MAX_VALUE : total);
+            kept = total;
+        }
+
+        try (final AudioInputStream audio = AudioNormalizer.openPcm(theSource)) {
+            copy(audio, List.of(span), new AudioNormalizer(new WavFileWriter(theTarget),
+                    theAnalysisRate));
+        }
+        return new Trim(theTarget, regions, kept, total, rate);
+    }
+
+    /**
+     * Feeds the regions of a stream to a consumer as one session, silence left out.
+     *
+     * @param theAudio    16-bit little-endian PCM, positioned at its start.
+     * @param theRegions  the regions to feed, in order.
+     * @param theConsumer the consumer; it is started and stopped here, also when the copy is
+     *                    interrupted.
+     * @throws IOException          thrown if the stream can not be read or the consumer fails.
+     * @throws InterruptedException thrown if the thread was interrupted.
+     */
+    static void copy(final AudioInputStream theAudio, final List<Region> theRegions,
+                     final PcmConsumer theConsumer) throws IOException, InterruptedException {
+        final int frameSize = theAudio.getFormat().getFrameSize();
+        final byte[] buffer = new byte[COPY_BYTES - COPY_BYTES % frameSize];
+        theConsumer.onStart(theAudio.getFormat());
+        try {
+            long position = 0;
+            for (final Region region : theRegions) {
+                skipFully(theAudio, (region.theStartFrame() - position) * frameSize);
+                // An open-ended region runs to the end of the stream
+                long remaining = region.frames() > Long.MAX_VALUE / frameSize
+                        ? Long.MAX_VALUE : region.frames() * frameSize;
+                while (remaining > 0) {
+                    if (Thread.interrupted()) {
+                        throw new InterruptedException("Copying the voiced regions was "
+                                + "interrupted");
+                    }
+                    final int read = theAudio.read(buffer, 0,
+                            (int) Math.min(buffer.length, remaining));
+                    if (read < 0) {
+                        break;
+                    }
+                    theConsumer.onPcm(buffer, read);
+                    remaining -= read;
+                }
+                position = region.theEndFrame();
+            }
+        } finally {
+            theConsumer.onStop();
+        }
+    }
+
+    /**
+     * Finds the voiced regions of a decoded stream.
+     *
+     * @param theAudio 16-bit little-endian PCM.
+     * @return the regions in order, margins included.
+     * @throws IOException          thrown if the stream can not be read.
+     * @throws InterruptedException thrown if the thread was interrupted.
+     */
+    private static List<Region> detect(final AudioInputStream theAudio)
+            throws IOException, InterruptedException {
+        final AudioFormat format = theAudio.getFormat();
+        final int channels = format.getChannels();
+        final int frameSize = format.getFrameSize();
+        final int frameLength = Math.max(1, (int) Math.round(format.getFrameRate()
+                * FRAME_SECONDS));
+
+        final long totalFrames = theAudio.getFrameLength();
+        int capacity = totalFrames > 0
+                ? (int) Math.min(Integer.MAX_VALUE - 8, totalFrames / frameLength + 1) : 1024;
+        float[] levels = new float[capacity];
+        float[] crossings = new float[capacity];
+        int count = 0;
+
+        final byte[] block = new byte[frameLength * frameSize];
+        int fill;
+        while ((fill = readFully(theAudio, block)) > 0) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException("Voice activity detection was interrupted");
+            }
+            final int samples = fill / frameSize;
+            double energy = 0;
+            int zeroCrossings = 0;
+            double previous = 0;
+            for (int s = 0; s < samples; s++) {
+                double mono = 0;
+                for (int c = 0; c < channels; c++) {
+                    final int i = s * frameSize + 2 * c;
+                    mono += (short) ((block[i + 1] << 8) | (block[i] & 0xFF));
+                }
+                mono /= channels * 32768.0;
+                energy += mono * mono;
+                if (s > 0 && (mono >= 0) != (previous >= 0)) {
+                    zeroCrossings++;
+                }
+                previous = mono;
+            }
+
+            if (count == capacity) {
+                capacity *= 2;
+                levels = Arrays.copyOf(levels, capacity);
+                crossings = Arrays.copyOf(crossings, capacity);
+            }
+            levels[count] = (float) (10 * Math.log10(energy / Math.max(1, samples) + 1e-12));
+            crossings[count] = (float) zeroCrossings / Math.max(1, samples);
+            count++;
+        }
+        if (count == 0) {
+            return List.of();
+        }
+
+        final float[] sorted = Arrays.copyOf(levels, count);
+        Arrays.sort(sorted);
+        final double noise = sorted[(int) (NOISE_PERCENTILE * (count - 1))];
+        final double peak = sorted[count - 1];
+        final double threshold = Math.max(ABSOLUTE_FLOOR_DB,
+                Math.min(noise + NOISE_MARGIN_DB, peak - PEAK_RANGE_DB));
+
+        final int bridge = (int) Math.round(BRIDGE_SECONDS / FRAME_SECONDS);
+        final int minVoiced = (int) Math.round(MIN_VOICED_SECONDS / FRAME_SECONDS);
+        final long margin = Math.round(MARGIN_SECONDS * format.getFrameRate());
+        final long end = totalFrames > 0 ? totalFrames : (long) count * frameLength;
+
+        final List<Region> regions = new ArrayList<>();
+        int runStart = -1;
+        int runEnd = -1;
+        for (int f = 0; f <= count; f++) {
+            final boolean voiced = f < count && levels[f] > threshold
+                    && crossings[f] < MAX_ZERO_CROSSING_RATE;
+            if (voiced) {
+                if (runStart >= 0 && f - runEnd <= bridge) {
+                    runEnd = f + 1;
+                    continue;
+                }
+                addRegion(regions, runStart, runEnd, minVoiced, frameLength, margin, end);
+                runStart = f;
+                runEnd = f + 1;
+            } else if (f == count) {
+                addRegion(regions, runStart, runEnd, minVoiced, frameLength, margin, end);
+            }
+        }
+        return regions;
+    }
+
+    /**
+     * Adds a run of voiced frames, widened by the margin and merged with the previous region
+     * when the margins meet.
+     *
+     * @param theRegions     the regions found so far.
+     * @param theRunStart    the first voiced frame, or -1 when there is no run.
+     * @param theRunEnd      one past the last voiced frame.
+     * @param theMinVoiced   the shortest run kept, in frames.
+     * @param theFrameLength sample frames per analysis frame.
+     * @param theMargin      sample frames kept on both sides.
+     * @param theEnd         the length of the recording in sample frames.
+     */
+    private static void addRegion(final List<Region> theRegions, final int theRunStart,
+                                  final int theRunEnd, final int theMinVoiced,
+                                  final int theFrameLength, final long theMargin,
+                                  final long theEnd) {
+        if (theRunStart < 0 || theRunEnd - theRunStart < theMinVoiced) {
+            return;
+        }
+        long start = Math.max(0, (long) theRunStart * theFrameLength - theMargin);
+        final long end = Math.min(theEnd, (long) theRunEnd * theFrameLength + theMargin);
+
+        if (!theRegions.isEmpty()) {
+            final Region last = theRegions.get(theRegions.size() - 1);
+            if (start <= last.theEndFrame()) {
+                theRegions.remove(theRegions.size() - 1);
+                start = last.theStartFrame();
+            }
+        }
+        theRegions.add(new Region(start, end));
+    }
+
+    /**
+     * Reads until the buffer is full or the stream ends.
+     *
+     * @param theInput  the stream.
+     * @param theBuffer the buffer.
+     * @return the number of bytes read, 0 at the end of the stream.
+     * @throws IOException thrown if the stream can not be read.
+     */
+    private static int readFully(final InputStream theInput, final byte[] theBuffer)
+            throws IOException {
+        int fill = 0;
+        int read;
+        while (fill < theBuffer.length
+                && (read = theInput.read(theBuffer, fill, theBuffer.length - fill)) > 0) {
+            fill += read;
+        }
+        return fill;
+    }
+
+    /**
+     * Skips exactly the given number of bytes unless the stream ends first.
+     *
+     * @param theInput the stream.
+     * @param theBytes the number of bytes to skip.
+     * @throws IOException thrown if the stream can not be read.
+     */
+    private static void skipFully(final InputStream theInput, final long theBytes)
+            throws IOException {
+        long remaining = theBytes;
+        while (remaining > 0) {
+            final long skipped = theInput.skip(remaining);
+            if (skipped <= 0) {
+                if (theInput.read() < 0) {
+                    return;
+                }
+                remaining--;
+            } else {
+                remaining -= skipped;
+            }
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.kass.vocalanalysistool.model.audio;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * Streams captured PCM into a WAV file.
+ *
+ * <p>Chunks are collected in a 64 KiB buffer and written in batches. The header is written
+ * with zero sizes when the session starts and fixed up when it stops, so the file never has to
+ * be held in memory or rewritten.</p>
+ *
+ * @author Kassie Whitney
+ * @version 1/10/2026
+ */
+public final class WavFileWriter implements PcmConsumer {
+
+    /**
+     * Size of the canonical PCM WAV header.
+     */
+    private static final int HEADER_BYTES = 44;
+
+    /**
+     * Bytes collected before a write.
+     */
+    private static final int BATCH_BYTES = 64 * 1024;
+
+    /**
+     * The file to write.
+     */
+    private final Path myPath;
+
+    /**
+     * Collects chunks between writes.
+     */
+    private final ByteBuffer myBatch = ByteBuffer.allocateDirect(BATCH_BYTES);
+
+    /**
+     * The open file, null between sessions.
+     */
+    private FileChannel myChannel;
+
+    /**
+     * The format of the current session.
+     */
+    private AudioFormat myFormat;
+
+    /**
+     * Audio bytes written so far.
+     */
+    private long myDataBytes;
+
+    /**
+     * Creates a writer. The file is created or truncated when a session starts.
+     *
+     * @param thePath the WAV file.
+     */
+    public WavFileWriter(final Path thePath) {
+        myPath = thePath;
+    }
+
+    @Override
+    public boolean needsEveryChunk() {
+        // A take with holes in it would be analyzed as if it were whole
+        return true;
+    }
+
+    @Override
+    public void onStart(final AudioFormat theFormat) throws IOException {
+        final boolean pcm = AudioFormat.Encoding.PCM_SIGNED.equals(theFormat.getEncoding())
+                || AudioFormat.Encoding.PCM_UNSIGNED.equals(theFormat.getEncoding());
+        if (!pcm || (theFormat.getSampleSizeInBits() > 8 && theFormat.isBigEndian())) {
+            throw new IOException("WAV files need little-endian PCM, not " + theFormat);
+        }
+
+        myFormat = theFormat;
+        myDataBytes = 0;
+        myBatch.clear();
+        myChannel = FileChannel.open(myPath, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        myChannel.write(header(0));
+    }
+
+    @Override
+    public void onPcm(final byte[] theChunk, final int theLength) throws IOException {
+        if (myBatch.remaining() < theLength) {
+            flush();
+        }
+        if (theLength > myBatch.capacity()) {
+            myChannel.write(ByteBuffer.wrap(theChunk, 0, theLength));
+        } else {
+            myBatch.put(theChunk, 0, theLength);
+        }
+        myDataBytes += theLength;
+    }
+
+    @Override
+    public void onStop() throws IOException {
+        if (myChannel == null) {
+            return;
+        }
+        try {
+            flush();
+            myChannel.write(header(myDataBytes), 0);
+        } finally {
+            myChannel.close();
+            myChannel = null;
+        }
+    }
+
+    /**
+     * Gets the number of audio bytes in the file.
+     *
+     * @return the size of the data chunk.
+     */
+    public long getDataBytes() {
+        return myDataBytes;
+    }
+
+    /**
+     * Writes the collected chunks.
+     *
+     * @throws IOException thrown if the file can not be written.
+     */
+    private void flush() throws IOException {
+        myBatch.flip();
+        while (myBatch.hasRemaining()) {
+            myChannel.write(myBatch);
+        }
+        myBatch.clear();
+    }
+
+    /**
+     * Builds the RIFF/WAVE header.
+     *
+     * @param theDataBytes the size of the audio data.
+     * @return the header, ready to be written.
+     */
+    private ByteBuffer header(final long theDataBytes) {
+        final int channels = myFormat.getChannels();
+        final int sampleRate = Math.round(myFormat.getSampleRate());
+        final int blockAlign = myFormat.getFrameSize();
+        final int dataBytes = (int) Math.min(theDataBytes, 0xFFFF_FFFFL - 36);
+
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.put(new byte[]{'R', 'I', 'F', 'F'}).putInt(36 + dataBytes);
+        header.put(new byte[]{'W', 'A', 'V', 'E'});
+        header.put(new byte[]{'f', 'm', 't', ' '}).putInt(16);
+        header.putShort((short) 1); // PCM
+        header.putShort((short) channels);
+        header.putInt(sampleRate);
+        header.putInt(sampleRate * blockAlign);
+        header.putShort((short) blockAlign);
+        header.putShort((short) myFormat.getSampleSizeInBits());
+        header.put(new byte[]{'d', 'a', 't', 'a'}).putInt(dataBytes);
+        return header.flip();
+    }
+}
@@ -0,0 +1,512 @@
+package com.kass.vocalanalysistool.model.dsp;
+
+import java.util.Arrays;
+
+/**
+ * Formant tracker modelled on Praat's {@code Sound: To Formant (burg)}, the analysis the python
+ * script runs through {@code sound.to_formant_burg(time_step=0.01)}.
+ *
+ * <p>With the same defaults (5 formants below 5500 Hz, 25 ms window, pre-emphasis from 50 Hz)
+ * every 10 ms frame goes through:</p>
+ * <ol>
+ *     <li>band-limited resampling to twice the maximum formant,</li>
+ *     <li>pre-emphasis and a Gaussian window,</li>
+ *     <li>Burg LPC of order twice the number of formants,</li>
+ *     <li>Durand-Kerner root solving; roots between 50 Hz and the maximum formant minus 50 Hz
+ *     become the formant candidates, lowest first.</li>
+ * </ol>
+ *
+ * <p>All work buffers are allocated once per tracker and only grow, so a tracker can be reused
+ * for any number of recordings, and {@link #track(double[], int, int, double[][])} tracks a
+ * part of a buffer into the caller's arrays without allocating. Missing formants are reported
+ * as {@link Double#NaN}.</p>
+ *
+ * @author Kassie Whitney
+ * @version 1/9/2026
+ */
+public final class FormantTracker {
+
+    /**
+     * The analysis hop in seconds.
+     */
+    public static final double HOP_SECONDS = 0.01;
+
+    /**
+     * Number of formants reported per frame (F1-F4).
+     */
+    public static final int TRACKED_FORMANTS = 4;
+
+    /**
+     * Praat's default number of formants searched for.
+     */
+    private static final int MAX_FORMANTS = 5;
+
+    /**
+     * Praat's default ceiling in Hz.
+     */
+    private static final double MAX_FORMANT_HZ = 5500.0;
+
+    /**
+     * Praat's default window length; the Gaussian window is effectively twice as long.
+     */
+    private static final double WINDOW_SECONDS = 0.025;
+
+    /**
+     * Frequency from which the pre-emphasis boosts by 6 dB/octave.
+     */
+    private static final double PRE_EMPHASIS_HZ = 50.0;
+
+    /**
+     * Candidates closer than this to 0 Hz or the Nyquist frequency are dropped.
+     */
+    private static final double EDGE_HZ = 50.0;
+
+    /**
+     * Zero crossings of the resampling kernel on each side.
+     */
+    private static final int SINC_ZEROS = 16;
+
+    /**
+     * Root solver iteration limit.
+     */
+    private static final int MAX_ITERATIONS = 200;
+
+    /**
+     * Root solver convergence tolerance.
+     */
+    private static final double TOLERANCE = 1e-12;
+
+    /**
+     * The input sample rate.
+     */
+    private final double mySampleRate;
+
+    /**
+     * The analysis sample rate, twice the maximum formant.
+     */
+    private final double myAnalysisRate;
+
+    /**
+     * LPC order.
+     */
+    private final int myOrder;
+
+    /**
+     * Samples per analysis window at the analysis rate.
+     */
+    private final int myWindowLength;
+
+    /**
+     * The Gaussian window.
+     */
+    private final double[] myWindow;
+
+    /**
+     * The windowed frame.
+     */
+    private final double[] myFrame;
+
+    /**
+     * Burg forward prediction errors.
+     */
+    private final double[] myForward;
+
+    /**
+     * Burg backward prediction errors.
+     */
+    private final double[] myBackward;
+
+    /**
+     * LPC coefficients.
+     */
+    private final double[] myCoefficients;
+
+    /**
+     * LPC coefficients of the previous order.
+     */
+    private final double[] myPrevious;
+
+    /**
+     * Real parts of the polynomial roots.
+     */
+    private final double[] myRootsRe;
+
+    /**
+     * Imaginary parts of the polynomial roots.
+     */
+    private final double[] myRootsIm;
+
+    /**
+     * Formant candidates of the current frame.
+     */
+    private final double[] myCandidates;
+
+    /**
+     * The pre-emphasized sound at the analysis rate.
+     */
+    private double[] mySound = new double[0];
+
+    /**
+     * Creates a tracker with Praat's default settings.
+     *
+     * @param theSampleRate the sample rate of the audio that will be tracked.
+     */
+    public FormantTracker(final double theSampleRate) {
+        if (theSampleRate <= 0) {
+            throw new IllegalArgumentException("Invalid sample rate " + theSampleRate);
+        }
+        mySampleRate = theSampleRate;
+        myAnalysisRate = Math.min(theSampleRate, 2 * MAX_FORMANT_HZ);
+        myOrder = 2 * MAX_FORMANTS;
+        myWindowLength = (int) Math.round(2 * WINDOW_SECONDS * myAnalysisRate);
+
+        myWindow = new double[myWindowLength];
+        final double edge = Math.exp(-12.0);
+        final double mid = 0.5 * (myWindowLength + 1);
+        for (int i = 0; i < myWindowLength; i++) {
+            final double x = (i + 1 - mid) / (myWindowLength + 1);
+            myWindow[i] = (Math.exp(-48.0 * x * x) - edge) / (1.0 - edge);
+        }
+
+        myFrame = new double[myWindowLength];
+        myForward = new double[myWindowLength];
+        myBackward = new double[myWindowLength];
+        myCoefficients = new double[myOrder];
+        myPrevious = new double[myOrder];
+        myRootsRe = new double[myOrder];
+        myRootsIm = new double[myOrder];
+        myCandidates = new double[myOrder];
+    }
+
+    /**
+     * Tracks the formants of a whole recording.
+     *
+     * @param theSamples the samples, -1 to 1, at the tracker's sample rate.
+     * @return a matrix where row 0 holds the frame times and rows 1-4 hold F1-F4 (NaN when the
+     * frame has fewer formants).
+     */
+    public double[][] track(final double[] theSamples) {
+        final double[][] result = new double[TRACKED_FORMANTS + 1][frames(theSamples.length)];
+        track(theSamples, 0, theSamples.length, result);
+        return result;
+    }
+
+    /**
+     * Tracks the formants of a part of a buffer into preallocated rows.
+     *
+     * @param theSamples the buffer, -1 to 1, at the tracker's sample rate.
+     * @param theOffset  the first sample of the part.
+     * @param theLength  the number of samples in the part.
+     * @param theResult  receives the frame times in row 0 and F1-F4 in rows 1-4, measured from
+     *                   the start of the part; each row needs room for
+     *                   {@link #frames(int) frames(theLength)} values.
+     * @return the number of frames written.
+     * @throws IllegalArgumentException if the rows are too short.
+     */
+    public int track(final double[] theSamples, final int theOffset, final int theLength,
+                     final double[][] theResult) {
+        final int frames = frames(theLength);
+        if (theResult.length <= TRACKED_FORMANTS) {
+            throw new IllegalArgumentException("The result needs " + (TRACKED_FORMANTS + 1)
+                    + " rows");
+        }
+        for (final double[] row : theResult) {
+            if (row.length < frames) {
+                throw new IllegalArgumentException("The result rows need room for " + frames
+                        + " frames");
+            }
+        }
+
+        final int length = resample(theSamples, theOffset, theLength);
+        preEmphasize(mySound, length);
+
+        final double duration = length / myAnalysisRate;
+        final double firstTime = 0.5 * (duration - (frames - 1) * HOP_SECONDS);
+
+        for (int frame = 0; frame < frames; frame++) {
+            final double time = firstTime + frame * HOP_SECONDS;
+            theResult[0][frame] = time;
+
+            final int start = (int) Math.round(time * myAnalysisRate - 0.5 * myWindowLength);
+            for (int i = 0; i < myWindowLength; i++) {
+                final int index = start + i;
+                myFrame[i] = index >= 0 && index < length ? mySound[index] * myWindow[i] : 0.0;
+            }
+
+            final int found = analyzeFrame();
+            for (int n = 0; n < TRACKED_FORMANTS; n++) {
+                theResult[n + 1][frame] = n < found ? myCandidates[n] : Double.NaN;
+            }
+        }
+
+        return frames;
+    }
+
+    /**
+     * Gets the number of frames a part of a recording yields.
+     *
+     * @param theLength the number of samples in the part.
+     * @return the number of frames.
+     */
+    public int frames(final int theLength) {
+        final double duration = resampledLength(theLength) / myAnalysisRate;
+        final double windowSeconds = myWindowLength / myAnalysisRate;
+        return duration < windowSeconds ? 0
+                : (int) Math.floor((duration - windowSeconds) / HOP_SECONDS) + 1;
+    }
+
+    /**
+     * Combines a formant track with a pitch track into the layout
+     * {@code UserSampleDatabase.getFormants()} returns: row n holds Fn, F0 in row 0. The pitch is
+     * sampled at the formant frame times; frames without pitch or formants are dropped, as the
+     * python script drops frames with any NaN.
+     *
+     * @param theFormants the result of {@link #track(double[])}.
+     * @param thePitch    the result of {@link PitchTracker#track(double[], double)}.
+     * @return rows F0-F4 over the frames where all five are defined.
+     */
+    public static double[][] toFormantMatrix(final double[][] theFormants,
+                                             final double[][] thePitch) {
+        final int frames = theFormants[0].length;
+        final double[][] matrix = new double[TRACKED_FORMANTS + 1][frames];
+        int kept = 0;
+        int pitchIndex = 0;
+
+        for (int frame = 0; frame < frames; frame++) {
+            final double time = theFormants[0][frame];
+            while (pitchIndex + 1 < thePitch[0].length
+                    && Math.abs(thePitch[0][pitchIndex + 1] - time)
+                    <= Math.abs(thePitch[0][pitchIndex] - time)) {
+                pitchIndex++;
+            }
+            final double f0 = thePitch[0].length == 0 ? Double.NaN : thePitch[1][pitchIndex];
+
+            boolean valid = !Double.isNaN(f0);
+            for (int n = 1; n <= TRACKED_FORMANTS && valid; n++) {
+                valid = !Double.isNaN(theFormants[n][frame]);
+            }
+            if (valid) {
+                matrix[0][kept] = f0;
+                for (int n = 1; n <= TRACKED_FORMANTS; n++) {
+                    matrix[n][kept] = theFormants[n][frame];
+                }
+                kept++;
+            }
+        }
+
+        for (int n = 0; n <= TRACKED_FORMANTS; n++) {
+            matrix[n] = Arrays.copyOf(matrix[n], kept);
+        }
+        return matrix;
+    }
+
+    /**
+     * Finds the formant candidates of the windowed frame.
+     *
+     * @return the number of candidates written to {@link #myCandidates}, lowest first.
+     */
+    private int analyzeFrame() {
+        if (!burg()) {
+            return 0;
+        }
+        solveRoots();
+
+        final double nyquist = 0.5 * myAnalysisRate;
+        int found = 0;
+        for (int i = 0; i < myOrder; i++) {
+            if (myRootsIm[i] <= 0) {
+                continue;
+            }
+            final double frequency = Math.atan2(myRootsIm[i], myRootsRe[i])
+                    * myAnalysisRate / (2 * Math.PI);
+            if (frequency >= EDGE_HZ && frequency <= nyquist - EDGE_HZ) {
+                myCandidates[found++] = frequency;
+            }
+        }
+        Arrays.sort(myCandidates, 0, found);
+        return found;
+    }
+
+    /**
+     * Burg's method: fits LPC coefficients to the frame by minimizing the forward and backward
+     * prediction errors together.
+     *
+     * @return false if the frame is silent.
+     */
+    private boolean burg() {
+        final int n = myWindowLength;
+        final double[] a = myCoefficients;
+        final double[] previous = myPrevious;
+
+        double energy = 0;
+        for (int i = 0; i < n; i++) {
+            energy += myFrame[i] * myFrame[i];
+        }
+        if (energy == 0) {
+            return false;
+        }
+
+        for (int j = 0; j < n - 1; j++) {
+            myForward[j] = myFrame[j];
+            myBackward[j] = myFrame[j + 1];
+        }
+        Arrays.fill(a, 0.0);
+        Arrays.fill(previous, 0.0);
+
+        for (int k = 0; k < myOrder; k++) {
+            double numerator = 0;
+            double denominator = 0;
+            for (int j = 0; j < n - k - 1; j++) {
+                numerator += myForward[j] * myBackward[j];
+                denominator += myForward[j] * myForward[j] + myBackward[j] * myBackward[j];
+            }
+            if (denominator == 0) {
+                return false;
+            }
+
+            a[k] = 2 * numerator / denominator;
+            for (int i = 0; i < k; i++) {
+                a[i] = previous[i] - a[k] * previous[k - 1 - i];
+            }
+            if (k == myOrder - 1) {
+                break;
+            }
+
+            System.arraycopy(a, 0, previous, 0, k + 1);
+            for (int j = 0; j < n - k - 2; j++) {
+                myForward[j] -= previous[k] * myBackward[j];
+                myBackward[j] = myBackward[j + 1] - previous[k] * myForward[j + 1];
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Solves z^p - a1 z^(p-1) - ... - ap = 0 with the Durand-Kerner iteration.
+     */
+    private void solveRoots() {
+        final int p = myOrder;
+
+        // Standard starting points: powers of a complex number that is neither real nor a root
+        // of unity
+        double re = 1;
+        double im = 0;
+        for (int i = 0; i < p; i++) {
+            myRootsRe[i] = re;
+            myRootsIm[i] = im;
+            final double nextRe = re * 0.4 - im * 0.9;
+            im = re * 0.9 + im * 0.4;
+            re = nextRe;
+        }
+
+        for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+            double change = 0;
+
+            for (int i = 0; i < p; i++) {
+                final double zr = myRootsRe[i];
+                final double zi = myRootsIm[i];
+
+                // Horner evaluation of the polynomial at z
+                double valueRe = 1;
+                double valueIm = 0;
+                for (int k = 0; k < p; k++) {
+                    final double nextRe = valueRe * zr - valueIm * zi - myCoefficients[k];
+                    valueIm = valueRe * zi + valueIm * zr;
+                    valueRe = nextRe;
+                }
+
+                // Product of the distances to the other roots
+                double productRe = 1;
+                double productIm = 0;
+                for (int j = 0; j < p; j++) {
+                    if (j != i) {
+                        final double dr = zr - myRootsRe[j];
+                        final double di = zi - myRootsIm[j];
+                        final double nextRe = productRe * dr - productIm * di;
+                        productIm = productRe * di + productIm * dr;
+                        productRe = nextRe;
+                    }
+                }
+
+                final double norm = productRe * productRe + productIm * productIm;
+                if (norm == 0) {
+                    continue;
+                }
+                final double stepRe = (valueRe * productRe + valueIm * productIm) / norm;
+                final double stepIm = (valueIm * productRe - valueRe * productIm) / norm;
+
+                myRootsRe[i] = zr - stepRe;
+                myRootsIm[i] = zi - stepIm;
+                change = Math.max(change, stepRe * stepRe + stepIm * stepIm);
+            }
+
+            if (change < TOLERANCE * TOLERANCE) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Applies a first order pre-emphasis filter in place, back to front.
+     *
+     * @param theSound  the samples at the analysis rate.
+     * @param theLength the number of samples to filter.
+     */
+    private void preEmphasize(final double[] theSound, final int theLength) {
+        final double factor = Math.exp(-2 * Math.PI * PRE_EMPHASIS_HZ / myAnalysisRate);
+        for (int i = theLength - 1; i > 0; i--) {
+            theSound[i] -= factor * theSound[i - 1];
+        }
+    }
+
+    /**
+     * Gets the number of samples a part of a recording has at the analysis rate.
+     *
+     * @param theLength the number of samples at the input rate.
+     * @return the number of samples at the analysis rate.
+     */
+    private int resampledLength(final int theLength) {
+        return myAnalysisRate == mySampleRate ? theLength
+                : (int) Math.floor(theLength * (myAnalysisRate / mySampleRate));
+    }
+
+    /**
+     * Resamples a part of a buffer into {@link #mySound} with a Hann-windowed sinc kernel whose
+     * cut-off is the new Nyquist frequency. The kernel only reads samples of the part.
+     *
+     * @param theSamples the buffer at the input rate.
+     * @param theOffset  the first sample of the part.
+     * @param theLength  the number of samples in the part.
+     * @return the number of samples written (a copy when the rates already match).
+     */
+    private int resample(final double[] theSamples, final int theOffset, final int theLength) {
+        final int length = resampledLength(theLength);
+        if (mySound.length < length) {
+            mySound = new double[length];
+        }
+        if (myAnalysisRate == mySampleRate) {
+            System.arraycopy(theSamples, theOffset, mySound, 0, theLength);
+            return length;
+        }
+
+        final double ratio = myAnalysisRate / mySampleRate;
+        final double halfWidth = SINC_ZEROS / ratio;
+
+        for (int j = 0; j < length; j++) {
+            final double centre = j / ratio;
+            final int first = Math.max(0, (int) Math.ceil(centre - halfWidth));
+            final int last = Math.min(theLength - 1, (int) Math.floor(centre + halfWidth));
+
+            double sum = 0;
+            for (int k = first; k <= last; k++) {
+                final double distance = k - centre;
+                final double x = Math.PI * ratio * distance;
+                final double sinc = x == 0 ? 1.0 : Math.sin(x) / x;
+                final double hann = 0.5 + 0.5 * Math.cos(Math.PI * distance / halfWidth);
+                sum += theSamples[theOffset + k] * sinc * hann;
+            }
+            mySound[j] = sum * ratio;
+        }
+        return length;
+    }
+}
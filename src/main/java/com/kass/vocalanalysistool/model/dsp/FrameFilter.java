@@ -0,0 +1,128 @@
+package com.kass.vocalanalysistool.model.dsp;
+
+/**
+ * The python script's {@code filter_frequency_synchronized_patch}, one frame at a time.
+ *
+ * <p>A frame of F0-F4 is kept when its pitch is plausible and continuous with the last kept
+ * frame, and at least three of F1-F4 are. Continuity only depends on the last kept frame, so
+ * frames can be filtered as they are tracked and the result is the same as filtering the whole
+ * recording at the end.</p>
+ *
+ * @author Kassie Whitney
+ * @version 1/10/2026
+ */
+public final class FrameFilter {
+
+    /**
+     * Plausible range (exclusive, Hz) of F0-F4, lower bounds.
+     */
+    private static final double[] LOW_HZ = {75.0, 250.0, 700.0, 1500.0, 2700.0};
+
+    /**
+     * Plausible range (exclusive, Hz) of F0-F4, upper bounds.
+     */
+    private static final double[] HIGH_HZ = {600.0, 950.0, 3300.0, 3700.0, 5000.0};
+
+    /**
+     * Largest jump from the last kept frame in semitones, F0-F4.
+     */
+    private static final double[] MAX_JUMP_ST = {4.0, 5.0, 7.0, 8.0, 9.0};
+
+    /**
+     * Frames closer than this to the last kept frame are dropped.
+     */
+    private static final double MIN_FRAME_SPACING_S = 0.02;
+
+    /**
+     * F0 may not move faster than 2 octaves per second.
+     */
+    private static final double MAX_F0_RATE_ST_PER_S = 24.0;
+
+    /**
+     * Semitones of the last kept frame, NaN where a track was not positive.
+     */
+    private final double[] myPrevious = new double[LOW_HZ.length];
+
+    /**
+     * Time of the last kept frame, NaN before the first.
+     */
+    private double myPreviousTime = Double.NaN;
+
+    /**
+     * Decides whether a frame is kept and, if so, remembers it.
+     *
+     * @param theTime        the frame time, rounded to 10 ms as the script does.
+     * @param theFrequencies F0-F4 in Hz.
+     * @return true if the frame is kept.
+     */
+    public boolean accept(final double theTime, final double[] theFrequencies) {
+        int inRange = 0;
+        for (int k = 1; k < LOW_HZ.length; k++) {
+            if (inRange(theFrequencies, k)) {
+                inRange++;
+            }
+        }
+        if (!inRange(theFrequencies, 0) || inRange <= 2) {
+            return false;
+        }
+
+        if (!Double.isNaN(myPreviousTime)) {
+            final double dt = theTime - myPreviousTime;
+            if (dt > 0 && dt <= MIN_FRAME_SPACING_S) {
+                return false;
+            }
+
+            final double jump = Math.abs(semitones(theFrequencies[0]) - myPrevious[0]);
+            if (jump > MAX_JUMP_ST[0] || (dt > 0 && jump / dt > MAX_F0_RATE_ST_PER_S)) {
+                return false;
+            }
+
+            int continuous = 0;
+            for (int k = 1; k < LOW_HZ.length; k++) {
+                if (inRange(theFrequencies, k) && (Double.isNaN(myPrevious[k])
+                        || Math.abs(semitones(theFrequencies[k]) - myPrevious[k])
+                        <= MAX_JUMP_ST[k])) {
+                    continuous++;
+                }
+            }
+            if (continuous <= 2) {
+                return false;
+            }
+        }
+
+        myPreviousTime = theTime;
+        for (int k = 0; k < LOW_HZ.length; k++) {
+            myPrevious[k] = semitones(theFrequencies[k]);
+        }
+        return true;
+    }
+
+    /**
+     * Forgets the last kept frame so a new recording can be filtered.
+     */
+    public void reset() {
+        myPreviousTime = Double.NaN;
+    }
+
+    /**
+     * Tells whether a track is inside its plausible range.
+     *
+     * @param theFrequencies F0-F4 in Hz.
+     * @param theTrack       the track, 0 for F0.
+     * @return true if the value is in range.
+     */
+    private static boolean inRange(final double[] theFrequencies, final int theTrack) {
+        return theFrequencies[theTrack] > LOW_HZ[theTrack]
+                && theFrequencies[theTrack] < HIGH_HZ[theTrack];
+    }
+
+    /**
+     * Converts a frequency to semitones above 1 Hz.
+     *
+     * @param theHz the frequency.
+     * @return the semitones, NaN when the frequency is not positive.
+     */
+    private static double semitones(final double theHz) {
+        return theHz > 0 ? 12.0 * Math.log(theHz) / Math.log(2) : Double.NaN;
+    }
+}
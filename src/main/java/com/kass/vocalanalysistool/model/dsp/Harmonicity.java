@@ -0,0 +1,98 @@
+package com.kass.vocalanalysistool.model.dsp;
+
+/**
+ * Harmonics-to-noise ratio of a voiced frame, after Praat's {@code Sound: To Harmonicity (cc)},
+ * the analysis behind the python script's breathiness features.
+ *
+ * <p>The frame is correlated with itself one pitch period later; the normalized correlation r
+ * splits its energy into a periodic share r and a noise share 1 - r, and the HNR is
+ * 10 log10(r / (1 - r)). Like Praat the window spans one period of the lowest pitch, and the
+ * lag is refined around the tracked period and interpolated between samples.</p>
+ *
+ * @author Kassie Whitney
+ * @version 1/10/2026
+ */
+public final class Harmonicity {
+
+    /**
+     * Praat's lowest pitch for the harmonicity window.
+     */
+    private static final double MIN_PITCH_HZ = 75.0;
+
+    /**
+     * Samples searched on both sides of the tracked period.
+     */
+    private static final int LAG_SEARCH = 2;
+
+    /**
+     * Keeps r away from 0 and 1, bounding the HNR to about +-90 dB.
+     */
+    private static final double R_LIMIT = 1e-9;
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private Harmonicity() {
+    }
+
+    /**
+     * Measures the harmonics-to-noise ratio around a point of a signal.
+     *
+     * @param theSamples    the signal.
+     * @param theLength     the number of valid samples in theSamples.
+     * @param theCentre     the centre of the frame, as a sample index.
+     * @param theF0         the tracked pitch at the centre.
+     * @param theSampleRate the sample rate.
+     * @return the HNR in dB, or NaN if the signal is too short or silent around the centre.
+     */
+    public static double hnr(final double[] theSamples, final int theLength,
+                             final int theCentre, final double theF0,
+                             final double theSampleRate) {
+        final int window = (int) Math.round(theSampleRate / MIN_PITCH_HZ);
+        final int period = (int) Math.round(theSampleRate / theF0);
+        final int maxLag = period + LAG_SEARCH;
+        if (window + maxLag > theLength) {
+            return Double.NaN;
+        }
+        final int start = Math.max(0, Math.min(theCentre - (window + period) / 2,
+                theLength - window - maxLag));
+
+        final int firstLag = Math.max(1, period - LAG_SEARCH);
+        final double[] correlations = new double[maxLag - firstLag + 1];
+        int best = -1;
+        for (int lag = firstLag; lag <= maxLag; lag++) {
+            double cross = 0;
+            double energyA = 0;
+            double energyB = 0;
+            for (int i = start; i < start + window; i++) {
+                final double a = theSamples[i];
+                final double b = theSamples[i + lag];
+                cross += a * b;
+                energyA += a * a;
+                energyB += b * b;
+            }
+            if (energyA == 0 || energyB == 0) {
+                return Double.NaN;
+            }
+            correlations[lag - firstLag] = cross / Math.sqrt(energyA * energyB);
+            if (best < 0 || correlations[lag - firstLag] > correlations[best]) {
+                best = lag - firstLag;
+            }
+        }
+
+        // Parabolic interpolation between lags, so the result does not depend on how well the
+        // period lines up with the sample grid
+        double peak = correlations[best];
+        if (best > 0 && best < correlations.length - 1) {
+            final double left = correlations[best - 1];
+            final double right = correlations[best + 1];
+            final double denominator = left - 2 * peak + right;
+            if (denominator < 0) {
+                peak -= 0.125 * (left - right) * (left - right) / denominator;
+            }
+        }
+
+        final double r = Math.min(Math.max(peak, R_LIMIT), 1 - R_LIMIT);
+        return 10 * Math.log10(r / (1 - r));
+    }
+}
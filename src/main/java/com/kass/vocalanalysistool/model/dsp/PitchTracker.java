@@ -0,0 +1,302 @@
+package com.kass.vocalanalysistool.model.dsp;
+
+import java.util.Arrays;
+
+/**
+ * Streaming F0 estimator based on the YIN algorithm (de Cheveigné &amp; Kawahara, 2002).
+ *
+ * <p>Consumes 16-bit little-endian mono PCM (the format {@code Recorder} captures) in chunks of
+ * any size and emits one (time, f0) pair per 10 ms hop. All buffers are allocated in the
+ * constructor; feeding samples never allocates. Unvoiced or silent frames are reported as
+ * {@link Double#NaN}, the same way parselmouth reports them.</p>
+ *
+ * <p>The default range of 75-600 Hz matches {@code sound.to_pitch()} in the python script.</p>
+ *
+ * @author Kassie Whitney
+ * @version 1/9/2026
+ */
+public final class PitchTracker {
+
+    /**
+     * Receives pitch estimates without boxing.
+     */
+    @FunctionalInterface
+    public interface PitchListener {
+
+        /**
+         * Called once per hop.
+         *
+         * @param theTime the centre of the analysis frame in seconds.
+         * @param theF0   the estimated fundamental in Hz, or NaN when the frame is unvoiced.
+         */
+        void onPitch(double theTime, double theF0);
+    }
+
+    /**
+     * The analysis hop in seconds.
+     */
+    public static final double HOP_SECONDS = 0.01;
+
+    /**
+     * Default lowest detectable pitch in Hz.
+     */
+    public static final double DEFAULT_FLOOR_HZ = 75.0;
+
+    /**
+     * Default highest detectable pitch in Hz.
+     */
+    public static final double DEFAULT_CEILING_HZ = 600.0;
+
+    /**
+     * Cumulative mean normalized difference below which a lag counts as periodic.
+     */
+    private static final double YIN_THRESHOLD = 0.15;
+
+    /**
+     * Frames quieter than this RMS (about -50 dBFS) are treated as silence.
+     */
+    private static final double SILENCE_RMS = 0.003;
+
+    /**
+     * Samples per second.
+     */
+    private final double mySampleRate;
+
+    /**
+     * Samples per hop.
+     */
+    private final int myHop;
+
+    /**
+     * Shortest lag searched (the ceiling's period).
+     */
+    private final int myMinLag;
+
+    /**
+     * Longest lag searched (the floor's period); also the integration window.
+     */
+    private final int myMaxLag;
+
+    /**
+     * Samples per analysis frame: integration window plus the longest lag.
+     */
+    private final int myFrameLength;
+
+    /**
+     * The current analysis frame, filled from the start.
+     */
+    private final double[] myFrame;
+
+    /**
+     * The YIN difference function, reused every frame.
+     */
+    private final double[] myDifference;
+
+    /**
+     * Receives the estimates.
+     */
+    private final PitchListener myListener;
+
+    /**
+     * Samples currently held in {@link #myFrame}.
+     */
+    private int myFill;
+
+    /**
+     * Index of the first sample of the current frame in the whole stream.
+     */
+    private long myFrameStart;
+
+    /**
+     * Low byte of a sample split across two chunks, or -1.
+     */
+    private int myPendingByte = -1;
+
+    /**
+     * Creates a tracker with the default 75-600 Hz range.
+     *
+     * @param theSampleRate the sample rate of the PCM stream.
+     * @param theListener   receives one estimate per hop.
+     */
+    public PitchTracker(final double theSampleRate, final PitchListener theListener) {
+        this(theSampleRate, DEFAULT_FLOOR_HZ, DEFAULT_CEILING_HZ, theListener);
+    }
+
+    /**
+     * Creates a tracker.
+     *
+     * @param theSampleRate the sample rate of the PCM stream.
+     * @param theFloorHz    the lowest detectable pitch.
+     * @param theCeilingHz  the highest detectable pitch.
+     * @param theListener   receives one estimate per hop.
+     */
+    public PitchTracker(final double theSampleRate, final double theFloorHz,
+                        final double theCeilingHz, final PitchListener theListener) {
+        if (theSampleRate <= 0 || theFloorHz <= 0 || theCeilingHz <= theFloorHz) {
+            throw new IllegalArgumentException("Invalid pitch range " + theFloorHz + "-"
+                    + theCeilingHz + " Hz at " + theSampleRate + " Hz");
+        }
+        mySampleRate = theSampleRate;
+        myHop = (int) Math.round(theSampleRate * HOP_SECONDS);
+        myMinLag = Math.max(2, (int) Math.floor(theSampleRate / theCeilingHz));
+        myMaxLag = (int) Math.ceil(theSampleRate / theFloorHz);
+        myFrameLength = 2 * myMaxLag;
+        myFrame = new double[myFrameLength];
+        myDifference = new double[myMaxLag + 2];
+        myListener = theListener;
+    }
+
+    /**
+     * Feeds 16-bit little-endian mono PCM bytes. A sample split across two calls is handled.
+     *
+     * @param thePcm    the buffer.
+     * @param theOffset the first byte to read.
+     * @param theLength the number of bytes to read.
+     */
+    public void process(final byte[] thePcm, final int theOffset, final int theLength) {
+        int i = theOffset;
+        final int end = theOffset + theLength;
+
+        if (myPendingByte >= 0 && i < end) {
+            push((short) ((thePcm[i++] << 8) | myPendingByte) / 32768.0);
+            myPendingByte = -1;
+        }
+        for (; i + 1 < end; i += 2) {
+            push((short) ((thePcm[i + 1] << 8) | (thePcm[i] & 0xFF)) / 32768.0);
+        }
+        if (i < end) {
+            myPendingByte = thePcm[i] & 0xFF;
+        }
+    }
+
+    /**
+     * Feeds samples that are already decoded.
+     *
+     * @param theSamples the samples, -1 to 1.
+     * @param theOffset  the first sample to read.
+     * @param theLength  the number of samples to read.
+     */
+    public void process(final double[] theSamples, final int theOffset, final int theLength) {
+        for (int i = theOffset; i < theOffset + theLength; i++) {
+            push(theSamples[i]);
+        }
+    }
+
+    /**
+     * Forgets all buffered audio so a new stream can start at time 0.
+     */
+    public void reset() {
+        myFill = 0;
+        myFrameStart = 0;
+        myPendingByte = -1;
+    }
+
+    /**
+     * Gets the hop size.
+     *
+     * @return samples per hop.
+     */
+    public int hopSize() {
+        return myHop;
+    }
+
+    /**
+     * Tracks a whole recording in one call.
+     *
+     * @param theSamples    the samples, -1 to 1.
+     * @param theSampleRate their sample rate.
+     * @return a matrix where row 0 holds the frame times and row 1 the F0 values (NaN when
+     * unvoiced).
+     */
+    public static double[][] track(final double[] theSamples, final double theSampleRate) {
+        final int hop = (int) Math.round(theSampleRate * HOP_SECONDS);
+        final int frames = Math.max(0, theSamples.length / hop);
+        final double[] times = new double[frames];
+        final double[] f0 = new double[frames];
+        final int[] count = new int[1];
+
+        final PitchTracker tracker = new PitchTracker(theSampleRate, (theTime, theF0) -> {
+            if (count[0] < frames) {
+                times[count[0]] = theTime;
+                f0[count[0]] = theF0;
+                count[0]++;
+            }
+        });
+        tracker.process(theSamples, 0, theSamples.length);
+
+        return new double[][]{
+                Arrays.copyOf(times, count[0]),
+                Arrays.copyOf(f0, count[0])};
+    }
+
+    /**
+     * Appends a sample and analyzes the frame once it is full.
+     *
+     * @param theSample the sample, -1 to 1.
+     */
+    private void push(final double theSample) {
+        myFrame[myFill++] = theSample;
+        if (myFill == myFrameLength) {
+            final double time = (myFrameStart + myFrameLength / 2.0) / mySampleRate;
+            myListener.onPitch(time, estimate());
+
+            System.arraycopy(myFrame, myHop, myFrame, 0, myFrameLength - myHop);
+            myFill -= myHop;
+            myFrameStart += myHop;
+        }
+    }
+
+    /**
+     * Runs YIN on the current frame.
+     *
+     * @return the fundamental in Hz, or NaN.
+     */
+    private double estimate() {
+        final int window = myMaxLag;
+
+        double energy = 0;
+        for (int i = 0; i < myFrameLength; i++) {
+            energy += myFrame[i] * myFrame[i];
+        }
+        if (Math.sqrt(energy / myFrameLength) < SILENCE_RMS) {
+            return Double.NaN;
+        }
+
+        // Difference function d(tau) and its cumulative mean normalized form d'(tau)
+        myDifference[0] = 1;
+        double runningSum = 0;
+        for (int tau = 1; tau <= myMaxLag; tau++) {
+            double sum = 0;
+            for (int i = 0; i < window; i++) {
+                final double delta = myFrame[i] - myFrame[i + tau];
+                sum += delta * delta;
+            }
+            runningSum += sum;
+            myDifference[tau] = runningSum == 0 ? 1 : sum * tau / runningSum;
+        }
+
+        // First dip below the threshold, followed down to its local minimum
+        int best = -1;
+        for (int tau = myMinLag; tau < myMaxLag; tau++) {
+            if (myDifference[tau] < YIN_THRESHOLD) {
+                while (tau + 1 < myMaxLag && myDifference[tau + 1] < myDifference[tau]) {
+                    tau++;
+                }
+                best = tau;
+                break;
+            }
+        }
+        if (best < 0) {
+            return Double.NaN;
+        }
+
+        // Parabolic interpolation around the minimum for sub-sample precision
+        final double left = myDifference[best - 1];
+        final double centre = myDifference[best];
+        final double right = myDifference[best + 1];
+        final double denominator = left - 2 * centre + right;
+        final double shift = denominator == 0 ? 0 : 0.5 * (left - right) / denominator;
+
+        return mySampleRate / (best + shift);
+    }
+}
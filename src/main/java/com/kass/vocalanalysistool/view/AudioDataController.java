@@ -29,7 +29,7 @@ public class AudioDataController implements PropertyChangeListener {
     /**
      * The formant database object.
      */
-    private final UserSampleDatabase myDataBase = new UserSampleDatabase(false);
+    private final UserSampleDatabase myDataBase = UserSampleDatabase.getShared();
 
     /**
      * The analyze recording button.
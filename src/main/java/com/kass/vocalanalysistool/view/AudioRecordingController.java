@@ -3,6 +3,9 @@ package com.kass.vocalanalysistool.view;
 import com.kass.vocalanalysistool.common.ChangeEvents;
 import com.kass.vocalanalysistool.common.StageNames;
 import com.kass.vocalanalysistool.model.Recorder;
+import com.kass.vocalanalysistool.model.audio.AudioNormalizer;
+import com.kass.vocalanalysistool.model.audio.IncrementalAnalyzer;
+import com.kass.vocalanalysistool.model.audio.LivePitchMeter;
 import com.kass.vocalanalysistool.view.util.StageFactory;
 import com.kass.vocalanalysistool.view.util.StageRegistry;
 import com.kass.vocalanalysistool.workflow.OpenAudioDataScene;
@@ -14,11 +17,15 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Objects;
+import javafx.animation.AnimationTimer;
 import javafx.fxml.FXML;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.image.Image;
+import javafx.scene.paint.Color;
 import javafx.stage.Stage;
 
 public class AudioRecordingController implements PropertyChangeListener {
@@ -68,6 +75,74 @@ public class AudioRecordingController implements PropertyChangeListener {
     @FXML
     private Button myStopBtn;
 
+    /**
+     * The scrolling pitch trace
+     */
+    @FXML
+    private Canvas myPitchCanvas;
+
+    /**
+     * The live F0 readout
+     */
+    @FXML
+    private Label myPitchLabel;
+
+    /**
+     * Lowest pitch shown on the trace, in Hz
+     */
+    private static final double TRACE_FLOOR_HZ = 75.0;
+
+    /**
+     * Highest pitch shown on the trace, in Hz
+     */
+    private static final double TRACE_CEILING_HZ = 600.0;
+
+    /**
+     * Reference lines drawn across the trace, in Hz
+     */
+    private static final double[] TRACE_GRID_HZ = {100.0, 200.0, 400.0};
+
+    /**
+     * Number of 10 ms estimates visible on the trace (three seconds)
+     */
+    private static final int TRACE_ESTIMATES = 300;
+
+    /**
+     * Tracks the pitch of the microphone while recording
+     */
+    private final LivePitchMeter myPitchMeter = new LivePitchMeter();
+
+    /**
+     * Analyzes the recording while it is captured, so the result is ready at stop
+     */
+    private final IncrementalAnalyzer myAnalyzer = new IncrementalAnalyzer();
+
+    /**
+     * Resamples the capture to the analysis rate in front of the analyzer
+     */
+    private final AudioNormalizer myAnalyzerInput = new AudioNormalizer(myAnalyzer);
+
+    /**
+     * Whether recordings are analyzed in-process instead of by python; off unless opted in
+     */
+    private static final boolean ANALYZE_WHILE_RECORDING =
+            Boolean.getBoolean(IncrementalAnalyzer.ENABLED_PROPERTY);
+
+    /**
+     * Redraws the pitch readout once per pulse while recording
+     */
+    private final AnimationTimer myPitchTimer = new AnimationTimer() {
+        @Override
+        public void handle(final long theNow) {
+            drawPitch();
+        }
+    };
+
+    /**
+     * The newest estimate already drawn, so idle pulses skip the redraw
+     */
+    private long myDrawnIndex = -1;
+
     /**
      * This scenes property change component
      */
@@ -94,6 +169,11 @@ public class AudioRecordingController implements PropertyChangeListener {
      */
     private Stage myStage;
 
+    /**
+     * True once the recorder reported that the current take could not be saved.
+     */
+    private boolean myTakeFailed;
+
 
     /**
      * Automatically initializes the recording time, as well as the property change listeners
@@ -104,6 +184,10 @@ public class AudioRecordingController implements PropertyChangeListener {
 
 
         myAnalyzeButton.setDisable(true);
+        MY_RECORDER.addPcmConsumer(myPitchMeter);
+        if (ANALYZE_WHILE_RECORDING) {
+            MY_RECORDER.addPcmConsumer(myAnalyzerInput);
+        }
         MY_RECORDER.addPropertyChangeListener(this);
         this.addPropertyChangeListener(MY_RECORDER);
         MY_RUNNER_SERVICE.addPropertyChangeListener(this);
@@ -119,7 +203,10 @@ public class AudioRecordingController implements PropertyChangeListener {
         myStopBtn.setDisable(false);
 
         reset();
+        myTakeFailed = false;
         myChanges.firePropertyChange(ChangeEvents.START_RECORDING.toString(), null, true);
+        myDrawnIndex = -1;
+        myPitchTimer.start();
     }
 
     /**
@@ -128,10 +215,12 @@ public class AudioRecordingController implements PropertyChangeListener {
     @FXML
     private void handleStopBtn() {
         myChanges.firePropertyChange(ChangeEvents.STOP_RECORDING.name(), null, true);
+        myPitchTimer.stop();
+        drawPitch();
         myRecordBtn.setDisable(false);
-        myAnalyzeButton.setDisable(false);
+        myAnalyzeButton.setDisable(myTakeFailed);
         myStopBtn.setDisable(true);
-        myPlayButton.setDisable(false);
+        myPlayButton.setDisable(myTakeFailed);
     }
 
     @FXML
@@ -150,7 +239,10 @@ public class AudioRecordingController implements PropertyChangeListener {
     private void handleCloseBtn() {
         myStage = (Stage) myCloseBtn.getScene().getWindow();
         myChanges.firePropertyChange(ChangeEvents.STOP_RECORDING.name(), null, true);
+        myPitchTimer.stop();
         reset();
+        MY_RECORDER.removePcmConsumer(myPitchMeter);
+        MY_RECORDER.removePcmConsumer(myAnalyzerInput);
         MY_RECORDER.removePropertyChangeListener(this);
         MY_RUNNER_SERVICE.removePropertyChangeListener(this);
         myChanges.removePropertyChangeListener(MY_RECORDER);
@@ -175,7 +267,8 @@ public class AudioRecordingController implements PropertyChangeListener {
                 throw new IOException("The file path can not be found!");
             }
 
-            MY_RUNNER_SERVICE.runScript(String.valueOf(myAudioPath));
+            MY_RUNNER_SERVICE.runScript(String.valueOf(myAudioPath),
+                    ANALYZE_WHILE_RECORDING ? myAnalyzer : null);
 
         } catch (final IOException theEvent) {
             final Alert alert = new Alert(Alert.AlertType.ERROR);
@@ -203,6 +296,28 @@ public class AudioRecordingController implements PropertyChangeListener {
 
     }
 
+    /**
+     * Tells the user that the take was lost and keeps the stale file from being analyzed.
+     *
+     * @param theMessage what went wrong.
+     */
+    private void showRecordingFailed(final String theMessage) {
+        myTakeFailed = true;
+        handleStopBtn();
+
+        final Alert alert = new Alert(Alert.AlertType.ERROR);
+        final Stage alertStage = (Stage) alert.getDialogPane().getScene().getWindow();
+        alertStage.getIcons().add(new Image(Objects.requireNonNull(getClass().
+                getResourceAsStream("/com/kass/vocalanalysistool/" +
+                        "icons/vocal_analysis_icon.png"))));
+
+        alert.setTitle("Recording Failed!");
+        alert.setContentText(theMessage + "\n\nPlease record the sample again.");
+        alertStage.setAlwaysOnTop(true);
+        // Not showAndWait: this can arrive from the timer's animation pulse
+        alert.show();
+    }
+
     /**
      * Resets the state to default.
      */
@@ -213,6 +328,72 @@ public class AudioRecordingController implements PropertyChangeListener {
 
     }
 
+    /**
+     * Draws the live F0 readout and the last three seconds of pitch, newest on the right, on a
+     * log-frequency axis. Called at most once per pulse and skipped when nothing new arrived.
+     */
+    private void drawPitch() {
+        final long latest = myPitchMeter.latestIndex();
+        if (latest == myDrawnIndex) {
+            return;
+        }
+        myDrawnIndex = latest;
+
+        final double current = myPitchMeter.currentF0();
+        myPitchLabel.setText(Double.isNaN(current) ? "-- Hz" : Math.round(current) + " Hz");
+
+        final GraphicsContext graphics = myPitchCanvas.getGraphicsContext2D();
+        final double width = myPitchCanvas.getWidth();
+        final double height = myPitchCanvas.getHeight();
+        graphics.clearRect(0, 0, width, height);
+
+        graphics.setStroke(Color.gray(0.5, 0.5));
+        graphics.setLineWidth(1);
+        for (final double gridHz : TRACE_GRID_HZ) {
+            final double y = pitchToY(gridHz, height);
+            graphics.strokeLine(0, y, width, y);
+        }
+
+        graphics.setStroke(Color.web("#d63384"));
+        graphics.setLineWidth(2);
+        final double step = width / TRACE_ESTIMATES;
+        boolean drawing = false;
+        for (int i = 0; i < TRACE_ESTIMATES; i++) {
+            final double f0 = myPitchMeter.f0At(latest - TRACE_ESTIMATES + i);
+            if (Double.isNaN(f0)) {
+                drawing = false;
+                continue;
+            }
+            final double x = i * step;
+            final double y = pitchToY(f0, height);
+            if (drawing) {
+                graphics.lineTo(x, y);
+            } else {
+                if (i > 0) {
+                    graphics.stroke();
+                }
+                graphics.beginPath();
+                graphics.moveTo(x, y);
+                drawing = true;
+            }
+        }
+        graphics.stroke();
+    }
+
+    /**
+     * Maps a pitch onto the trace's log-frequency axis.
+     *
+     * @param theHz     the pitch.
+     * @param theHeight the height of the trace.
+     * @return the y coordinate.
+     */
+    private static double pitchToY(final double theHz, final double theHeight) {
+        final double clamped = Math.min(Math.max(theHz, TRACE_FLOOR_HZ), TRACE_CEILING_HZ);
+        final double position = Math.log(clamped / TRACE_FLOOR_HZ)
+                / Math.log(TRACE_CEILING_HZ / TRACE_FLOOR_HZ);
+        return theHeight * (1 - position);
+    }
+
     /**
      * Adds theListener to this property change support list.
      *
@@ -247,6 +428,10 @@ public class AudioRecordingController implements PropertyChangeListener {
                 }
                 break;
             }
+            case "RECORDING_FAILED": {
+                showRecordingFailed(String.valueOf(theEvent.getNewValue()));
+                break;
+            }
             case "PLAY_STATUS": {
 
                 if (!(boolean) theEvent.getNewValue()) {
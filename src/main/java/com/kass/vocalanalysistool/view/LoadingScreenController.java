@@ -8,6 +8,7 @@ import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
+import javafx.scene.control.Hyperlink;
 import javafx.scene.control.Label;
 import javafx.scene.control.ProgressBar;
 import javafx.scene.control.ProgressIndicator;
@@ -37,6 +38,12 @@ public class LoadingScreenController implements PropertyChangeListener {
     @FXML
     private ProgressBar myProgBar;
 
+    /**
+     * Stops the running analysis.
+     */
+    @FXML
+    private Hyperlink myCancelLink;
+
     /**
      * The property change listener.
      */
@@ -60,6 +67,17 @@ public class LoadingScreenController implements PropertyChangeListener {
         this.addPropertyChangeListener(theScript);
     }
 
+    /**
+     * Asks the runner service to stop the analysis; the service closes this screen once the
+     * worker is down.
+     */
+    @FXML
+    private void handleCancel() {
+        myCancelLink.setDisable(true);
+        myInstallLabel.setText("Cancelling...");
+        myChanges.firePropertyChange(ChangeEvents.CANCEL_ANALYSIS.name(), null, true);
+    }
+
     /**
      * Adds the Main to this components listener list.
      *
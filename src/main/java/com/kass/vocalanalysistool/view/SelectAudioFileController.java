@@ -10,24 +10,36 @@ import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
+import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
+import javafx.scene.control.Hyperlink;
+import javafx.stage.DirectoryChooser;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 
 /**
  * <p>Audio file selector. </p>
  *
- * <p> Audio file must be a [.wav] format. </p>
+ * <p> Audio files must be in a WAV or AIFF format. </p>
  *
  * @author Kassie Whitney
  * @version 9.3.25
  */
 public class SelectAudioFileController implements PropertyChangeListener {
 
+    /**
+     * The extensions of the recordings that can be analyzed, in lower case.
+     */
+    private static final List<String> AUDIO_EXTENSIONS = List.of("wav", "aiff", "aif", "aifc");
 
     /**
      * The logger object for debugging.
@@ -46,6 +58,12 @@ public class SelectAudioFileController implements PropertyChangeListener {
     @FXML
     private Button myOpenFileButton;
 
+    /**
+     * Opens a whole folder of recordings for batch analysis
+     */
+    @FXML
+    private Hyperlink myOpenFolderLink;
+
     /**
      * The exit button
      */
@@ -66,7 +84,8 @@ public class SelectAudioFileController implements PropertyChangeListener {
     }
 
     /**
-     * Opens the filechooser window where the user is able to choose the audio file.
+     * Opens the filechooser window where the user is able to choose the audio file. Selecting
+     * several files analyzes them as one batch.
      */
     @FXML
     private void handleOpenFile() throws IOException {
@@ -78,20 +97,87 @@ public class SelectAudioFileController implements PropertyChangeListener {
 
         fileChooser.setTitle("Select Audio File");
 
-        fileChooser.getExtensionFilters().addAll(
-                new FileChooser.ExtensionFilter("WAV Audio Files", "*.wav"),
-                new FileChooser.ExtensionFilter("AIFF Audio Files", "*.aiff"));
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter(
+                "WAV/AIFF Audio Files",
+                AUDIO_EXTENSIONS.stream().map(theExtension -> "*." + theExtension).toList()));
+
+        final List<File> files = fileChooser.showOpenMultipleDialog(thisStage);
 
-        final File file = fileChooser.showOpenDialog(thisStage);
+        if (files == null || files.isEmpty()) {
+            return;
+        }
 
-        if (file != null) {
-            final String path = file.getAbsolutePath();
+        if (files.size() == 1) {
+            final String path = files.getFirst().getAbsolutePath();
 
             logger.info(() -> "Path: " + path);
 
             myPyScript.runScript(path);
-            thisStage.hide();
+        } else {
+            logger.info(() -> "Batch of " + files.size() + " files");
+
+            myPyScript.runBatch(files.stream().map(File::getAbsolutePath).toList());
         }
+        thisStage.hide();
+    }
+
+    /**
+     * Opens the directory chooser and analyzes every WAV/AIFF recording in the chosen folder as
+     * one batch.
+     */
+    @FXML
+    private void handleOpenFolder() throws IOException {
+        final DirectoryChooser directoryChooser = new DirectoryChooser();
+        final Stage thisStage = (Stage) myOpenFolderLink.getScene().getWindow();
+
+        directoryChooser.setTitle("Select Folder of Recordings");
+
+        final File folder = directoryChooser.showDialog(thisStage);
+
+        if (folder == null) {
+            return;
+        }
+
+        final List<String> paths;
+        try (final Stream<Path> entries = Files.list(folder.toPath())) {
+            paths = entries.filter(Files::isRegularFile)
+                    .filter(SelectAudioFileController::isAudioFile)
+                    .map(thePath -> thePath.toAbsolutePath().toString())
+                    .sorted()
+                    .toList();
+        }
+
+        if (paths.isEmpty()) {
+            logger.warning(() -> "No WAV/AIFF recordings in " + folder);
+
+            final Alert alert = new Alert(Alert.AlertType.WARNING);
+            alert.initOwner(thisStage);
+            alert.setHeaderText("No Recordings Found");
+            alert.setContentText("""
+                    The folder has no WAV or AIFF recordings to analyze.
+
+                    Choose another folder or open the files one by one.
+                    """);
+            alert.showAndWait();
+            return;
+        }
+
+        logger.info(() -> "Batch of " + paths.size() + " files from " + folder);
+
+        myPyScript.runBatch(paths);
+        thisStage.hide();
+    }
+
+    /**
+     * Checks if a file has one of the supported audio extensions.
+     *
+     * @param theFile the file.
+     * @return true for the {@link #AUDIO_EXTENSIONS}.
+     */
+    private static boolean isAudioFile(final Path theFile) {
+        final String name = theFile.getFileName().toString().toLowerCase(Locale.ROOT);
+        final int dot = name.lastIndexOf('.');
+        return dot >= 0 && AUDIO_EXTENSIONS.contains(name.substring(dot + 1));
     }
 
 
@@ -151,8 +151,8 @@ public class UsersAnalysisController {
         myGenderPerceptChart.getData().add(genderPerceptSeries);
 
 
-        final double[][] formants = new UserSampleDatabase(false).getFormants();
-        final double[] timeSeq = new UserSampleDatabase(false).getTimeSequence();
+        final double[][] formants = UserSampleDatabase.getShared().getFormants();
+        final double[] timeSeq = UserSampleDatabase.getShared().getTimeSequence();
 
         //Pitch
         final double[] pitch = formants[0];
@@ -210,7 +210,7 @@ public class UsersAnalysisController {
 
     @FXML
     private void handleClearTrendButton() {
-        new UserSampleDatabase(false).clearDatabase();
+        UserSampleDatabase.getShared().clearDatabase();
 
         myGenderPerceptChart.getData().clear();
 
@@ -373,7 +373,7 @@ public class UsersAnalysisController {
     }
 
     private void setMyGenderPerceptLabel() {
-        String percept = new UserSampleDatabase(false).getGenderLabel();
+        String percept = UserSampleDatabase.getShared().getGenderLabel();
         switch (percept) {
             case "MASC" -> percept = "Masculine";
             case "FEMME" -> percept = "Feminine";
@@ -519,7 +519,7 @@ public class UsersAnalysisController {
 
         final String date = localDate.format(DateTimeFormatter.ofPattern("MM/dd"));
 
-        final OptionalDouble sampleScore = new UserSampleDatabase(false).getLatestScore();
+        final OptionalDouble sampleScore = UserSampleDatabase.getShared().getLatestScore();
         double score = Double.parseDouble("NaN");
 
         if (sampleScore.isPresent()) {
@@ -541,7 +541,7 @@ public class UsersAnalysisController {
         final List<String[]> result = new ArrayList<>();
 
         final List<UserSampleDatabase.DailyMedian> lst =
-                new UserSampleDatabase(false).getLast7dayMedianScore();
+                UserSampleDatabase.getShared().getLast7dayMedianScore();
 
         final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyy-MM-dd");
 
@@ -1,13 +1,24 @@
 package com.kass.vocalanalysistool.view.util;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 
 /**
  * Utility class for checking the Python environment state.
  */
 public final class EnvironmentUtils {
 
+    /**
+     * Records which requirements/interpreter combination was last installed and probed.
+     * Lives next to the venv's .ready marker.
+     */
+    private static final String FINGERPRINT_FILE = ".requirements.fingerprint";
+
     private EnvironmentUtils() {}
 
     /**
@@ -29,6 +40,93 @@ public final class EnvironmentUtils {
         }
     }
 
+    /**
+     * Computes the dependency fingerprint: a SHA-256 of the requirements file plus the venv's
+     * interpreter version. pip and the import probe only need to run when it changes.
+     *
+     * @param theDataDir      the directory holding the .venv.
+     * @param theRequirements the requirements file; when missing the fallback install is hashed.
+     * @return the hex encoded fingerprint.
+     * @throws IOException thrown if the requirements file can not be read.
+     */
+    public static String requirementsFingerprint(final Path theDataDir,
+                                                 final Path theRequirements) throws IOException {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException theException) {
+            throw new IllegalStateException("SHA-256 is not available", theException);
+        }
+
+        if (Files.exists(theRequirements)) {
+            digest.update(Files.readAllBytes(theRequirements));
+        } else {
+            digest.update("matplotlib".getBytes(StandardCharsets.UTF_8));
+        }
+        digest.update((byte) 0);
+        digest.update(interpreterVersion(theDataDir).getBytes(StandardCharsets.UTF_8));
+
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Checks the stored fingerprint against the current one.
+     *
+     * @param theDataDir     the directory holding the .venv.
+     * @param theFingerprint the freshly computed fingerprint.
+     * @return true if the venv was last set up for exactly this fingerprint.
+     */
+    public static boolean isFingerprintCurrent(final Path theDataDir,
+                                               final String theFingerprint) {
+        final Path stored = theDataDir.resolve(".venv").resolve(FINGERPRINT_FILE);
+        try {
+            return Files.exists(stored)
+                    && Files.readString(stored, StandardCharsets.UTF_8).trim()
+                    .equals(theFingerprint);
+        } catch (final IOException theException) {
+            return false;
+        }
+    }
+
+    /**
+     * Stores the fingerprint once pip and the import probe succeeded.
+     *
+     * @param theDataDir     the directory holding the .venv.
+     * @param theFingerprint the fingerprint that was just installed.
+     * @throws IOException thrown if the file can not be written.
+     */
+    public static void writeFingerprint(final Path theDataDir,
+                                        final String theFingerprint) throws IOException {
+        Files.writeString(theDataDir.resolve(".venv").resolve(FINGERPRINT_FILE), theFingerprint,
+                StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads the interpreter version from the venv's pyvenv.cfg without launching python.
+     *
+     * @param theDataDir the directory holding the .venv.
+     * @return the version line(s), or the interpreter's timestamp if pyvenv.cfg is missing.
+     * @throws IOException thrown if the venv files can not be read.
+     */
+    private static String interpreterVersion(final Path theDataDir) throws IOException {
+        final Path venv = theDataDir.resolve(".venv");
+        final Path cfg = venv.resolve("pyvenv.cfg");
+
+        if (Files.exists(cfg)) {
+            final StringBuilder version = new StringBuilder();
+            for (final String line : Files.readAllLines(cfg, StandardCharsets.UTF_8)) {
+                final String key = line.split("=", 2)[0].trim();
+                if (key.startsWith("version") || key.equals("home")) {
+                    version.append(line.trim()).append('\n');
+                }
+            }
+            return version.toString();
+        }
+
+        final Path venvPy = venv.resolve("Scripts").resolve("python.exe");
+        return Files.exists(venvPy) ? Files.getLastModifiedTime(venvPy).toString() : "none";
+    }
+
     /**
      * Returns the writable data directory used by the app.
      */
@@ -0,0 +1,202 @@
+package com.kass.vocalanalysistool.view.util;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import javax.imageio.ImageIO;
+
+/**
+ * Draws the formant scatter plot shown on the audio data screen, in the layout the python
+ * script's {@code plot_formants} produces: pitch as a black line, F1-F4 as dots, frequency on a
+ * 0-5500 Hz axis with 100 Hz ticks up to 1000 Hz and 500 Hz ticks above.
+ *
+ * @author Kassie Whitney
+ * @version 1/10/2026
+ */
+public final class FormantPlot {
+
+    /**
+     * Image width in pixels.
+     */
+    private static final int WIDTH = 900;
+
+    /**
+     * Image height in pixels.
+     */
+    private static final int HEIGHT = 1800;
+
+    /**
+     * Space for the axis labels: left, top, right, bottom.
+     */
+    private static final int[] MARGIN = {140, 40, 40, 110};
+
+    /**
+     * Top of the frequency axis.
+     */
+    private static final double MAX_HZ = 5501.0;
+
+    /**
+     * Dot colours of F1-F4, matplotlib's default cycle.
+     */
+    private static final Color[] FORMANT_COLORS = {new Color(0x1f77b4), new Color(0xff7f0e),
+            new Color(0x2ca02c), new Color(0xd62728)};
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private FormantPlot() {
+    }
+
+    /**
+     * Renders the plot.
+     *
+     * @param theTime     the frame times.
+     * @param theF0       the pitch per frame.
+     * @param theFormants F1-F4 per frame.
+     * @return the PNG bytes.
+     * @throws IOException thrown if the image can not be encoded.
+     */
+    public static byte[] render(final double[] theTime, final double[] theF0,
+                                final double[]... theFormants) throws IOException {
+        final BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        final Graphics2D g = image.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+                    RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, WIDTH, HEIGHT);
+
+            final double left = MARGIN[0];
+            final double top = MARGIN[1];
+            final double plotWidth = WIDTH - MARGIN[0] - MARGIN[2];
+            final double plotHeight = HEIGHT - MARGIN[1] - MARGIN[3];
+            final double minTime = theTime.length == 0 ? 0 : theTime[0];
+            final double maxTime = theTime.length == 0 ? 1
+                    : Math.max(theTime[theTime.length - 1], minTime + 1e-3);
+
+            final Font font = new Font(Font.SANS_SERIF, Font.PLAIN, 20);
+            g.setFont(font);
+            final FontMetrics metrics = g.getFontMetrics();
+
+            // Frequency grid and ticks
+            for (int hz = 0; hz <= MAX_HZ; hz += hz < 1000 ? 100 : 500) {
+                final double y = top + plotHeight * (1 - hz / MAX_HZ);
+                g.setColor(new Color(0xb0b0b0));
+                g.setStroke(new BasicStroke(1f));
+                g.draw(new Line2D.Double(left, y, left + plotWidth, y));
+                g.setColor(Color.BLACK);
+                final String label = Integer.toString(hz);
+                g.drawString(label, (float) (left - 10 - metrics.stringWidth(label)),
+                        (float) (y + metrics.getAscent() / 2.0 - 2));
+            }
+
+            // Time grid and ticks
+            final double step = niceStep((maxTime - minTime) / 6);
+            for (double t = Math.ceil(minTime / step) * step; t <= maxTime; t += step) {
+                final double x = left + plotWidth * (t - minTime) / (maxTime - minTime);
+                g.setColor(new Color(0xb0b0b0));
+                g.draw(new Line2D.Double(x, top, x, top + plotHeight));
+                g.setColor(Color.BLACK);
+                final String label = String.format("%.1f", t);
+                g.drawString(label, (float) (x - metrics.stringWidth(label) / 2.0),
+                        (float) (top + plotHeight + 10 + metrics.getAscent()));
+            }
+
+            g.setColor(Color.BLACK);
+            g.setStroke(new BasicStroke(2f));
+            g.drawRect((int) left, (int) top, (int) plotWidth, (int) plotHeight);
+
+            // Formant dots, then the pitch line on top
+            for (int n = 0; n < theFormants.length && n < FORMANT_COLORS.length; n++) {
+                g.setColor(FORMANT_COLORS[n]);
+                for (int i = 0; i < theTime.length; i++) {
+                    final double x = left + plotWidth * (theTime[i] - minTime)
+                            / (maxTime - minTime);
+                    final double y = top + plotHeight * (1 - theFormants[n][i] / MAX_HZ);
+                    g.fill(new Ellipse2D.Double(x - 3, y - 3, 6, 6));
+                }
+            }
+
+            final Path2D pitch = new Path2D.Double();
+            for (int i = 0; i < theTime.length; i++) {
+                final double x = left + plotWidth * (theTime[i] - minTime) / (maxTime - minTime);
+                final double y = top + plotHeight * (1 - theF0[i] / MAX_HZ);
+                if (i == 0) {
+                    pitch.moveTo(x, y);
+                } else {
+                    pitch.lineTo(x, y);
+                }
+            }
+            g.setColor(Color.BLACK);
+            g.setStroke(new BasicStroke(2f));
+            g.draw(pitch);
+
+            // Axis titles
+            final String xTitle = "Times (s)";
+            g.drawString(xTitle, (float) (left + (plotWidth - metrics.stringWidth(xTitle)) / 2),
+                    HEIGHT - 30f);
+            final String yTitle = "Frequency (Hz)";
+            final Graphics2D rotated = (Graphics2D) g.create();
+            rotated.rotate(-Math.PI / 2);
+            rotated.drawString(yTitle, (float) -(top + (plotHeight
+                    + metrics.stringWidth(yTitle)) / 2), 35f);
+            rotated.dispose();
+
+            // Legend
+            final String[] names = {"Pitch", "F1", "F2", "F3", "F4"};
+            final double legendX = left + 20;
+            final double legendY = top + 20;
+            g.setColor(Color.WHITE);
+            g.fill(new Rectangle2D.Double(legendX, legendY, 150,
+                    names.length * 34 + 16));
+            g.setColor(new Color(0xcccccc));
+            g.setStroke(new BasicStroke(1f));
+            g.draw(new Rectangle2D.Double(legendX, legendY, 150,
+                    names.length * 34 + 16));
+            for (int i = 0; i < names.length; i++) {
+                final double y = legendY + 25 + i * 34;
+                if (i == 0) {
+                    g.setColor(Color.BLACK);
+                    g.setStroke(new BasicStroke(2f));
+                    g.draw(new Line2D.Double(legendX + 12, y, legendX + 52, y));
+                } else {
+                    g.setColor(FORMANT_COLORS[i - 1]);
+                    g.fill(new Ellipse2D.Double(legendX + 27, y - 5, 10, 10));
+                }
+                g.setColor(Color.BLACK);
+                g.drawString(names[i], (float) (legendX + 65),
+                        (float) (y + metrics.getAscent() / 2.0 - 2));
+            }
+        } finally {
+            g.dispose();
+        }
+
+        final ByteArrayOutputStream png = new ByteArrayOutputStream();
+        if (!ImageIO.write(image, "png", png)) {
+            throw new IOException("No PNG encoder available");
+        }
+        return png.toByteArray();
+    }
+
+    /**
+     * Rounds a tick interval up to 1, 2 or 5 times a power of ten.
+     *
+     * @param theRough the interval wanted.
+     * @return the interval used.
+     */
+    private static double niceStep(final double theRough) {
+        final double magnitude = Math.pow(10, Math.floor(Math.log10(theRough)));
+        final double fraction = theRough / magnitude;
+        return (fraction <= 1 ? 1 : fraction <= 2 ? 2 : fraction <= 5 ? 5 : 10) * magnitude;
+    }
+}
@@ -0,0 +1,181 @@
+package com.kass.vocalanalysistool.view.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * Extracts the embedded python toolkit (script, model, requirements, setup batch file) into a
+ * versioned runtime directory.
+ *
+ * <p>A file is only written when the SHA-256 of the embedded resource differs from the file on
+ * disk, and writes go through a temp file plus an atomic move so an analysis never sees a
+ * half-written script or model. Once a file has been verified it is not touched again for the
+ * rest of the session.</p>
+ *
+ * @author Kassie Whitney
+ * @version 1/6/2026
+ */
+public final class ResourceExtractor {
+
+    /**
+     * The runtime layout version. Bump when the set or layout of extracted files changes.
+     */
+    public static final String RUNTIME_VERSION = "2.3";
+
+    /**
+     * Logger for debugging.
+     */
+    private static final Logger LOGGER = Logger.getLogger(ResourceExtractor.class.getName());
+
+    /**
+     * Digests of the embedded resources, keyed by resource path.
+     */
+    private static final Map<String, String> RESOURCE_DIGESTS = new ConcurrentHashMap<>();
+
+    /**
+     * Files already verified (or written) this session, mapped to their digest.
+     */
+    private static final Map<Path, String> VERIFIED = new ConcurrentHashMap<>();
+
+    private ResourceExtractor() {}
+
+    /**
+     * Gets the versioned runtime directory inside the data directory.
+     *
+     * @param theDataDir the writable data directory.
+     * @return dataDir/runtime/{version}
+     */
+    public static Path runtimeDir(final Path theDataDir) {
+        return theDataDir.resolve("runtime").resolve(RUNTIME_VERSION);
+    }
+
+    /**
+     * Extracts a resource from the jar into a stable, writable directory, skipping the write when
+     * the file on disk already has the same content.
+     *
+     * @param theResourcePath the path of the resource file.
+     * @param theOutDir       the directory to copy to.
+     * @param theFilename     the filename to write as.
+     * @return returns the path of the extracted file.
+     * @throws IOException Thrown if the resource is missing or the file can not be written.
+     */
+    public static Path extract(final String theResourcePath,
+                               final Path theOutDir,
+                               final String theFilename) throws IOException {
+
+        final Path out = theOutDir.resolve(theFilename).toAbsolutePath();
+        final String digest = digestOf(theResourcePath);
+
+        if (digest.equals(VERIFIED.get(out))) {
+            return out;
+        }
+
+        Files.createDirectories(theOutDir);
+
+        if (Files.exists(out) && digest.equals(digestOfFile(out))) {
+            VERIFIED.put(out, digest);
+            return out;
+        }
+
+        final Path tmp = Files.createTempFile(theOutDir, theFilename, ".tmp");
+        try {
+            try (final InputStream in = open(theResourcePath)) {
+                Files.copy(in, tmp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            try {
+                Files.move(tmp, out, StandardCopyOption.ATOMIC_MOVE,
+                        StandardCopyOption.REPLACE_EXISTING);
+            } catch (final AtomicMoveNotSupportedException theException) {
+                Files.move(tmp, out, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+
+        LOGGER.info("Extracted " + theResourcePath + " -> " + out);
+        VERIFIED.put(out, digest);
+        return out;
+    }
+
+    /**
+     * Gets the SHA-256 of an embedded resource. Computed once per session.
+     *
+     * @param theResourcePath the path of the resource file.
+     * @return the hex encoded digest.
+     * @throws IOException Thrown if the resource is missing.
+     */
+    public static String digestOf(final String theResourcePath) throws IOException {
+        final String cached = RESOURCE_DIGESTS.get(theResourcePath);
+        if (cached != null) {
+            return cached;
+        }
+
+        final String digest;
+        try (final InputStream in = open(theResourcePath)) {
+            digest = digest(in);
+        }
+        RESOURCE_DIGESTS.put(theResourcePath, digest);
+        return digest;
+    }
+
+    /**
+     * Gets the SHA-256 of a file on disk.
+     *
+     * @param theFile the file.
+     * @return the hex encoded digest.
+     * @throws IOException Thrown if the file can not be read.
+     */
+    private static String digestOfFile(final Path theFile) throws IOException {
+        try (final InputStream in = Files.newInputStream(theFile)) {
+            return digest(in);
+        }
+    }
+
+    /**
+     * Hashes a stream.
+     *
+     * @param theInput the stream to hash.
+     * @return the hex encoded SHA-256.
+     * @throws IOException Thrown if the stream can not be read.
+     */
+    private static String digest(final InputStream theInput) throws IOException {
+        final MessageDigest sha;
+        try {
+            sha = MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException theException) {
+            throw new IllegalStateException("SHA-256 is not available", theException);
+        }
+
+        final byte[] buffer = new byte[64 * 1024];
+        int read;
+        while ((read = theInput.read(buffer)) != -1) {
+            sha.update(buffer, 0, read);
+        }
+        return HexFormat.of().formatHex(sha.digest());
+    }
+
+    /**
+     * Opens an embedded resource.
+     *
+     * @param theResourcePath the path of the resource file.
+     * @return the resource stream.
+     * @throws IOException Thrown if the resource is missing.
+     */
+    private static InputStream open(final String theResourcePath) throws IOException {
+        final InputStream in = ResourceExtractor.class.getResourceAsStream(theResourcePath);
+        if (in == null) {
+            throw new IOException("Resource not found: " + theResourcePath);
+        }
+        return in;
+    }
+}
@@ -0,0 +1,356 @@
+package com.kass.vocalanalysistool.workflow;
+
+import com.kass.vocalanalysistool.common.WorkflowResult;
+import com.kass.vocalanalysistool.model.GenderModel;
+import com.kass.vocalanalysistool.model.audio.AudioNormalizer;
+import com.kass.vocalanalysistool.model.audio.PcmFileReader;
+import com.kass.vocalanalysistool.model.audio.VoiceActivityDetector;
+import com.kass.vocalanalysistool.view.util.ResourceExtractor;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * Identifies analyses that were already done and keeps the same recording from being analyzed
+ * twice at the same time.
+ *
+ * <p>A recording is identified by a SHA-256 of its audio format, its length and 32 blocks of
+ * 16 KiB spread evenly over its PCM frames, so renaming or re-tagging a file still hits and
+ * identifying even an hour-long recording reads only half a megabyte. Its cache key combines
+ * that digest with the {@link Analyzer} that made the result, the settings that change what
+ * is analyzed (the analysis rate and whether silence is trimmed), the digest of the bundled
+ * script and the {@link GenderModel#getVersion() version} of the model that scores every
+ * stored result, so a new release, model or setting never reuses results of an old one and
+ * the in-process Java analysis never serves, or is served, a python result. The rows
+ * themselves live in the analysis_cache table of
+ * {@link com.kass.vocalanalysistool.model.UserSampleDatabase}, each with the
+ * {@link #contentDigestOf(Path) digest of all the frames}. That one is only needed to confirm
+ * a hit, so it is computed in the background while a miss is analyzed.</p>
+ *
+ * @author Kassie Whitney
+ * @version 1/10/2026
+ */
+public final class AnalysisCache {
+
+    /**
+     * An analysis that may block on the python worker.
+     */
+    @FunctionalInterface
+    public interface Analysis {
+
+        /**
+         * Runs the analysis.
+         *
+         * @return its result.
+         * @throws IOException          thrown if the worker failed.
+         * @throws InterruptedException thrown if the thread was interrupted.
+         */
+        WorkflowResult run() throws IOException, InterruptedException;
+    }
+
+    /**
+     * What produced a cached result.
+     */
+    public enum Analyzer {
+
+        /**
+         * The python script, through Praat.
+         */
+        PYTHON,
+
+        /**
+         * The in-process trackers, while recording or segment by segment.
+         */
+        JAVA
+    }
+
+    /**
+     * Blocks of the recording read into its digest.
+     */
+    private static final int SAMPLED_BLOCKS = 32;
+
+    /**
+     * Bytes per sampled block.
+     */
+    private static final int BLOCK_BYTES = 16 * 1024;
+
+    /**
+     * The analyses currently running, by recording digest.
+     */
+    private static final Map<String, CompletableFuture<WorkflowResult>> IN_FLIGHT =
+            new ConcurrentHashMap<>();
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private AnalysisCache() {
+    }
+
+    /**
+     * Computes the digest that identifies a recording: its audio format, its length and
+     * evenly spread blocks of its PCM frames, or of its raw bytes if it is not uncompressed
+     * WAV or AIFF. Reads at most {@value #SAMPLED_BLOCKS} blocks of {@value #BLOCK_BYTES}
+     * bytes, however long the recording is.
+     *
+     * @param theAudioFile the recording.
+     * @return the hex encoded digest.
+     * @throws IOException          Thrown if the recording can not be read.
+     * @throws InterruptedException Thrown if the thread was interrupted while hashing.
+     */
+    public static String digestOf(final Path theAudioFile)
+            throws IOException, InterruptedException {
+        final MessageDigest sha = sha256();
+        try (final AudioInputStream pcm = PcmFileReader.open(theAudioFile)) {
+            if (pcm != null) {
+                sha.update(pcm.getFormat().toString().getBytes(StandardCharsets.UTF_8));
+                final long length = pcm.getFrameLength() * pcm.getFormat().getFrameSize();
+                sha.update(ByteBuffer.allocate(Long.BYTES).putLong(length).array());
+                sample(sha, pcm, length, pcm.getFormat().getFrameSize());
+                return HexFormat.of().formatHex(sha.digest());
+            }
+        }
+        // Not uncompressed WAV or AIFF; sample the raw file, header included
+        final long size = Files.size(theAudioFile);
+        sha.update(ByteBuffer.allocate(Long.BYTES).putLong(size).array());
+        try (final InputStream raw = Files.newInputStream(theAudioFile)) {
+            sample(sha, raw, size, 1);
+        }
+        return HexFormat.of().formatHex(sha.digest());
+    }
+
+    /**
+     * Computes the digest of a recording's whole audio: its audio format and decoded frames,
+     * or its raw bytes if it can not be decoded. It confirms that a recording with a cached
+     * {@link #digestOf(Path) digest} really is the cached one.
+     *
+     * @param theAudioFile the recording.
+     * @return the hex encoded digest.
+     * @throws IOException          Thrown if the recording can not be read.
+     * @throws InterruptedException Thrown if the thread was interrupted while hashing.
+     */
+    public static String contentDigestOf(final Path theAudioFile)
+            throws IOException, InterruptedException {
+        final MessageDigest sha = sha256();
+        try (final AudioInputStream pcm = PcmFileReader.open(theAudioFile)) {
+            if (pcm != null) {
+                sha.update(pcm.getFormat().toString().getBytes(StandardCharsets.UTF_8));
+                update(sha, pcm);
+                return HexFormat.of().formatHex(sha.digest());
+            }
+        }
+        try (final AudioInputStream audio = AudioSystem.getAudioInputStream(
+                theAudioFile.toFile())) {
+            sha.update(audio.getFormat().toString().getBytes(StandardCharsets.UTF_8));
+            update(sha, audio);
+        } catch (final UnsupportedAudioFileException theException) {
+            // Not decodable by Java Sound; the raw file is the next best thing
+            try (final InputStream raw = Files.newInputStream(theAudioFile)) {
+                update(sha, raw);
+            }
+        }
+        return HexFormat.of().formatHex(sha.digest());
+    }
+
+    /**
+     * Starts computing the {@link #contentDigestOf(Path) content digest} of a recording on a
+     * background thread. Cancelling the future with interruption stops the hashing.
+     *
+     * @param theAudioFile the recording.
+     * @return the digest, once computed.
+     */
+    public static Future<String> contentDigestInBackground(final Path theAudioFile) {
+        final FutureTask<String> task = new FutureTask<>(() -> contentDigestOf(theAudioFile));
+        final Thread thread = new Thread(task, "recording-digest");
+        thread.setDaemon(true);
+        thread.start();
+        return task;
+    }
+
+    /**
+     * Waits for a digest started with {@link #contentDigestInBackground(Path)}.
+     *
+     * @param theDigest the future digest.
+     * @return the hex encoded digest.
+     * @throws IOException          Thrown if the recording could not be read.
+     * @throws InterruptedException Thrown if the thread was interrupted while waiting.
+     */
+    public static String await(final Future<String> theDigest)
+            throws IOException, InterruptedException {
+        try {
+            return theDigest.get();
+        } catch (final ExecutionException theException) {
+            if (theException.getCause() instanceof InterruptedException) {
+                throw new InterruptedException("Hashing the recording was interrupted");
+            }
+            throw new IOException("Unable to hash the recording", theException.getCause());
+        }
+    }
+
+    /**
+     * Computes the cache key of an analysis of a recording with the current settings.
+     *
+     * @param theDigest   the recording's {@link #digestOf(Path) digest}.
+     * @param theAnalyzer what makes the analysis.
+     * @return the hex encoded key.
+     * @throws IOException Thrown if the bundled toolkit can not be read.
+     */
+    public static String keyOf(final String theDigest, final Analyzer theAnalyzer)
+            throws IOException {
+        final MessageDigest sha = sha256();
+        sha.update(theAnalyzer.name().getBytes(StandardCharsets.US_ASCII));
+        sha.update((";rate=" + AudioNormalizer.analysisRate() + ";keepSilence="
+                + Boolean.getBoolean(VoiceActivityDetector.KEEP_SILENCE_PROPERTY) + ";")
+                .getBytes(StandardCharsets.US_ASCII));
+        sha.update(ResourceExtractor.digestOf("/VocalAnalysisToolKit/Vocal_Analysis_Script.py")
+                .getBytes(StandardCharsets.US_ASCII));
+        // The stored score comes from the bundled model whichever analyzer measured the row
+        sha.update(GenderModel.bundled().getVersion().getBytes(StandardCharsets.US_ASCII));
+        sha.update(theDigest.getBytes(StandardCharsets.US_ASCII));
+        return HexFormat.of().formatHex(sha.digest());
+    }
+
+    /**
+     * Runs an analysis unless one of the same recording is already running, in which case its
+     * result is awaited and shared instead. If the running analysis is cancelled, a waiting
+     * caller runs its own analysis instead of failing, and the others wait for that one.
+     *
+     * @param theKey      the recording's digest.
+     * @param theAnalysis looks the key up and, on a miss, analyzes the recording.
+     * @return the result of whichever analysis ran.
+     * @throws IOException          thrown if the analysis failed.
+     * @throws InterruptedException thrown if the thread was interrupted while waiting.
+     */
+    public static WorkflowResult singleFlight(final String theKey, final Analysis theAnalysis)
+            throws IOException, InterruptedException {
+        while (true) {
+            final CompletableFuture<WorkflowResult> mine = new CompletableFuture<>();
+            final CompletableFuture<WorkflowResult> running =
+                    IN_FLIGHT.putIfAbsent(theKey, mine);
+
+            if (running == null) {
+                return lead(theKey, mine, theAnalysis);
+            }
+            try {
+                final WorkflowResult shared = running.get();
+                if (shared != WorkflowResult.CANCELLED) {
+                    return shared;
+                }
+            } catch (final ExecutionException theException) {
+                if (!(theException.getCause() instanceof InterruptedException)) {
+                    throw new IOException("The shared analysis failed",
+                            theException.getCause());
+                }
+            }
+            // The caller that ran the analysis cancelled it, which this caller did not ask for
+        }
+    }
+
+    /**
+     * Runs the analysis the other callers of {@link #singleFlight} wait for.
+     *
+     * @param theKey      the recording's digest.
+     * @param theFuture   the future the other callers wait on.
+     * @param theAnalysis the analysis.
+     * @return its result.
+     * @throws IOException          thrown if the analysis failed.
+     * @throws InterruptedException thrown if the analysis was cancelled.
+     */
+    private static WorkflowResult lead(final String theKey,
+                                       final CompletableFuture<WorkflowResult> theFuture,
+                                       final Analysis theAnalysis)
+            throws IOException, InterruptedException {
+        // The key is freed before the waiters wake, so one that takes over finds it free
+        try {
+            final WorkflowResult result = theAnalysis.run();
+            IN_FLIGHT.remove(theKey, theFuture);
+            theFuture.complete(result);
+            return result;
+        } catch (final IOException | InterruptedException | RuntimeException theException) {
+            IN_FLIGHT.remove(theKey, theFuture);
+            theFuture.completeExceptionally(theException);
+            throw theException;
+        }
+    }
+
+    /**
+     * Creates a SHA-256 digest.
+     *
+     * @return the digest.
+     */
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException theException) {
+            throw new IllegalStateException("SHA-256 is not available", theException);
+        }
+    }
+
+    /**
+     * Feeds evenly spread blocks of a stream into a digest, the first at its start and the
+     * last at its end, or the whole stream if it is short.
+     *
+     * @param theSha       the digest.
+     * @param theInput     the stream, skipped cheaply between blocks.
+     * @param theLength    the bytes in the stream.
+     * @param theAlignment block starts are a multiple of this, the stream's frame size.
+     * @throws IOException          Thrown if the stream can not be read.
+     * @throws InterruptedException Thrown if the thread was interrupted.
+     */
+    private static void sample(final MessageDigest theSha, final InputStream theInput,
+                               final long theLength, final int theAlignment)
+            throws IOException, InterruptedException {
+        if (theLength <= (long) SAMPLED_BLOCKS * BLOCK_BYTES) {
+            update(theSha, theInput);
+            return;
+        }
+        final int blockBytes = BLOCK_BYTES - BLOCK_BYTES % theAlignment;
+        final byte[] block = new byte[blockBytes];
+        long position = 0;
+        for (int b = 0; b < SAMPLED_BLOCKS; b++) {
+            long start = b * (theLength - blockBytes) / (SAMPLED_BLOCKS - 1);
+            start = Math.max(position, start - start % theAlignment);
+            theInput.skipNBytes(start - position);
+            final int read = theInput.readNBytes(block, 0, blockBytes);
+            theSha.update(block, 0, read);
+            position = start + read;
+            if (Thread.interrupted()) {
+                throw new InterruptedException("Hashing the recording was interrupted");
+            }
+        }
+    }
+
+    /**
+     * Feeds a stream into a digest, checking for interruption once per buffer.
+     *
+     * @param theSha   the digest.
+     * @param theInput the stream.
+     * @throws IOException          Thrown if the stream can not be read.
+     * @throws InterruptedException Thrown if the thread was interrupted.
+     */
+    private static void update(final MessageDigest theSha, final InputStream theInput)
+            throws IOException, InterruptedException {
+        final byte[] buffer = new byte[64 * 1024];
+        int read;
+        while ((read = theInput.read(buffer)) != -1) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException("Hashing the recording was interrupted");
+            }
+            theSha.update(buffer, 0, read);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.kass.vocalanalysistool.workflow;
+
+import com.kass.vocalanalysistool.common.WorkflowResult;
+import com.kass.vocalanalysistool.model.UserSampleDatabase;
+import java.util.Map;
+
+/**
+ * A typed message from the python analysis worker. Every line the worker writes to stdout is a
+ * JSON object whose "type" selects one of these records.
+ *
+ * @author Kassie Whitney
+ * @version 1/7/2026
+ */
+public sealed interface AnalysisEvent {
+
+    /**
+     * The interpreter imported its libraries and is waiting for jobs.
+     *
+     * @param thePid the interpreter's process id.
+     */
+    record Ready(long thePid) implements AnalysisEvent {}
+
+    /**
+     * Answer to a health check.
+     *
+     * @param theJobId the id of the ping.
+     */
+    record Pong(long theJobId) implements AnalysisEvent {}
+
+    /**
+     * An analysis phase started or ended.
+     *
+     * @param thePhase     the phase name (load, formant, pitch, frames, filter, features, plot;
+     *                     the one-shot script also runs predict and persist).
+     * @param theStarted   true at the start of the phase, false at its end.
+     * @param theElapsedMs the phase's wall-clock time; only set at the end.
+     */
+    record Phase(String thePhase, boolean theStarted, double theElapsedMs)
+            implements AnalysisEvent {}
+
+    /**
+     * Overall progress of the running analysis.
+     *
+     * @param theFraction the completed share of the analysis, 0 to 1.
+     * @param theMessage  what the analysis is doing right now, or null if unchanged.
+     */
+    record Progress(double theFraction, String theMessage) implements AnalysisEvent {}
+
+    /**
+     * A non-fatal problem, e.g. NO_VALID_FRAMES.
+     *
+     * @param theCode    the machine readable warning code.
+     * @param theMessage the human readable explanation.
+     */
+    record Warning(String theCode, String theMessage) implements AnalysisEvent {}
+
+    /**
+     * The script raised an error or could not understand a job.
+     *
+     * @param theJobId     the id of the failed job, or -1 if the job could not be read.
+     * @param theMessage   the error message.
+     * @param theTraceback the python traceback, or null.
+     */
+    record Error(long theJobId, String theMessage, String theTraceback)
+            implements AnalysisEvent {}
+
+    /**
+     * The final outcome of a job.
+     *
+     * @param theJobId   the id of the job.
+     * @param theStatus  SUCCESS, INVALID or FAILED.
+     * @param theTimings the wall-clock time of every completed phase in milliseconds.
+     * @param theSample  the measured row, which the worker neither scores nor stores; null if
+     *                   the recording had no valid frames or the job failed.
+     */
+    record Result(long theJobId, WorkflowResult theStatus, Map<String, Double> theTimings,
+                  UserSampleDatabase.FormantSample theSample) implements AnalysisEvent {}
+
+    /**
+     * A line that could not be decoded.
+     *
+     * @param theLine the raw line.
+     */
+    record Unknown(String theLine) implements AnalysisEvent {}
+
+    /**
+     * The worker's stdout closed, i.e. the interpreter exited.
+     */
+    record Closed() implements AnalysisEvent {}
+}
@@ -0,0 +1,159 @@
+package com.kass.vocalanalysistool.workflow;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.kass.vocalanalysistool.common.WorkflowResult;
+import com.kass.vocalanalysistool.model.UserSampleDatabase;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Decodes the worker's JSON lines into {@link AnalysisEvent}s.
+ *
+ * @author Kassie Whitney
+ * @version 1/7/2026
+ */
+final class AnalysisEventDecoder {
+
+    private AnalysisEventDecoder() {}
+
+    /**
+     * Decodes a single protocol line.
+     *
+     * @param theLine the line read from the worker's stdout.
+     * @return the decoded event, or {@link AnalysisEvent.Unknown} if the line is not a known
+     * event.
+     */
+    static AnalysisEvent decode(final String theLine) {
+        final JsonObject message;
+        try {
+            message = JsonParser.parseString(theLine).getAsJsonObject();
+        } catch (final RuntimeException theException) {
+            return new AnalysisEvent.Unknown(theLine);
+        }
+
+        try {
+            return switch (text(message, "type")) {
+                case "ready" -> new AnalysisEvent.Ready(number(message, "pid", -1));
+                case "pong" -> new AnalysisEvent.Pong(number(message, "id", -1));
+                case "phase" -> new AnalysisEvent.Phase(text(message, "phase"),
+                        "start".equals(text(message, "state")),
+                        decimal(message, "elapsed_ms"));
+                case "progress" -> new AnalysisEvent.Progress(decimal(message, "fraction"),
+                        text(message, "message"));
+                case "warning" -> new AnalysisEvent.Warning(text(message, "code"),
+                        text(message, "message"));
+                case "error" -> new AnalysisEvent.Error(number(message, "id", -1),
+                        text(message, "message"), text(message, "traceback"));
+                case "result" -> new AnalysisEvent.Result(number(message, "id", -1),
+                        WorkflowResult.valueOf(text(message, "status")), timings(message),
+                        sample(message));
+                case null, default -> new AnalysisEvent.Unknown(theLine);
+            };
+        } catch (final RuntimeException theException) {
+            return new AnalysisEvent.Unknown(theLine);
+        }
+    }
+
+    /**
+     * Reads a string member.
+     *
+     * @param theMessage the message.
+     * @param theKey     the member name.
+     * @return the value, or null if missing or JSON null.
+     */
+    private static String text(final JsonObject theMessage, final String theKey) {
+        final JsonElement value = theMessage.get(theKey);
+        return value == null || value.isJsonNull() ? null : value.getAsString();
+    }
+
+    /**
+     * Reads an integral member.
+     *
+     * @param theMessage  the message.
+     * @param theKey      the member name.
+     * @param theFallback the value used when the member is missing or JSON null.
+     * @return the value.
+     */
+    private static long number(final JsonObject theMessage, final String theKey,
+                               final long theFallback) {
+        final JsonElement value = theMessage.get(theKey);
+        return value == null || value.isJsonNull() ? theFallback : value.getAsLong();
+    }
+
+    /**
+     * Reads a decimal member.
+     *
+     * @param theMessage the message.
+     * @param theKey     the member name.
+     * @return the value, or NaN if missing or JSON null.
+     */
+    private static double decimal(final JsonObject theMessage, final String theKey) {
+        final JsonElement value = theMessage.get(theKey);
+        return value == null || value.isJsonNull() ? Double.NaN : value.getAsDouble();
+    }
+
+    /**
+     * Reads the per-phase timings of a result.
+     *
+     * @param theMessage the result message.
+     * @return phase name to milliseconds, in phase order.
+     */
+    private static Map<String, Double> timings(final JsonObject theMessage) {
+        final Map<String, Double> timings = new LinkedHashMap<>();
+        final JsonElement value = theMessage.get("timings");
+        if (value != null && value.isJsonObject()) {
+            for (final Map.Entry<String, JsonElement> entry
+                    : value.getAsJsonObject().entrySet()) {
+                timings.put(entry.getKey(), entry.getValue().getAsDouble());
+            }
+        }
+        return timings;
+    }
+
+    /**
+     * Reads the measured row of a result. The worker does not predict, so a row without a
+     * label or score gets null and NaN.
+     *
+     * @param theMessage the result message.
+     * @return the sample, or null if the result carries none.
+     */
+    private static UserSampleDatabase.FormantSample sample(final JsonObject theMessage) {
+        final JsonElement value = theMessage.get("sample");
+        if (value == null || !value.isJsonObject()) {
+            return null;
+        }
+
+        final JsonObject sample = value.getAsJsonObject();
+        return new UserSampleDatabase.FormantSample(
+                series(sample, "time"),
+                series(sample, "f0"),
+                series(sample, "f1"),
+                series(sample, "f2"),
+                series(sample, "formant_med"),
+                Base64.getDecoder().decode(text(sample, "scatter_plot")),
+                text(sample, "gender_label"),
+                decimal(sample, "gender_score"),
+                sample.has("features_json") && !sample.get("features_json").isJsonNull()
+                        ? sample.get("features_json").getAsString() : null);
+    }
+
+    /**
+     * Reads a numeric array member.
+     *
+     * @param theMessage the message.
+     * @param theKey     the member name.
+     * @return the values.
+     */
+    private static double[] series(final JsonObject theMessage, final String theKey) {
+        final JsonArray array = theMessage.getAsJsonArray(theKey);
+        final double[] values = new double[array.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = array.get(i).getAsDouble();
+        }
+        return values;
+    }
+}
@@ -62,7 +62,21 @@ public class OpenAudioDataScene {
         final WorkflowResult result = (WorkflowResult) theEvent.getNewValue();
 
 
-        if (result.equals(WorkflowResult.FAILED) || result.equals(WorkflowResult.CANCELLED)) {
+        if (result.equals(WorkflowResult.CANCELLED)) {
+
+            // The user stopped it; go back to where the analysis was started without an error
+            logger.log(Level.INFO, "[Open Analysis] Work Flow Cancelled");
+            if (StageRegistry.isOpen(StageNames.VOICE_RECORDING.name())) {
+                StageRegistry.getStage(StageNames.VOICE_RECORDING.name()).toFront();
+            } else {
+                StageRegistry.show(StageNames.SELECT_AUDIO.name(), () ->
+                        StageFactory.buildStage(new SelectAudioFileController(),
+                                "SelectAudioFile.fxml",
+                                "Select Audio File",
+                                "/com/kass/vocalanalysistool/icons/vocal_analysis_icon.png",
+                                false));
+            }
+        } else if (result.equals(WorkflowResult.FAILED)) {
 
             logger.log(Level.SEVERE, "[Open Analysis] Work Flow Failed");
             final Alert alert = new Alert(Alert.AlertType.ERROR);
@@ -1,20 +1,35 @@
 package com.kass.vocalanalysistool.workflow;
 
+import com.google.gson.JsonObject;
+import com.kass.vocalanalysistool.common.AnalysisTimeouts;
 import com.kass.vocalanalysistool.common.ChangeEvents;
 import com.kass.vocalanalysistool.common.WorkflowResult;
+import com.kass.vocalanalysistool.model.GenderModel;
+import com.kass.vocalanalysistool.model.UserSampleDatabase;
+import com.kass.vocalanalysistool.model.audio.AudioNormalizer;
+import com.kass.vocalanalysistool.model.audio.IncrementalAnalyzer;
+import com.kass.vocalanalysistool.model.audio.SegmentedAnalysis;
+import com.kass.vocalanalysistool.model.audio.VoiceActivityDetector;
 import com.kass.vocalanalysistool.view.LoadingScreenController;
+import com.kass.vocalanalysistool.view.util.EnvironmentUtils;
+import com.kass.vocalanalysistool.view.util.FormantPlot;
+import com.kass.vocalanalysistool.view.util.ResourceExtractor;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
 import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -43,7 +58,32 @@ public class PythonRunnerService implements PropertyChangeListener {
      */
     private final Logger logger = Logger.getLogger(PythonRunnerService.class.getName());
 
+    /**
+     * Share of the progress bar reserved for resource extraction and the environment check; the
+     * analysis worker's own progress fills the rest.
+     */
+    private static final double ANALYSIS_START = 0.10;
 
+    /**
+     * File name prefix of the trimmed and normalized copies handed to python.
+     */
+    private static final String TRIMMED_PREFIX = "vocal-analysis-trimmed-";
+
+    /**
+     * Where the trimmed copies are written.
+     */
+    private static final Path TEMP_DIR = Path.of(System.getProperty("java.io.tmpdir"))
+            .toAbsolutePath();
+
+    /**
+     * The last status message reported by the analysis worker.
+     */
+    private String myAnalysisMessage = "Analyzing vocal recording...";
+
+    /**
+     * The running analysis task, cancelled from the loading screen.
+     */
+    private volatile Task<WorkflowResult> myTask;
 
     /**
      * Runs the vocal analysis python script
@@ -52,6 +92,52 @@ public class PythonRunnerService implements PropertyChangeListener {
      * @throws IOException Thrown if the path to the audio file is invalid.
      */
     public void runScript(final String thePath) throws IOException {
+        runScript(thePath, null);
+    }
+
+    /**
+     * Stores the result of a recording that was analyzed while it was captured. Only the
+     * final aggregation and prediction are left to do; if the analyzer did not see exactly the
+     * audio in the file, the file is analyzed by python instead.
+     *
+     * @param thePath     The path of the audio file
+     * @param theAnalyzer the analyzer that listened to the recording, or null.
+     * @throws IOException Thrown if the path to the audio file is invalid.
+     */
+    public void runScript(final String thePath, final IncrementalAnalyzer theAnalyzer)
+            throws IOException {
+        final Stage loadingScreenStage = showLoadingScreen();
+
+        final Task<WorkflowResult> task = getThreadedTask(thePath, theAnalyzer);
+        startTask(task, loadingScreenStage, "PythonRunner");
+    }
+
+    /**
+     * Analyzes several recordings at once on a pool of workers and stores every result in one
+     * database transaction. The loading screen shows the aggregate progress and throughput.
+     *
+     * @param thePaths the paths of the audio files.
+     * @throws IOException Thrown if the loading screen can not be loaded.
+     */
+    public void runBatch(final List<String> thePaths) throws IOException {
+        final Stage loadingScreenStage = showLoadingScreen();
+
+        final Task<WorkflowResult> task = new Task<>() {
+            @Override
+            protected WorkflowResult call() {
+                return runBatchAnalysis(thePaths);
+            }
+        };
+        startTask(task, loadingScreenStage, "PythonBatchRunner");
+    }
+
+    /**
+     * Shows the loading screen and registers it for progress updates.
+     *
+     * @return the loading screen stage.
+     * @throws IOException Thrown if the loading screen can not be loaded.
+     */
+    private Stage showLoadingScreen() throws IOException {
         final FXMLLoader loadingScreenFXML = new FXMLLoader(getClass().getResource(
                 "/com/kass/vocalanalysistool/gui/LoadingScreen.fxml"));
         final Scene loadingScreenScene = new Scene(loadingScreenFXML.load());
@@ -66,181 +152,636 @@ public class PythonRunnerService implements PropertyChangeListener {
         loadingScreenStage.setResizable(false);
         loadingScreenStage.setAlwaysOnTop(true);
         loadingScreenStage.show();
+        return loadingScreenStage;
+    }
 
-        final Task<Void> task = getThreadedTask(thePath);
-
-        final Thread worker = new Thread(task, "PythonRunner");
-        worker.setDaemon(true);
-        worker.start();
-
-        task.setOnSucceeded(theEvent -> {
-            loadingScreenStage.close();
-            myChanges.firePropertyChange(ChangeEvents.WORKFLOW_RESULT.name(), null,
-                    WorkflowResult.SUCCESS);
+    /**
+     * Runs an analysis task on a background thread and reports its result once it finishes.
+     *
+     * @param theTask               the analysis task.
+     * @param theLoadingScreenStage the loading screen to close when the task ends.
+     * @param theThreadName         the name of the background thread.
+     */
+    private void startTask(final Task<WorkflowResult> theTask,
+                           final Stage theLoadingScreenStage,
+                           final String theThreadName) {
+        theTask.setOnSucceeded(theEvent -> {
+            theLoadingScreenStage.close();
+            final WorkflowResult result = theTask.getValue();
+            myChanges.firePropertyChange(ChangeEvents.WORKFLOW_RESULT.name(),
+                    result == WorkflowResult.INVALID
+                            ? "The audio recorder did not detect any valid acoustics"
+                            + ". Please try again!" : null,
+                    result);
         });
 
-        task.setOnFailed(theEvent -> {
-            loadingScreenStage.close();
+        theTask.setOnFailed(theEvent -> {
+            theLoadingScreenStage.close();
             myChanges.firePropertyChange(ChangeEvents.WORKFLOW_RESULT.name(), null,
                     WorkflowResult.FAILED);
 //            throw new IllegalArgumentException("The run time failed to process.");
         });
 
+        theTask.setOnCancelled(theEvent -> {
+            theLoadingScreenStage.close();
+            myChanges.firePropertyChange(ChangeEvents.WORKFLOW_RESULT.name(), null,
+                    WorkflowResult.CANCELLED);
+        });
 
+        myTask = theTask;
+        final Thread worker = new Thread(theTask, theThreadName);
+        worker.setDaemon(true);
+        worker.start();
     }
 
     /**
      * Runs the python script on a separate thread.
      *
-     * @param thePath the path of the python script.
+     * @param thePath     the path of the python script.
+     * @param theAnalyzer the analyzer that listened to the recording, or null.
      * @return a task object of the thread.
      */
-    private Task<Void> getThreadedTask(final String thePath) {
+    private Task<WorkflowResult> getThreadedTask(final String thePath,
+                                                 final IncrementalAnalyzer theAnalyzer) {
         return new Task<>() {
             @Override
-            protected Void call() {
-                runPythonScript(thePath); // must throw on failure
-                return null;
+            protected WorkflowResult call() {
+                return runPythonScript(thePath, theAnalyzer); // must throw on failure
             }
         };
     }
 
     /**
-     * Runs the python script to extract praat data from the chosen audio file.
+     * Runs the python script to extract praat data from the chosen audio file. A recording that
+     * was analyzed before (same audio, script and model) is reused from the analysis cache, and
+     * a recording that is being analyzed right now is not analyzed a second time.
      *
      * @param theFilePath the file path of the audio file.
+     * @param theAnalyzer the analyzer that listened to the recording, or null.
+     * @return the result reported by the analysis worker.
      */
-    private void runPythonScript(final String theFilePath) {
+    private WorkflowResult runPythonScript(final String theFilePath,
+                                           final IncrementalAnalyzer theAnalyzer) {
+        WorkflowResult result = WorkflowResult.FAILED;
         try {
-            final Path appDir = getAppDir(); //The directory of the program install location
-            final Path dataDir = getDataDir(); // Writable directory for venv + extracted resources
-
-            logger.info("Resolved appDir: " + appDir);
-            logger.info("Resolved dataDir: " + dataDir);
-
-            // Extract resources to a stable, writable location (NOT temp, NOT install dir)
-            final Path pythonScript = extractResourceToDir(
-                    "/VocalAnalysisToolKit/Vocal_Analysis_Script.py",
-                    dataDir,
-                    "Vocal_Analysis_Script.py"
-            );
-            final Path setupBat = extractResourceToDir(
-                    "/pythonInstall.bat",
-                    dataDir,
-                    "pythonInstall.bat"
-            );
-            final Path requirements = extractResourceToDir(
-                    "/VocalAnalysisToolKit/requirements.txt",
-                    dataDir,
-                    "requirements.txt"
-            );
-
-            final Path modelFile = extractResourceToDir(
-                    "/VocalAnalysisToolKit/gender_model.joblib",
-                    dataDir,
-                    "gender_model.joblib"
-            );
-
-            final Path venvPy = dataDir.resolve(".venv").resolve("Scripts").resolve("python.exe");
+            final String digest = AnalysisCache.digestOf(Path.of(theFilePath));
+            result = AnalysisCache.singleFlight(digest,
+                    () -> analyzeUncached(theFilePath, digest, theAnalyzer));
 
+            if (result == WorkflowResult.FAILED) {
+                logger.severe("Python analysis failed for " + theFilePath);
+                throw new IllegalStateException("The python script could not write to file!");
+            }
 
-            myChanges.firePropertyChange(ChangeEvents.UPDATE_PROGRESS.toString(),
-                    "Installing environment updates if needed...",
-                    (double) 32 / 100);
+        } catch (final IOException theEvent) {
+            logger.log(Level.SEVERE, "Failed to run Python script", theEvent);
+        } catch (final InterruptedException theEvent) {
+            logger.log(Level.SEVERE, "Python script was interrupted", theEvent);
+            Thread.currentThread().interrupt();
+            result = WorkflowResult.CANCELLED;
+        }
+
+        myChanges.firePropertyChange(ChangeEvents.UPDATE_PROGRESS.name(), "Completed!",
+                (double) 1);
+
+        return result;
+    }
+
+    /**
+     * Reuses the cached analysis of a recording or, on a miss, finishes the analysis made
+     * while recording, analyzes a long file segment by segment on every core, or analyzes
+     * the file on the warm worker, and stores the row together with its cache entry. The
+     * digest only samples the recording, so the hash of all of it is computed in the
+     * background: it confirms a hit, and a miss stores it with the new entry.
+     *
+     * @param theFilePath the file path of the audio file.
+     * @param theDigest   the recording's digest.
+     * @param theAnalyzer the analyzer that listened to the recording, or null.
+     * @return the result of the analysis.
+     * @throws IOException          thrown if the worker could not run.
+     * @throws InterruptedException thrown if the thread was interrupted.
+     */
+    private WorkflowResult analyzeUncached(final String theFilePath, final String theDigest,
+                                           final IncrementalAnalyzer theAnalyzer)
+            throws IOException, InterruptedException {
+        final Future<String> content =
+                AnalysisCache.contentDigestInBackground(Path.of(theFilePath));
+        try {
+            return analyzeUncached(theFilePath, theDigest, content, theAnalyzer);
+        } finally {
+            content.cancel(true);
+        }
+    }
+
+    /**
+     * Reuses the cached analysis of a recording or analyzes it.
+     *
+     * @param theFilePath the file path of the audio file.
+     * @param theDigest   the recording's digest.
+     * @param theContent  the hash of the whole recording, being computed.
+     * @param theAnalyzer the analyzer that listened to the recording, or null.
+     * @return the result of the analysis.
+     * @throws IOException          thrown if the worker could not run.
+     * @throws InterruptedException thrown if the thread was interrupted.
+     */
+    private WorkflowResult analyzeUncached(final String theFilePath, final String theDigest,
+                                           final Future<String> theContent,
+                                           final IncrementalAnalyzer theAnalyzer)
+            throws IOException, InterruptedException {
+        final UserSampleDatabase database = UserSampleDatabase.getShared();
+        final String pythonKey = AnalysisCache.keyOf(theDigest, AnalysisCache.Analyzer.PYTHON);
+        if (reuseConfirmed(database, pythonKey, theContent)) {
+            logger.info("Reused the cached analysis of " + theFilePath);
+            return WorkflowResult.SUCCESS;
+        }
+
+        // The in-process analyses are cached apart from python's results, so neither is ever
+        // served for the other
+        final String javaKey = AnalysisCache.keyOf(theDigest, AnalysisCache.Analyzer.JAVA);
+        final boolean live = theAnalyzer != null && theAnalyzer.covers(Path.of(theFilePath));
+        if ((live || SegmentedAnalysis.isEnabled())
+                && reuseConfirmed(database, javaKey, theContent)) {
+            logger.info("Reused the cached in-process analysis of " + theFilePath);
+            return WorkflowResult.SUCCESS;
+        }
+
+        if (live) {
+            return storeIncremental(theAnalyzer.summary(), "live analysis", database, javaKey,
+                    theContent);
+        }
+        if (theAnalyzer != null) {
+            logger.info("The live analysis does not match " + theFilePath
+                    + "; analyzing the file instead");
+        }
 
-            // 2) Resolve venv python; do not silently fall back
-            if (!Files.exists(venvPy)) {
-                throw new IllegalStateException("Venv python not found at " + venvPy + ". Ensure setup ran in " + dataDir);
+        if (SegmentedAnalysis.isEnabled()) {
+            myChanges.firePropertyChange(ChangeEvents.UPDATE_PROGRESS.toString(),
+                    myAnalysisMessage, ANALYSIS_START);
+            final long start = System.nanoTime();
+            final IncrementalAnalyzer.Summary summary = SegmentedAnalysis.analyze(
+                    Path.of(theFilePath), AudioNormalizer.analysisRate());
+            if (summary != null) {
+                logger.info("Analyzed " + theFilePath + " in segments in "
+                        + (System.nanoTime() - start) / 1_000_000 + " ms");
+                return storeIncremental(summary, "segmented analysis", database, javaKey,
+                        theContent);
             }
-            final String pythonExe = venvPy.toString();
+        }
 
-            // Helper to run a short python/pip command and log all output
-            Function<String[], Integer> run = (args) -> {
-                try {
-                    Process p = getProcess(new ProcessBuilder(args), dataDir);
-                    try (BufferedReader br = new BufferedReader(new InputStreamReader(p.getInputStream()))) {
-                        String s;
-                        while ((s = br.readLine()) != null) logger.info("[pip] " + s);
-                    }
-                    return p.waitFor();
-                } catch (Exception e) {
-                    logger.log(Level.SEVERE, "Subprocess failed: " + String.join(" ", args), e);
-                    return -1;
-                }
-            };
+        final Toolkit toolkit = prepareToolkit();
 
-            myChanges.firePropertyChange(ChangeEvents.UPDATE_PROGRESS.toString(), "Parsing " +
-                            "dependency requirements...",
-                    (double) 48 / 100);
+        myChanges.firePropertyChange(ChangeEvents.UPDATE_PROGRESS.toString(),
+                myAnalysisMessage, ANALYSIS_START);
 
-            // 3) Ensure matplotlib is installed in the venv
-            int code;
-            if (Files.exists(requirements)) {
-                logger.info("Installing requirements from: " + requirements);
-                myChanges.firePropertyChange(ChangeEvents.UPDATE_PROGRESS.toString(),
-                        "Checking dependency requirements...", (double) 55 / 100);
-                code = run.apply(new String[]{pythonExe, "-m", "pip", "install", "-r", requirements.toString()});
-                if (code != 0)
-                    throw new IllegalStateException("pip install -r failed with code " + code);
-            } else {
-                // Minimal guarantee
-                logger.info("requirements.txt not found in " + dataDir + " — installing matplotlib explicitly.");
-                myChanges.firePropertyChange(ChangeEvents.UPDATE_PROGRESS.toString(),
-                        "Installing basic requirements...", (double) 55 / 100);
-                code = run.apply(new String[]{pythonExe, "-m", "pip", "install", "matplotlib"});
-                if (code != 0)
-                    throw new IllegalStateException("pip install matplotlib failed with code " + code);
+        // 4) Cuts the silence off the ends and resamples so python only analyzes the take at
+        // the analysis rate
+        final PythonWorker.Audio audio = prepareAudio(theFilePath);
+        if (audio == null) {
+            return WorkflowResult.INVALID;
+        }
+
+        // 5) Hands the file to the warm analysis worker (started on first use), which reports
+        // its real progress phase by phase and returns the row instead of storing it
+        final AnalysisEvent.Result outcome;
+        try {
+            final PythonWorker analysisWorker = PythonWorker.getShared(toolkit.thePythonExe(),
+                    toolkit.theScript(), toolkit.theDataDir());
+            outcome = analysisWorker.analyze(audio, this::onAnalysisEvent);
+        } finally {
+            deleteTrimmed(audio.thePath());
+        }
+        logger.info("Analysis " + outcome.theStatus() + " in " + outcome.theTimings().values()
+                .stream().mapToDouble(Double::doubleValue).sum() + " ms "
+                + outcome.theTimings());
+
+        // The worker only measures; the bundled model scores its feature row, so every stored
+        // analysis is labeled the same way whichever path measured it
+        if (outcome.theSample() != null) {
+            final UserSampleDatabase.FormantSample sample = scored(outcome.theSample());
+            if (sample == null) {
+                return WorkflowResult.INVALID;
             }
+            database.insertSample(sample, pythonKey, AnalysisCache.await(theContent));
+        }
+        return outcome.theStatus();
+    }
 
-            myChanges.firePropertyChange(ChangeEvents.UPDATE_PROGRESS.toString(),
-                    "Importing dependencies...", (double) 64 / 100);
-            // 4) Probe: show interpreter & matplotlib version (fail fast if missing)
-            code = run.apply(new String[]{pythonExe, "-c",
-                    "import sys; print('[PyProbe] exe:', sys.executable); " +
-                            "import matplotlib; print('[PyProbe] matplotlib version:', matplotlib.__version__)"
-            });
-            if (code != 0)
-                throw new IllegalStateException("Probe failed; matplotlib not importable.");
+    /**
+     * Scores a row measured by the python worker with the bundled model.
+     *
+     * @param theSample the measured row, which carries no prediction.
+     * @return the scored row, or null if the model gave it no score the table accepts.
+     */
+    private UserSampleDatabase.FormantSample scored(
+            final UserSampleDatabase.FormantSample theSample) {
+        final UserSampleDatabase.FormantSample scored =
+                theSample.scoredWith(GenderModel.bundled());
+        if (scored.theGenderLabel() == null) {
+            logger.warning("The bundled model could not score the analysis; it is not stored.");
+            return null;
+        }
+        return scored;
+    }
 
-            myChanges.firePropertyChange(ChangeEvents.UPDATE_PROGRESS.toString(), "Analyzing" +
-                            " vocal recording...",
-                    (double) 95 / 100);
+    /**
+     * Reuses a cached analysis if its entry was made from the same recording.
+     *
+     * @param theDatabase the database.
+     * @param theCacheKey the recording's cache key.
+     * @param theContent  the hash of the whole recording, awaited only if the key is known.
+     * @return true on a confirmed hit.
+     * @throws IOException          thrown if the recording could not be hashed.
+     * @throws InterruptedException thrown if the thread was interrupted.
+     */
+    private static boolean reuseConfirmed(final UserSampleDatabase theDatabase,
+                                          final String theCacheKey,
+                                          final Future<String> theContent)
+            throws IOException, InterruptedException {
+        return theDatabase.getCachedContentDigest(theCacheKey) != null
+                && theDatabase.reuseCachedSample(theCacheKey, AnalysisCache.await(theContent));
+    }
 
-            // 5) Runs the python script
-            final Process process = getProcess(new ProcessBuilder(pythonExe,
-                    pythonScript.toString(), theFilePath, modelFile.toString()), dataDir);
-            try (final BufferedReader reader =
-                         new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+    /**
+     * Aggregates an analysis made in process, predicts the label with the bundled model and
+     * stores the row.
+     *
+     * @param theSummary  the statistics of the whole recording.
+     * @param theSource   what made the analysis, for the log.
+     * @param theDatabase the database.
+     * @param theCacheKey the recording's cache key.
+     * @param theContent  the hash of the whole recording, stored with the cache entry.
+     * @return SUCCESS, or INVALID if the recording had no valid frames.
+     * @throws IOException          thrown if the scatter plot can not be drawn.
+     * @throws InterruptedException thrown if the thread was interrupted.
+     */
+    private WorkflowResult storeIncremental(final IncrementalAnalyzer.Summary theSummary,
+                                            final String theSource,
+                                            final UserSampleDatabase theDatabase,
+                                            final String theCacheKey,
+                                            final Future<String> theContent)
+            throws IOException, InterruptedException {
+        final long start = System.nanoTime();
+        myChanges.firePropertyChange(ChangeEvents.UPDATE_PROGRESS.toString(),
+                "Summarizing the recording...", 0.5);
+
+        final IncrementalAnalyzer.Result result = theSummary.toResult();
+        if (result == null) {
+            return WorkflowResult.INVALID;
+        }
+        final GenderModel.Prediction prediction =
+                GenderModel.bundled().predict(result.theFeatures());
+        final byte[] plot = FormantPlot.render(result.theTime(), result.theF0(),
+                result.theF1(), result.theF2(), result.theF3(), result.theF4());
+
+        final JsonObject features = new JsonObject();
+        result.theFeatures().forEach((theName, theValue) ->
+                features.addProperty(theName, Double.isFinite(theValue) ? theValue : null));
+
+        theDatabase.insertSample(new UserSampleDatabase.FormantSample(result.theTime(),
+                result.theF0(), result.theF1(), result.theF2(), result.theMedians(), plot,
+                prediction.theLabel(), prediction.theScore(), features.toString()), theCacheKey,
+                AnalysisCache.await(theContent));
+
+        logger.info("Stored the " + theSource + " (" + result.theTime().length + " frames, "
+                + prediction.theLabel() + ") in " + (System.nanoTime() - start) / 1_000_000
+                + " ms");
+        return WorkflowResult.SUCCESS;
+    }
 
-                String line;
-                while ((line = reader.readLine()) != null) {
+    /**
+     * Analyzes a batch of files concurrently and stores all results in one transaction.
+     *
+     * @param thePaths the audio files.
+     * @return SUCCESS if at least one recording was stored, INVALID if none had valid acoustics,
+     * FAILED or CANCELLED otherwise.
+     */
+    private WorkflowResult runBatchAnalysis(final List<String> thePaths) {
+        final int total = thePaths.size();
+        if (total == 0) {
+            // Nothing to analyze, so the toolkit is not extracted or checked either
+            return WorkflowResult.INVALID;
+        }
 
-                    logger.info("[Python] " + line);
+        WorkflowResult result = WorkflowResult.FAILED;
+        try {
+            final Toolkit toolkit = prepareToolkit();
+            final List<UserSampleDatabase.FormantSample> samples = new ArrayList<>();
+            final int poolSize = Math.min(total, PythonWorkerPool.defaultSize());
 
-                    if (line.contains("No valid frames after filtering; skipping file")) {
-                        myChanges.firePropertyChange(ChangeEvents.WORKFLOW_RESULT.name()
-                                , "The audio recorder did not detect any valid acoustics" +
-                                        ". Please try again!", WorkflowResult.INVALID);
+            myChanges.firePropertyChange(ChangeEvents.UPDATE_PROGRESS.toString(),
+                    "Starting " + poolSize + " analysis workers...", ANALYSIS_START);
+
+            try (final PythonWorkerPool pool = new PythonWorkerPool(toolkit.thePythonExe(),
+                    toolkit.theScript(), toolkit.theDataDir(), poolSize)) {
+
+                // Every job trims and resamples its own recording, so that runs on all
+                // workers' threads as well
+                final CompletionService<AnalysisEvent.Result> completion =
+                        pool.submitAll(thePaths, this::prepareAudio, this::deleteTrimmed,
+                                this::onBatchEvent);
+                final long start = System.nanoTime();
+                int failed = 0;
+
+                for (int done = 1; done <= total; done++) {
+                    try {
+                        final AnalysisEvent.Result outcome = completion.take().get();
+                        if (outcome.theSample() != null) {
+                            final UserSampleDatabase.FormantSample sample =
+                                    scored(outcome.theSample());
+                            if (sample != null) {
+                                samples.add(sample);
+                            }
+                        } else if (outcome.theStatus() == WorkflowResult.FAILED) {
+                            failed++;
+                        }
+                    } catch (final ExecutionException theException) {
+                        logger.log(Level.SEVERE, "Batch analysis job failed",
+                                theException.getCause());
+                        failed++;
                     }
+
+                    final double seconds = (System.nanoTime() - start) / 1e9;
+                    myChanges.firePropertyChange(ChangeEvents.UPDATE_PROGRESS.toString(),
+                            String.format("Analyzed %d of %d recordings (%.2f files/s)", done,
+                                    total, done / Math.max(seconds, 1e-3)),
+                            ANALYSIS_START + (1 - ANALYSIS_START) * done / total * 0.95);
                 }
 
-            }
-            int exit = process.waitFor();
-            if (exit != 0) {
-                logger.severe("Python script exited with code " + exit);
-                myChanges.firePropertyChange(ChangeEvents.WORKFLOW_RESULT.name(), null,
-                        WorkflowResult.FAILED);
-                throw new IllegalStateException("The python script could not write to file!");
+                logger.info("Batch of " + total + " analyzed by " + poolSize + " workers in "
+                        + (System.nanoTime() - start) / 1_000_000 + " ms; " + samples.size()
+                        + " stored, " + failed + " failed.");
             }
 
-        } catch (final IOException | InterruptedException theEvent) {
-            logger.log(Level.SEVERE, "Failed to run Python script", theEvent);
+            myChanges.firePropertyChange(ChangeEvents.UPDATE_PROGRESS.toString(),
+                    "Saving " + samples.size() + " results...", 0.97);
+            UserSampleDatabase.getShared().insertSamples(samples);
+
+            result = samples.isEmpty() ? WorkflowResult.INVALID : WorkflowResult.SUCCESS;
+
+        } catch (final IOException theEvent) {
+            logger.log(Level.SEVERE, "Failed to run the batch analysis", theEvent);
+        } catch (final InterruptedException theEvent) {
+            logger.log(Level.SEVERE, "Batch analysis was interrupted", theEvent);
             Thread.currentThread().interrupt();
+            result = WorkflowResult.CANCELLED;
         }
 
         myChanges.firePropertyChange(ChangeEvents.UPDATE_PROGRESS.name(), "Completed!",
                 (double) 1);
 
+        return result;
+    }
+
+    /**
+     * Writes a copy of the recording without its leading and trailing silence, downmixed and
+     * resampled to the analysis rate. Recordings that can not be decoded, or that are already
+     * normalized and almost all voice, are analyzed as they are.
+     *
+     * @param theFilePath the recording.
+     * @return the file to analyze and the silence cut from it, or null if the recording has no
+     * voiced audio.
+     * @throws IOException          thrown if the recording or the copy can not be accessed.
+     * @throws InterruptedException thrown if the thread was interrupted while trimming.
+     */
+    private PythonWorker.Audio prepareAudio(final String theFilePath)
+            throws IOException, InterruptedException {
+        final Path trimmed = Files.createTempFile(TEMP_DIR, TRIMMED_PREFIX, ".wav");
+        try {
+            if (Boolean.getBoolean(VoiceActivityDetector.KEEP_SILENCE_PROPERTY)) {
+                if (AudioNormalizer.normalize(Path.of(theFilePath), trimmed)) {
+                    return new PythonWorker.Audio(trimmed.toString(), 0.0);
+                }
+                Files.deleteIfExists(trimmed);
+                return new PythonWorker.Audio(theFilePath, 0.0);
+            }
+
+            final VoiceActivityDetector.Trim trim = VoiceActivityDetector.trim(
+                    Path.of(theFilePath), trimmed, AudioNormalizer.analysisRate());
+            if (trim == null) {
+                Files.deleteIfExists(trimmed);
+                return new PythonWorker.Audio(theFilePath, 0.0);
+            }
+            if (!trimmed.equals(trim.theAudio())) {
+                Files.deleteIfExists(trimmed);
+            }
+            if (trim.isSilent()) {
+                logger.info("No voiced audio in " + theFilePath);
+                return null;
+            }
+            logger.info(String.format("Kept %d of %d frames around %d voiced regions of %s",
+                    trim.theKeptFrames(), trim.theTotalFrames(), trim.theRegions().size(),
+                    theFilePath));
+            return new PythonWorker.Audio(trim.theAudio().toString(), trim.trimmedSeconds());
+        } catch (final IOException | InterruptedException | RuntimeException theException) {
+            Files.deleteIfExists(trimmed);
+            throw theException;
+        }
+    }
+
+    /**
+     * Deletes the file that was analyzed if it is a trimmed copy made by
+     * {@link #prepareAudio(String)}; original recordings are left alone.
+     *
+     * @param theAudioPath the file that was analyzed.
+     */
+    private void deleteTrimmed(final String theAudioPath) {
+        final Path audio = Path.of(theAudioPath);
+        if (!audio.getFileName().toString().startsWith(TRIMMED_PREFIX)
+                || !TEMP_DIR.equals(audio.getParent())) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(audio);
+        } catch (final IOException theException) {
+            logger.log(Level.WARNING, "Could not delete " + theAudioPath, theException);
+        }
+    }
+
+    /**
+     * The extracted toolkit and the interpreter that runs it.
+     *
+     * @param thePythonExe the venv python executable.
+     * @param theScript    the analysis script.
+     * @param theDataDir   the writable data directory.
+     */
+    private record Toolkit(Path thePythonExe, Path theScript, Path theDataDir) { }
+
+    /**
+     * Extracts the toolkit and makes sure the venv has its requirements installed.
+     *
+     * @return the paths needed to start an analysis worker.
+     * @throws IOException Thrown if the toolkit can not be extracted.
+     */
+    private Toolkit prepareToolkit() throws IOException {
+        final Path appDir = getAppDir(); //The directory of the program install location
+        final Path dataDir = getDataDir(); // Writable directory for venv + extracted resources
+
+        logger.info("Resolved appDir: " + appDir);
+        logger.info("Resolved dataDir: " + dataDir);
+
+        // Extract resources to a stable, writable, versioned location (NOT temp, NOT
+        // install dir). Unchanged files are not rewritten.
+        final Path runtimeDir = ResourceExtractor.runtimeDir(dataDir);
+        final Path pythonScript = ResourceExtractor.extract(
+                "/VocalAnalysisToolKit/Vocal_Analysis_Script.py",
+                runtimeDir,
+                "Vocal_Analysis_Script.py"
+        );
+        final Path requirements = ResourceExtractor.extract(
+                "/VocalAnalysisToolKit/requirements.txt",
+                runtimeDir,
+                "requirements.txt"
+        );
+
+        final Path venvPy = dataDir.resolve(".venv").resolve("Scripts").resolve("python.exe");
+
+
+        myChanges.firePropertyChange(ChangeEvents.UPDATE_PROGRESS.toString(),
+                "Checking the python environment...", 0.0);
+
+        // 2) Resolve venv python; do not silently fall back
+        if (!Files.exists(venvPy)) {
+            throw new IllegalStateException("Venv python not found at " + venvPy + ". Ensure setup ran in " + dataDir);
+        }
+        final String pythonExe = venvPy.toString();
+
+        // Helper to run a short python/pip command and log all output. The whole dependency
+        // check shares one deadline; a command that overruns it or is cancelled is killed
+        // together with its children.
+        final long deadline = System.nanoTime() + AnalysisTimeouts.dependencies().toNanos();
+        Function<String[], Integer> run = (args) -> {
+            Process p = null;
+            try {
+                p = getProcess(new ProcessBuilder(args), dataDir);
+                final Process process = p;
+                final Thread output = new Thread(() -> {
+                    try (BufferedReader br = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                        String s;
+                        while ((s = br.readLine()) != null) logger.info("[pip] " + s);
+                    } catch (final IOException theException) {
+                        logger.log(Level.FINE, "[pip] output closed", theException);
+                    }
+                }, "PythonRunner-pip");
+                output.setDaemon(true);
+                output.start();
+
+                if (!p.waitFor(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                    logger.severe("Subprocess timed out: " + String.join(" ", args));
+                    PythonWorker.destroyTree(p);
+                    return -1;
+                }
+                return p.exitValue();
+            } catch (final InterruptedException e) {
+                PythonWorker.destroyTree(p);
+                Thread.currentThread().interrupt();
+                return -1;
+            } catch (Exception e) {
+                logger.log(Level.SEVERE, "Subprocess failed: " + String.join(" ", args), e);
+                return -1;
+            }
+        };
+
+        // 3) Only run pip + the import probe when requirements.txt or the interpreter changed
+        final String fingerprint = EnvironmentUtils.requirementsFingerprint(dataDir,
+                requirements);
+
+        if (EnvironmentUtils.isFingerprintCurrent(dataDir, fingerprint)) {
+            logger.info("Requirements fingerprint unchanged; skipping pip and import probe.");
+        } else {
+            installRequirements(run, pythonExe, requirements, dataDir);
+            EnvironmentUtils.writeFingerprint(dataDir, fingerprint);
+            // A warm worker still has the old libraries imported
+            PythonWorker.shutdownShared();
+        }
+
+        return new Toolkit(venvPy, pythonScript, dataDir);
+    }
+
+    /**
+     * Forwards the analysis worker's events to the loading screen and the log.
+     *
+     * @param theEvent the event reported by the worker.
+     */
+    private void onAnalysisEvent(final AnalysisEvent theEvent) {
+        switch (theEvent) {
+            case AnalysisEvent.Progress progress -> {
+                if (progress.theMessage() != null) {
+                    myAnalysisMessage = progress.theMessage();
+                }
+                myChanges.firePropertyChange(ChangeEvents.UPDATE_PROGRESS.toString(),
+                        myAnalysisMessage,
+                        ANALYSIS_START + (1 - ANALYSIS_START) * progress.theFraction());
+            }
+            case AnalysisEvent.Phase phase when !phase.theStarted() ->
+                    logger.fine(() -> "Phase " + phase.thePhase() + " took "
+                            + phase.theElapsedMs() + " ms");
+            case AnalysisEvent.Warning warning ->
+                    logger.warning(warning.theCode() + ": " + warning.theMessage());
+            case AnalysisEvent.Error error -> logger.severe("Python error: " + error.theMessage()
+                    + (error.theTraceback() == null ? "" : "\n" + error.theTraceback()));
+            default -> { }
+        }
+    }
+
+    /**
+     * Logs the problems reported by the batch workers; per-file progress is not shown.
+     *
+     * @param theEvent the event reported by a worker.
+     */
+    private void onBatchEvent(final AnalysisEvent theEvent) {
+        switch (theEvent) {
+            case AnalysisEvent.Warning warning ->
+                    logger.warning(warning.theCode() + ": " + warning.theMessage());
+            case AnalysisEvent.Error error -> logger.severe("Python error: " + error.theMessage());
+            default -> { }
+        }
+    }
+
+    /**
+     * Installs the requirements into the venv and probes that matplotlib imports.
+     *
+     * @param theRun          helper that runs a command and returns its exit code.
+     * @param thePythonExe    the venv python executable.
+     * @param theRequirements the extracted requirements file.
+     * @param theDataDir      the writable data directory.
+     */
+    private void installRequirements(final Function<String[], Integer> theRun,
+                                     final String thePythonExe,
+                                     final Path theRequirements,
+                                     final Path theDataDir) {
+        myChanges.firePropertyChange(ChangeEvents.UPDATE_PROGRESS.toString(), "Parsing " +
+                        "dependency requirements...",
+                0.02);
+
+        // Ensure matplotlib is installed in the venv
+        int code;
+        if (Files.exists(theRequirements)) {
+            logger.info("Installing requirements from: " + theRequirements);
+            myChanges.firePropertyChange(ChangeEvents.UPDATE_PROGRESS.toString(),
+                    "Checking dependency requirements...", 0.04);
+            code = theRun.apply(new String[]{thePythonExe, "-m", "pip", "install", "-r",
+                    theRequirements.toString()});
+            if (code != 0)
+                throw new IllegalStateException("pip install -r failed with code " + code);
+        } else {
+            // Minimal guarantee
+            logger.info("requirements.txt not found in " + theDataDir + " — installing matplotlib explicitly.");
+            myChanges.firePropertyChange(ChangeEvents.UPDATE_PROGRESS.toString(),
+                    "Installing basic requirements...", 0.04);
+            code = theRun.apply(new String[]{thePythonExe, "-m", "pip", "install", "matplotlib"});
+            if (code != 0)
+                throw new IllegalStateException("pip install matplotlib failed with code " + code);
+        }
+
+        myChanges.firePropertyChange(ChangeEvents.UPDATE_PROGRESS.toString(),
+                "Importing dependencies...", 0.08);
+        // Probe: show interpreter & matplotlib version (fail fast if missing)
+        code = theRun.apply(new String[]{thePythonExe, "-c",
+                "import sys; print('[PyProbe] exe:', sys.executable); " +
+                        "import matplotlib; print('[PyProbe] matplotlib version:', matplotlib.__version__)"
+        });
+        if (code != 0)
+            throw new IllegalStateException("Probe failed; matplotlib not importable.");
     }
 
     /**
@@ -308,32 +849,6 @@ public class PythonRunnerService implements PropertyChangeListener {
     }
 
 
-    /**
-     * Extracts a resource from the jar into a stable, writable directory.
-     *
-     * @param resourcePath the path of the resource file.
-     * @param outDir       the directory to copy to.
-     * @param filename     the filename to write as.
-     * @return returns the path of the extracted file.
-     * @throws IOException Thrown if the input stream is null
-     */
-    private Path extractResourceToDir(final String resourcePath,
-                                      final Path outDir,
-                                      final String filename) throws IOException {
-
-        Files.createDirectories(outDir);
-        final Path out = outDir.resolve(filename);
-
-        try (final InputStream in = getClass().getResourceAsStream(resourcePath)) {
-            if (in == null) {
-                throw new IOException("Resource not found");
-            }
-            Files.copy(in, out, StandardCopyOption.REPLACE_EXISTING);
-        }
-
-        return out;
-    }
-
     /**
      * Adds component to this property change listener list
      *
@@ -354,6 +869,13 @@ public class PythonRunnerService implements PropertyChangeListener {
 
     @Override
     public void propertyChange(final PropertyChangeEvent theEvent) {
-
+        if (ChangeEvents.CANCEL_ANALYSIS.name().equals(theEvent.getPropertyName())) {
+            final Task<WorkflowResult> task = myTask;
+            if (task != null) {
+                logger.info("Cancelling the running analysis");
+                // Interrupts the runner thread; the worker it waits on is killed with its children
+                task.cancel(true);
+            }
+        }
     }
 }
@@ -0,0 +1,718 @@
+package com.kass.vocalanalysistool.workflow;
+
+import com.google.gson.JsonObject;
+import com.kass.vocalanalysistool.common.AnalysisTimeouts;
+import com.kass.vocalanalysistool.model.audio.AudioNormalizer;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A long-lived python interpreter that runs the vocal analysis script in worker mode.
+ *
+ * <p>The interpreter is started once and imports parselmouth/numpy/pandas/matplotlib a single
+ * time, then takes analysis jobs over stdin/stdout (one JSON object per line, decoded into
+ * {@link AnalysisEvent}s). It only measures; the rows it returns are scored by the bundled
+ * {@link com.kass.vocalanalysistool.model.GenderModel}, so it never loads the joblib model.
+ * The worker is health checked before each job, restarted when it has crashed and shut down
+ * together with the application. A job that is interrupted or exceeds
+ * {@link AnalysisTimeouts#analysis(double)} for the length of its recording takes the
+ * interpreter and all of its children down with it, so an abandoned analysis never keeps
+ * burning a core.</p>
+ *
+ * @author Kassie Whitney
+ * @version 1/7/2026
+ */
+public final class PythonWorker {
+
+    /**
+     * Logger for verbose data.
+     */
+    private static final Logger LOGGER = Logger.getLogger(PythonWorker.class.getName());
+
+    /**
+     * System property that makes every job also export its feature row to
+     * ~/VocalAnalysisTool/user_features.csv (off by default; prediction never needs the file).
+     */
+    public static final String EXPORT_CSV_PROPERTY = "vocalanalysis.exportCsv";
+
+    /**
+     * How long a fresh interpreter gets to import its libraries.
+     */
+    private static final long READY_TIMEOUT_MS = 120_000;
+
+    /**
+     * How long a warm interpreter gets to answer a health check.
+     */
+    private static final long PING_TIMEOUT_MS = 5_000;
+
+    /**
+     * How long the interpreter gets to exit on its own before being destroyed.
+     */
+    private static final long SHUTDOWN_TIMEOUT_MS = 2_000;
+
+    /**
+     * How often a job waiting for the worker checks whether the job ahead overran its deadline.
+     */
+    private static final long LOCK_POLL_MS = 1_000;
+
+    /**
+     * Bytes per second assumed for a recording Java Sound can not read, when sizing its
+     * deadline; low enough for any compressed voice recording.
+     */
+    private static final double COMPRESSED_BYTES_PER_SECOND = 4_000;
+
+    /**
+     * How many of the last lines the interpreter wrote to stderr are kept to explain a failure.
+     */
+    private static final int STDERR_TAIL_LINES = 50;
+
+    /**
+     * How long a failure waits for the last lines of a dying interpreter's stderr.
+     */
+    private static final long STDERR_DRAIN_MS = 1_000;
+
+    /**
+     * The worker shared by every runner service in this JVM.
+     */
+    private static PythonWorker SHARED;
+
+    /**
+     * True once the JVM shutdown hook has been installed.
+     */
+    private static boolean HOOK_INSTALLED;
+
+    /**
+     * The command line that launches the worker.
+     */
+    private final List<String> myCommand;
+
+    /**
+     * The working directory of the interpreter (where the database lives).
+     */
+    private final Path myWorkDir;
+
+    /**
+     * Events decoded from the worker's stdout.
+     */
+    private final BlockingQueue<AnalysisEvent> myMessages = new LinkedBlockingQueue<>();
+
+    /**
+     * The running interpreter, null until started.
+     */
+    private volatile Process myProcess;
+
+    /**
+     * The interpreter's stdin.
+     */
+    private volatile BufferedWriter myInput;
+
+    /**
+     * The end of the running interpreter's stderr, null until started.
+     */
+    private volatile StderrTail myStderr;
+
+    /**
+     * Guards replacing {@link #myProcess} and {@link #myInput} together, so {@link #shutdown()}
+     * detaches exactly one interpreter while a job may be starting or killing one. Never held
+     * while talking to the interpreter.
+     */
+    private final Object myProcessLock = new Object();
+
+    /**
+     * Held while a job or health check talks to the interpreter. A lock rather than
+     * {@code synchronized}, so a caller waiting for the job ahead of it can be interrupted and
+     * gives up once that job overran its deadline.
+     */
+    private final ReentrantLock myLock = new ReentrantLock();
+
+    /**
+     * When the holder of {@link #myLock} will have given up on the interpreter, in
+     * {@link System#nanoTime()}.
+     */
+    private volatile long myBusyUntil;
+
+    /**
+     * The id of the last job sent to the worker.
+     */
+    private long myLastJobId;
+
+    /**
+     * A recording prepared for the script.
+     *
+     * @param thePath           the file to analyze.
+     * @param theTrimmedSeconds silence cut from the ends of the recording, which the script
+     *                          counts as unvoiced frames; 0 for an untrimmed file.
+     */
+    public record Audio(String thePath, double theTrimmedSeconds) { }
+
+    /**
+     * Creates a worker. The interpreter itself is started lazily on the first job.
+     *
+     * @param thePythonExe the venv python executable.
+     * @param theScript    the analysis script.
+     * @param theWorkDir   the working directory of the interpreter.
+     */
+    private PythonWorker(final Path thePythonExe, final Path theScript, final Path theWorkDir) {
+        myCommand = List.of(thePythonExe.toString(), theScript.toString(), "--worker");
+        myWorkDir = theWorkDir;
+    }
+
+    /**
+     * Gets the worker shared by the whole application, replacing it if the interpreter or
+     * script changed location.
+     *
+     * @param thePythonExe the venv python executable.
+     * @param theScript    the analysis script.
+     * @param theWorkDir   the working directory of the interpreter.
+     * @return the shared worker.
+     */
+    public static synchronized PythonWorker getShared(final Path thePythonExe,
+                                                      final Path theScript,
+                                                      final Path theWorkDir) {
+        final PythonWorker wanted = new PythonWorker(thePythonExe, theScript, theWorkDir);
+
+        if (SHARED == null || !SHARED.myCommand.equals(wanted.myCommand)
+                || !SHARED.myWorkDir.equals(wanted.myWorkDir)) {
+            if (SHARED != null) {
+                SHARED.shutdown();
+            }
+            SHARED = wanted;
+        }
+
+        if (!HOOK_INSTALLED) {
+            Runtime.getRuntime().addShutdownHook(new Thread(PythonWorker::shutdownShared,
+                    "PythonWorker-shutdown"));
+            HOOK_INSTALLED = true;
+        }
+
+        return SHARED;
+    }
+
+    /**
+     * Stops the shared worker if one is running.
+     */
+    public static synchronized void shutdownShared() {
+        if (SHARED != null) {
+            SHARED.shutdown();
+        }
+    }
+
+    /**
+     * Creates a worker that is not shared, e.g. one member of a {@link PythonWorkerPool}.
+     *
+     * @param thePythonExe the venv python executable.
+     * @param theScript    the analysis script.
+     * @param theWorkDir   the working directory of the interpreter.
+     * @return the new worker; the caller is responsible for shutting it down.
+     */
+    static PythonWorker create(final Path thePythonExe, final Path theScript,
+                               final Path theWorkDir) {
+        return new PythonWorker(thePythonExe, theScript, theWorkDir);
+    }
+
+    /**
+     * Analyzes an audio file on the warm interpreter.
+     *
+     * @param theAudio     the audio file.
+     * @param theListener  receives every phase, progress, warning and error event of the job on
+     *                     the calling thread.
+     * @return the job's result; the script stores nothing, the analyzed row comes back in
+     * {@link AnalysisEvent.Result#theSample()}.
+     * @throws IOException          thrown if the worker could not be started, died mid-job or
+     *                              timed out, or if the job ahead of this one kept the worker
+     *                              busy past its own deadline.
+     * @throws InterruptedException thrown if the calling thread was interrupted; the interpreter
+     *                              is killed if the job had already been sent.
+     */
+    public AnalysisEvent.Result analyze(final Audio theAudio,
+                                        final Consumer<AnalysisEvent> theListener)
+            throws IOException, InterruptedException {
+        final long timeout = AnalysisTimeouts.analysis(lengthOf(Path.of(theAudio.thePath())))
+                .toNanos();
+        awaitTurn();
+        try {
+            // A restart of the interpreter comes on top of the job itself
+            myBusyUntil = System.nanoTime() + timeout
+                    + TimeUnit.MILLISECONDS.toNanos(READY_TIMEOUT_MS + PING_TIMEOUT_MS);
+            return runJob(theAudio, theListener, timeout);
+        } finally {
+            myLock.unlock();
+        }
+    }
+
+    /**
+     * Takes {@link #myLock}. The job ahead is killed at its own deadline, so a holder still busy
+     * past it means the worker is stuck.
+     *
+     * @throws IOException          thrown if the job ahead overran its deadline.
+     * @throws InterruptedException thrown if the calling thread was interrupted.
+     */
+    private void awaitTurn() throws IOException, InterruptedException {
+        // The holder sets its deadline just after taking the lock, so a deadline is only
+        // trusted once it was seen on two polls in a row
+        boolean polled = false;
+        long seen = 0;
+        while (!myLock.tryLock(LOCK_POLL_MS, TimeUnit.MILLISECONDS)) {
+            final long busyUntil = myBusyUntil;
+            if (polled && busyUntil == seen && System.nanoTime() - busyUntil > 0) {
+                throw new IOException("The analysis worker stayed busy past its job's deadline");
+            }
+            polled = true;
+            seen = busyUntil;
+        }
+    }
+
+    /**
+     * Gets the length of the recording a job analyzes, which sizes its deadline.
+     *
+     * @param theAudio the recording.
+     * @return the length in seconds, estimated from the file size if Java Sound can not read
+     * it, or 0 if the file can not be read at all; the script reports that itself.
+     */
+    private static double lengthOf(final Path theAudio) {
+        try {
+            final double seconds = AudioNormalizer.durationOf(theAudio);
+            return Double.isNaN(seconds) ? Files.size(theAudio) / COMPRESSED_BYTES_PER_SECOND
+                    : seconds;
+        } catch (final IOException theException) {
+            LOGGER.log(Level.FINE, "[Worker] Could not read the length of " + theAudio,
+                    theException);
+            return 0;
+        }
+    }
+
+    /**
+     * Sends a job and waits for its result. The caller holds {@link #myLock}.
+     *
+     * @param theAudio     the audio file.
+     * @param theListener  receives the job's events.
+     * @param theTimeout   how long the job may take, in nanoseconds.
+     * @return the job's result.
+     * @throws IOException          thrown if the worker could not be started, died mid-job or
+     *                              timed out.
+     * @throws InterruptedException thrown if the calling thread was interrupted; the interpreter
+     *                              is killed.
+     */
+    private AnalysisEvent.Result runJob(final Audio theAudio,
+                                        final Consumer<AnalysisEvent> theListener,
+                                        final long theTimeout)
+            throws IOException, InterruptedException {
+        ensureRunning();
+        final StderrTail stderr = myStderr;
+
+        final long id = ++myLastJobId;
+        final JsonObject job = new JsonObject();
+        job.addProperty("cmd", "analyze");
+        job.addProperty("id", id);
+        job.addProperty("path", theAudio.thePath());
+        job.addProperty("trimmed_seconds", theAudio.theTrimmedSeconds());
+        job.addProperty("export_csv", Boolean.getBoolean(EXPORT_CSV_PROPERTY));
+        send(job);
+
+        final long deadline = System.nanoTime() + theTimeout;
+
+        while (true) {
+            final AnalysisEvent event;
+            try {
+                event = myMessages.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            } catch (final InterruptedException theException) {
+                LOGGER.info("[Worker] Analysis cancelled; stopping the worker.");
+                kill();
+                throw theException;
+            }
+            if (event == null) {
+                kill();
+                throw new IOException("The analysis did not finish within "
+                        + TimeUnit.NANOSECONDS.toSeconds(theTimeout) + " s");
+            }
+
+            switch (event) {
+                case AnalysisEvent.Closed closed -> throw new IOException(
+                        "The analysis worker exited during the analysis (exit " + exitCode()
+                                + ")" + stderr.describe());
+                case AnalysisEvent.Result result when result.theJobId() == id -> {
+                    return result;
+                }
+                case AnalysisEvent.Result stale ->
+                        LOGGER.fine(() -> "[Worker] Ignored stale result " + stale);
+                case AnalysisEvent.Unknown unknown ->
+                        LOGGER.warning("[Worker] Unreadable protocol line: " + unknown.theLine());
+                default -> theListener.accept(event);
+            }
+        }
+    }
+
+    /**
+     * Checks that the interpreter is alive and answering.
+     *
+     * @return true if the worker answered a ping in time; false if it did not or the calling
+     * thread was interrupted while waiting for a running job.
+     */
+    public boolean isHealthy() {
+        try {
+            myLock.lockInterruptibly();
+        } catch (final InterruptedException theException) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        try {
+            myBusyUntil = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(PING_TIMEOUT_MS);
+            return ping();
+        } finally {
+            myLock.unlock();
+        }
+    }
+
+    /**
+     * Pings the interpreter. The caller holds {@link #myLock}.
+     *
+     * @return true if the worker answered in time.
+     */
+    private boolean ping() {
+        final Process process = myProcess;
+        if (process == null || !process.isAlive()) {
+            return false;
+        }
+
+        try {
+            final long id = ++myLastJobId;
+            final JsonObject ping = new JsonObject();
+            ping.addProperty("cmd", "ping");
+            ping.addProperty("id", id);
+            send(ping);
+            return awaitReply(theEvent -> theEvent instanceof AnalysisEvent.Pong pong
+                    && pong.theJobId() == id, PING_TIMEOUT_MS);
+        } catch (final IOException theException) {
+            return false;
+        } catch (final InterruptedException theException) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Stops the interpreter, politely first and forcibly if it does not exit in time.
+     * <p>Does not take the job lock on purpose: it must be able to stop a worker that is in the
+     * middle of a job, which then fails with an IOException.</p>
+     */
+    public void shutdown() {
+        final Process process;
+        final BufferedWriter input;
+        synchronized (myProcessLock) {
+            process = myProcess;
+            input = myInput;
+            myProcess = null;
+            myInput = null;
+        }
+        if (process == null) {
+            return;
+        }
+
+        try {
+            if (process.isAlive()) {
+                final JsonObject bye = new JsonObject();
+                bye.addProperty("cmd", "shutdown");
+                send(input, bye);
+                input.close();
+                if (!process.waitFor(SHUTDOWN_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                    process.destroyForcibly();
+                }
+            }
+        } catch (final IOException theException) {
+            destroyTree(process);
+        } catch (final InterruptedException theException) {
+            destroyTree(process);
+            Thread.currentThread().interrupt();
+        }
+        // matplotlib or a pool of its own may have spawned children that outlive the parent
+        destroyTree(process);
+
+        // The interpreter was detached before it exited, so its reader stays quiet; a job still
+        // waiting on it fails now instead of at its deadline. A fresh interpreter started since
+        // has its own queue.
+        synchronized (myProcessLock) {
+            if (myProcess == null) {
+                myMessages.offer(new AnalysisEvent.Closed());
+            }
+        }
+        LOGGER.info("[Worker] Analysis worker stopped.");
+    }
+
+    /**
+     * Starts the interpreter if it is not running, or restarts it if it stopped answering. The
+     * caller holds {@link #myLock}.
+     *
+     * @throws IOException          thrown if the worker could not be started.
+     * @throws InterruptedException thrown if the calling thread was interrupted.
+     */
+    private void ensureRunning() throws IOException, InterruptedException {
+        if (myProcess != null) {
+            if (ping()) {
+                return;
+            }
+            LOGGER.warning("[Worker] Analysis worker is not responding (exit " + exitCode()
+                    + "). Restarting.");
+            kill();
+        }
+        start();
+    }
+
+    /**
+     * Launches the interpreter and waits for it to report that it is ready.
+     *
+     * @throws IOException          thrown if the process could not be started or never became
+     *                              ready.
+     * @throws InterruptedException thrown if the calling thread was interrupted.
+     */
+    private void start() throws IOException, InterruptedException {
+        final ProcessBuilder builder = new ProcessBuilder(myCommand);
+        builder.directory(myWorkDir.toFile());
+        builder.redirectErrorStream(false);
+
+        final Map<String, String> env = builder.environment();
+        env.remove("PYTHONHOME");
+        env.remove("PYTHONPATH");
+        env.put("MPLBACKEND", "Agg");
+        env.putIfAbsent("PYTHONIOENCODING", "utf-8");
+        env.put("PYTHONUNBUFFERED", "1");
+
+        LOGGER.info("[Worker] Starting analysis worker: " + String.join(" ", myCommand));
+        final Process process = builder.start();
+        final StderrTail tail = new StderrTail();
+        synchronized (myProcessLock) {
+            myMessages.clear();
+            myProcess = process;
+            myInput = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(),
+                    StandardCharsets.UTF_8));
+            myStderr = tail;
+        }
+
+        final Thread stdout = new Thread(() -> readMessages(process), "PythonWorker-stdout");
+        stdout.setDaemon(true);
+        stdout.start();
+
+        final Thread stderr = new Thread(() -> drainLog(process, tail), "PythonWorker-stderr");
+        stderr.setDaemon(true);
+        stderr.start();
+
+        if (!awaitReply(theEvent -> theEvent instanceof AnalysisEvent.Ready, READY_TIMEOUT_MS)) {
+            kill();
+            throw new IOException("The analysis worker did not start (exit " + exitCode(process)
+                    + ")" + tail.describe());
+        }
+        LOGGER.info("[Worker] Analysis worker ready (pid " + process.pid() + ").");
+    }
+
+    /**
+     * Waits for a specific reply from the worker, dropping everything else.
+     *
+     * @param theReply   matches the expected reply.
+     * @param theTimeout how long to wait in milliseconds.
+     * @return true if the reply arrived in time.
+     * @throws InterruptedException thrown if the calling thread was interrupted.
+     */
+    private boolean awaitReply(final Predicate<AnalysisEvent> theReply,
+                               final long theTimeout) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(theTimeout);
+
+        while (true) {
+            final long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            final AnalysisEvent event = myMessages.poll(remaining, TimeUnit.NANOSECONDS);
+            if (event == null || event instanceof AnalysisEvent.Closed) {
+                return false;
+            }
+            if (theReply.test(event)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Writes a single job line to the worker.
+     *
+     * @param theMessage the job.
+     * @throws IOException thrown if the worker's stdin is closed.
+     */
+    private void send(final JsonObject theMessage) throws IOException {
+        send(myInput, theMessage);
+    }
+
+    /**
+     * Writes a single job line to an interpreter's stdin.
+     *
+     * @param theInput   the stdin, null if the worker is not running.
+     * @param theMessage the job.
+     * @throws IOException thrown if the stdin is missing or closed.
+     */
+    private static void send(final BufferedWriter theInput, final JsonObject theMessage)
+            throws IOException {
+        if (theInput == null) {
+            throw new IOException("The analysis worker is not running");
+        }
+        theInput.write(theMessage.toString() + System.lineSeparator());
+        theInput.flush();
+    }
+
+    /**
+     * Reads protocol lines from the worker's stdout until it closes.
+     *
+     * @param theProcess the worker process.
+     */
+    private void readMessages(final Process theProcess) {
+        try (final BufferedReader reader = new BufferedReader(new InputStreamReader(
+                theProcess.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                myMessages.put(AnalysisEventDecoder.decode(line));
+            }
+        } catch (final IOException theException) {
+            LOGGER.log(Level.FINE, "[Worker] stdout closed", theException);
+        } catch (final InterruptedException theException) {
+            Thread.currentThread().interrupt();
+        }
+        // A killed worker has already been replaced; its end must not fail the next job
+        if (myProcess == theProcess) {
+            myMessages.offer(new AnalysisEvent.Closed());
+        }
+    }
+
+    /**
+     * Forwards everything the script prints to the application log, where import errors and
+     * tracebacks must show at the default level, and keeps the last lines for failures.
+     *
+     * @param theProcess the worker process.
+     * @param theTail    keeps the last lines.
+     */
+    private static void drainLog(final Process theProcess, final StderrTail theTail) {
+        try (final BufferedReader reader = new BufferedReader(new InputStreamReader(
+                theProcess.getErrorStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                LOGGER.warning("[Python] " + line);
+                theTail.add(line);
+            }
+        } catch (final IOException theException) {
+            LOGGER.log(Level.FINE, "[Worker] stderr closed", theException);
+        } finally {
+            theTail.close();
+        }
+    }
+
+    /**
+     * Kills the interpreter and its children without waiting for the current job. The next job
+     * starts a fresh one.
+     */
+    private void kill() {
+        final Process process;
+        synchronized (myProcessLock) {
+            process = myProcess;
+            myProcess = null;
+            myInput = null;
+        }
+        if (process != null) {
+            destroyTree(process);
+        }
+    }
+
+    /**
+     * Forcibly destroys a process and every process it started.
+     *
+     * @param theProcess the root of the tree.
+     */
+    static void destroyTree(final Process theProcess) {
+        theProcess.descendants().forEach(ProcessHandle::destroyForcibly);
+        theProcess.destroyForcibly();
+    }
+
+    /**
+     * Describes the exit code of the current process for logging.
+     *
+     * @return the exit code, or "running"/"none".
+     */
+    private String exitCode() {
+        final Process process = myProcess;
+        return process == null ? "none" : exitCode(process);
+    }
+
+    /**
+     * Describes the exit code of a process for logging.
+     *
+     * @param theProcess the process.
+     * @return the exit code, or "running".
+     */
+    private static String exitCode(final Process theProcess) {
+        return theProcess.isAlive() ? "running" : String.valueOf(theProcess.exitValue());
+    }
+
+    /**
+     * The last lines one interpreter wrote to stderr, e.g. the traceback it died with.
+     */
+    private static final class StderrTail {
+
+        /**
+         * The lines, oldest first; guarded by this.
+         */
+        private final Deque<String> myLines = new ArrayDeque<>();
+
+        /**
+         * Released once the stderr closed.
+         */
+        private final CountDownLatch myClosed = new CountDownLatch(1);
+
+        /**
+         * Keeps a line, dropping the oldest once {@link #STDERR_TAIL_LINES} are kept.
+         *
+         * @param theLine the line.
+         */
+        private synchronized void add(final String theLine) {
+            if (myLines.size() == STDERR_TAIL_LINES) {
+                myLines.removeFirst();
+            }
+            myLines.addLast(theLine);
+        }
+
+        /**
+         * Marks the stderr closed.
+         */
+        private void close() {
+            myClosed.countDown();
+        }
+
+        /**
+         * Describes the lines for an exception message, waiting briefly for those a dying
+         * interpreter is still writing.
+         *
+         * @return the lines after a line break, or an empty string if there were none.
+         * @throws InterruptedException thrown if the calling thread was interrupted.
+         */
+        private String describe() throws InterruptedException {
+            myClosed.await(STDERR_DRAIN_MS, TimeUnit.MILLISECONDS);
+            synchronized (this) {
+                return myLines.isEmpty() ? "" : System.lineSeparator() + "Python stderr:"
+                        + System.lineSeparator() + String.join(System.lineSeparator(), myLines);
+            }
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.kass.vocalanalysistool.workflow;
+
+import com.kass.vocalanalysistool.common.WorkflowResult;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * A bounded set of analysis workers that run jobs side by side.
+ *
+ * <p>Each worker is its own python interpreter, so the pool is sized to the available cores
+ * minus one (left for the UI and the other workers' I/O). Interpreters are started lazily, the
+ * first time every slot is needed, and stopped again by {@link #close()}. Each job also prepares
+ * its own recording (trimming, resampling) on the pool's thread, so the preparation of a batch
+ * runs in parallel too. Jobs never persist on the python side; the caller gets the rows back
+ * and stores the whole batch itself.</p>
+ *
+ * @author Kassie Whitney
+ * @version 1/8/2026
+ */
+public final class PythonWorkerPool implements AutoCloseable {
+
+    /**
+     * Logger for verbose data.
+     */
+    private static final Logger LOGGER = Logger.getLogger(PythonWorkerPool.class.getName());
+
+    /**
+     * Workers that are not running a job.
+     */
+    private final BlockingQueue<PythonWorker> myIdle = new LinkedBlockingQueue<>();
+
+    /**
+     * Every worker created by this pool.
+     */
+    private final List<PythonWorker> myWorkers = new ArrayList<>();
+
+    /**
+     * Runs one job per worker at a time.
+     */
+    private final ExecutorService myExecutor;
+
+    /**
+     * The number of workers.
+     */
+    private final int mySize;
+
+    /**
+     * Turns a recording into the file a worker analyzes, e.g. a trimmed copy.
+     */
+    @FunctionalInterface
+    public interface Preparation {
+
+        /**
+         * Prepares a recording.
+         *
+         * @param theAudioPath the recording.
+         * @return the file to analyze, or null if the recording has nothing to analyze.
+         * @throws IOException          thrown if the recording can not be prepared.
+         * @throws InterruptedException thrown if the job was cancelled.
+         */
+        PythonWorker.Audio prepare(String theAudioPath) throws IOException, InterruptedException;
+    }
+
+    /**
+     * Creates a pool. No interpreter is started until the first job.
+     *
+     * @param thePythonExe the venv python executable.
+     * @param theScript    the analysis script.
+     * @param theWorkDir   the working directory of the interpreters.
+     * @param theSize      the number of workers.
+     */
+    public PythonWorkerPool(final Path thePythonExe, final Path theScript, final Path theWorkDir,
+                            final int theSize) {
+        if (theSize < 1) {
+            throw new IllegalArgumentException("The pool needs at least one worker");
+        }
+        mySize = theSize;
+
+        for (int i = 0; i < theSize; i++) {
+            final PythonWorker worker = PythonWorker.create(thePythonExe, theScript, theWorkDir);
+            myWorkers.add(worker);
+            myIdle.add(worker);
+        }
+
+        final AtomicInteger threadCount = new AtomicInteger();
+        myExecutor = Executors.newFixedThreadPool(theSize, theRunnable -> {
+            final Thread thread = new Thread(theRunnable,
+                    "PythonWorkerPool-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Gets the default pool size: one worker per core, keeping one core free.
+     *
+     * @return the default number of workers.
+     */
+    public static int defaultSize() {
+        return Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    }
+
+    /**
+     * Gets the number of workers.
+     *
+     * @return the pool size.
+     */
+    public int size() {
+        return mySize;
+    }
+
+    /**
+     * Queues every file for analysis. Results can be taken from the returned completion service
+     * in the order they finish.
+     *
+     * @param theAudioPaths  the audio files.
+     * @param thePreparation prepares each file on the pool's thread before it is analyzed.
+     * @param theRelease     receives each prepared file once its analysis ended.
+     * @param theListener    receives the warning and error events of every job, on the pool's
+     *                       threads.
+     * @return the completion service delivering one result per file; a file with nothing to
+     * analyze yields an INVALID result.
+     */
+    public CompletionService<AnalysisEvent.Result> submitAll(
+            final List<String> theAudioPaths, final Preparation thePreparation,
+            final Consumer<String> theRelease, final Consumer<AnalysisEvent> theListener) {
+        final CompletionService<AnalysisEvent.Result> completion =
+                new ExecutorCompletionService<>(myExecutor);
+        for (final String path : theAudioPaths) {
+            completion.submit(job(path, thePreparation, theRelease, theListener));
+        }
+        return completion;
+    }
+
+    /**
+     * Builds a job that prepares a single file and borrows an idle worker to analyze it.
+     *
+     * @param theAudioPath   the audio file.
+     * @param thePreparation prepares the file.
+     * @param theRelease     receives the prepared file at the end of the job.
+     * @param theListener    receives the job's events.
+     * @return the job.
+     */
+    private Callable<AnalysisEvent.Result> job(final String theAudioPath,
+                                               final Preparation thePreparation,
+                                               final Consumer<String> theRelease,
+                                               final Consumer<AnalysisEvent> theListener) {
+        return () -> {
+            final PythonWorker.Audio prepared = thePreparation.prepare(theAudioPath);
+            if (prepared == null) {
+                return new AnalysisEvent.Result(-1, WorkflowResult.INVALID, Map.of(), null);
+            }
+            try {
+                final PythonWorker worker = myIdle.take();
+                try {
+                    return worker.analyze(prepared, theListener);
+                } catch (final IOException theException) {
+                    throw new IOException("Analysis of " + theAudioPath + " failed",
+                            theException);
+                } finally {
+                    myIdle.add(worker);
+                }
+            } finally {
+                theRelease.accept(prepared.thePath());
+            }
+        };
+    }
+
+    /**
+     * Cancels the queued jobs and stops every interpreter.
+     */
+    @Override
+    public void close() {
+        myExecutor.shutdownNow();
+        for (final PythonWorker worker : myWorkers) {
+            worker.shutdown();
+        }
+        LOGGER.info("[Pool] Stopped " + mySize + " analysis workers.");
+    }
+}
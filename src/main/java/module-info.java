@@ -17,6 +17,9 @@ module com.kass.vocalanalysistool {
     exports com.kass.vocalanalysistool.view;
     exports com.kass.vocalanalysistool.controller;
     exports com.kass.vocalanalysistool.workflow;
+    exports com.kass.vocalanalysistool.common;
+    exports com.kass.vocalanalysistool.model;
+    exports com.kass.vocalanalysistool.model.audio;
     opens com.kass.vocalanalysistool.controller to javafx.fxml;
     exports com.kass.vocalanalysistool.view.util;
     opens com.kass.vocalanalysistool.view.util to javafx.fxml;
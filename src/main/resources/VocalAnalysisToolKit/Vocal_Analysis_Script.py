@@ -1,180 +1,296 @@
+import base64
 import io
 import json
 import math
+import os
+import struct
 import sys
+import time
+import traceback
+import zlib
+from contextlib import contextmanager
+from functools import cached_property
 from pathlib import Path
 from sqlite3 import Binary
 from typing import Optional
 import matplotlib
 import pandas as pd
-import joblib
 
 matplotlib.use("Agg")
 import matplotlib.pyplot as plt
 import numpy as np
 import parselmouth
+from parselmouth.praat import call
 import sqlite3
-from pathlib import Path
 
 FILE_PATH = None
-PREVIOUS_TIME: Optional[float] = None
-PREVIOUS_FREQ_F0: Optional[float] = None
-PREVIOUS_FREQ_F1: Optional[float] = None
-PREVIOUS_FREQ_F2: Optional[float] = None
-PREVIOUS_FREQ_F3: Optional[float] = None
-PREVIOUS_FREQ_F4: Optional[float] = None
 UNVOICE_DB = -200.0
+MODEL_PATH = "gender_model.joblib"
+
+# Loaded once per interpreter by the one-shot script; the worker never predicts.
+_MODEL_BLOB: Optional[dict] = None
+
+# Protocol channel used in worker mode (stdout is rerouted to stderr there).
+_PROTOCOL_OUT = None
+
+# Analysis phases: (share of the total work, label shown on the loading screen).
+PHASES = {
+    "load": (0.05, "Loading recording..."),
+    "formant": (0.25, "Tracking formants..."),
+    "pitch": (0.10, "Tracking pitch..."),
+    "frames": (0.20, "Sampling frames..."),
+    "filter": (0.03, "Filtering frames..."),
+    "features": (0.20, "Measuring intonation and breathiness..."),
+    "plot": (0.10, "Drawing formant chart..."),
+    "predict": (0.02, "Predicting gender perception..."),
+    "persist": (0.05, "Saving results..."),
+}
 
+# Per-analysis progress bookkeeping, reset at the start of every job.
+_PROGRESS_DONE = 0.0
+_PHASE_TIMINGS: dict = {}
 
-def _reset_track_state():
+# The row of the last analysis that was not persisted (batch mode lets Java write it instead).
+_PENDING_SAMPLE: Optional[dict] = None
+
+
+def _emit(message: dict) -> None:
     """
-    Resets the global variables to default state.
+    Writes a single protocol message (one JSON object per line) to the worker's output channel.
+    Does nothing when the script runs as a one-shot command.
 
+    :param message: The message to send to the Java side.
     """
-    global PREVIOUS_TIME, PREVIOUS_FREQ_F0, PREVIOUS_FREQ_F1, PREVIOUS_FREQ_F2, PREVIOUS_FREQ_F3, PREVIOUS_FREQ_F4
-    PREVIOUS_TIME = None
-    PREVIOUS_FREQ_F0 = PREVIOUS_FREQ_F1 = PREVIOUS_FREQ_F2 = PREVIOUS_FREQ_F3 = PREVIOUS_FREQ_F4 = None
+    if _PROTOCOL_OUT is None:
+        return
+    _PROTOCOL_OUT.write(json.dumps(message) + "\n")
+    _PROTOCOL_OUT.flush()
 
 
-# list[[time_0, f0_0, f1_0, f2_0, f3_0, f4_0], [time_1, f0_1, f1_1, f2_1, f3_1, f4_1]]
-def filter_frequency_synchronized_patch(data: list[list[float]]) -> list[list[float]]:
+def _progress(fraction: float, message: Optional[str] = None) -> None:
     """
-    Filters anomalous frequency data and unvoiced segments.
+    Reports the overall analysis progress.
 
-    :param data: A matrix of raw vocal frequency data.
-    :return: A matrix of filtered vocal frequency data.
+    :param fraction: Completed share of the analysis, 0 to 1.
+    :param message: What the analysis is doing right now.
     """
-    global PREVIOUS_FREQ_F0, PREVIOUS_FREQ_F1, PREVIOUS_FREQ_F2, PREVIOUS_FREQ_F3, PREVIOUS_FREQ_F4, PREVIOUS_TIME
-    post_filter = []
-    for i in range(len(data)):
-        sub_data = data[i]
-        time = sub_data[0]  # type: float
-        f0 = sub_data[1]  # type: float
-        f1 = sub_data[2]  # type: float
-        f2 = sub_data[3]  # type: float
-        f3 = sub_data[4]  # type: float
-        f4 = sub_data[5]  # type: float
-
-        # Initialize the previous frequencies
-        if PREVIOUS_TIME is None:
-            PREVIOUS_FREQ_F0 = f0
-            PREVIOUS_FREQ_F1 = f1
-            PREVIOUS_FREQ_F2 = f2
-            PREVIOUS_FREQ_F3 = f3
-            PREVIOUS_FREQ_F4 = f4
-
-        # Skips if the pitch is zero
-        if f0 is None or f0 <= 0:
-            continue
+    _emit({"type": "progress", "fraction": round(min(1.0, max(0.0, fraction)), 4), "message": message})
 
-        f0_ok = _filter_helper("f0", f0, time)
-        f1_ok = _filter_helper("f1", f1, time)
-        f2_ok = _filter_helper("f2", f2, time)
-        f3_ok = _filter_helper("f3", f3, time)
-        f4_ok = _filter_helper("f4", f4, time)
 
-        low_ok_count = int(f1_ok) + int(f2_ok) + int(f3_ok) + int(f4_ok)
+def _reset_progress() -> None:
+    """
+    Resets the progress bookkeeping before a new analysis.
+    """
+    global _PROGRESS_DONE, _PHASE_TIMINGS
+    _PROGRESS_DONE = 0.0
+    _PHASE_TIMINGS = {}
 
-        valid = f0_ok and low_ok_count > 2
 
-        if valid:
-            post_filter.append([time, f0, f1, f2, f3, f4])
-            PREVIOUS_FREQ_F0 = f0
-            PREVIOUS_FREQ_F1 = f1
-            PREVIOUS_FREQ_F2 = f2
-            PREVIOUS_FREQ_F3 = f3
-            PREVIOUS_FREQ_F4 = f4
-            PREVIOUS_TIME = time
+@contextmanager
+def _phase(name: str):
+    """
+    Brackets an analysis phase with start/end events, records its wall-clock time and advances
+    the progress fraction by the phase's share once it completes.
 
-    return post_filter
+    :param name: The phase name (a key of PHASES).
+    """
+    global _PROGRESS_DONE
+    weight, label = PHASES[name]
+    _emit({"type": "phase", "phase": name, "state": "start"})
+    _progress(_PROGRESS_DONE, label)
+    start = time.perf_counter()
+    try:
+        yield
+    finally:
+        elapsed = round((time.perf_counter() - start) * 1000.0, 2)
+        _PHASE_TIMINGS[name] = elapsed
+        _emit({"type": "phase", "phase": name, "state": "end", "elapsed_ms": elapsed})
+    _PROGRESS_DONE += weight
+    _progress(_PROGRESS_DONE, label)
 
 
-def _filter_helper(formant: str, frequency: float, time: Optional[float] = None):
+# Frame grid of the pitch and formant tracks, in seconds.
+FRAME_STEP = 0.01
+
+# Plausible range (exclusive, Hz) and largest jump from the last accepted frame (semitones) for F0..F4.
+TRACK_LOW_HZ = np.array([75.0, 250.0, 700.0, 1500.0, 2700.0])
+TRACK_HIGH_HZ = np.array([600.0, 950.0, 3300.0, 3700.0, 5000.0])
+TRACK_MAX_JUMP_ST = np.array([4.0, 5.0, 7.0, 8.0, 9.0])
+
+# Frames closer than this to the last accepted frame are dropped.
+MIN_FRAME_SPACING_S = 0.02
+
+# F0 may not move faster than 2 octaves per second.
+MAX_F0_RATE_ST_PER_S = 24.0
+
+# Pitch search range shared by frame extraction and the intonation statistics.
+PITCH_FLOOR_HZ = 75.0
+PITCH_CEILING_HZ = 600.0
+
+
+class AnalysisContext:
     """
-    Helper function that determines if a frequency is within the bounds of the formant.
+    One recording and the Praat objects derived from it.
 
-    :param formant: The formant the frequency is being checked against.
-    :param frequency: The frequency that's being checked.
-    :param time: The time that corresponds to the frequency.
-    :return: True if frequency is within the bounds of the formant.
-    False otherwise.
+    Each object is computed on first use and then shared by frame extraction, the intonation
+    statistics and the breathiness measures, so no analysis runs to_pitch or the formant and
+    harmonicity trackers more than once.
     """
-    global PREVIOUS_FREQ_F0, PREVIOUS_FREQ_F1, PREVIOUS_FREQ_F2, PREVIOUS_FREQ_F3, PREVIOUS_FREQ_F4, PREVIOUS_TIME
 
-    # invalid current value
-    if frequency is None or frequency <= 0:
-        return False
+    def __init__(self, sound: parselmouth.Sound, time_step: float = FRAME_STEP,
+                 pitch_floor: float = PITCH_FLOOR_HZ, pitch_ceiling: float = PITCH_CEILING_HZ,
+                 trimmed_seconds: float = 0.0):
+        """
+        :param sound: The users vocal sample.
+        :param time_step: The frame step of every track, in seconds.
+        :param pitch_floor: Lowest pitch searched, in Hz.
+        :param pitch_ceiling: Highest pitch searched, in Hz.
+        :param trimmed_seconds: Silence the app cut from the ends of the take before handing it over.
+        """
+        self.sound = sound
+        self.time_step = time_step
+        self.pitch_floor = pitch_floor
+        self.pitch_ceiling = pitch_ceiling
+        self.trimmed_seconds = trimmed_seconds
+
+    @classmethod
+    def load(cls, file_path: str, trimmed_seconds: float = 0.0) -> "AnalysisContext":
+        """
+        Reads a recording.
+        :param file_path: The audio file.
+        :param trimmed_seconds: Silence cut from the ends of the take.
+        :return: Its analysis context.
+        """
+        return cls(parselmouth.Sound(file_path), trimmed_seconds=trimmed_seconds)
+
+    @property
+    def trimmed_frames(self) -> int:
+        """
+        The frames the cut silence would have added to every track, all of them unvoiced. The
+        voiced fractions count them, so a trimmed take scores like the untrimmed one.
+        """
+        return int(round(self.trimmed_seconds / self.time_step))
+
+    @cached_property
+    def pitch(self) -> parselmouth.Pitch:
+        return self.sound.to_pitch(time_step=self.time_step, pitch_floor=self.pitch_floor,
+                                   pitch_ceiling=self.pitch_ceiling)
+
+    @cached_property
+    def formant(self) -> parselmouth.Formant:
+        return self.sound.to_formant_burg(time_step=self.time_step)
+
+    @cached_property
+    def harmonicity(self) -> parselmouth.Harmonicity:
+        return self.sound.to_harmonicity_cc(time_step=self.time_step, minimum_pitch=self.pitch_floor,
+                                            periods_per_window=1.0)
+
+
+def _sample_track(track, values: np.ndarray, times: np.ndarray) -> np.ndarray:
+    """
+    Samples a Praat track on a time grid in one pass. Mirrors Sampled_getValueAtX, the routine
+    behind get_value_at_time: linear interpolation towards the far neighbour, the near value when
+    the far one is undefined or past the edge, undefined when the near one is.
+
+    :param track: The Pitch or Formant the values belong to (supplies x1, dx and nx).
+    :param values: One value per frame; values <= 0 are undefined.
+    :param times: The grid to sample at.
+    :return: The sampled values, NaN where undefined.
+    """
+    values = np.where(values > 0, values, np.nan)
+    index = (times - track.x1) / track.dx
+    left = np.floor(index).astype(int)
+    phase = index - left
 
-    # optional spacing gate (ignore frames closer than 20 ms to the previous)
-    if (time is not None and PREVIOUS_TIME is not None and
-            time > PREVIOUS_TIME and
-            abs(time - PREVIOUS_TIME) <= 0.02):
-        return False
+    near_is_left = phase < 0.5
+    near = np.where(near_is_left, left, left + 1)
+    far = np.where(near_is_left, left + 1, left)
+    phase = np.where(near_is_left, phase, 1.0 - phase)
 
-    form = formant.casefold()
+    near_ok = (near >= 0) & (near < track.nx)
+    far_ok = (far >= 0) & (far < track.nx)
+    f_near = np.where(near_ok, values[np.clip(near, 0, track.nx - 1)], np.nan)
+    f_far = np.where(far_ok, values[np.clip(far, 0, track.nx - 1)], np.nan)
 
-    # thresholds (continuity) in semitones and plausibility ranges in Hz
-    # tune if needed
-    ranges = {
-        "f0": (None, 75.0, 600.0),  # (th set below), hard range gate for pitch
-        "f1": (5.0, 250.0, 950.0),
-        "f2": (7.0, 700.0, 3300.0),
-        "f3": (8.0, 1500.0, 3700.0),
-        "f4": (9.0, 2700.0, 5000.0),
-    }
+    return np.where(np.isnan(f_far), f_near, f_near + phase * (f_far - f_near))
 
-    if form not in ranges:
-        return False
 
-    fth, lo, hi = ranges[form]
+def extract_frames(context: AnalysisContext) -> np.ndarray:
+    """
+    Samples F0..F4 every 10 ms with one call per track instead of five lookups per frame.
+
+    :param context: The recording being analyzed.
+    :return: A (frames, 6) matrix of [time, f0, f1, f2, f3, f4]; frames where any track is
+    undefined are dropped.
+    """
+    pitch = context.pitch
+    formant = context.formant
+    times = np.arange(0, context.sound.get_total_duration(), context.time_step)
 
-    # select previous value
-    if form == "f0":
-        prev_freq = PREVIOUS_FREQ_F0
-        # hard range gate for pitch
-        if frequency <= lo or frequency >= hi:
-            return False
+    columns = [times, _sample_track(pitch, pitch.selected_array["frequency"], times)]
+    for number in range(1, 5):
+        # Formant_to_Matrix stores 0 where a frame has fewer formants
+        values = call(formant, "To Matrix", number).values[0]
+        columns.append(_sample_track(formant, values, times))
 
-        # if we have a valid previous, enforce jump rate and continuity
-        if prev_freq is not None and float(prev_freq) > 0:
-            # jump-size in semitones
-            st = 12.0 * abs(math.log2(frequency / float(prev_freq)))
+    frames = np.column_stack(columns)
+    frames = frames[~np.isnan(frames).any(axis=1)]
+    frames[:, 0] = np.round(frames[:, 0], 2)
+    frames[:, 1:] = np.round(frames[:, 1:], 5)
+    return frames
 
-            # jump-rate gate: >= 2 octaves in < 1s -> > 24 st/s
-            if time is not None and PREVIOUS_TIME is not None and time > PREVIOUS_TIME:
-                dt = time - PREVIOUS_TIME
-                if dt > 0 and (st / dt) > 24.0:
-                    return False
 
-            # continuity gate for F0 (tunable; default 4 st)
-            if st > 4.0:
-                return False
+# rows of [time, f0, f1, f2, f3, f4]
+def filter_frequency_synchronized_patch(data) -> np.ndarray:
+    """
+    Filters anomalous frequency data and unvoiced segments.
 
-        # if no previous, accept current (caller should update PREVIOUS_* and PREVIOUS_TIME on accept)
-        return True
+    A frame is kept when its pitch is plausible and continuous with the last kept frame, and at
+    least three of F1..F4 are. The range gates and semitone values are computed for all frames
+    at once; continuity depends on the last kept frame, so that part is a single scan over the
+    precomputed values. Nothing is kept between calls.
 
-    else:
-        # formants F1...F4: plausibility gate first
-        if frequency <= lo or frequency >= hi:
-            return False
+    :param data: A matrix of raw vocal frequency data.
+    :return: A matrix of filtered vocal frequency data.
+    """
+    frames = np.asarray(data, dtype=float).reshape(-1, 6)
+    freqs = frames[:, 1:]
+
+    with np.errstate(invalid="ignore", divide="ignore"):
+        in_range = (freqs > TRACK_LOW_HZ) & (freqs < TRACK_HIGH_HZ)
+        semitones = 12.0 * np.log2(np.where(freqs > 0, freqs, np.nan))
 
-        # pick previous for this track
-        if form == "f1":
-            prev_freq = PREVIOUS_FREQ_F1
-        elif form == "f2":
-            prev_freq = PREVIOUS_FREQ_F2
-        elif form == "f3":
-            prev_freq = PREVIOUS_FREQ_F3
-        else:  # f4
-            prev_freq = PREVIOUS_FREQ_F4
+    # Frames that fail on range alone can never be kept
+    candidates = np.flatnonzero(in_range[:, 0] & (in_range[:, 1:].sum(axis=1) > 2))
 
-        # no previous -> accept
-        if prev_freq is None or float(prev_freq) <= 0:
-            return True
+    times = frames[:, 0].tolist()
+    st = semitones.tolist()
+    ok = in_range.tolist()
+    max_jump = TRACK_MAX_JUMP_ST.tolist()
 
-        # continuity in semitones
-        st = 12.0 * abs(math.log2(frequency / float(prev_freq)))
-        return st <= fth
+    keep = []
+    prev = -1
+    for i in candidates.tolist():
+        if prev >= 0:
+            dt = times[i] - times[prev]
+            if 0 < dt <= MIN_FRAME_SPACING_S:
+                continue
+
+            jump = abs(st[i][0] - st[prev][0])
+            if jump > max_jump[0] or (dt > 0 and jump / dt > MAX_F0_RATE_ST_PER_S):
+                continue
+
+            continuous = 0
+            for k in range(1, 5):
+                if ok[i][k] and (math.isnan(st[prev][k]) or abs(st[i][k] - st[prev][k]) <= max_jump[k]):
+                    continuous += 1
+            if continuous <= 2:
+                continue
+
+        keep.append(i)
+        prev = i
+
+    return frames[keep]
 
 
 def get_freq_medians(freq_data: list[float]) -> float:
@@ -260,22 +376,15 @@ def _pitch_stats(f0_hz: list[float], t_s: list[float], floor=75.0, ceil=600.0):
     }
 
 
-def extract_breathiness_and_intonation(
-        sound: parselmouth.Sound,
-        *,
-        time_step: float = 10,
-        pitch_floor: float = 75.0,
-        pitch_ceiling: float = 600) -> dict:
+def extract_breathiness_and_intonation(context: AnalysisContext) -> dict:
     """
     Extracts the breathiness and intonation from the raw vocal sample.
-    :param sound: Raw vocal sample.
-    :param time_step: The number of steps in Ms. Default is 10 ms
-    :param pitch_floor:
-    :param pitch_ceiling:
+    :param context: The recording being analyzed; its pitch track is the one frame extraction used.
     :return:
     """
-    time_step = time_step / 1000
-    pitch = sound.to_pitch(time_step=time_step, pitch_floor=pitch_floor, pitch_ceiling=pitch_ceiling)
+    pitch_floor = context.pitch_floor
+    pitch_ceiling = context.pitch_ceiling
+    pitch = context.pitch
     f0 = pitch.selected_array['frequency']
     times = pitch.xs()
 
@@ -285,7 +394,7 @@ def extract_breathiness_and_intonation(
     t_v = times[voiced_mask]
 
     voiced_frames = int(f0_v.size)
-    total_frames = int(f0.size)
+    total_frames = int(f0.size) + context.trimmed_frames
     voiced_ratio = (voiced_frames / total_frames) if total_frames else np.nan
 
     stats = _pitch_stats(f0_v, t_v, floor=pitch_floor, ceil=pitch_ceiling)
@@ -310,9 +419,9 @@ def extract_breathiness_and_intonation(
         )
 
     # ---- Breathiness block ----
-    harm = sound.to_harmonicity_cc(time_step=time_step, minimum_pitch=pitch_floor, periods_per_window=1.0)
+    harm = context.harmonicity
     hnr_raw = harm.values.ravel()  # includes UNVOICE_DB for unvoiced
-    hnr_total = int(hnr_raw.size)
+    hnr_total = int(hnr_raw.size) + context.trimmed_frames
     hnr_voiced_mask = (hnr_raw != UNVOICE_DB) & np.isfinite(hnr_raw)
     hnr_voiced_frames = int(np.sum(hnr_voiced_mask))
     hnr_voiced_fraction = (hnr_voiced_frames / hnr_total) if hnr_total else np.nan
@@ -410,13 +519,13 @@ def flatten_features(breathiness: dict, intonation: dict) -> dict:
 
 
 # ---- 3) end-to-end: turn one audio file -> one feature row ----
-def feature_for_file(sound: parselmouth.Sound,
+def feature_for_file(context: AnalysisContext,
                      data_rows: list[list[float]],
                      file_id: str) -> dict:
     """
     Generates a feature list, used for generating the CSV file to run through the ML algo.
 
-    :param sound: The users vocal sample
+    :param context: The recording being analyzed
     :param data_rows: The post filtered matrix of frequency derived from the sound object
     :param file_id: Unique id for identifying the sample feature list
     :return: A dictionary of the feature list.
@@ -424,7 +533,7 @@ def feature_for_file(sound: parselmouth.Sound,
     formant_feats = summarize_formants(data_rows)
 
     # intonation and breathiness index
-    ibi = extract_breathiness_and_intonation(sound)
+    ibi = extract_breathiness_and_intonation(context)
 
     # flatten and merge
     flat_ib = flatten_features(ibi["breathiness"], ibi["intonation"])
@@ -438,7 +547,7 @@ def feature_for_file(sound: parselmouth.Sound,
     return row
 
 
-def _feature_for_file(sound: parselmouth.Sound,
+def _feature_for_file(context: AnalysisContext,
                       data_rows: list[list[float]],
                       file_id: str,
                       label) -> dict:
@@ -446,7 +555,7 @@ def _feature_for_file(sound: parselmouth.Sound,
     [Used for training]\n
     Generates a feature list, used for generating the CSV file to run through the ML algo.
 
-    :param sound: The users vocal sample
+    :param context: The recording being analyzed
     :param data_rows: The post filtered matrix of frequency derived from the sound object
     :param file_id: Unique id for identifying the sample feature list
     :param label: Labels the dependent variable.
@@ -456,7 +565,7 @@ def _feature_for_file(sound: parselmouth.Sound,
     formant_feats = summarize_formants(data_rows)
 
     # intonation and breathiness index
-    ibi = extract_breathiness_and_intonation(sound)
+    ibi = extract_breathiness_and_intonation(context)
 
     # flatten and merge
     flat_ib = flatten_features(ibi["breathiness"], ibi["intonation"])
@@ -537,19 +646,144 @@ def connect_table():
                                                                               'ANDRO_FEMME', 'ANDRO', 'FEMME_FALSETTO',
                                                                               'MASC_FALSETTO', 'ANDRO_FALSETTO')
                            ),
-                       gender_score     REAL NOT NULL CHECK (gender_score >= 0 AND gender_score <= 1)
+                       gender_score     REAL NOT NULL CHECK (gender_score >= 0 AND gender_score <= 1),
+                       features_json    TEXT CHECK (features_json IS NULL OR json_valid(features_json)),
+                       time_track       BLOB,
+                       f0_track         BLOB,
+                       f1_track         BLOB,
+                       f2_track         BLOB,
+                       source_id        INTEGER
                    )
 
 
                    """)
+
+    # Databases created before features, track blobs or reused rows were stored lack the columns
+    columns = {row[1] for row in cursor.execute("PRAGMA table_info(user_formants)")}
+    if "features_json" not in columns:
+        cursor.execute("ALTER TABLE user_formants ADD COLUMN features_json TEXT")
+    for track in ("time_track", "f0_track", "f1_track", "f2_track"):
+        if track not in columns:
+            cursor.execute(f"ALTER TABLE user_formants ADD COLUMN {track} BLOB")
+    if "source_id" not in columns:
+        cursor.execute("ALTER TABLE user_formants ADD COLUMN source_id INTEGER")
+
     conn.commit()
     conn.close()
 
 
+# Track blob format, shared with the Java TrackCodec: a 12-byte header (version, encoding,
+# flags, reserved, value count, fixed point scale) and the payload, deflated when that helps.
+_TRACK_HEADER = struct.Struct("<BBBBii")
+_TRACK_VERSION = 1
+_TRACK_FLOAT32 = 0
+_TRACK_DELTA_FIXED = 1
+_TRACK_DEFLATED = 1
+_TRACK_SCALE = 100
+_TRACK_MIN_DEFLATE_BYTES = 64
+_TRACK_MAX_FIXED = float(1 << 52)
+
+
+def encode_track(values) -> bytes:
+    """
+    Encodes a per-frame track as a blob. Values are stored as zigzag varint deltas of their
+    0.01 fixed point form, or as float32 if the track holds NaN or huge values.
+
+    :param values: The track.
+    :return: The encoded track.
+    """
+    values = [float(v) for v in values]
+    fixed = all(abs(v * _TRACK_SCALE) < _TRACK_MAX_FIXED for v in values)
+    if fixed:
+        out = bytearray()
+        previous = 0
+        for v in values:
+            # floor(x + 0.5) rounds like Java's Math.round
+            q = math.floor(v * _TRACK_SCALE + 0.5)
+            delta = q - previous
+            previous = q
+            zigzag = (delta << 1) ^ (delta >> 63)
+            while zigzag > 0x7F:
+                out.append((zigzag & 0x7F) | 0x80)
+                zigzag >>= 7
+            out.append(zigzag)
+        payload = bytes(out)
+    else:
+        payload = np.asarray(values, dtype="<f4").tobytes()
+
+    flags = 0
+    if len(payload) >= _TRACK_MIN_DEFLATE_BYTES:
+        deflated = zlib.compress(payload, 9)
+        if len(deflated) < len(payload):
+            payload = deflated
+            flags = _TRACK_DEFLATED
+
+    encoding = _TRACK_DELTA_FIXED if fixed else _TRACK_FLOAT32
+    header = _TRACK_HEADER.pack(_TRACK_VERSION, encoding, flags, 0, len(values),
+                                _TRACK_SCALE if fixed else 0)
+    return header + payload
+
+
+def decode_track(blob: bytes) -> list[float]:
+    """
+    Decodes a track written by encode_track or by the Java TrackCodec.
+
+    :param blob: The encoded track.
+    :return: The track.
+    """
+    if blob is None or len(blob) < _TRACK_HEADER.size:
+        raise ValueError("Not an encoded track")
+    version, encoding, flags, _, count, scale = _TRACK_HEADER.unpack_from(blob)
+    if version != _TRACK_VERSION:
+        raise ValueError(f"Unknown track format {version}")
+    payload = bytes(blob[_TRACK_HEADER.size:])
+    if flags & _TRACK_DEFLATED:
+        payload = zlib.decompress(payload)
+
+    if encoding == _TRACK_FLOAT32:
+        if len(payload) != 4 * count:
+            raise ValueError("Corrupt track")
+        return np.frombuffer(payload, dtype="<f4").astype(float).tolist()
+    if encoding != _TRACK_DELTA_FIXED or scale <= 0:
+        raise ValueError(f"Unknown track encoding {encoding}")
+
+    values = []
+    previous = 0
+    zigzag = 0
+    shift = 0
+    for b in payload:
+        zigzag |= (b & 0x7F) << shift
+        shift += 7
+        if not b & 0x80:
+            previous += (zigzag >> 1) ^ -(zigzag & 1)
+            values.append(previous / scale)
+            zigzag = 0
+            shift = 0
+    if len(values) != count or shift:
+        raise ValueError("Corrupt track")
+    return values
+
+
+def _features_json(features: Optional[dict]) -> Optional[str]:
+    """
+    Serializes a feature row for storage, so the Java side can re-score it later without python.
+
+    :param features: The feature row from feature_for_file.
+    :return: The numeric features as JSON (NaN as null), or None.
+    """
+    if features is None:
+        return None
+    clean = {}
+    for key, value in features.items():
+        if isinstance(value, (int, float)) and not isinstance(value, bool):
+            clean[key] = float(value) if math.isfinite(value) else None
+    return json.dumps(clean)
+
+
 def insert_to_table(time_: list[float], f0_: list[float], f1_: list[float], f1_med: float, f2_: list[float],
                     f2_med: float, f3_med: float, f4_med: float, formant_med: list[float], png_bytes: bytes,
                     gender_label: str,
-                    gender_score: float) -> None:
+                    gender_score: float, features: Optional[dict] = None) -> None:
     """
     Inserts the formant data (filtered and average) into the SQL database and generates a plot.
     Each element of formant corresponds to the time stamp in the list of time sequence.
@@ -570,15 +804,12 @@ def insert_to_table(time_: list[float], f0_: list[float], f1_: list[float], f1_m
     :param png_bytes: The scatter plot
     :param gender_label:
     :param gender_score:
+    :param features: The feature row the prediction was made from
     :return: None
     """
 
     payload = (
-        json.dumps(list(map(float, time_))),
-        json.dumps(list(map(float, f0_))),
-        json.dumps(list(map(float, f1_))),
         float(f1_med) if f1_med is not None else None,
-        json.dumps(list(map(float, f2_))),
         float(f2_med) if f2_med is not None else None,
         float(f3_med) if f3_med is not None else None,
         float(f4_med) if f4_med is not None else None,
@@ -586,15 +817,22 @@ def insert_to_table(time_: list[float], f0_: list[float], f1_: list[float], f1_m
         Binary(png_bytes),
         gender_label,
         float(gender_score) if gender_score is not None else None,
+        _features_json(features),
+        Binary(encode_track(time_)),
+        Binary(encode_track(f0_)),
+        Binary(encode_track(f1_)),
+        Binary(encode_track(f2_)),
     )
 
+    # The tracks go to their blobs; the NOT NULL JSON track columns keep an empty array
     conn = sqlite3.connect("Vocal_Analysis.db")
     cur = conn.cursor()
     cur.execute("""
                 INSERT INTO user_formants(time_json, f0_json, f1_json, f1_med, f2_json, f2_med, f3_med, f4_med,
                                           formant_med_json,
-                                          scatter_plot, gender_label, gender_score)
-                VALUES (json(?), json(?), json(?), ?, json(?), ?, ?, ?, json(?), ?, ?, ?)
+                                          scatter_plot, gender_label, gender_score, features_json,
+                                          time_track, f0_track, f1_track, f2_track)
+                VALUES ('[]', '[]', '[]', ?, '[]', ?, ?, ?, json(?), ?, ?, ?, ?, ?, ?, ?, ?)
                 """, payload)
     conn.commit()
     conn.close()
@@ -602,25 +840,22 @@ def insert_to_table(time_: list[float], f0_: list[float], f1_: list[float], f1_m
 
 def _create_csv(row: dict) -> None:
     """
-    Exports the feature list to a CSV file.
+    Exports the feature list to a CSV file. Only done on request; prediction never reads it back.
+
+    The file is written next to itself and renamed into place, so concurrent exports never leave
+    a torn file behind.
     :param row: The feature list.
     :return: None
     """
     df = pd.DataFrame([row])
-    base_dir = Path.home() / "VocalAnalysisTool"
-
 
-    # 1) User home app folder
     home_csv = Path.home() / "VocalAnalysisTool" / "user_features.csv"
     home_csv.parent.mkdir(parents=True, exist_ok=True)
-    df.to_csv(home_csv, mode="w", header=True, index=False)
+    partial = home_csv.with_name(f"{home_csv.name}.{os.getpid()}.tmp")
+    df.to_csv(partial, mode="w", header=True, index=False)
+    os.replace(partial, home_csv)
 
-    # 2) Project/runtime folder
-    base_csv = Path(base_dir) / "user_features.csv"
-    base_csv.parent.mkdir(parents=True, exist_ok=True)
-    df.to_csv(base_csv, mode="w", header=True, index=False)
-
-    print(f"CSV has been generated:\n- {home_csv}\n- {base_csv}")
+    print(f"CSV has been generated:\n- {home_csv}")
 
 
 def _pitch_spike_trap_guardrail(data_frame: pd.DataFrame) -> bool:
@@ -765,13 +1000,57 @@ Logistic regression prediction.
 """
 
 
-def __predict__():
-    """ Takes the users data and predicts the gender perception of the users vocal sample. :return:The predicted value of the users vocal sample.
+def _load_model() -> dict:
     """
+    Loads the trained model blob once and keeps it cached for the rest of the interpreter's life.
+
+    :return: The model blob (pipeline, feature names and caps).
+    """
+    global _MODEL_BLOB
+    if _MODEL_BLOB is None:
+        # Imported here so the worker, which never predicts, does not load scikit-learn
+        import joblib
+        _MODEL_BLOB = joblib.load(MODEL_PATH)
+    return _MODEL_BLOB
 
-    user_path = Path.home() / "VocalAnalysisTool" / "user_features.csv"
 
-    blob = joblib.load('gender_model.joblib')
+def export_model(out_path: str) -> None:
+    """
+    Exports the trained pipeline into the portable JSON the Java GenderModel evaluates: feature order, caps,
+    imputer medians, scaler statistics and the logistic regression weights. Run after every retraining.
+
+    :param out_path: Where to write gender_model.json.
+    """
+    blob = _load_model()
+    pipeline = blob["pipeline"]
+    imputer = pipeline.named_steps["imputer"]
+    scaler = pipeline.named_steps["scaler"]
+    model = pipeline.named_steps["model"]
+
+    portable = {
+        "format": 1,
+        "features": list(blob["Feature_names"]),
+        "caps": {name: [float(lo), float(hi)] for name, (lo, hi) in blob.get("caps", {}).items()},
+        "impute_median": [float(v) for v in imputer.statistics_],
+        "scaler_mean": [float(v) for v in scaler.mean_],
+        "scaler_scale": [float(v) for v in scaler.scale_],
+        "coef": [float(v) for v in model.coef_[0]],
+        "intercept": float(model.intercept_[0]),
+        "classes": ["MASC", "FEMME"],
+    }
+
+    with open(out_path, "w", encoding="utf-8") as out:
+        json.dump(portable, out, indent=2)
+        out.write("\n")
+
+
+def __predict__(features: dict):
+    """ Takes the users data and predicts the gender perception of the users vocal sample. :return:The predicted value of the users vocal sample.
+
+    :param features: The feature row to score, straight from feature_for_file.
+    """
+
+    blob = _load_model()
 
     pipeline = blob["pipeline"]
 
@@ -779,7 +1058,7 @@ def __predict__():
 
     caps = blob.get("caps", {})
 
-    user_data = pd.read_csv(user_path).iloc[:1].copy()
+    user_data = pd.DataFrame([features])
 
     user_data["pitch_support_gap_hz"] = user_data["F0_med"] - user_data["F0_p5"]
     eps = 1e-6
@@ -954,84 +1233,111 @@ def __predict__():
     return result
 
 
-def main(file_path=sys.argv[1]):
-    _reset_track_state()
+def _sample_payload(time_: list[float], f0_: list[float], f1_: list[float], f2_: list[float],
+                    formant_med: list[float], png_bytes: bytes, features: dict) -> dict:
+    """
+    Packs an analysis into the shape of a user_formants row, without a prediction, so the Java side
+    can score it with the exported model and store it itself.
+
+    :param time_: The list of time sequence
+    :param f0_: The list of pitch
+    :param f1_: The list of Formants 1
+    :param f2_: The list of Formant 2
+    :param formant_med: List of medians for formants (F0-F4)
+    :param png_bytes: The scatter plot
+    :param features: The feature row to score
+    :return: The row, with the scatter plot base64 encoded.
+    """
+    return {
+        "time": list(map(float, time_)),
+        "f0": list(map(float, f0_)),
+        "f1": list(map(float, f1_)),
+        "f2": list(map(float, f2_)),
+        "formant_med": list(map(float, formant_med)),
+        "scatter_plot": base64.b64encode(png_bytes).decode("ascii"),
+        "features_json": _features_json(features),
+    }
+
+
+def main(file_path=None, persist=True, export_csv=False, trimmed_seconds=0.0):
+    """
+    Analyzes a recording.
+
+    :param file_path: The audio file.
+    :param trimmed_seconds: Silence the app cut from the ends of the take; counted as unvoiced frames.
+    :param persist: When False nothing is predicted or written to disk; the row is kept in _PENDING_SAMPLE for
+                    the caller to score and store.
+    :param export_csv: Also export the feature row to user_features.csv.
+    :return: The predicted label, or None when no valid frames were found or the row was left to the caller.
+    """
+    global _PENDING_SAMPLE
+    _PENDING_SAMPLE = None
 
     try:
         global FILE_PATH
         FILE_PATH = file_path
         if FILE_PATH:
 
-            sound = parselmouth.Sound(FILE_PATH)
-
-            formant = sound.to_formant_burg(time_step=0.01)
-            pitch = sound.to_pitch(time_step=0.01)
-            times = np.arange(0, sound.get_total_duration(), 0.01)
-            f0_dict = {}
-            f1_dict = {}
-            f2_dict = {}
-            f3_dict = {}
-            f4_dict = {}
-            # Initializes the formant and pitch
-
-            full_data = []
-
-            for t in times:
-                f0 = pitch.get_value_at_time(t)
-                f1 = formant.get_value_at_time(1, t)
-                f2 = formant.get_value_at_time(2, t)
-                f3 = formant.get_value_at_time(3, t)
-                f4 = formant.get_value_at_time(4, t)
-                if (not math.isnan(f0) and not math.isnan(f1) and not math.isnan(f2) and not math.isnan(f3)
-                        and not math.isnan(f4)):
-                    f0_dict[float(t)] = f0
-                    f1_dict[float(t)] = f1
-                    f2_dict[float(t)] = f2
-                    f3_dict[float(t)] = f3
-                    f4_dict[float(t)] = f4
-
-                    full_data.append([float(round(t, 2)), round(f0, 5), round(f1, 5), round(f2, 5), round(f3, 5),
-                                      round(f4, 5)])
-
-            full_data = filter_frequency_synchronized_patch(full_data)
-
-            if not full_data:
+            with _phase("load"):
+                context = AnalysisContext.load(FILE_PATH, trimmed_seconds)
+
+            # Computed up front so the phase timings show the cost of each track
+            with _phase("formant"):
+                context.formant
+
+            with _phase("pitch"):
+                context.pitch
+
+            with _phase("frames"):
+                frames = extract_frames(context)
+
+            with _phase("filter"):
+                frames = filter_frequency_synchronized_patch(frames)
+
+            if len(frames) == 0:
                 print("No valid frames after filtering; skipping file")
+                _emit({"type": "warning", "code": "NO_VALID_FRAMES",
+                       "message": "No valid frames after filtering; skipping file"})
                 return None
 
-            row = feature_for_file(sound, full_data, file_id=Path(FILE_PATH).stem)
-            _create_csv(row)
-
-            times_, f0_vals_arr, f1_vals_arr, f2_vals_arr, f3_vals_arr, f4_vals_arr = [], [], [], [], [], []
+            with _phase("features"):
+                full_data = frames.tolist()
+                row = feature_for_file(context, full_data, file_id=Path(FILE_PATH).stem)
+                if export_csv:
+                    _create_csv(row)
 
-            for i in range(len(full_data)):
-                times_.append(full_data[i][0])
-                f0_vals_arr.append(full_data[i][1])
-                f1_vals_arr.append(full_data[i][2])
-                f2_vals_arr.append(full_data[i][3])
-                f3_vals_arr.append(full_data[i][4])
-                f4_vals_arr.append(full_data[i][5])
+                times_, f0_vals_arr, f1_vals_arr, f2_vals_arr, f3_vals_arr, f4_vals_arr = frames.T.tolist()
 
-            # Gets the average formants
-            f0_medians = get_freq_medians(f0_vals_arr)
-            f1_medians = get_freq_medians(f1_vals_arr)
-            f2_medians = get_freq_medians(f2_vals_arr)
-            f3_medians = get_freq_medians(f3_vals_arr)
-            f4_medians = get_freq_medians(f4_vals_arr)
-            # Crates a list of averages where i = 0 is f0_average and i = 4 is f4_average
-            med_formants = [f0_medians, f1_medians, f2_medians, f3_medians, f4_medians]
+                # Gets the average formants
+                f0_medians = get_freq_medians(f0_vals_arr)
+                f1_medians = get_freq_medians(f1_vals_arr)
+                f2_medians = get_freq_medians(f2_vals_arr)
+                f3_medians = get_freq_medians(f3_vals_arr)
+                f4_medians = get_freq_medians(f4_vals_arr)
+                # Crates a list of averages where i = 0 is f0_average and i = 4 is f4_average
+                med_formants = [f0_medians, f1_medians, f2_medians, f3_medians, f4_medians]
 
             # Creates the scatter plot
-            png_bytes = plot_formants(times_, f0_vals_arr, f1_vals_arr, f2_vals_arr, f3_vals_arr, f4_vals_arr)
+            with _phase("plot"):
+                png_bytes = plot_formants(times_, f0_vals_arr, f1_vals_arr, f2_vals_arr, f3_vals_arr, f4_vals_arr)
 
-            # Connects to the sqlite db
-            connect_table()
+            if not persist:
+                # The caller scores the feature row with the exported model
+                _PENDING_SAMPLE = _sample_payload(times_, f0_vals_arr, f1_vals_arr, f2_vals_arr, med_formants,
+                                                  png_bytes, row)
+                return None
+
+            with _phase("predict"):
+                gender_label, gender_score = __predict__(row)
 
-            # Inserts the formant data into the sqlite3 database
-            gender_label, gender_score = __predict__()
+            with _phase("persist"):
+                # Connects to the sqlite db
+                connect_table()
 
-            insert_to_table(times_, f0_vals_arr, f1_vals_arr, med_formants[1], f2_vals_arr, med_formants[2],
-                            med_formants[3], med_formants[4], med_formants, png_bytes, gender_label, gender_score)
+                # Inserts the formant data into the sqlite3 database
+                insert_to_table(times_, f0_vals_arr, f1_vals_arr, med_formants[1], f2_vals_arr, med_formants[2],
+                                med_formants[3], med_formants[4], med_formants, png_bytes, gender_label, gender_score,
+                                row)
 
             return gender_label
     except NameError:
@@ -1093,6 +1399,74 @@ def __training_test__():
     # print(f"Femme: {femme}\nMasc: {masc}\nAndro_Femme: {andro_femme}\nAndro_masc:{andro_masc}")
 
 
+def worker_loop() -> None:
+    """
+    Runs the script as a long-lived analysis worker.
+
+    Jobs arrive on stdin and events leave on stdout, one JSON object per line. Every event has a
+    "type": ready, pong, phase, progress, warning, error or result. Libraries are loaded once, so
+    every job after the first only pays for the analysis itself. Anything printed during an
+    analysis is routed to stderr so it can't corrupt the protocol.
+
+    An analyze job writes nothing to disk; its result carries the finished row as "sample" so
+    several workers can run side by side and the caller stores the rows itself. The row carries
+    the feature row but no prediction: the caller scores it with the exported model, so the
+    worker never loads the joblib model.
+    "export_csv": true additionally exports the feature row to user_features.csv.
+    "trimmed_seconds" is the silence the app cut from the ends of the recording.
+    """
+    global _PROTOCOL_OUT
+    _PROTOCOL_OUT = sys.stdout
+    sys.stdout = sys.stderr
+
+    _emit({"type": "ready", "pid": os.getpid()})
+
+    for line in sys.stdin:
+        line = line.strip()
+        if not line:
+            continue
+
+        try:
+            job = json.loads(line)
+        except ValueError:
+            _emit({"type": "error", "message": "Malformed job: " + line[:200]})
+            continue
+
+        cmd = job.get("cmd")
+        job_id = job.get("id")
+
+        if cmd == "ping":
+            _emit({"type": "pong", "id": job_id})
+        elif cmd == "shutdown":
+            break
+        elif cmd == "analyze":
+            _reset_progress()
+            try:
+                main(job["path"], persist=False, export_csv=job.get("export_csv", False),
+                     trimmed_seconds=job.get("trimmed_seconds", 0.0))
+                _emit({"type": "result", "id": job_id,
+                       "status": "SUCCESS" if _PENDING_SAMPLE else "INVALID",
+                       "timings": _PHASE_TIMINGS, "sample": _PENDING_SAMPLE})
+            except Exception as e:
+                _emit({"type": "error", "id": job_id, "message": str(e),
+                       "traceback": traceback.format_exc()})
+                _emit({"type": "result", "id": job_id, "status": "FAILED",
+                       "timings": _PHASE_TIMINGS})
+        else:
+            _emit({"type": "error", "id": job_id, "message": f"Unknown command: {cmd}"})
+
+
 if __name__ == "__main__":
-    main()
+    if len(sys.argv) > 2 and sys.argv[1] == "--export-model":
+        if len(sys.argv) > 3:
+            MODEL_PATH = sys.argv[3]
+        export_model(sys.argv[2])
+        sys.exit(0)
+
+    if len(sys.argv) > 1 and sys.argv[1] == "--worker":
+        worker_loop()
+    else:
+        if len(sys.argv) > 2:
+            MODEL_PATH = sys.argv[2]
+        main(sys.argv[1])
     # __training_test__()
@@ -0,0 +1,90 @@
+package com.kass.vocalanalysistool.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link GenderModel} against the labels and scores the python script's
+ * {@code __predict__} gave the feature rows in {@code src/test/resources/gender}.
+ *
+ * <p>{@code gender_predictions.csv} is written by {@code dump_gender_predictions.py}: one row
+ * per case, with the case name, the features {@code feature_for_file} measures ({@code NaN}
+ * where it could not), the label and the score. The cases reach every branch of
+ * {@code __predict__}, the falsetto rules, the tie and the rounded F2/F1 penalty included.</p>
+ *
+ * @author Kassie Whitney
+ * @version 1/10/2026
+ */
+class GenderModelTest {
+
+    /**
+     * The fixture, relative to the project.
+     */
+    private static final Path PREDICTIONS =
+            Path.of("src", "test", "resources", "gender", "gender_predictions.csv");
+
+    /**
+     * Largest score difference allowed; the pipeline's dot product may sum in another order.
+     */
+    private static final double SCORE_TOLERANCE = 1e-9;
+
+    /**
+     * Labels some case must reach.
+     */
+    private static final Set<String> LABELS = Set.of("FEMME", "MASC", "ANDRO", "ANDRO_FEMME",
+            "ANDRO_MASC", "FEMME_FALSETTO", "ANDRO_FALSETTO", "MASC_FALSETTO");
+
+    @Test
+    void matchesScriptPredictions() throws IOException {
+        assertTrue(Files.isRegularFile(PREDICTIONS), PREDICTIONS
+                + " is missing; run dump_gender_predictions.py next to it");
+
+        final List<String> lines = Files.readAllLines(PREDICTIONS);
+        assertFalse(lines.size() < 2, PREDICTIONS + " holds no cases");
+        final String[] header = lines.get(0).split(",");
+        final int labelColumn = header.length - 2;
+        final GenderModel model = GenderModel.bundled();
+        final Set<String> reached = new HashSet<>();
+
+        for (final String line : lines.subList(1, lines.size())) {
+            final String[] values = line.split(",");
+            final Map<String, Double> row = new HashMap<>();
+            for (int column = 1; column < labelColumn; column++) {
+                row.put(header[column], Double.parseDouble(values[column]));
+            }
+
+            final GenderModel.Prediction prediction = model.predict(row);
+
+            assertEquals(values[labelColumn], prediction.theLabel(), values[0]);
+            assertEquals(Double.parseDouble(values[labelColumn + 1]), prediction.theScore(),
+                    SCORE_TOLERANCE, values[0]);
+            reached.add(prediction.theLabel());
+        }
+        assertEquals(LABELS, reached);
+    }
+
+    @Test
+    void treatsMissingFeatureLikeNaN() {
+        final GenderModel model = GenderModel.bundled();
+        final Map<String, Double> measured = new HashMap<>();
+        measured.put("F0_med", 215.0);
+        measured.put("F0_p5", 185.0);
+        measured.put("f0_mean_hz", 230.0);
+        final Map<String, Double> withNaN = new HashMap<>(measured);
+        withNaN.put("F1_med", Double.NaN);
+        withNaN.put("F3_med", Double.NaN);
+
+        assertEquals(model.predict(measured), model.predict(withNaN));
+    }
+}
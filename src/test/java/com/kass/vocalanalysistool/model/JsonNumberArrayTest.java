@@ -0,0 +1,138 @@
+package com.kass.vocalanalysistool.model;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.gson.Gson;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link JsonNumberArray} against Gson, which parsed the JSON track columns before it.
+ *
+ * @author Kassie Whitney
+ * @version 1/10/2026
+ */
+class JsonNumberArrayTest {
+
+    /**
+     * The reference parser.
+     */
+    private static final Gson GSON = new Gson();
+
+    /**
+     * Values per generated array.
+     */
+    private static final int VALUES = 2_000;
+
+    @Test
+    void matchesGsonOnTrackLikeValues() {
+        final Random random = new Random(7);
+        final StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < VALUES; i++) {
+            if (i > 0) {
+                json.append(", ");
+            }
+            // Times in 10 ms steps and formants rounded to 5 decimals, as the script writes them
+            json.append(i % 2 == 0 ? Math.round(i * 0.01 * 100) / 100.0
+                    : Math.round(random.nextDouble() * 5000 * 1e5) / 1e5);
+        }
+        assertMatchesGson(json.append(']').toString());
+    }
+
+    @Test
+    void matchesGsonOnArbitraryDoubles() {
+        final Random random = new Random(11);
+        final StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < VALUES; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            final double value = switch (i % 4) {
+                case 0 -> Double.longBitsToDouble(random.nextLong());
+                case 1 -> random.nextGaussian() * Math.pow(10, random.nextInt(40) - 20);
+                case 2 -> random.nextInt(2_000_000) - 1_000_000;
+                default -> random.nextDouble();
+            };
+            // Full 17 digit forms take the fallback, short ones the fast path
+            json.append(Double.isFinite(value) ? Double.toString(value) : "0");
+        }
+        assertMatchesGson(json.append(']').toString());
+    }
+
+    @Test
+    void matchesGsonOnNumberForms() {
+        assertMatchesGson("[]");
+        assertMatchesGson("[ 0 , -0 , 0.0 , -0.0 ]");
+        assertMatchesGson("[1e-05, 1E+3, 2.5e10, -7.25E-3, 1e22, 1e23, 9007199254740993]");
+        assertMatchesGson("[123456789012345678901234567890, 0.30000000000000004,"
+                + " 0.1000000000000000055511151231257827]");
+        assertMatchesGson("[4.9e-324, 2.2250738585072014E-308, 1.7976931348623157e308]");
+        assertMatchesGson("\n\t[1,\r\n2 ,3]\n");
+    }
+
+    @Test
+    void readsNonFiniteValues() {
+        final JsonNumberArray parser = new JsonNumberArray();
+
+        assertEquals(4, parser.parse(bytes("[null, NaN, Infinity, -Infinity]")));
+        final double[] values = parser.toArray();
+        assertTrue(Double.isNaN(values[0]));
+        assertTrue(Double.isNaN(values[1]));
+        assertEquals(Double.POSITIVE_INFINITY, values[2]);
+        assertEquals(Double.NEGATIVE_INFINITY, values[3]);
+    }
+
+    @Test
+    void reusesItsBuffer() {
+        final JsonNumberArray parser = new JsonNumberArray();
+        parser.parse(bytes("[1, 2, 3, 4]"));
+        final double[] buffer = parser.values();
+
+        assertEquals(2, parser.parse(bytes("[5, 6]")));
+        assertEquals(2, parser.size());
+        assertArrayEquals(new double[]{5, 6}, parser.toArray());
+        assertSame(buffer, parser.values());
+    }
+
+    @Test
+    void rejectsMalformedArrays() {
+        final JsonNumberArray parser = new JsonNumberArray();
+
+        for (final String json : new String[]{"", "1", "[", "[1,]", "[1 2]", "[1] x", "[-]",
+                "[1e]", "[nul]", "[\"1\"]"}) {
+            assertThrows(IllegalArgumentException.class, () -> parser.parse(bytes(json)), json);
+        }
+    }
+
+    /**
+     * Parses an array with both parsers and compares the values bit for bit.
+     *
+     * @param theJson the array.
+     */
+    private static void assertMatchesGson(final String theJson) {
+        final double[] expected = GSON.fromJson(theJson, double[].class);
+        final JsonNumberArray parser = new JsonNumberArray();
+
+        assertEquals(expected.length, parser.parse(bytes(theJson)));
+        final double[] actual = parser.toArray();
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(Double.doubleToRawLongBits(expected[i]),
+                    Double.doubleToRawLongBits(actual[i]), "value " + i);
+        }
+    }
+
+    /**
+     * Encodes a string as the driver hands the column over.
+     *
+     * @param theJson the text.
+     * @return its UTF-8 bytes.
+     */
+    private static byte[] bytes(final String theJson) {
+        return theJson.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,287 @@
+package com.kass.vocalanalysistool.model;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link QuantileSketch}: exact quantiles before the first compaction, the rank error
+ * after it, merging and the serialized form.
+ *
+ * @author Kassie Whitney
+ * @version 1/10/2026
+ */
+class QuantileSketchTest {
+
+    /**
+     * Values in the large streams.
+     */
+    private static final int LARGE = 1_000_000;
+
+    /**
+     * Largest rank error allowed for the default k, as a share of the count.
+     */
+    private static final double MAX_RANK_ERROR = 0.01;
+
+    /**
+     * The quantiles checked.
+     */
+    private static final double[] FRACTIONS = {0.01, 0.05, 0.1, 0.25, 0.5, 0.75, 0.9, 0.95,
+            0.99};
+
+    @Test
+    void isExactUntilFirstCompaction() {
+        final Random random = new Random(1);
+        final QuantileSketch sketch = new QuantileSketch();
+        final float[] values = new float[QuantileSketch.DEFAULT_K - 1];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (float) (random.nextGaussian() * 30 + 170);
+            sketch.add(values[i]);
+        }
+        sketch.add(Double.NaN);
+
+        assertTrue(sketch.isExact());
+        assertEquals(values.length, sketch.count());
+        for (final double fraction : FRACTIONS) {
+            assertEquals(interpolated(values, fraction), sketch.quantile(fraction), 1e-9,
+                    "quantile " + fraction);
+        }
+
+        sketch.add(170);
+        assertFalse(sketch.isExact());
+    }
+
+    @Test
+    void boundsRankErrorOnLargeStream() {
+        final Random random = new Random(2);
+        final float[] values = new float[LARGE];
+        final QuantileSketch sketch = new QuantileSketch();
+        for (int i = 0; i < LARGE; i++) {
+            values[i] = (float) (random.nextDouble() * random.nextDouble());
+            sketch.add(values[i]);
+        }
+
+        assertEquals(LARGE, sketch.count());
+        assertRankError(sketch, values);
+    }
+
+    @Test
+    void boundsRankErrorOfMergedSketches() {
+        final Random random = new Random(3);
+        final float[] values = new float[LARGE];
+        final QuantileSketch merged = new QuantileSketch();
+        final int parts = 10;
+        for (int part = 0; part < parts; part++) {
+            final QuantileSketch sketch = new QuantileSketch();
+            // Each part comes from a different range, as the days of a history would
+            for (int i = part * LARGE / parts; i < (part + 1) * LARGE / parts; i++) {
+                values[i] = (float) (part * 0.1 + random.nextGaussian() * 0.05);
+                sketch.add(values[i]);
+            }
+            merged.merge(sketch);
+        }
+
+        assertEquals(LARGE, merged.count());
+        assertRankError(merged, values);
+    }
+
+    @Test
+    void mergesAssociatively() {
+        final Random random = new Random(4);
+        final double[][] streams = new double[3][];
+        for (int s = 0; s < streams.length; s++) {
+            final double scale = s + 1;
+            streams[s] = random.doubles(200_000 + 50_000 * s).map(v -> v * scale).toArray();
+        }
+
+        // (a + b) + c
+        final QuantileSketch left = sketchOf(streams[0]);
+        left.merge(sketchOf(streams[1]));
+        left.merge(sketchOf(streams[2]));
+        // a + (b + c)
+        final QuantileSketch inner = sketchOf(streams[1]);
+        inner.merge(sketchOf(streams[2]));
+        final QuantileSketch right = sketchOf(streams[0]);
+        right.merge(inner);
+
+        assertEquals(left.count(), right.count());
+        assertEquals(left.min(), right.min());
+        assertEquals(left.max(), right.max());
+
+        final float[] all = new float[(int) left.count()];
+        int at = 0;
+        for (final double[] stream : streams) {
+            for (final double value : stream) {
+                all[at++] = (float) value;
+            }
+        }
+        assertRankError(left, all);
+        assertRankError(right, all);
+
+        // Before any compaction both groupings hold the same items
+        final QuantileSketch smallLeft = sketchOf(Arrays.copyOf(streams[0], 100));
+        smallLeft.merge(sketchOf(Arrays.copyOf(streams[1], 100)));
+        smallLeft.merge(sketchOf(Arrays.copyOf(streams[2], 100)));
+        final QuantileSketch smallInner = sketchOf(Arrays.copyOf(streams[1], 100));
+        smallInner.merge(sketchOf(Arrays.copyOf(streams[2], 100)));
+        final QuantileSketch smallRight = sketchOf(Arrays.copyOf(streams[0], 100));
+        smallRight.merge(smallInner);
+        for (final double fraction : FRACTIONS) {
+            assertEquals(smallLeft.quantile(fraction), smallRight.quantile(fraction));
+        }
+    }
+
+    @Test
+    void rejectsMergeWithOtherK() {
+        final QuantileSketch sketch = new QuantileSketch(64);
+        final QuantileSketch other = new QuantileSketch(128);
+        other.add(1);
+
+        assertThrows(IllegalArgumentException.class, () -> sketch.merge(other));
+        assertThrows(IllegalArgumentException.class, () -> new QuantileSketch(4));
+    }
+
+    @Test
+    void roundTripsThroughBytes() {
+        final Random random = new Random(5);
+        final QuantileSketch sketch = new QuantileSketch(64);
+        for (int i = 0; i < 10_000; i++) {
+            sketch.add(random.nextDouble());
+        }
+
+        final QuantileSketch copy = QuantileSketch.fromBytes(sketch.toBytes());
+        assertArrayEquals(sketch.toBytes(), copy.toBytes());
+        assertEquals(sketch.count(), copy.count());
+        assertEquals(sketch.min(), copy.min());
+        assertEquals(sketch.max(), copy.max());
+        for (final double fraction : FRACTIONS) {
+            assertEquals(sketch.quantile(fraction), copy.quantile(fraction));
+        }
+
+        // The copy compacts the same way as the original from here on
+        for (int i = 0; i < 10_000; i++) {
+            final double value = random.nextDouble();
+            sketch.add(value);
+            copy.add(value);
+        }
+        assertArrayEquals(sketch.toBytes(), copy.toBytes());
+
+        final QuantileSketch empty = QuantileSketch.fromBytes(new QuantileSketch().toBytes());
+        assertTrue(empty.isEmpty());
+        assertTrue(Double.isNaN(empty.quantile(0.5)));
+    }
+
+    @Test
+    void rejectsCorruptBytes() {
+        final QuantileSketch sketch = new QuantileSketch(16);
+        for (int i = 0; i < 100; i++) {
+            sketch.add(i);
+        }
+        final byte[] bytes = sketch.toBytes();
+        // version, k, count, min, max and parity come before the level count
+        final int levelsAt = 1 + 4 + 8 + 8 + 8 + 8;
+
+        final byte[] version = bytes.clone();
+        version[0] = 2;
+        final byte[] noLevels = bytes.clone();
+        noLevels[levelsAt] = 0;
+        final byte[] tooManyLevels = bytes.clone();
+        tooManyLevels[levelsAt] = 65;
+        final byte[] hugeLevel = bytes.clone();
+        ByteBuffer.wrap(hugeLevel).putInt(levelsAt + 1, Integer.MAX_VALUE);
+        final byte[] negativeLevel = bytes.clone();
+        ByteBuffer.wrap(negativeLevel).putInt(levelsAt + 1, -1);
+        final byte[] smallK = bytes.clone();
+        ByteBuffer.wrap(smallK).putInt(1, 2);
+
+        for (final byte[] corrupt : new byte[][]{version, noLevels, tooManyLevels, hugeLevel,
+                negativeLevel, smallK, Arrays.copyOf(bytes, bytes.length - 1),
+                Arrays.copyOf(bytes, bytes.length + 1), Arrays.copyOf(bytes, 5), new byte[0]}) {
+            assertThrows(IllegalArgumentException.class,
+                    () -> QuantileSketch.fromBytes(corrupt));
+        }
+    }
+
+    /**
+     * Checks every quantile of a sketch against the values it summarizes.
+     *
+     * @param theSketch the sketch.
+     * @param theValues the values, as floats; sorted in place.
+     */
+    private static void assertRankError(final QuantileSketch theSketch, final float[] theValues) {
+        Arrays.sort(theValues);
+        for (final double fraction : FRACTIONS) {
+            final double estimate = theSketch.quantile(fraction);
+            final double error = rankError(theValues, estimate, fraction);
+            assertTrue(error <= MAX_RANK_ERROR,
+                    "quantile " + fraction + ": rank error " + error);
+        }
+    }
+
+    /**
+     * Measures how far an estimate's rank is from the quantile's.
+     *
+     * @param theSorted   the values, sorted.
+     * @param theEstimate the estimated quantile.
+     * @param theFraction the quantile.
+     * @return the distance of the quantile's rank to the ranks the estimate covers, as a share
+     * of the count.
+     */
+    private static double rankError(final float[] theSorted, final double theEstimate,
+                                     final double theFraction) {
+        int below = 0;
+        int high = theSorted.length;
+        while (below < high) {
+            final int mid = (below + high) >>> 1;
+            if (theSorted[mid] < theEstimate) {
+                below = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        int atOrBelow = below;
+        while (atOrBelow < theSorted.length && theSorted[atOrBelow] <= theEstimate) {
+            atOrBelow++;
+        }
+        final double target = theFraction * theSorted.length;
+        final double distance = target < below ? below - target
+                : Math.max(0, target - atOrBelow);
+        return distance / theSorted.length;
+    }
+
+    /**
+     * Computes a quantile the way numpy does by default.
+     *
+     * @param theValues   the values; sorted in place.
+     * @param theFraction the quantile.
+     * @return the linearly interpolated quantile.
+     */
+    private static double interpolated(final float[] theValues, final double theFraction) {
+        Arrays.sort(theValues);
+        final double position = theFraction * (theValues.length - 1);
+        final int low = (int) Math.floor(position);
+        final int high = Math.min(low + 1, theValues.length - 1);
+        return theValues[low] + ((double) theValues[high] - theValues[low]) * (position - low);
+    }
+
+    /**
+     * Builds a sketch of some values.
+     *
+     * @param theValues the values.
+     * @return the sketch.
+     */
+    private static QuantileSketch sketchOf(final double[] theValues) {
+        final QuantileSketch sketch = new QuantileSketch();
+        for (final double value : theValues) {
+            sketch.add(value);
+        }
+        return sketch;
+    }
+}
@@ -0,0 +1,240 @@
+package com.kass.vocalanalysistool.model;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Random;
+import java.util.zip.Deflater;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link TrackCodec}, and that it reads and writes the same bytes as the python script's
+ * {@code encode_track}.
+ *
+ * <p>{@code src/test/resources/tracks/golden_tracks.json} holds tracks encoded by
+ * {@code encode_track}, written by {@code encode_golden_tracks.py} next to it.</p>
+ *
+ * @author Kassie Whitney
+ * @version 1/10/2026
+ */
+class TrackCodecTest {
+
+    /**
+     * The python-encoded tracks, relative to the project.
+     */
+    private static final Path GOLDEN =
+            Path.of("src", "test", "resources", "tracks", "golden_tracks.json");
+
+    /**
+     * Half a fixed point step, the most a value may move.
+     */
+    private static final double HALF_STEP = 0.5 / TrackCodec.SCALE;
+
+    /**
+     * Slack for the floating point error of scaling.
+     */
+    private static final double ULP_SLACK = 1e-9;
+
+    /**
+     * Index of the encoding byte in the header.
+     */
+    private static final int ENCODING = 1;
+
+    /**
+     * Index of the flags byte in the header.
+     */
+    private static final int FLAGS = 2;
+
+    /**
+     * Header length in bytes.
+     */
+    private static final int HEADER_BYTES = 12;
+
+    @Test
+    void roundTripsWithinHalfStep() {
+        final Random random = new Random(3);
+        for (int length : new int[]{0, 1, 10, 1_000, 30_000}) {
+            final double[] values = new double[length];
+            for (int i = 0; i < length; i++) {
+                values[i] = switch (i % 3) {
+                    case 0 -> Math.round(i * 0.01 * 100) / 100.0;
+                    case 1 -> Math.round(random.nextDouble() * 5000 * 1e5) / 1e5;
+                    default -> (random.nextDouble() - 0.5) * 1e6;
+                };
+            }
+
+            final byte[] track = TrackCodec.encode(values);
+            assertEquals(1, track[ENCODING], "fixed point expected");
+            final double[] decoded = TrackCodec.decode(track);
+            assertEquals(length, decoded.length);
+            for (int i = 0; i < length; i++) {
+                assertEquals(values[i], decoded[i], HALF_STEP + ULP_SLACK, "value " + i);
+            }
+        }
+    }
+
+    @Test
+    void encodesPrefixOfBuffer() {
+        final double[] buffer = {1.0, 2.0, 3.0, Double.NaN};
+
+        assertArrayEquals(TrackCodec.encode(new double[]{1.0, 2.0, 3.0}),
+                TrackCodec.encode(buffer, 3));
+    }
+
+    @Test
+    void fallsBackToFloat32() {
+        final double[] withNaN = {120.25, Double.NaN, 130.5, 141.123456};
+        final double[] tooLarge = {1.0, 1e18};
+
+        for (final double[] values : new double[][]{withNaN, tooLarge}) {
+            final byte[] track = TrackCodec.encode(values);
+            assertEquals(0, track[ENCODING], Arrays.toString(values));
+            final double[] decoded = TrackCodec.decode(track);
+            for (int i = 0; i < values.length; i++) {
+                assertEquals((float) values[i], (float) decoded[i]);
+            }
+        }
+        assertTrue(Double.isNaN(TrackCodec.decode(TrackCodec.encode(withNaN))[1]));
+    }
+
+    @Test
+    void deflatesOnlyWhenSmaller() {
+        final byte[] shortTrack = TrackCodec.encode(new double[]{0.0, 0.01, 0.02});
+        assertEquals(0, shortTrack[FLAGS]);
+
+        final double[] smooth = new double[2_000];
+        for (int i = 0; i < smooth.length; i++) {
+            smooth[i] = i * 0.01;
+        }
+        final byte[] deflated = TrackCodec.encode(smooth);
+        assertEquals(1, deflated[FLAGS]);
+        assertTrue(deflated.length < HEADER_BYTES + smooth.length);
+
+        // Random float bits do not deflate, so they are stored as they are
+        final Random random = new Random(5);
+        final double[] noise = new double[200];
+        noise[0] = Double.NaN;
+        for (int i = 1; i < noise.length; i++) {
+            noise[i] = Float.intBitsToFloat(random.nextInt() & 0x3FFF_FFFF);
+        }
+        final byte[] raw = TrackCodec.encode(noise);
+        assertEquals(0, raw[FLAGS]);
+        assertEquals(HEADER_BYTES + 4 * noise.length, raw.length);
+    }
+
+    @Test
+    void rejectsTruncatedTracks() {
+        final byte[] plain = TrackCodec.encode(new double[]{1.0, 300.0, 70_000.0});
+        final byte[] deflated = TrackCodec.encode(smoothTrack());
+        assertEquals(0, plain[FLAGS]);
+        assertEquals(1, deflated[FLAGS]);
+
+        assertThrows(IllegalArgumentException.class, () -> TrackCodec.decode(null));
+        assertThrows(IllegalArgumentException.class,
+                () -> TrackCodec.decode(Arrays.copyOf(plain, HEADER_BYTES - 1)));
+        assertThrows(IllegalArgumentException.class,
+                () -> TrackCodec.decode(Arrays.copyOf(plain, plain.length - 1)));
+        assertThrows(IllegalArgumentException.class,
+                () -> TrackCodec.decode(Arrays.copyOf(deflated, deflated.length - 4)));
+    }
+
+    @Test
+    void rejectsTrailingBytes() {
+        final byte[] fixed = TrackCodec.encode(new double[]{1.0, 2.0});
+        final byte[] floats = TrackCodec.encode(new double[]{1.0, Double.NaN});
+
+        for (final byte[] track : new byte[][]{fixed, floats}) {
+            final byte[] longer = Arrays.copyOf(track, track.length + 1);
+            assertThrows(IllegalArgumentException.class, () -> TrackCodec.decode(longer));
+        }
+    }
+
+    @Test
+    void rejectsUnknownVersionAndEncoding() {
+        final byte[] version = TrackCodec.encode(new double[]{1.0});
+        version[0] = 2;
+        final byte[] encoding = TrackCodec.encode(new double[]{1.0});
+        encoding[ENCODING] = 7;
+        final byte[] negative = TrackCodec.encode(new double[]{1.0});
+        ByteBuffer.wrap(negative).order(ByteOrder.LITTLE_ENDIAN).putInt(4, -1);
+
+        assertThrows(IllegalArgumentException.class, () -> TrackCodec.decode(version));
+        assertThrows(IllegalArgumentException.class, () -> TrackCodec.decode(encoding));
+        assertThrows(IllegalArgumentException.class, () -> TrackCodec.decode(negative));
+    }
+
+    @Test
+    void rejectsPayloadInflatingPastItsCount() {
+        // A megabyte of zeros deflates to about a kilobyte but claims to hold ten floats
+        final Deflater deflater = new Deflater();
+        deflater.setInput(new byte[1 << 20]);
+        deflater.finish();
+        final byte[] bomb = new byte[1 << 16];
+        final int length = deflater.deflate(bomb);
+        deflater.end();
+
+        final ByteBuffer track = ByteBuffer.allocate(HEADER_BYTES + length)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        track.put((byte) 1).put((byte) 0).put((byte) 1).put((byte) 0).putInt(10).putInt(0)
+                .put(bomb, 0, length);
+
+        final IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class,
+                () -> TrackCodec.decode(track.array()));
+        assertTrue(thrown.getMessage().contains("too long"), thrown.getMessage());
+    }
+
+    @Test
+    void matchesPythonEncoding() throws IOException {
+        assertTrue(Files.isRegularFile(GOLDEN),
+                GOLDEN + " is missing; run encode_golden_tracks.py next to it");
+        final JsonArray entries = JsonParser.parseString(Files.readString(GOLDEN))
+                .getAsJsonArray();
+        assertFalse(entries.isEmpty());
+
+        for (final JsonElement element : entries) {
+            final JsonObject entry = element.getAsJsonObject();
+            final String name = entry.get("name").getAsString();
+            final JsonArray json = entry.getAsJsonArray("values");
+            final double[] values = new double[json.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = json.get(i).getAsDouble();
+            }
+            final byte[] blob = HexFormat.of().parseHex(entry.get("blob").getAsString());
+
+            final double[] decoded = TrackCodec.decode(blob);
+            assertEquals(values.length, decoded.length, name);
+            for (int i = 0; i < values.length; i++) {
+                assertEquals(values[i], decoded[i], HALF_STEP + ULP_SLACK, name + " " + i);
+            }
+            assertArrayEquals(blob, TrackCodec.encode(decoded), name);
+            assertArrayEquals(blob, TrackCodec.encode(values), name);
+        }
+    }
+
+    /**
+     * Builds a track that deflates.
+     *
+     * @return a second of 10 ms steps.
+     */
+    private static double[] smoothTrack() {
+        final double[] values = new double[100];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i * 0.01;
+        }
+        return values;
+    }
+}
@@ -0,0 +1,482 @@
+package com.kass.vocalanalysistool.model;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests {@link UserSampleDatabase} against databases on temporary files: that the daily score
+ * rollup gives the medians the window query before it gave, that older databases are
+ * backfilled, that every write keeps the rollup in step with the history, and that no write
+ * leaves a stale latest session cached.
+ *
+ * @author Kassie Whitney
+ * @version 1/10/2026
+ */
+class UserSampleDatabaseTest {
+
+    /**
+     * The user_formants table as databases from before the rollup, the feature row and the
+     * track blobs created it.
+     */
+    private static final String LEGACY_SCHEMA = """
+            CREATE TABLE user_formants (
+                id INTEGER PRIMARY KEY AUTOINCREMENT,
+                timestamp TIMESTAMP DEFAULT (datetime('now', 'localtime')),
+                time_json TEXT NOT NULL CHECK (json_valid(time_json)),
+                f0_json TEXT NOT NULL CHECK (json_valid(f0_json)),
+                f1_json TEXT NOT NULL CHECK (json_valid(f1_json)),
+                f1_med REAL NOT NULL CHECK (f1_med >= 0),
+                f2_json TEXT NOT NULL CHECK (json_valid(f2_json)),
+                f2_med REAL NOT NULL CHECK (f2_med >= 0),
+                f3_med REAL NOT NULL CHECK (f3_med >= 0),
+                f4_med REAL NOT NULL CHECK (f4_med >= 0),
+                formant_med_json TEXT NOT NULL CHECK (json_valid(formant_med_json)),
+                scatter_plot BLOB NOT NULL,
+                gender_label TEXT NOT NULL,
+                gender_score REAL NOT NULL CHECK (gender_score >= 0 AND gender_score <= 1)
+            )
+            """;
+
+    /**
+     * Inserts a row the way the python script does, on a random second of a past day.
+     */
+    private static final String INSERT_LEGACY_ROW = """
+            INSERT INTO user_formants(timestamp, time_json, f0_json, f1_json, f1_med, f2_json,
+                                      f2_med, f3_med, f4_med, formant_med_json, scatter_plot,
+                                      gender_label, gender_score)
+            VALUES (datetime('now', 'localtime', 'start of day', ?, ?), '[0.0, 0.01]',
+                    '[180.0, 181.0]', '[500.0, 510.0]', 505.0, '[1500.0, 1510.0]', 1505.0,
+                    2500.0, 3500.0, '[180.5, 505.0, 1505.0, 2500.0, 3500.0]', x'00', 'ANDRO', ?)
+            """;
+
+    /**
+     * The query trend charts ran before the rollup, with its lower bound in local time as
+     * the rollup's is.
+     */
+    private static final String WINDOW_QUERY = """
+            WITH ranked AS (
+              SELECT
+                date(timestamp) AS day,
+                gender_score,
+                ROW_NUMBER() OVER (
+                  PARTITION BY date(timestamp)
+                  ORDER BY gender_score
+                ) AS rn,
+                COUNT(*) OVER (
+                  PARTITION BY date(timestamp)
+                ) AS cnt
+              FROM user_formants
+              WHERE date(timestamp) < date('now', 'localtime')
+                AND date(timestamp) >= date('now', 'localtime', ?)
+            )
+            SELECT
+              day,
+              AVG(gender_score) AS median_gender_score
+            FROM ranked
+            WHERE rn IN ((cnt + 1) / 2, (cnt + 2) / 2)
+            GROUP BY day
+            ORDER BY day
+            """;
+
+    /**
+     * The count, median, min and max of every day in the history, as the rollup should hold
+     * them.
+     */
+    private static final String HISTORY_QUERY = """
+            WITH ranked AS (
+              SELECT
+                date(timestamp) AS day,
+                gender_score,
+                ROW_NUMBER() OVER (PARTITION BY date(timestamp) ORDER BY gender_score) AS rn,
+                COUNT(*) OVER (PARTITION BY date(timestamp)) AS cnt
+              FROM user_formants
+            )
+            SELECT day, cnt,
+                   AVG(CASE WHEN rn IN ((cnt + 1) / 2, (cnt + 2) / 2) THEN gender_score END),
+                   MIN(gender_score), MAX(gender_score)
+            FROM ranked
+            GROUP BY day
+            """;
+
+    /**
+     * Largest difference allowed between medians; both average the same two doubles.
+     */
+    private static final double TOLERANCE = 1e-12;
+
+    /**
+     * The directory the database files are made in.
+     */
+    @TempDir
+    Path myDir;
+
+    /**
+     * The database under test, closed after each test.
+     */
+    private UserSampleDatabase myDatabase;
+
+    @AfterEach
+    void closeDatabase() {
+        if (myDatabase != null) {
+            myDatabase.close();
+        }
+    }
+
+    @Test
+    void matchesWindowQueryOnLegacyHistory() throws SQLException {
+        final Path file = legacyDatabase(3000, 400, new Random(7));
+        myDatabase = UserSampleDatabase.open(file);
+
+        assertEquals(3000, myDatabase.backfillDailyScores());
+
+        for (final int days : new int[]{7, 30, 365, 400}) {
+            final List<UserSampleDatabase.DailyMedian> expected = windowQuery(file, days);
+            final List<UserSampleDatabase.DailyMedian> actual =
+                    myDatabase.getDailyMedianScores(days);
+            assertFalse(expected.isEmpty());
+            assertEquals(expected.size(), actual.size(), days + " days");
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i).theDate(), actual.get(i).theDate());
+                assertEquals(expected.get(i).theMedianGenderScore(),
+                        actual.get(i).theMedianGenderScore(), TOLERANCE,
+                        expected.get(i).theDate().toString());
+            }
+        }
+        assertRollupMatchesHistory(file);
+    }
+
+    @Test
+    void foldsOnlyNewRows() throws SQLException {
+        final Random random = new Random(11);
+        final Path file = legacyDatabase(200, 30, random);
+        myDatabase = UserSampleDatabase.open(file);
+
+        assertEquals(200, myDatabase.backfillDailyScores());
+        assertEquals(0, myDatabase.backfillDailyScores());
+
+        // Rows the python script stores on its own are picked up by the next fold
+        try (final Connection conn = connect(file)) {
+            insertLegacyRows(conn, 5, 30, random);
+        }
+        assertEquals(5, myDatabase.backfillDailyScores());
+        assertRollupMatchesHistory(file);
+
+        // Rows stored from Java are folded as they are stored
+        myDatabase.insertSamples(List.of(sample(0.2, null), sample(0.7, null),
+                sample(0.9, null)));
+        assertRollupMatchesHistory(file);
+        assertEquals(0, myDatabase.backfillDailyScores());
+    }
+
+    @Test
+    void foldsReusedSample() throws SQLException {
+        final Path file = myDir.resolve("reuse.db");
+        myDatabase = UserSampleDatabase.open(file);
+
+        myDatabase.insertSample(sample(0.3, null), "key", "digest");
+        assertEquals(1, rollup(file).values().iterator().next()[0]);
+
+        assertTrue(myDatabase.reuseCachedSample("key", "digest"));
+        assertEquals(2, rollup(file).values().iterator().next()[0]);
+        assertRollupMatchesHistory(file);
+
+        assertFalse(myDatabase.reuseCachedSample("key", "other"));
+        assertEquals(2, rollup(file).values().iterator().next()[0]);
+        assertEquals(0, myDatabase.backfillDailyScores());
+    }
+
+    @Test
+    void storesReuseWithoutCopyingTracks() throws SQLException {
+        final Path file = myDir.resolve("reference.db");
+        myDatabase = UserSampleDatabase.open(file);
+        myDatabase.insertSample(sample(0.5, "{\"F0_med\": 110.0}"), "key", "digest");
+        final UserSampleDatabase.SessionSnapshot original = myDatabase.getLatestSession()
+                .orElseThrow();
+
+        assertTrue(myDatabase.reuseCachedSample("key", "digest"));
+        assertTrue(myDatabase.reuseCachedSample("key", "digest"));
+        final UserSampleDatabase.SessionSnapshot reused = myDatabase.getLatestSession()
+                .orElseThrow();
+
+        // Both hits point at the original row and store none of its tracks, plot or features
+        try (Connection conn = connect(file);
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("""
+                     SELECT COUNT(*) FROM user_formants
+                     WHERE source_id = %d AND length(scatter_plot) = 0
+                       AND time_track IS NULL AND f0_track IS NULL AND f1_track IS NULL
+                       AND f2_track IS NULL AND features_json IS NULL
+                     """.formatted(original.theId()))) {
+            assertTrue(rs.next());
+            assertEquals(2, rs.getInt(1));
+        }
+        assertEquals(0, myDatabase.migrateTracks());
+
+        // The reuse is shown with the original's analysis
+        assertTrue(reused.theId() > original.theId());
+        assertArrayEquals(original.theTime(), reused.theTime());
+        assertArrayEquals(original.theF0(), reused.theF0());
+        assertArrayEquals(original.theF1(), reused.theF1());
+        assertArrayEquals(original.theF2(), reused.theF2());
+        assertArrayEquals(original.theMedians(), reused.theMedians());
+        assertArrayEquals(original.theScatterPlot(), reused.theScatterPlot());
+        assertEquals(original.theFeatures(), reused.theFeatures());
+        assertEquals(original.theGenderScore(), reused.theGenderScore());
+
+        // Re-scoring the original re-scores its reuses
+        assertEquals(3, myDatabase.rescoreHistory(GenderModel.bundled()));
+        assertNotEquals(0.5, myDatabase.getLatestSession().orElseThrow().theGenderScore());
+        try (Connection conn = connect(file);
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(
+                     "SELECT COUNT(DISTINCT gender_score) FROM user_formants")) {
+            assertTrue(rs.next());
+            assertEquals(1, rs.getInt(1));
+        }
+        assertRollupMatchesHistory(file);
+    }
+
+    @Test
+    void rebuildsAfterRescoreAndClear() throws SQLException {
+        final Path file = legacyDatabase(50, 10, new Random(13));
+        myDatabase = UserSampleDatabase.open(file);
+        myDatabase.backfillDailyScores();
+
+        final List<UserSampleDatabase.FormantSample> samples = new ArrayList<>();
+        for (final double f0 : new double[]{110, 150, 190, 230}) {
+            samples.add(sample(0.5, "{\"F0_med\": " + f0 + ", \"F0_p5\": " + (f0 - 30)
+                    + ", \"f0_mean_hz\": " + (f0 + 10) + "}"));
+        }
+        myDatabase.insertSamples(samples);
+
+        assertEquals(samples.size(), myDatabase.rescoreHistory(GenderModel.bundled()));
+        try (Connection conn = connect(file);
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("""
+                     SELECT COUNT(*) FROM user_formants
+                     WHERE features_json IS NOT NULL AND gender_score <> 0.5
+                     """)) {
+            assertTrue(rs.next() && rs.getInt(1) > 0, "re-scoring changed no score");
+        }
+        assertRollupMatchesHistory(file);
+
+        myDatabase.clearDatabase();
+        assertTrue(rollup(file).isEmpty());
+        assertTrue(myDatabase.getDailyMedianScores(400).isEmpty());
+
+        myDatabase.insertSamples(List.of(sample(0.4, null)));
+        assertEquals(1, rollup(file).size());
+        assertRollupMatchesHistory(file);
+    }
+
+    @Test
+    void refreshesLatestSessionAfterEveryWrite() {
+        myDatabase = UserSampleDatabase.open(myDir.resolve("latest.db"));
+        assertTrue(myDatabase.getLatestSession().isEmpty());
+
+        myDatabase.insertSample(sample(0.3, null), "key", "digest");
+        final UserSampleDatabase.SessionSnapshot first = myDatabase.getLatestSession()
+                .orElseThrow();
+        assertEquals(0.3, first.theGenderScore());
+        // Read once and kept until the next write
+        assertSame(first, myDatabase.getLatestSession().orElseThrow());
+
+        // The snapshot is shared, so what a caller changes must not reach the next one
+        first.theTime()[0] = 99;
+        assertEquals(0.0, myDatabase.getLatestSession().orElseThrow().theTime()[0]);
+
+        myDatabase.insertSamples(List.of(sample(0.6, null)));
+        final UserSampleDatabase.SessionSnapshot second = myDatabase.getLatestSession()
+                .orElseThrow();
+        assertTrue(second.theId() > first.theId());
+        assertEquals(0.6, second.theGenderScore());
+
+        assertTrue(myDatabase.reuseCachedSample("key", "digest"));
+        final UserSampleDatabase.SessionSnapshot reused = myDatabase.getLatestSession()
+                .orElseThrow();
+        assertTrue(reused.theId() > second.theId());
+        assertEquals(0.3, reused.theGenderScore());
+
+        myDatabase.insertSamples(List.of(sample(0.5, "{\"F0_med\": 110.0}")));
+        final double before = myDatabase.getLatestSession().orElseThrow().theGenderScore();
+        myDatabase.rescoreHistory(GenderModel.bundled());
+        final double after = myDatabase.getLatestSession().orElseThrow().theGenderScore();
+        assertEquals(0.5, before);
+        assertNotEquals(before, after);
+
+        myDatabase.clearDatabase();
+        assertTrue(myDatabase.getLatestSession().isEmpty());
+    }
+
+    /**
+     * Checks that the rollup holds the count, median, min and max of every day stored.
+     *
+     * @param theFile the database file.
+     * @throws SQLException thrown if the file can not be read.
+     */
+    private static void assertRollupMatchesHistory(final Path theFile) throws SQLException {
+        final Map<String, double[]> history = new TreeMap<>();
+        try (Connection conn = connect(theFile);
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(HISTORY_QUERY)) {
+            while (rs.next()) {
+                history.put(rs.getString(1), new double[]{rs.getLong(2), rs.getDouble(3),
+                        rs.getDouble(4), rs.getDouble(5)});
+            }
+        }
+        final Map<String, double[]> rollup = rollup(theFile);
+
+        assertEquals(history.keySet(), rollup.keySet());
+        for (final Map.Entry<String, double[]> day : history.entrySet()) {
+            final double[] expected = day.getValue();
+            final double[] actual = rollup.get(day.getKey());
+            assertEquals(expected[0], actual[0], day.getKey() + " count");
+            assertEquals(expected[1], actual[1], TOLERANCE, day.getKey() + " median");
+            // The sketch keeps min and max as doubles
+            assertEquals(expected[2], actual[2], day.getKey() + " min");
+            assertEquals(expected[3], actual[3], day.getKey() + " max");
+        }
+    }
+
+    /**
+     * Reads the rollup.
+     *
+     * @param theFile the database file.
+     * @return the count, median, min and max of each day, by day.
+     * @throws SQLException thrown if the file can not be read.
+     */
+    private static Map<String, double[]> rollup(final Path theFile) throws SQLException {
+        final Map<String, double[]> rollup = new TreeMap<>();
+        try (Connection conn = connect(theFile);
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("""
+                     SELECT day, sample_count, median_score, min_score, max_score
+                     FROM daily_score_rollup
+                     """)) {
+            while (rs.next()) {
+                rollup.put(rs.getString(1), new double[]{rs.getLong(2), rs.getDouble(3),
+                        rs.getDouble(4), rs.getDouble(5)});
+            }
+        }
+        return rollup;
+    }
+
+    /**
+     * Runs the query trend charts ran before the rollup.
+     *
+     * @param theFile the database file.
+     * @param theDays how many days before today to include.
+     * @return the medians, oldest first.
+     * @throws SQLException thrown if the file can not be read.
+     */
+    private static List<UserSampleDatabase.DailyMedian> windowQuery(final Path theFile,
+                                                                    final int theDays)
+            throws SQLException {
+        final List<UserSampleDatabase.DailyMedian> results = new ArrayList<>();
+        try (Connection conn = connect(theFile);
+             PreparedStatement ps = conn.prepareStatement(WINDOW_QUERY)) {
+            ps.setString(1, "-" + theDays + " days");
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    results.add(new UserSampleDatabase.DailyMedian(
+                            LocalDate.parse(rs.getString(1)), rs.getDouble(2)));
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Creates a database as it was before the rollup, holding rows stored over past days.
+     *
+     * @param theRows   how many rows to store.
+     * @param theDays   how many days before today they are spread over, today included.
+     * @param theRandom picks the days, times and scores.
+     * @return the database file.
+     * @throws SQLException thrown if the file can not be written.
+     */
+    private Path legacyDatabase(final int theRows, final int theDays, final Random theRandom)
+            throws SQLException {
+        final Path file = myDir.resolve("legacy.db");
+        try (Connection conn = connect(file);
+             Statement stmt = conn.createStatement()) {
+            stmt.execute(LEGACY_SCHEMA);
+            insertLegacyRows(conn, theRows, theDays, theRandom);
+        }
+        return file;
+    }
+
+    /**
+     * Stores rows the way the python script does.
+     *
+     * @param theConn   the connection.
+     * @param theRows   how many rows to store.
+     * @param theDays   how many days before today they are spread over, today included.
+     * @param theRandom picks the days, times and scores.
+     * @throws SQLException thrown if a row can not be stored.
+     */
+    private static void insertLegacyRows(final Connection theConn, final int theRows,
+                                         final int theDays, final Random theRandom)
+            throws SQLException {
+        theConn.setAutoCommit(false);
+        try (PreparedStatement ps = theConn.prepareStatement(INSERT_LEGACY_ROW)) {
+            for (int i = 0; i < theRows; i++) {
+                ps.setString(1, "-" + theRandom.nextInt(theDays) + " days");
+                ps.setString(2, "+" + theRandom.nextInt(86_400) + " seconds");
+                // Coarse scores, so days have ties
+                ps.setDouble(3, theRandom.nextInt(1001) / 1000.0);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+        theConn.commit();
+        theConn.setAutoCommit(true);
+    }
+
+    /**
+     * Builds an analysis to store.
+     *
+     * @param theScore    its score.
+     * @param theFeatures its feature row as JSON, or null.
+     * @return the analysis.
+     */
+    private static UserSampleDatabase.FormantSample sample(final double theScore,
+                                                           final String theFeatures) {
+        final double[] time = {0.0, 0.01, 0.02};
+        return new UserSampleDatabase.FormantSample(time, new double[]{180, 181, 182},
+                new double[]{500, 505, 510}, new double[]{1500, 1505, 1510},
+                new double[]{181, 505, 1505, 2500, 3500}, new byte[]{0}, "ANDRO", theScore,
+                theFeatures);
+    }
+
+    /**
+     * Opens a connection of its own on a database file.
+     *
+     * @param theFile the database file.
+     * @return the connection.
+     * @throws SQLException thrown if the file can not be opened.
+     */
+    private static Connection connect(final Path theFile) throws SQLException {
+        return DriverManager.getConnection("jdbc:sqlite:" + theFile.toAbsolutePath());
+    }
+}
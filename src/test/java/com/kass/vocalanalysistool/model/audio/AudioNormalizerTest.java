@@ -0,0 +1,311 @@
+package com.kass.vocalanalysistool.model.audio;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import javax.sound.sampled.AudioFormat;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that {@link AudioNormalizer} resamples to the analysis rate without changing a tone,
+ * removes DC, downmixes channels and joins frames split across chunks.
+ *
+ * @author Kassie Whitney
+ * @version 1/10/2026
+ */
+class AudioNormalizerTest {
+
+    /**
+     * Rate of most recordings.
+     */
+    private static final float CD_RATE = 44100f;
+
+    /**
+     * Amplitude of the test tones, full scale being 1.
+     */
+    private static final double AMPLITUDE = 0.5;
+
+    /**
+     * Largest error of a measured amplitude; the filters pass the tones at unit gain.
+     */
+    private static final double AMPLITUDE_TOLERANCE = 0.005;
+
+    @Test
+    void resamplesToAnalysisRate() throws IOException {
+        final Collector output = normalize(pcm(CD_RATE, tone(440, AMPLITUDE, CD_RATE, 2)),
+                AudioNormalizer.DEFAULT_ANALYSIS_RATE);
+
+        assertEquals(AudioNormalizer.DEFAULT_ANALYSIS_RATE, output.myFormat.getSampleRate());
+        assertEquals(1, output.myFormat.getChannels());
+        // 88,200 inputs at 160/441 give exactly 32,000 outputs
+        final double[] samples = output.samples();
+        assertEquals(32_000, samples.length);
+        assertEquals(AMPLITUDE, amplitude(samples), AMPLITUDE_TOLERANCE);
+        assertEquals(440, frequency(samples, AudioNormalizer.DEFAULT_ANALYSIS_RATE), 1);
+    }
+
+    @Test
+    void keepsPassbandAndRemovesAliases() throws IOException {
+        final float rate = AudioNormalizer.DEFAULT_ANALYSIS_RATE;
+        // Praat's formant ceiling, the highest frequency the analysis reads
+        final double[] high = normalize(pcm(CD_RATE, tone(5500, AMPLITUDE, CD_RATE, 1)),
+                rate).samples();
+        // 10 kHz is past the 8 kHz Nyquist frequency and would fold to 6 kHz
+        final double[] alias = normalize(pcm(CD_RATE, tone(10_000, AMPLITUDE, CD_RATE, 1)),
+                rate).samples();
+
+        assertEquals(AMPLITUDE, amplitude(high), AMPLITUDE_TOLERANCE);
+        assertEquals(5500, frequency(high, rate), 2);
+        assertTrue(amplitude(alias) < AMPLITUDE / 1000, "alias at " + amplitude(alias));
+    }
+
+    @Test
+    void removesDcOffset() throws IOException {
+        final float rate = AudioNormalizer.DEFAULT_ANALYSIS_RATE;
+        final double[] input = tone(200, 0.4, rate, 2);
+        for (int i = 0; i < input.length; i++) {
+            input[i] += 0.25;
+        }
+
+        final Collector output = normalize(pcm(rate, input), rate);
+        final double[] samples = output.samples();
+
+        // Already at the analysis rate, so only DC is removed
+        assertEquals(input.length, samples.length);
+        double mean = 0;
+        for (int i = samples.length / 2; i < samples.length; i++) {
+            mean += samples[i];
+        }
+        mean /= samples.length - samples.length / 2;
+        assertEquals(0, mean, 1e-3);
+        assertEquals(0.4, amplitude(samples), AMPLITUDE_TOLERANCE);
+    }
+
+    @Test
+    void downmixesChannels() throws IOException {
+        final float rate = AudioNormalizer.DEFAULT_ANALYSIS_RATE;
+        final double[] left = tone(300, AMPLITUDE, rate, 1);
+        final double[] inverted = new double[left.length];
+        final double[] silent = new double[left.length];
+        for (int i = 0; i < left.length; i++) {
+            inverted[i] = -left[i];
+        }
+
+        final Collector same = normalize(pcm(rate, left, left), rate);
+        final Collector cancelled = normalize(pcm(rate, left, inverted), rate);
+        final Collector oneSided = normalize(pcm(rate, left, silent), rate);
+
+        assertEquals(1, same.myFormat.getChannels());
+        assertEquals(left.length, same.samples().length);
+        assertEquals(AMPLITUDE, amplitude(same.samples()), AMPLITUDE_TOLERANCE);
+        assertEquals(0, amplitude(cancelled.samples()), 1e-4);
+        assertEquals(AMPLITUDE / 2, amplitude(oneSided.samples()), AMPLITUDE_TOLERANCE);
+    }
+
+    @Test
+    void joinsFramesSplitAcrossChunks() throws IOException {
+        final double[] left = tone(440, AMPLITUDE, CD_RATE, 1);
+        final double[] right = tone(660, AMPLITUDE, CD_RATE, 1);
+        final Pcm stereo = pcm(CD_RATE, left, right);
+
+        final byte[] whole = normalize(stereo, AudioNormalizer.DEFAULT_ANALYSIS_RATE)
+                .myBytes.toByteArray();
+        // Chunks of 1 to 9 bytes split most of the 4 byte frames
+        final byte[] split = normalize(stereo, AudioNormalizer.DEFAULT_ANALYSIS_RATE, 9)
+                .myBytes.toByteArray();
+
+        assertTrue(whole.length > 0);
+        assertArrayEquals(whole, split);
+    }
+
+    @Test
+    void rejectsOtherEncodings() {
+        final AudioNormalizer normalizer = new AudioNormalizer(new Collector(),
+                AudioNormalizer.DEFAULT_ANALYSIS_RATE);
+        final AudioFormat bigEndian = new AudioFormat(CD_RATE, 16, 1, true, true);
+        final AudioFormat eightBit = new AudioFormat(CD_RATE, 8, 1, true, false);
+
+        assertThrows(IOException.class, () -> normalizer.onStart(bigEndian));
+        assertThrows(IOException.class, () -> normalizer.onStart(eightBit));
+        assertThrows(IllegalArgumentException.class,
+                () -> new AudioNormalizer(new Collector(), 8000f));
+    }
+
+    /**
+     * Runs PCM through a normalizer in one chunk.
+     *
+     * @param thePcm  the input.
+     * @param theRate the analysis rate.
+     * @return what the normalizer produced.
+     * @throws IOException thrown if the normalizer fails.
+     */
+    private static Collector normalize(final Pcm thePcm, final float theRate)
+            throws IOException {
+        return normalize(thePcm, theRate, thePcm.theBytes().length);
+    }
+
+    /**
+     * Runs PCM through a normalizer in chunks of random length.
+     *
+     * @param thePcm      the input.
+     * @param theRate     the analysis rate.
+     * @param theMaxChunk the largest chunk handed over; the whole input is one chunk.
+     * @return what the normalizer produced.
+     * @throws IOException thrown if the normalizer fails.
+     */
+    private static Collector normalize(final Pcm thePcm, final float theRate,
+                                       final int theMaxChunk) throws IOException {
+        final Collector collector = new Collector();
+        final AudioNormalizer normalizer = new AudioNormalizer(collector, theRate);
+        final byte[] bytes = thePcm.theBytes();
+        final Random random = new Random(1);
+        normalizer.onStart(thePcm.theFormat());
+        int at = 0;
+        while (at < bytes.length) {
+            final int length = theMaxChunk >= bytes.length ? bytes.length
+                    : Math.min(bytes.length - at, 1 + random.nextInt(theMaxChunk));
+            final byte[] chunk = new byte[length];
+            System.arraycopy(bytes, at, chunk, 0, length);
+            normalizer.onPcm(chunk, length);
+            at += length;
+        }
+        normalizer.onStop();
+        return collector;
+    }
+
+    /**
+     * Builds a sine tone.
+     *
+     * @param theFrequency the frequency in Hz.
+     * @param theAmplitude the amplitude.
+     * @param theRate      the sample rate.
+     * @param theSeconds   the length.
+     * @return the samples.
+     */
+    private static double[] tone(final double theFrequency, final double theAmplitude,
+                                 final float theRate, final double theSeconds) {
+        final double[] samples = new double[(int) Math.round(theSeconds * theRate)];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = theAmplitude * Math.sin(2 * Math.PI * theFrequency * i / theRate);
+        }
+        return samples;
+    }
+
+    /**
+     * Encodes channels as interleaved 16-bit little-endian PCM.
+     *
+     * @param theRate     the sample rate.
+     * @param theChannels the samples of each channel, all the same length.
+     * @return the PCM and its format.
+     */
+    private static Pcm pcm(final float theRate, final double[]... theChannels) {
+        final int channels = theChannels.length;
+        final byte[] bytes = new byte[2 * channels * theChannels[0].length];
+        int at = 0;
+        for (int i = 0; i < theChannels[0].length; i++) {
+            for (final double[] channel : theChannels) {
+                final short value = (short) Math.round(channel[i] * 32767);
+                bytes[at++] = (byte) value;
+                bytes[at++] = (byte) (value >> 8);
+            }
+        }
+        return new Pcm(new AudioFormat(theRate, 16, channels, true, false), bytes);
+    }
+
+    /**
+     * Measures the amplitude of a tone from its RMS, leaving out the filters' start and end.
+     *
+     * @param theSamples the samples.
+     * @return the amplitude.
+     */
+    private static double amplitude(final double[] theSamples) {
+        double sum = 0;
+        final int from = theSamples.length / 4;
+        final int to = theSamples.length - from;
+        for (int i = from; i < to; i++) {
+            sum += theSamples[i] * theSamples[i];
+        }
+        return Math.sqrt(2 * sum / (to - from));
+    }
+
+    /**
+     * Measures the frequency of a tone from its upward zero crossings, leaving out the
+     * filters' start and end.
+     *
+     * @param theSamples the samples.
+     * @param theRate    the sample rate.
+     * @return the frequency in Hz.
+     */
+    private static double frequency(final double[] theSamples, final float theRate) {
+        final int from = theSamples.length / 4;
+        final int to = theSamples.length - from;
+        int first = -1;
+        int last = -1;
+        int crossings = 0;
+        for (int i = from + 1; i < to; i++) {
+            if (theSamples[i - 1] < 0 && theSamples[i] >= 0) {
+                if (first < 0) {
+                    first = i;
+                } else {
+                    crossings++;
+                }
+                last = i;
+            }
+        }
+        return crossings * theRate / (last - first);
+    }
+
+    /**
+     * PCM and its format.
+     *
+     * @param theFormat the format.
+     * @param theBytes  the bytes.
+     */
+    private record Pcm(AudioFormat theFormat, byte[] theBytes) { }
+
+    /**
+     * Keeps what a normalizer produced.
+     */
+    private static final class Collector implements PcmConsumer {
+
+        /**
+         * The format announced.
+         */
+        private AudioFormat myFormat;
+
+        /**
+         * The bytes received.
+         */
+        private final ByteArrayOutputStream myBytes = new ByteArrayOutputStream();
+
+        @Override
+        public void onStart(final AudioFormat theFormat) {
+            myFormat = theFormat;
+        }
+
+        @Override
+        public void onPcm(final byte[] theChunk, final int theLength) {
+            myBytes.write(theChunk, 0, theLength);
+        }
+
+        /**
+         * Decodes the bytes received.
+         *
+         * @return the samples, full scale being 1.
+         */
+        private double[] samples() {
+            final byte[] bytes = myBytes.toByteArray();
+            final double[] samples = new double[bytes.length / 2];
+            for (int i = 0; i < samples.length; i++) {
+                samples[i] = (short) ((bytes[2 * i + 1] << 8) | (bytes[2 * i] & 0xFF))
+                        / 32768.0;
+            }
+            return samples;
+        }
+    }
+}
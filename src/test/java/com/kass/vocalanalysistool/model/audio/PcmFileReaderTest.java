@@ -0,0 +1,422 @@
+package com.kass.vocalanalysistool.model.audio;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests that {@link PcmFileReader} finds the samples of WAV, RF64 and AIFF files past
+ * odd-sized chunks, converts each sample encoding to 16-bit PCM and reads data sizes past
+ * 2 GiB.
+ *
+ * @author Kassie Whitney
+ * @version 1/10/2026
+ */
+class PcmFileReaderTest {
+
+    /**
+     * Sample rate of the test files.
+     */
+    private static final int RATE = 44_100;
+
+    /**
+     * WAVE format tag of integer PCM.
+     */
+    private static final short WAVE_PCM = 1;
+
+    /**
+     * WAVE format tag of IEEE float.
+     */
+    private static final short WAVE_FLOAT = 3;
+
+    /**
+     * WAVE format tag of WAVE_FORMAT_EXTENSIBLE.
+     */
+    private static final short WAVE_EXTENSIBLE = (short) 0xFFFE;
+
+    /**
+     * Where the files are written.
+     */
+    @TempDir
+    Path myDirectory;
+
+    @Test
+    void readsWavPastOddChunks() throws IOException {
+        final short[] samples = samples(2 * 501);
+        final ByteBuffer data = buffer(2 * samples.length, ByteOrder.LITTLE_ENDIAN);
+        for (final short sample : samples) {
+            data.putShort(sample);
+        }
+        // Chunks of odd size are followed by a pad byte their size does not count
+        final Path file = write("odd.wav", riff("RIFF", "WAVE", ByteOrder.LITTLE_ENDIAN,
+                chunk("junk", new byte[3], ByteOrder.LITTLE_ENDIAN),
+                chunk("fmt ", fmt(WAVE_PCM, 2, 16), ByteOrder.LITTLE_ENDIAN),
+                chunk("LIST", "INFOx".getBytes(StandardCharsets.US_ASCII),
+                        ByteOrder.LITTLE_ENDIAN),
+                chunk("data", data.array(), ByteOrder.LITTLE_ENDIAN)));
+
+        try (AudioInputStream audio = PcmFileReader.open(file)) {
+            assertNotNull(audio);
+            assertEquals(new AudioFormat(RATE, 16, 2, true, false).toString(),
+                    audio.getFormat().toString());
+            assertEquals(501, audio.getFrameLength());
+            assertArrayEquals(samples, decode(audio));
+        }
+    }
+
+    @Test
+    void convertsWavEncodings() throws IOException {
+        final short[] samples = samples(400);
+
+        // 24-bit keeps its two most significant bytes
+        final ByteBuffer pcm24 = buffer(3 * samples.length, ByteOrder.LITTLE_ENDIAN);
+        for (final short sample : samples) {
+            pcm24.put((byte) 0x5A).putShort(sample);
+        }
+        // 8-bit WAV is unsigned
+        final ByteBuffer pcm8 = buffer(samples.length, ByteOrder.LITTLE_ENDIAN);
+        final short[] expected8 = new short[samples.length];
+        for (int i = 0; i < samples.length; i++) {
+            pcm8.put((byte) ((samples[i] >> 8) + 128));
+            expected8[i] = (short) (samples[i] & 0xFF00);
+        }
+        final ByteBuffer float32 = buffer(4 * samples.length, ByteOrder.LITTLE_ENDIAN);
+        for (final short sample : samples) {
+            float32.putFloat(sample / 32767f);
+        }
+
+        assertArrayEquals(samples, readWave("pcm24.wav", fmt(WAVE_PCM, 1, 24), pcm24));
+        assertArrayEquals(expected8, readWave("pcm8.wav", fmt(WAVE_PCM, 1, 8), pcm8));
+        assertArrayEquals(samples, readWave("float.wav", fmt(WAVE_FLOAT, 1, 32), float32));
+        assertArrayEquals(samples, readWave("extensible.wav", extensible(WAVE_PCM, 1, 24),
+                pcm24));
+    }
+
+    @Test
+    void readsAiffPastOddChunks() throws IOException {
+        final short[] samples = samples(2 * 333);
+        final ByteBuffer ssnd = buffer(8 + 4 + 2 * samples.length, ByteOrder.BIG_ENDIAN);
+        // The samples start after a 4 byte offset
+        ssnd.putInt(4).putInt(0).putInt(0xDEADBEEF);
+        for (final short sample : samples) {
+            ssnd.putShort(sample);
+        }
+        final Path file = write("odd.aiff", riff("FORM", "AIFF", ByteOrder.BIG_ENDIAN,
+                chunk("NAME", "voice".getBytes(StandardCharsets.US_ASCII), ByteOrder.BIG_ENDIAN),
+                chunk("COMM", comm(2, 333, 16, null), ByteOrder.BIG_ENDIAN),
+                chunk("ANNO", new byte[1], ByteOrder.BIG_ENDIAN),
+                chunk("SSND", ssnd.array(), ByteOrder.BIG_ENDIAN)));
+
+        try (AudioInputStream audio = PcmFileReader.open(file)) {
+            assertNotNull(audio);
+            assertEquals(RATE, audio.getFormat().getSampleRate());
+            assertEquals(2, audio.getFormat().getChannels());
+            assertEquals(333, audio.getFrameLength());
+            assertArrayEquals(samples, decode(audio));
+        }
+    }
+
+    @Test
+    void readsLittleEndianAifc() throws IOException {
+        final short[] samples = samples(100);
+        final ByteBuffer ssnd = buffer(8 + 2 * samples.length, ByteOrder.BIG_ENDIAN);
+        ssnd.putInt(0).putInt(0);
+        ssnd.order(ByteOrder.LITTLE_ENDIAN);
+        for (final short sample : samples) {
+            ssnd.putShort(sample);
+        }
+        final Path sowt = write("sowt.aifc", riff("FORM", "AIFC", ByteOrder.BIG_ENDIAN,
+                chunk("COMM", comm(1, 100, 16, "sowt"), ByteOrder.BIG_ENDIAN),
+                chunk("SSND", ssnd.array(), ByteOrder.BIG_ENDIAN)));
+        final Path compressed = write("ima4.aifc", riff("FORM", "AIFC", ByteOrder.BIG_ENDIAN,
+                chunk("COMM", comm(1, 100, 16, "ima4"), ByteOrder.BIG_ENDIAN),
+                chunk("SSND", ssnd.array(), ByteOrder.BIG_ENDIAN)));
+
+        try (AudioInputStream audio = PcmFileReader.open(sowt)) {
+            assertArrayEquals(samples, decode(audio));
+        }
+        assertNull(PcmFileReader.open(compressed));
+    }
+
+    @Test
+    void clampsDataSizeToFile() throws IOException {
+        final ByteBuffer data = buffer(2 * 10, ByteOrder.LITTLE_ENDIAN);
+        final byte[] header = riff("RIFF", "WAVE", ByteOrder.LITTLE_ENDIAN,
+                chunk("fmt ", fmt(WAVE_PCM, 1, 16), ByteOrder.LITTLE_ENDIAN),
+                chunk("data", data.array(), ByteOrder.LITTLE_ENDIAN));
+        // A recorder cut off before it wrote the sizes
+        ByteBuffer.wrap(header).order(ByteOrder.LITTLE_ENDIAN).putInt(header.length - 24, -1);
+
+        try (AudioInputStream audio = PcmFileReader.open(write("cut.wav", header))) {
+            assertEquals(10, audio.getFrameLength());
+            assertEquals(10, decode(audio).length);
+        }
+    }
+
+    @Test
+    void readsDataPastTwoGigabytes() throws IOException {
+        // 2.25 GiB of stereo frames, which a signed 32-bit size can not hold
+        final long bytes = 0x9000_0000L;
+        final byte[] header = riff("RIFF", "WAVE", ByteOrder.LITTLE_ENDIAN,
+                chunk("fmt ", fmt(WAVE_PCM, 2, 16), ByteOrder.LITTLE_ENDIAN),
+                chunk("data", new byte[0], ByteOrder.LITTLE_ENDIAN));
+        ByteBuffer.wrap(header).order(ByteOrder.LITTLE_ENDIAN)
+                .putInt(4, (int) (header.length - 8 + bytes))
+                .putInt(header.length - 4, (int) bytes);
+
+        assertLastFramesRead(sparse("large.wav", header, bytes), bytes / 4);
+    }
+
+    @Test
+    void readsRf64PastFourGigabytes() throws IOException {
+        final long bytes = 5L << 30;
+        final ByteBuffer ds64 = buffer(28, ByteOrder.LITTLE_ENDIAN);
+        ds64.putLong(0).putLong(bytes).putLong(bytes / 4).putInt(0);
+        final byte[] header = riff("RF64", "WAVE", ByteOrder.LITTLE_ENDIAN,
+                chunk("ds64", ds64.array(), ByteOrder.LITTLE_ENDIAN),
+                chunk("fmt ", fmt(WAVE_PCM, 2, 16), ByteOrder.LITTLE_ENDIAN),
+                chunk("data", new byte[0], ByteOrder.LITTLE_ENDIAN));
+        ByteBuffer.wrap(header).order(ByteOrder.LITTLE_ENDIAN).putInt(4, -1)
+                .putInt(header.length - 4, -1);
+
+        assertLastFramesRead(sparse("large.rf64", header, bytes), bytes / 4);
+    }
+
+    @Test
+    void rejectsOtherFiles() throws IOException {
+        assertNull(PcmFileReader.open(write("text.wav",
+                "not a recording".getBytes(StandardCharsets.US_ASCII))));
+        assertNull(PcmFileReader.open(write("short.wav", new byte[5])));
+        assertNull(PcmFileReader.open(write("adpcm.wav", riff("RIFF", "WAVE",
+                ByteOrder.LITTLE_ENDIAN, chunk("fmt ", fmt((short) 2, 1, 4),
+                        ByteOrder.LITTLE_ENDIAN), chunk("data", new byte[8],
+                        ByteOrder.LITTLE_ENDIAN)))));
+    }
+
+    /**
+     * Checks the frame count of a large file and that its last frames are read after a skip.
+     *
+     * @param theFile   a stereo 16-bit file whose last 4 frames count 1 to 8.
+     * @param theFrames the frames it holds.
+     * @throws IOException thrown if the file can not be read.
+     */
+    private static void assertLastFramesRead(final Path theFile, final long theFrames)
+            throws IOException {
+        try (AudioInputStream audio = PcmFileReader.open(theFile)) {
+            assertNotNull(audio);
+            assertEquals(theFrames, audio.getFrameLength());
+
+            long toSkip = 4 * (theFrames - 4);
+            while (toSkip > 0) {
+                final long skipped = audio.skip(toSkip);
+                assertTrue(skipped > 0, "skip stopped " + toSkip + " bytes short");
+                toSkip -= skipped;
+            }
+            assertArrayEquals(new short[]{1, 2, 3, 4, 5, 6, 7, 8}, decode(audio));
+        }
+    }
+
+    /**
+     * Writes a sparse file: a header, then zeros up to the last 4 stereo frames.
+     *
+     * @param theName   the file name.
+     * @param theHeader everything before the samples.
+     * @param theBytes  the size of the samples.
+     * @return the file.
+     * @throws IOException thrown if the file can not be written.
+     */
+    private Path sparse(final String theName, final byte[] theHeader, final long theBytes)
+            throws IOException {
+        final Path file = myDirectory.resolve(theName);
+        final ByteBuffer last = buffer(16, ByteOrder.LITTLE_ENDIAN);
+        for (short value = 1; value <= 8; value++) {
+            last.putShort(value);
+        }
+        try (RandomAccessFile out = new RandomAccessFile(file.toFile(), "rw")) {
+            out.write(theHeader);
+            out.seek(theHeader.length + theBytes - 16);
+            out.write(last.array());
+        }
+        return file;
+    }
+
+    /**
+     * Writes a WAV file holding one data chunk and reads it back.
+     *
+     * @param theName the file name.
+     * @param theFmt  the fmt chunk body.
+     * @param theData the samples.
+     * @return the samples read.
+     * @throws IOException thrown if the file can not be written or read.
+     */
+    private short[] readWave(final String theName, final byte[] theFmt,
+                             final ByteBuffer theData) throws IOException {
+        final Path file = write(theName, riff("RIFF", "WAVE", ByteOrder.LITTLE_ENDIAN,
+                chunk("fmt ", theFmt, ByteOrder.LITTLE_ENDIAN),
+                chunk("data", theData.array(), ByteOrder.LITTLE_ENDIAN)));
+        try (AudioInputStream audio = PcmFileReader.open(file)) {
+            assertNotNull(audio, theName);
+            return decode(audio);
+        }
+    }
+
+    /**
+     * Writes a file.
+     *
+     * @param theName  the file name.
+     * @param theBytes the content.
+     * @return the file.
+     * @throws IOException thrown if the file can not be written.
+     */
+    private Path write(final String theName, final byte[] theBytes) throws IOException {
+        return Files.write(myDirectory.resolve(theName), theBytes);
+    }
+
+    /**
+     * Builds a RIFF or FORM container.
+     *
+     * @param theContainer the container id.
+     * @param theType      the form type.
+     * @param theOrder     the byte order of its sizes.
+     * @param theChunks    the chunks, each with its header and pad byte.
+     * @return the file content.
+     */
+    private static byte[] riff(final String theContainer, final String theType,
+                               final ByteOrder theOrder, final byte[]... theChunks) {
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.writeBytes(theType.getBytes(StandardCharsets.US_ASCII));
+        for (final byte[] chunk : theChunks) {
+            body.writeBytes(chunk);
+        }
+        final ByteBuffer file = buffer(8 + body.size(), theOrder);
+        file.put(theContainer.getBytes(StandardCharsets.US_ASCII)).putInt(body.size())
+                .put(body.toByteArray());
+        return file.array();
+    }
+
+    /**
+     * Builds a chunk.
+     *
+     * @param theId    the chunk id.
+     * @param theBody  the body.
+     * @param theOrder the byte order of its size.
+     * @return the chunk, with a pad byte if the body is odd-sized.
+     */
+    private static byte[] chunk(final String theId, final byte[] theBody,
+                                final ByteOrder theOrder) {
+        final ByteBuffer chunk = buffer(8 + theBody.length + (theBody.length & 1), theOrder);
+        chunk.put(theId.getBytes(StandardCharsets.US_ASCII)).putInt(theBody.length)
+                .put(theBody);
+        return chunk.array();
+    }
+
+    /**
+     * Builds a WAVE fmt chunk body.
+     *
+     * @param theTag      the format tag.
+     * @param theChannels the channel count.
+     * @param theBits     the bits per sample.
+     * @return the body.
+     */
+    private static byte[] fmt(final short theTag, final int theChannels, final int theBits) {
+        final int blockAlign = theChannels * ((theBits + 7) / 8);
+        return buffer(16, ByteOrder.LITTLE_ENDIAN).putShort(theTag)
+                .putShort((short) theChannels).putInt(RATE).putInt(RATE * blockAlign)
+                .putShort((short) blockAlign).putShort((short) theBits).array();
+    }
+
+    /**
+     * Builds a WAVE_FORMAT_EXTENSIBLE fmt chunk body.
+     *
+     * @param theTag      the format tag starting the sub-format GUID.
+     * @param theChannels the channel count.
+     * @param theBits     the bits per sample.
+     * @return the body.
+     */
+    private static byte[] extensible(final short theTag, final int theChannels,
+                                     final int theBits) {
+        final ByteBuffer body = buffer(40, ByteOrder.LITTLE_ENDIAN);
+        body.put(fmt(WAVE_EXTENSIBLE, theChannels, theBits)).putShort((short) 22)
+                .putShort((short) theBits).putInt(0).putShort(theTag);
+        return body.array();
+    }
+
+    /**
+     * Builds an AIFF COMM chunk body.
+     *
+     * @param theChannels    the channel count.
+     * @param theFrames      the frame count.
+     * @param theBits        the bits per sample.
+     * @param theCompression the AIFF-C compression type, or null for AIFF.
+     * @return the body.
+     */
+    private static byte[] comm(final int theChannels, final int theFrames, final int theBits,
+                               final String theCompression) {
+        final ByteBuffer body = buffer(theCompression == null ? 18 : 24, ByteOrder.BIG_ENDIAN);
+        // The rate as an 80-bit extended float with an explicit integer bit
+        final int shift = Long.numberOfLeadingZeros(RATE);
+        body.putShort((short) theChannels).putInt(theFrames).putShort((short) theBits)
+                .putShort((short) (16383 + 63 - shift)).putLong((long) RATE << shift);
+        if (theCompression != null) {
+            body.put(theCompression.getBytes(StandardCharsets.US_ASCII)).putShort((short) 0);
+        }
+        return body.array();
+    }
+
+    /**
+     * Allocates a heap buffer.
+     *
+     * @param theBytes the capacity.
+     * @param theOrder the byte order.
+     * @return the buffer.
+     */
+    private static ByteBuffer buffer(final int theBytes, final ByteOrder theOrder) {
+        return ByteBuffer.allocate(theBytes).order(theOrder);
+    }
+
+    /**
+     * Builds random samples.
+     *
+     * @param theCount the number of samples.
+     * @return the samples.
+     */
+    private static short[] samples(final int theCount) {
+        final Random random = new Random(theCount);
+        final short[] samples = new short[theCount];
+        for (int i = 0; i < theCount; i++) {
+            samples[i] = (short) random.nextInt();
+        }
+        return samples;
+    }
+
+    /**
+     * Reads the rest of a stream.
+     *
+     * @param theAudio the 16-bit little-endian stream.
+     * @return its samples.
+     * @throws IOException thrown if the stream can not be read.
+     */
+    private static short[] decode(final AudioInputStream theAudio) throws IOException {
+        final ByteBuffer bytes = ByteBuffer.wrap(theAudio.readAllBytes())
+                .order(ByteOrder.LITTLE_ENDIAN);
+        final short[] samples = new short[bytes.remaining() / 2];
+        bytes.asShortBuffer().get(samples);
+        return samples;
+    }
+}
@@ -0,0 +1,192 @@
+package com.kass.vocalanalysistool.model.audio;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that {@link PcmRingBuffer} hands every reader the chunks in order, counts the ones a
+ * slow reader lost and never hands out a chunk overwritten while it was copied.
+ *
+ * @author Kassie Whitney
+ * @version 1/10/2026
+ */
+class PcmRingBufferTest {
+
+    /**
+     * Bytes per chunk in the tests.
+     */
+    private static final int CHUNK_BYTES = 256;
+
+    /**
+     * Bytes at the start of a chunk holding its sequence number.
+     */
+    private static final int HEADER = Long.BYTES;
+
+    @Test
+    void readsChunksInOrder() {
+        final PcmRingBuffer ring = new PcmRingBuffer(CHUNK_BYTES, 5);
+        assertEquals(8, ring.chunkCount());
+        assertEquals(CHUNK_BYTES, ring.chunkBytes());
+
+        write(ring, 0);
+        final PcmRingBuffer.Cursor cursor = ring.newCursor();
+        for (long seq = 1; seq <= 3; seq++) {
+            write(ring, seq);
+        }
+
+        // A new cursor starts at the next chunk, so chunk 0 is not read
+        final byte[] destination = new byte[CHUNK_BYTES];
+        for (long seq = 1; seq <= 3; seq++) {
+            final int length = cursor.read(destination);
+            assertEquals(length(seq), length);
+            assertArrayEquals(chunk(seq), Arrays.copyOf(destination, length));
+        }
+        assertEquals(-1, cursor.read(destination));
+        assertEquals(0, cursor.lostChunks());
+        assertThrows(IllegalArgumentException.class, () -> new PcmRingBuffer(0, 4));
+    }
+
+    @Test
+    void countsOverrunAsLost() {
+        final PcmRingBuffer ring = new PcmRingBuffer(CHUNK_BYTES, 4);
+        final PcmRingBuffer.Cursor cursor = ring.newCursor();
+        for (long seq = 0; seq < 10; seq++) {
+            write(ring, seq);
+        }
+
+        // Only the last full ring is left
+        final byte[] destination = new byte[CHUNK_BYTES];
+        for (long seq = 6; seq < 10; seq++) {
+            assertEquals(seq, sequence(destination, cursor.read(destination)));
+        }
+        assertEquals(-1, cursor.read(destination));
+        assertEquals(6, cursor.lostChunks());
+    }
+
+    @Test
+    void skipsSlotBeingRewritten() {
+        final PcmRingBuffer ring = new PcmRingBuffer(CHUNK_BYTES, 4);
+        final PcmRingBuffer.Cursor cursor = ring.newCursor();
+        for (long seq = 0; seq < 4; seq++) {
+            write(ring, seq);
+        }
+
+        // The producer starts on chunk 4, in chunk 0's slot, before the reader got to it
+        final byte[] slot = ring.beginWrite();
+        System.arraycopy(chunk(4), 0, slot, 0, length(4));
+
+        final byte[] destination = new byte[CHUNK_BYTES];
+        assertEquals(1, sequence(destination, cursor.read(destination)));
+        assertEquals(1, cursor.lostChunks());
+
+        ring.endWrite(length(4));
+        assertEquals(2, sequence(destination, cursor.read(destination)));
+        assertEquals(3, sequence(destination, cursor.read(destination)));
+        assertEquals(4, sequence(destination, cursor.read(destination)));
+        assertEquals(-1, cursor.read(destination));
+        assertEquals(1, cursor.lostChunks());
+    }
+
+    @Test
+    void neverHandsOutTornChunk() throws InterruptedException {
+        // Two large chunks keep the producer lapping the reader in the middle of its copy
+        final int chunkBytes = 64 * 1024;
+        final PcmRingBuffer ring = new PcmRingBuffer(chunkBytes, 2);
+        final PcmRingBuffer.Cursor cursor = ring.newCursor();
+        final long total = 20_000;
+
+        final Thread producer = new Thread(() -> {
+            for (long seq = 0; seq < total; seq++) {
+                final byte[] slot = ring.beginWrite();
+                Arrays.fill(slot, (byte) seq);
+                ByteBuffer.wrap(slot).putLong(0, seq);
+                ring.endWrite(chunkBytes);
+            }
+        }, "Producer");
+        producer.start();
+
+        final byte[] destination = new byte[chunkBytes];
+        final byte[] expected = new byte[chunkBytes];
+        long read = 0;
+        long last = -1;
+        while (producer.isAlive() || last < total - 1) {
+            final int length = cursor.read(destination);
+            if (length < 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            final long seq = ByteBuffer.wrap(destination).getLong(0);
+            Arrays.fill(expected, (byte) seq);
+            ByteBuffer.wrap(expected).putLong(0, seq);
+            assertEquals(-1, Arrays.mismatch(expected, destination), "torn chunk " + seq);
+            assertTrue(seq > last, "chunk " + seq + " after " + last);
+            last = seq;
+            read++;
+        }
+        producer.join();
+
+        assertEquals(-1, cursor.read(destination));
+        assertEquals(total, read + cursor.lostChunks());
+    }
+
+    /**
+     * Publishes the chunk of a sequence number.
+     *
+     * @param theRing the ring.
+     * @param theSeq  the sequence number.
+     */
+    private static void write(final PcmRingBuffer theRing, final long theSeq) {
+        final byte[] slot = theRing.beginWrite();
+        final byte[] chunk = chunk(theSeq);
+        System.arraycopy(chunk, 0, slot, 0, chunk.length);
+        theRing.endWrite(chunk.length);
+    }
+
+    /**
+     * Builds the chunk of a sequence number: the number, then its low byte repeated, so a
+     * chunk mixing two writes is told apart.
+     *
+     * @param theSeq the sequence number.
+     * @return the chunk.
+     */
+    private static byte[] chunk(final long theSeq) {
+        final byte[] chunk = new byte[length(theSeq)];
+        Arrays.fill(chunk, (byte) theSeq);
+        ByteBuffer.wrap(chunk).putLong(0, theSeq);
+        return chunk;
+    }
+
+    /**
+     * Gets the length of the chunk of a sequence number; it varies so lengths are checked
+     * too.
+     *
+     * @param theSeq the sequence number.
+     * @return the length in bytes.
+     */
+    private static int length(final long theSeq) {
+        return HEADER + 1 + (int) (theSeq % (CHUNK_BYTES - HEADER));
+    }
+
+    /**
+     * Checks that a chunk read is whole and gets its sequence number.
+     *
+     * @param theChunk  the bytes read.
+     * @param theLength the length read returned.
+     * @return the sequence number.
+     */
+    private static long sequence(final byte[] theChunk, final int theLength) {
+        assertTrue(theLength > 0, "no chunk was read");
+        final long seq = ByteBuffer.wrap(theChunk).getLong(0);
+        assertEquals(length(seq), theLength, "length of chunk " + seq);
+        for (int i = HEADER; i < theLength; i++) {
+            assertEquals((byte) seq, theChunk[i], "byte " + i + " of chunk " + seq);
+        }
+        return seq;
+    }
+}
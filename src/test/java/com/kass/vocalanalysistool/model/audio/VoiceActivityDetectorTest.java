@@ -0,0 +1,198 @@
+package com.kass.vocalanalysistool.model.audio;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.kass.vocalanalysistool.model.GenderModel;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests that {@link VoiceActivityDetector} only cuts the silence around a take and that the
+ * trimmed take scores like the untrimmed one.
+ *
+ * @author Kassie Whitney
+ * @version 1/10/2026
+ */
+class VoiceActivityDetectorTest {
+
+    /**
+     * Sample rate of the synthetic take, the default analysis rate, so trimming is the only
+     * change.
+     */
+    private static final float SAMPLE_RATE = AudioNormalizer.DEFAULT_ANALYSIS_RATE;
+
+    /**
+     * The take: silence, voice, a pause longer than a bridged gap, voice, silence; in seconds.
+     */
+    private static final double[] PARTS = {1.0, 1.2, 0.6, 1.2, 1.0};
+
+    /**
+     * Largest difference of a voiced fraction between the trimmed and the untrimmed take,
+     * about a frame of pitch window at each cut.
+     */
+    private static final double MAX_FRACTION_ERROR = 0.01;
+
+    /**
+     * Where the takes are written.
+     */
+    @TempDir
+    Path myDirectory;
+
+    @Test
+    void trimsOnlyTheEnds() throws Exception {
+        final Path source = writeTake();
+        final VoiceActivityDetector.Trim trim = VoiceActivityDetector.trim(source,
+                myDirectory.resolve("trimmed.wav"), SAMPLE_RATE);
+
+        assertNotNull(trim);
+        assertEquals(2, trim.theRegions().size());
+        final long span = trim.theRegions().get(1).theEndFrame()
+                - trim.theRegions().get(0).theStartFrame();
+        assertEquals(span, trim.theKeptFrames());
+        assertEquals(span, AudioSystem.getAudioFileFormat(trim.theAudio().toFile())
+                .getFrameLength());
+        // The pause stays; only the silence at the ends, less the margins, is cut
+        assertEquals(PARTS[0] + PARTS[4] - 0.2, trim.trimmedSeconds(), 0.05);
+    }
+
+    @Test
+    void trimmedTakeKeepsVoicedFractionAndLabel() throws Exception {
+        final Path source = writeTake();
+        final VoiceActivityDetector.Trim trim = VoiceActivityDetector.trim(source,
+                myDirectory.resolve("trimmed.wav"), SAMPLE_RATE);
+        assertNotNull(trim);
+
+        final IncrementalAnalyzer.Summary untrimmed = analyze(source);
+        final IncrementalAnalyzer.Summary trimmed = analyze(trim.theAudio());
+        trimmed.addTrimmedSilence(trim.trimmedSeconds());
+        final Map<String, Double> expected = untrimmed.toResult().theFeatures();
+        final Map<String, Double> actual = trimmed.toResult().theFeatures();
+
+        assertTrue(expected.get("voiced_frac") < 0.70, "the silence counts as unvoiced");
+        for (final String fraction : new String[]{"voiced_frac", "hnr_voiced_fraction"}) {
+            assertEquals(expected.get(fraction), actual.get(fraction), MAX_FRACTION_ERROR,
+                    fraction);
+        }
+        assertEquals(expected.get("slope_st_per_sec"), actual.get("slope_st_per_sec"), 0.05);
+
+        final GenderModel model = GenderModel.bundled();
+        final GenderModel.Prediction before = model.predict(expected);
+        final GenderModel.Prediction after = model.predict(actual);
+        assertEquals(before.theLabel(), after.theLabel());
+        assertEquals(before.theScore(), after.theScore(), 0.02);
+    }
+
+    /**
+     * Analyzes a whole file.
+     *
+     * @param theAudio the file.
+     * @return the statistics of the file.
+     * @throws Exception thrown if the file can not be read.
+     */
+    private static IncrementalAnalyzer.Summary analyze(final Path theAudio) throws Exception {
+        final IncrementalAnalyzer analyzer = new IncrementalAnalyzer();
+        try (final AudioInputStream audio = AudioNormalizer.openPcm(theAudio)) {
+            VoiceActivityDetector.copy(audio, List.of(new VoiceActivityDetector.Region(0,
+                    Long.MAX_VALUE)), analyzer);
+        }
+        return analyzer.summary();
+    }
+
+    /**
+     * Writes the synthetic take: two gliding vowels in a faint noise floor.
+     *
+     * @return the WAV file.
+     * @throws IOException thrown if the file can not be written.
+     */
+    private Path writeTake() throws IOException {
+        int length = 0;
+        for (final double part : PARTS) {
+            length += (int) (part * SAMPLE_RATE);
+        }
+        final double[] samples = new double[length];
+        final Random noise = new Random(3);
+        for (int i = 0; i < length; i++) {
+            samples[i] = 0.0005 * noise.nextGaussian();
+        }
+
+        int start = 0;
+        for (int part = 0; part < PARTS.length; part++) {
+            final int partLength = (int) (PARTS[part] * SAMPLE_RATE);
+            if (part % 2 == 1) {
+                final double[] vowel = vowel(partLength);
+                for (int i = 0; i < partLength; i++) {
+                    samples[start + i] += vowel[i];
+                }
+            }
+            start += partLength;
+        }
+
+        final byte[] pcm = new byte[2 * length];
+        for (int i = 0; i < length; i++) {
+            final int value = (int) Math.round(Math.max(-1, Math.min(1, samples[i])) * 32767);
+            pcm[2 * i] = (byte) value;
+            pcm[2 * i + 1] = (byte) (value >> 8);
+        }
+        final Path take = myDirectory.resolve("take.wav");
+        final AudioFormat format = new AudioFormat(SAMPLE_RATE, 16, 1, true, false);
+        AudioSystem.write(new AudioInputStream(new ByteArrayInputStream(pcm), format, length),
+                AudioFileFormat.Type.WAVE, take.toFile());
+        return take;
+    }
+
+    /**
+     * Synthesizes a vowel: a pulse train gliding from 170 to 210 Hz through a resonator per
+     * formant.
+     *
+     * @param theLength the length in samples.
+     * @return the samples, peaking at 0.5.
+     */
+    private static double[] vowel(final int theLength) {
+        final double[] samples = new double[theLength];
+        double phase = 0;
+        for (int i = 0; i < theLength; i++) {
+            phase += (170 + 40.0 * i / theLength) / SAMPLE_RATE;
+            if (phase >= 1) {
+                phase -= 1;
+                samples[i] = 1;
+            }
+        }
+
+        final double[] formants = {550, 1900, 2700, 3600, 4500};
+        final double[] bandwidths = {80, 90, 120, 150, 200};
+        for (int n = 0; n < formants.length; n++) {
+            final double radius = Math.exp(-Math.PI * bandwidths[n] / SAMPLE_RATE);
+            final double a1 = 2 * radius * Math.cos(2 * Math.PI * formants[n] / SAMPLE_RATE);
+            final double a2 = -radius * radius;
+            double previous = 0;
+            double beforePrevious = 0;
+            for (int i = 0; i < theLength; i++) {
+                final double value = samples[i] + a1 * previous + a2 * beforePrevious;
+                beforePrevious = previous;
+                previous = value;
+                samples[i] = value;
+            }
+        }
+
+        double peak = 0;
+        for (final double sample : samples) {
+            peak = Math.max(peak, Math.abs(sample));
+        }
+        for (int i = 0; i < theLength; i++) {
+            samples[i] *= 0.5 / peak;
+        }
+        return samples;
+    }
+}
@@ -0,0 +1,248 @@
+package com.kass.vocalanalysistool.model.dsp;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link FormantTracker} on a synthetic vowel and against the reference formant tracks
+ * of the recordings in {@code src/test/resources/reference}. The checked-in track holds the
+ * resonators {@code glide_vowel.wav} was synthesized with; where
+ * {@code dump_reference_tracks.py} has been run, it is what parselmouth's
+ * {@code to_formant_burg} measured instead.
+ *
+ * @author Kassie Whitney
+ * @version 1/10/2026
+ */
+class FormantTrackerTest {
+
+    /**
+     * Sample rate of the synthetic vowel.
+     */
+    private static final double SAMPLE_RATE = 44100;
+
+    /**
+     * Formants of the synthetic vowel, an /a/. A fifth one fills the band below 5500 Hz, as in
+     * a real voice; without it Burg fits a pole between F2 and F3.
+     */
+    private static final double[] VOWEL_FORMANTS = {700, 1220, 2600, 3500, 4500};
+
+    /**
+     * Bandwidths of the synthetic vowel's formants.
+     */
+    private static final double[] VOWEL_BANDWIDTHS = {80, 90, 120, 150, 200};
+
+    /**
+     * Largest relative difference to the synthetic vowel's formants. LPC pulls a formant
+     * towards the nearest harmonic of the 120 Hz pulse train by up to half its spacing.
+     */
+    private static final double MAX_SYNTHETIC_ERROR = 0.10;
+
+    /**
+     * Suffix of the reference formant dumps.
+     */
+    private static final String FORMANT_DUMP = ".formants.csv";
+
+    /**
+     * Reference frames on either side of the nearest one a tracker frame may match.
+     */
+    private static final int FRAME_TOLERANCE = 1;
+
+    /**
+     * Least share of the frames where the reference has a formant on which the tracker must
+     * report it too.
+     */
+    private static final double MIN_COVERAGE = 0.90;
+
+    /**
+     * Largest median relative difference to the reference value of each formant.
+     */
+    private static final double MAX_MEDIAN_ERROR = 0.05;
+
+    @Test
+    void findsSyntheticVowelFormants() {
+        final double[][] track = new FormantTracker(SAMPLE_RATE).track(vowel(1.0));
+
+        assertTrue(track[0].length > 90);
+        for (int n = 0; n < FormantTracker.TRACKED_FORMANTS; n++) {
+            final double median = median(track[n + 1]);
+            assertEquals(VOWEL_FORMANTS[n], median, VOWEL_FORMANTS[n] * MAX_SYNTHETIC_ERROR,
+                    "F" + (n + 1));
+        }
+    }
+
+    @Test
+    void silenceHasNoFormants() {
+        final double[][] track = new FormantTracker(SAMPLE_RATE).track(
+                new double[(int) SAMPLE_RATE / 2]);
+
+        assertTrue(track[0].length > 0);
+        for (int n = 1; n <= FormantTracker.TRACKED_FORMANTS; n++) {
+            for (final double value : track[n]) {
+                assertTrue(Double.isNaN(value));
+            }
+        }
+    }
+
+    @Test
+    void tracksPartIntoPreallocatedRows() {
+        final double[] samples = vowel(0.6);
+        final int offset = 4410;
+        final int length = 13230;
+        final FormantTracker tracker = new FormantTracker(SAMPLE_RATE);
+        final double[][] copy = tracker.track(Arrays.copyOfRange(samples, offset,
+                offset + length));
+
+        final double[][] rows = new double[FormantTracker.TRACKED_FORMANTS + 1]
+                [tracker.frames(length) + 5];
+        final int frames = tracker.track(samples, offset, length, rows);
+
+        assertEquals(copy[0].length, frames);
+        for (int n = 0; n <= FormantTracker.TRACKED_FORMANTS; n++) {
+            assertArrayEquals(copy[n], Arrays.copyOf(rows[n], frames));
+        }
+        assertThrows(IllegalArgumentException.class, () -> tracker.track(samples, offset,
+                length, new double[FormantTracker.TRACKED_FORMANTS + 1][frames - 1]));
+    }
+
+    @Test
+    void matrixKeepsOnlyVoicedFrames() {
+        final double[] samples = new double[(int) SAMPLE_RATE];
+        System.arraycopy(vowel(0.5), 0, samples, 0, samples.length / 2);
+        final double[][] formants = new FormantTracker(SAMPLE_RATE).track(samples);
+
+        final double[][] matrix = FormantTracker.toFormantMatrix(formants,
+                PitchTracker.track(samples, SAMPLE_RATE));
+
+        assertTrue(matrix[0].length > 30);
+        assertTrue(matrix[0].length < formants[0].length / 2 + FRAME_TOLERANCE);
+        for (final double f0 : matrix[0]) {
+            assertEquals(120, f0, 120 * 0.02);
+        }
+    }
+
+    @Test
+    void matchesReferenceTracks() throws IOException {
+        final List<Path> recordings = ReferenceTracks.recordings();
+        assertFalse(recordings.isEmpty(), "No reference recordings in "
+                + ReferenceTracks.DIRECTORY + "; run synthesize_reference.py there");
+
+        for (final Path recording : recordings) {
+            final Path dump = ReferenceTracks.dumpOf(recording, FORMANT_DUMP);
+            assertTrue(Files.isRegularFile(dump), "No formant dump of " + recording
+                    + "; run dump_reference_tracks.py in " + ReferenceTracks.DIRECTORY);
+            final double[][] reference = ReferenceTracks.readDump(dump);
+            final double[][] track = new FormantTracker(ReferenceTracks.sampleRate(recording))
+                    .track(ReferenceTracks.readSamples(recording));
+            for (int n = 1; n <= FormantTracker.TRACKED_FORMANTS; n++) {
+                compare(recording.getFileName() + " F" + n, track[0], track[n], reference[0],
+                        reference[n]);
+            }
+        }
+    }
+
+    /**
+     * Compares one formant of a track with the reference, frame by frame.
+     *
+     * @param theName           the recording and formant, for the messages.
+     * @param theTimes          the tracker's frame times.
+     * @param theValues         the tracker's values of the formant.
+     * @param theReferenceTimes the reference frame times.
+     * @param theReference      the reference values of the formant.
+     */
+    private static void compare(final String theName, final double[] theTimes,
+                                final double[] theValues, final double[] theReferenceTimes,
+                                final double[] theReference) {
+        int expected = 0;
+        final List<Double> errors = new ArrayList<>();
+
+        for (int frame = 0; frame < theTimes.length; frame++) {
+            final int nearest = ReferenceTracks.nearestFrame(theReferenceTimes, theTimes[frame]);
+            if (Math.abs(theReferenceTimes[nearest] - theTimes[frame])
+                    > FormantTracker.HOP_SECONDS || Double.isNaN(theReference[nearest])) {
+                continue;
+            }
+            expected++;
+            if (Double.isNaN(theValues[frame])) {
+                continue;
+            }
+
+            double closest = Double.POSITIVE_INFINITY;
+            for (int i = Math.max(0, nearest - FRAME_TOLERANCE);
+                 i <= Math.min(theReference.length - 1, nearest + FRAME_TOLERANCE); i++) {
+                if (!Double.isNaN(theReference[i])) {
+                    closest = Math.min(closest,
+                            Math.abs(theValues[frame] - theReference[i]) / theReference[i]);
+                }
+            }
+            errors.add(closest);
+        }
+
+        assertTrue(expected > 0, theName + ": no frames overlap the dump");
+        assertTrue((double) errors.size() / expected >= MIN_COVERAGE,
+                theName + ": found on " + errors.size() + " of " + expected + " frames");
+
+        final double median = median(errors.stream().mapToDouble(Double::doubleValue).toArray());
+        assertTrue(median <= MAX_MEDIAN_ERROR,
+                theName + ": median relative difference " + median);
+    }
+
+    /**
+     * Gets the median of the defined values.
+     *
+     * @param theValues the values; NaN is skipped.
+     * @return the median.
+     */
+    private static double median(final double[] theValues) {
+        final double[] sorted = Arrays.stream(theValues)
+                .filter(theValue -> !Double.isNaN(theValue)).sorted().toArray();
+        assertTrue(sorted.length > 0, "no defined values");
+        return sorted[sorted.length / 2];
+    }
+
+    /**
+     * Synthesizes a vowel: a 120 Hz pulse train through a resonator per formant.
+     *
+     * @param theSeconds the length.
+     * @return the samples, peaking at 0.5.
+     */
+    private static double[] vowel(final double theSeconds) {
+        final double[] samples = new double[(int) (theSeconds * SAMPLE_RATE)];
+        for (int i = 0; i < samples.length; i += (int) (SAMPLE_RATE / 120)) {
+            samples[i] = 1;
+        }
+
+        for (int n = 0; n < VOWEL_FORMANTS.length; n++) {
+            final double radius = Math.exp(-Math.PI * VOWEL_BANDWIDTHS[n] / SAMPLE_RATE);
+            final double a1 = 2 * radius * Math.cos(2 * Math.PI * VOWEL_FORMANTS[n] / SAMPLE_RATE);
+            final double a2 = -radius * radius;
+            double previous = 0;
+            double beforePrevious = 0;
+            for (int i = 0; i < samples.length; i++) {
+                final double value = samples[i] + a1 * previous + a2 * beforePrevious;
+                beforePrevious = previous;
+                previous = value;
+                samples[i] = value;
+            }
+        }
+
+        double peak = 0;
+        for (final double sample : samples) {
+            peak = Math.max(peak, Math.abs(sample));
+        }
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] *= 0.5 / peak;
+        }
+        return samples;
+    }
+}
@@ -0,0 +1,232 @@
+package com.kass.vocalanalysistool.model.dsp;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link PitchTracker} on synthetic tones and against the reference F0 tracks of the
+ * recordings in {@code src/test/resources/reference}. The checked-in track is the glide
+ * {@code glide_vowel.wav} was synthesized with; where {@code dump_reference_tracks.py} has been
+ * run, it is the F0 parselmouth measured instead.
+ *
+ * @author Kassie Whitney
+ * @version 1/10/2026
+ */
+class PitchTrackerTest {
+
+    /**
+     * Sample rate of the synthetic tones.
+     */
+    private static final double SAMPLE_RATE = 44100;
+
+    /**
+     * Suffix of the reference F0 dumps.
+     */
+    private static final String F0_DUMP = ".f0.csv";
+
+    /**
+     * Reference frames on either side of the nearest one a tracker frame may match, since the
+     * tracker centres its frames differently from Praat's frame layout the dumps use.
+     */
+    private static final int FRAME_TOLERANCE = 1;
+
+    /**
+     * Least share of frames on which both trackers must agree whether they are voiced.
+     */
+    private static final double MIN_VOICING_AGREEMENT = 0.90;
+
+    /**
+     * Largest median difference to the reference F0 on frames both call voiced, in cents.
+     */
+    private static final double MAX_MEDIAN_CENTS = 25;
+
+    /**
+     * A voiced frame further than this from the reference F0 is a gross error, such as an octave
+     * jump.
+     */
+    private static final double GROSS_ERROR_CENTS = 100;
+
+    /**
+     * Largest share of gross errors.
+     */
+    private static final double MAX_GROSS_ERRORS = 0.05;
+
+    @Test
+    void tracksHarmonicTone() {
+        final double[][] track = PitchTracker.track(tone(220, 1.0), SAMPLE_RATE);
+
+        assertTrue(track[0].length > 90);
+        for (final double f0 : track[1]) {
+            assertEquals(220, f0, 220 * 0.01);
+        }
+    }
+
+    @Test
+    void followsGlide() {
+        final int length = (int) SAMPLE_RATE;
+        final double[] samples = new double[length];
+        for (int i = 0; i < length; i++) {
+            final double t = i / SAMPLE_RATE;
+            // 120 Hz rising by 100 Hz per second
+            final double phase = 2 * Math.PI * (120 * t + 50 * t * t);
+            samples[i] = 0.3 * Math.sin(phase) + 0.2 * Math.sin(2 * phase)
+                    + 0.1 * Math.sin(3 * phase);
+        }
+
+        final double[][] track = PitchTracker.track(samples, SAMPLE_RATE);
+        for (int frame = 0; frame < track[0].length; frame++) {
+            final double expected = 120 + 100 * track[0][frame];
+            assertEquals(expected, track[1][frame], expected * 0.02,
+                    "frame at " + track[0][frame] + " s");
+        }
+    }
+
+    @Test
+    void silenceIsUnvoiced() {
+        final double[][] track = PitchTracker.track(new double[(int) SAMPLE_RATE / 2],
+                SAMPLE_RATE);
+
+        assertTrue(track[0].length > 0);
+        for (final double f0 : track[1]) {
+            assertTrue(Double.isNaN(f0));
+        }
+    }
+
+    @Test
+    void streamingMatchesWholeRecording() {
+        final double[] samples = tone(180, 0.5);
+        final byte[] pcm = new byte[2 * samples.length];
+        for (int i = 0; i < samples.length; i++) {
+            final short value = (short) Math.round(samples[i] * 32767);
+            pcm[2 * i] = (byte) value;
+            pcm[2 * i + 1] = (byte) (value >> 8);
+        }
+        final double[] quantized = new double[samples.length];
+        for (int i = 0; i < samples.length; i++) {
+            quantized[i] = (short) ((pcm[2 * i + 1] << 8) | (pcm[2 * i] & 0xFF)) / 32768.0;
+        }
+
+        final List<Double> times = new ArrayList<>();
+        final List<Double> values = new ArrayList<>();
+        final PitchTracker tracker = new PitchTracker(SAMPLE_RATE, (theTime, theF0) -> {
+            times.add(theTime);
+            values.add(theF0);
+        });
+        // Odd chunk sizes split samples across calls
+        for (int offset = 0; offset < pcm.length; offset += 1001) {
+            tracker.process(pcm, offset, Math.min(1001, pcm.length - offset));
+        }
+
+        final double[][] whole = PitchTracker.track(quantized, SAMPLE_RATE);
+        assertArrayEquals(whole[0], times.stream().mapToDouble(Double::doubleValue).toArray());
+        assertArrayEquals(whole[1], values.stream().mapToDouble(Double::doubleValue).toArray());
+    }
+
+    @Test
+    void matchesReferenceTracks() throws IOException {
+        final List<Path> recordings = ReferenceTracks.recordings();
+        assertFalse(recordings.isEmpty(), "No reference recordings in "
+                + ReferenceTracks.DIRECTORY + "; run synthesize_reference.py there");
+
+        for (final Path recording : recordings) {
+            final Path dump = ReferenceTracks.dumpOf(recording, F0_DUMP);
+            assertTrue(Files.isRegularFile(dump), "No F0 dump of " + recording
+                    + "; run dump_reference_tracks.py in " + ReferenceTracks.DIRECTORY);
+            final double[][] reference = ReferenceTracks.readDump(dump);
+            final double[][] track = PitchTracker.track(ReferenceTracks.readSamples(recording),
+                    ReferenceTracks.sampleRate(recording));
+            compare(recording.getFileName().toString(), track, reference);
+        }
+    }
+
+    /**
+     * Compares a track with the reference, frame by frame.
+     *
+     * @param theName      the recording's name, for the messages.
+     * @param theTrack     the tracker's times and F0.
+     * @param theReference the reference times and F0.
+     */
+    private static void compare(final String theName, final double[][] theTrack,
+                                final double[][] theReference) {
+        final double[] times = theReference[0];
+        final double[] reference = theReference[1];
+        final double first = times[0];
+        final double last = times[times.length - 1];
+
+        int compared = 0;
+        int agreed = 0;
+        final List<Double> cents = new ArrayList<>();
+
+        for (int frame = 0; frame < theTrack[0].length; frame++) {
+            final double time = theTrack[0][frame];
+            if (time < first || time > last) {
+                continue;
+            }
+            final int nearest = ReferenceTracks.nearestFrame(times, time);
+            final double f0 = theTrack[1][frame];
+            compared++;
+
+            // Voicing agrees when any reference frame within the tolerance agrees, so a voicing
+            // boundary a frame early or late is not a disagreement
+            boolean voicingAgrees = false;
+            double closest = Double.POSITIVE_INFINITY;
+            for (int i = Math.max(0, nearest - FRAME_TOLERANCE);
+                 i <= Math.min(times.length - 1, nearest + FRAME_TOLERANCE); i++) {
+                voicingAgrees |= Double.isNaN(f0) == Double.isNaN(reference[i]);
+                if (!Double.isNaN(f0) && !Double.isNaN(reference[i])) {
+                    closest = Math.min(closest,
+                            Math.abs(1200 * Math.log(f0 / reference[i]) / Math.log(2)));
+                }
+            }
+            if (voicingAgrees) {
+                agreed++;
+            }
+            if (!Double.isNaN(f0) && !Double.isNaN(reference[nearest])) {
+                cents.add(closest);
+            }
+        }
+
+        assertTrue(compared > 0, theName + ": no frames overlap the dump");
+        assertTrue((double) agreed / compared >= MIN_VOICING_AGREEMENT,
+                theName + ": voicing agrees on " + agreed + " of " + compared + " frames");
+        assertFalse(cents.isEmpty(), theName + ": no frames voiced by both trackers");
+
+        final double[] sorted = cents.stream().mapToDouble(Double::doubleValue).sorted()
+                .toArray();
+        final double median = sorted[sorted.length / 2];
+        final long gross = Arrays.stream(sorted).filter(theCents -> theCents > GROSS_ERROR_CENTS)
+                .count();
+        assertTrue(median <= MAX_MEDIAN_CENTS,
+                theName + ": median F0 difference " + median + " cents");
+        assertTrue((double) gross / sorted.length <= MAX_GROSS_ERRORS,
+                theName + ": " + gross + " of " + sorted.length + " frames off by more than "
+                        + GROSS_ERROR_CENTS + " cents");
+    }
+
+    /**
+     * Synthesizes a tone with three harmonics.
+     *
+     * @param theFrequency the fundamental in Hz.
+     * @param theSeconds   the length.
+     * @return the samples.
+     */
+    private static double[] tone(final double theFrequency, final double theSeconds) {
+        final double[] samples = new double[(int) (theSeconds * SAMPLE_RATE)];
+        for (int i = 0; i < samples.length; i++) {
+            final double phase = 2 * Math.PI * theFrequency * i / SAMPLE_RATE;
+            samples[i] = 0.3 * Math.sin(phase) + 0.2 * Math.sin(2 * phase)
+                    + 0.1 * Math.sin(3 * phase);
+        }
+        return samples;
+    }
+}
@@ -0,0 +1,155 @@
+package com.kass.vocalanalysistool.model.dsp;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * Loads the reference recordings in {@code src/test/resources/reference} and their reference
+ * tracks.
+ *
+ * <p>Every {@code <name>.wav} there must have a {@code <name>.f0.csv} and a
+ * {@code <name>.formants.csv} dump next to it. A dump holds one frame per line at the frame
+ * times Praat uses with the python script's settings, frame time first, and {@code NaN} for
+ * undefined values. The checked-in dumps of {@code glide_vowel.wav} are the tracks
+ * {@code synthesize_reference.py} synthesized it with, so they are ground truth rather than
+ * Praat's measurement; {@code dump_reference_tracks.py} replaces them with what parselmouth
+ * measures where it is installed.</p>
+ *
+ * @author Kassie Whitney
+ * @version 1/10/2026
+ */
+final class ReferenceTracks {
+
+    /**
+     * Directory of the reference recordings and their dumps, relative to the project.
+     */
+    static final Path DIRECTORY = Path.of("src", "test", "resources", "reference");
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private ReferenceTracks() {
+    }
+
+    /**
+     * Lists the reference recordings.
+     *
+     * @return the recordings, by name.
+     * @throws IOException thrown if the directory can not be listed.
+     */
+    static List<Path> recordings() throws IOException {
+        final List<Path> recordings = new ArrayList<>();
+        try (final Stream<Path> files = Files.list(DIRECTORY)) {
+            files.filter(theFile -> theFile.getFileName().toString().endsWith(".wav"))
+                    .sorted()
+                    .forEach(recordings::add);
+        }
+        return recordings;
+    }
+
+    /**
+     * Gets the dump of a recording.
+     *
+     * @param theRecording the recording.
+     * @param theSuffix    the dump's suffix.
+     * @return the dump's path.
+     */
+    static Path dumpOf(final Path theRecording, final String theSuffix) {
+        final String name = theRecording.getFileName().toString();
+        return theRecording.resolveSibling(name.substring(0, name.length() - 4) + theSuffix);
+    }
+
+    /**
+     * Reads a dump.
+     *
+     * @param theDump the dump.
+     * @return one row per column of the dump, one value per frame.
+     * @throws IOException thrown if the dump can not be read.
+     */
+    static double[][] readDump(final Path theDump) throws IOException {
+        final List<String> lines = Files.readAllLines(theDump);
+        final int columns = lines.get(0).split(",").length;
+        final double[][] values = new double[columns][lines.size() - 1];
+        for (int row = 1; row < lines.size(); row++) {
+            final String[] fields = lines.get(row).split(",");
+            for (int column = 0; column < columns; column++) {
+                values[column][row - 1] = Double.parseDouble(fields[column].trim());
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Reads a mono recording.
+     *
+     * @param theRecording the recording.
+     * @return the samples, -1 to 1.
+     * @throws IOException thrown if the recording can not be read.
+     */
+    static double[] readSamples(final Path theRecording) throws IOException {
+        try (final AudioInputStream in = AudioSystem.getAudioInputStream(theRecording.toFile())) {
+            final AudioFormat format = in.getFormat();
+            if (format.getChannels() != 1 || format.getSampleSizeInBits() != 16) {
+                throw new IOException(theRecording + " is not 16-bit mono");
+            }
+            final byte[] pcm = in.readAllBytes();
+            final double[] samples = new double[pcm.length / 2];
+            for (int i = 0; i < samples.length; i++) {
+                final int low = pcm[format.isBigEndian() ? 2 * i + 1 : 2 * i] & 0xFF;
+                final int high = pcm[format.isBigEndian() ? 2 * i : 2 * i + 1];
+                samples[i] = (short) ((high << 8) | low) / 32768.0;
+            }
+            return samples;
+        } catch (final UnsupportedAudioFileException theException) {
+            throw new IOException(theRecording + " is not a WAV file", theException);
+        }
+    }
+
+    /**
+     * Reads the sample rate of a recording.
+     *
+     * @param theRecording the recording.
+     * @return the sample rate.
+     * @throws IOException thrown if the recording can not be read.
+     */
+    static double sampleRate(final Path theRecording) throws IOException {
+        try {
+            return AudioSystem.getAudioFileFormat(theRecording.toFile()).getFormat()
+                    .getSampleRate();
+        } catch (final UnsupportedAudioFileException theException) {
+            throw new IOException(theRecording + " is not a WAV file", theException);
+        }
+    }
+
+    /**
+     * Finds the reference frame nearest to a time.
+     *
+     * @param theTimes the reference frame times, ascending.
+     * @param theTime  the time.
+     * @return the index of the nearest frame.
+     */
+    static int nearestFrame(final double[] theTimes, final double theTime) {
+        int low = 0;
+        int high = theTimes.length - 1;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (theTimes[mid] < theTime) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        if (low > 0 && theTime - theTimes[low - 1] < theTimes[low] - theTime) {
+            low--;
+        }
+        return low;
+    }
+}
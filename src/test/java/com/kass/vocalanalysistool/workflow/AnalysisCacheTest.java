@@ -0,0 +1,333 @@
+package com.kass.vocalanalysistool.workflow;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.kass.vocalanalysistool.common.WorkflowResult;
+import com.kass.vocalanalysistool.model.audio.AudioNormalizer;
+import com.kass.vocalanalysistool.model.audio.VoiceActivityDetector;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that {@link AnalysisCache#singleFlight} runs one analysis per recording at a time,
+ * hands a cancelled one over to a waiting caller, and that {@link AnalysisCache#keyOf} keeps
+ * apart the results of different analyzers and settings.
+ *
+ * @author Kassie Whitney
+ * @version 1/10/2026
+ */
+class AnalysisCacheTest {
+
+    /**
+     * How long a test waits for another thread before it fails.
+     */
+    private static final long TIMEOUT_MS = 10_000;
+
+    /**
+     * A recording digest.
+     */
+    private static final String DIGEST = "0123456789abcdef";
+
+    @Test
+    void sharesRunningAnalysis() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger runs = new AtomicInteger();
+        final Caller leader = call("share", () -> {
+            runs.incrementAndGet();
+            release.await();
+            return WorkflowResult.SUCCESS;
+        });
+        awaitRuns(runs, 1);
+
+        final Caller waiter = call("share", () -> {
+            runs.incrementAndGet();
+            return WorkflowResult.FAILED;
+        });
+        waiter.awaitParked();
+        release.countDown();
+
+        assertEquals(WorkflowResult.SUCCESS, leader.result());
+        assertEquals(WorkflowResult.SUCCESS, waiter.result());
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void runsOtherRecordingsSideBySide() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger runs = new AtomicInteger();
+        final AnalysisCache.Analysis analysis = () -> {
+            runs.incrementAndGet();
+            release.await();
+            return WorkflowResult.SUCCESS;
+        };
+
+        final Caller first = call("apart-1", analysis);
+        final Caller second = call("apart-2", analysis);
+        awaitRuns(runs, 2);
+        release.countDown();
+
+        assertEquals(WorkflowResult.SUCCESS, first.result());
+        assertEquals(WorkflowResult.SUCCESS, second.result());
+    }
+
+    @Test
+    void waiterTakesOverCancelledResult() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger runs = new AtomicInteger();
+        final Caller leader = call("cancelled", () -> {
+            runs.incrementAndGet();
+            release.await();
+            return WorkflowResult.CANCELLED;
+        });
+        awaitRuns(runs, 1);
+
+        final Caller waiter = call("cancelled", () -> {
+            runs.incrementAndGet();
+            return WorkflowResult.SUCCESS;
+        });
+        waiter.awaitParked();
+        release.countDown();
+
+        assertEquals(WorkflowResult.CANCELLED, leader.result());
+        assertEquals(WorkflowResult.SUCCESS, waiter.result());
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    void waiterTakesOverInterruptedLeaderAndOthersWaitForIt() throws Exception {
+        final CountDownLatch cancel = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger runs = new AtomicInteger();
+        final Caller leader = call("interrupted", () -> {
+            runs.incrementAndGet();
+            cancel.await();
+            throw new InterruptedException("cancelled");
+        });
+        awaitRuns(runs, 1);
+
+        final AtomicReference<Thread> takeover = new AtomicReference<>();
+        final AnalysisCache.Analysis rerun = () -> {
+            takeover.set(Thread.currentThread());
+            runs.incrementAndGet();
+            release.await();
+            return WorkflowResult.SUCCESS;
+        };
+        final List<Caller> waiters = List.of(call("interrupted", rerun),
+                call("interrupted", rerun));
+        final Object[] blockers = new Object[waiters.size()];
+        for (int i = 0; i < blockers.length; i++) {
+            blockers[i] = waiters.get(i).awaitParked();
+        }
+        cancel.countDown();
+
+        // One waiter runs the analysis again, the other parks anew to wait for it
+        awaitRuns(runs, 2);
+        for (int i = 0; i < blockers.length; i++) {
+            if (waiters.get(i).theThread() != takeover.get()) {
+                waiters.get(i).awaitParkedOtherThan(blockers[i]);
+            }
+        }
+        release.countDown();
+
+        final ExecutionException failure = leader.failure();
+        assertInstanceOf(InterruptedException.class, failure.getCause());
+        for (final Caller waiter : waiters) {
+            assertEquals(WorkflowResult.SUCCESS, waiter.result());
+        }
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    void waiterSharesFailure() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger runs = new AtomicInteger();
+        final IOException cause = new IOException("worker died");
+        final Caller leader = call("failed", () -> {
+            runs.incrementAndGet();
+            release.await();
+            throw cause;
+        });
+        awaitRuns(runs, 1);
+
+        final Caller waiter = call("failed", () -> {
+            runs.incrementAndGet();
+            return WorkflowResult.SUCCESS;
+        });
+        waiter.awaitParked();
+        release.countDown();
+
+        assertSame(cause, leader.failure().getCause());
+        final Throwable shared = waiter.failure().getCause();
+        assertInstanceOf(IOException.class, shared);
+        assertSame(cause, shared.getCause());
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void keySeparatesAnalyzers() throws IOException {
+        final String python = AnalysisCache.keyOf(DIGEST, AnalysisCache.Analyzer.PYTHON);
+        final String java = AnalysisCache.keyOf(DIGEST, AnalysisCache.Analyzer.JAVA);
+
+        assertEquals(python, AnalysisCache.keyOf(DIGEST, AnalysisCache.Analyzer.PYTHON));
+        assertNotEquals(python, java);
+        assertNotEquals(python, AnalysisCache.keyOf(DIGEST + "0",
+                AnalysisCache.Analyzer.PYTHON));
+    }
+
+    @Test
+    void keySeparatesAnalysisRates() throws IOException {
+        final String property = AudioNormalizer.ANALYSIS_RATE_PROPERTY;
+        final String previous = System.getProperty(property);
+        try {
+            System.clearProperty(property);
+            final String standard = AnalysisCache.keyOf(DIGEST, AnalysisCache.Analyzer.JAVA);
+            System.setProperty(property, "11025");
+            final String lower = AnalysisCache.keyOf(DIGEST, AnalysisCache.Analyzer.JAVA);
+            // The rate is what is analyzed, not how it was asked for
+            System.setProperty(property, String.valueOf(AudioNormalizer.DEFAULT_ANALYSIS_RATE));
+
+            assertNotEquals(standard, lower);
+            assertEquals(standard, AnalysisCache.keyOf(DIGEST, AnalysisCache.Analyzer.JAVA));
+        } finally {
+            restore(property, previous);
+        }
+    }
+
+    @Test
+    void keySeparatesKeptSilence() throws IOException {
+        final String property = VoiceActivityDetector.KEEP_SILENCE_PROPERTY;
+        final String previous = System.getProperty(property);
+        try {
+            System.clearProperty(property);
+            final String trimmed = AnalysisCache.keyOf(DIGEST, AnalysisCache.Analyzer.PYTHON);
+            System.setProperty(property, "true");
+
+            assertNotEquals(trimmed, AnalysisCache.keyOf(DIGEST, AnalysisCache.Analyzer.PYTHON));
+        } finally {
+            restore(property, previous);
+        }
+    }
+
+    /**
+     * Calls {@link AnalysisCache#singleFlight} on a thread of its own.
+     *
+     * @param theKey      the recording's key.
+     * @param theAnalysis the analysis.
+     * @return the caller.
+     */
+    private static Caller call(final String theKey, final AnalysisCache.Analysis theAnalysis) {
+        final FutureTask<WorkflowResult> task =
+                new FutureTask<>(() -> AnalysisCache.singleFlight(theKey, theAnalysis));
+        final Thread thread = new Thread(task, "caller-" + theKey);
+        thread.setDaemon(true);
+        thread.start();
+        return new Caller(thread, task);
+    }
+
+    /**
+     * Waits until analyses were started a number of times.
+     *
+     * @param theRuns  counts the started analyses.
+     * @param theCount the count to wait for.
+     * @throws InterruptedException thrown if the test was interrupted.
+     */
+    private static void awaitRuns(final AtomicInteger theRuns, final int theCount)
+            throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MS);
+        while (theRuns.get() < theCount) {
+            assertTrue(System.nanoTime() < deadline, "only " + theRuns.get() + " runs");
+            Thread.sleep(1);
+        }
+    }
+
+    /**
+     * Restores a system property.
+     *
+     * @param theName  the property.
+     * @param theValue its value before the test, or null.
+     */
+    private static void restore(final String theName, final String theValue) {
+        if (theValue == null) {
+            System.clearProperty(theName);
+        } else {
+            System.setProperty(theName, theValue);
+        }
+    }
+
+    /**
+     * A thread calling {@link AnalysisCache#singleFlight}.
+     *
+     * @param theThread the thread.
+     * @param theResult what the call returned or threw.
+     */
+    private record Caller(Thread theThread, FutureTask<WorkflowResult> theResult) {
+
+        /**
+         * Waits until the caller parked waiting for another caller's analysis.
+         *
+         * @return the object it parked on, new for every wait.
+         * @throws InterruptedException thrown if the test was interrupted.
+         */
+        private Object awaitParked() throws InterruptedException {
+            return awaitParkedOtherThan(null);
+        }
+
+        /**
+         * Waits until the caller parked on another wait than a given one.
+         *
+         * @param theBlocker the object of the earlier wait, or null.
+         * @return the object it parked on.
+         * @throws InterruptedException thrown if the test was interrupted.
+         */
+        private Object awaitParkedOtherThan(final Object theBlocker)
+                throws InterruptedException {
+            final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MS);
+            while (true) {
+                final Object blocker = LockSupport.getBlocker(theThread);
+                if (blocker != null && blocker != theBlocker
+                        && theThread.getState() == Thread.State.WAITING) {
+                    return blocker;
+                }
+                assertTrue(System.nanoTime() < deadline, theThread.getName() + " never parked");
+                Thread.sleep(1);
+            }
+        }
+
+        /**
+         * Gets what the call returned.
+         *
+         * @return the result.
+         * @throws Exception thrown if the call threw.
+         */
+        private WorkflowResult result() throws Exception {
+            return theResult.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * Gets what the call threw.
+         *
+         * @return the failure, its cause being the thrown exception.
+         * @throws Exception thrown if the call did not finish in time.
+         */
+        private ExecutionException failure() throws Exception {
+            try {
+                theResult.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            } catch (final ExecutionException theException) {
+                return theException;
+            }
+            throw new AssertionError("the call returned");
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.kass.vocalanalysistool.workflow;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.kass.vocalanalysistool.common.WorkflowResult;
+import com.kass.vocalanalysistool.model.UserSampleDatabase;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that {@link AnalysisEventDecoder} decodes every event the worker sends, falls back for
+ * missing members and turns anything it can not read into {@link AnalysisEvent.Unknown}.
+ *
+ * @author Kassie Whitney
+ * @version 1/10/2026
+ */
+class AnalysisEventDecoderTest {
+
+    /**
+     * A measured row as the worker sends it: no label, no score.
+     */
+    private static final String SAMPLE = """
+            {"time": [0.01, 0.02], "f0": [110.5, 112.0], "f1": [500, 510],
+             "f2": [1500, 1525.5], "formant_med": [505, 1512, 2500, 3500],
+             "scatter_plot": "iVBORw==", "features_json": "{\\"f0_med\\": 111.25}"}""";
+
+    @Test
+    void decodesReady() {
+        assertEquals(new AnalysisEvent.Ready(4242),
+                AnalysisEventDecoder.decode("{\"type\": \"ready\", \"pid\": 4242}"));
+        assertEquals(new AnalysisEvent.Ready(-1),
+                AnalysisEventDecoder.decode("{\"type\": \"ready\"}"));
+    }
+
+    @Test
+    void decodesPong() {
+        assertEquals(new AnalysisEvent.Pong(7),
+                AnalysisEventDecoder.decode("{\"type\": \"pong\", \"id\": 7}"));
+        assertEquals(new AnalysisEvent.Pong(-1),
+                AnalysisEventDecoder.decode("{\"type\": \"pong\", \"id\": null}"));
+    }
+
+    @Test
+    void decodesPhases() {
+        final AnalysisEvent.Phase start = assertInstanceOf(AnalysisEvent.Phase.class,
+                AnalysisEventDecoder.decode(
+                        "{\"type\": \"phase\", \"phase\": \"formant\", \"state\": \"start\"}"));
+        assertEquals("formant", start.thePhase());
+        assertTrue(start.theStarted());
+        assertTrue(Double.isNaN(start.theElapsedMs()));
+
+        assertEquals(new AnalysisEvent.Phase("formant", false, 812.5),
+                AnalysisEventDecoder.decode("{\"type\": \"phase\", \"phase\": \"formant\","
+                        + " \"state\": \"end\", \"elapsed_ms\": 812.5}"));
+    }
+
+    @Test
+    void decodesProgress() {
+        assertEquals(new AnalysisEvent.Progress(0.25, "Tracking formants..."),
+                AnalysisEventDecoder.decode("{\"type\": \"progress\", \"fraction\": 0.25,"
+                        + " \"message\": \"Tracking formants...\"}"));
+
+        final AnalysisEvent.Progress bare = assertInstanceOf(AnalysisEvent.Progress.class,
+                AnalysisEventDecoder.decode("{\"type\": \"progress\"}"));
+        assertTrue(Double.isNaN(bare.theFraction()));
+        assertNull(bare.theMessage());
+    }
+
+    @Test
+    void decodesWarning() {
+        assertEquals(new AnalysisEvent.Warning("low_voicing", "Few voiced frames"),
+                AnalysisEventDecoder.decode("{\"type\": \"warning\", \"code\": \"low_voicing\","
+                        + " \"message\": \"Few voiced frames\"}"));
+    }
+
+    @Test
+    void decodesError() {
+        assertEquals(new AnalysisEvent.Error(3, "boom", "Traceback ..."),
+                AnalysisEventDecoder.decode("{\"type\": \"error\", \"id\": 3,"
+                        + " \"message\": \"boom\", \"traceback\": \"Traceback ...\"}"));
+        // A job that could not be read has no id
+        assertEquals(new AnalysisEvent.Error(-1, "bad job", null),
+                AnalysisEventDecoder.decode("{\"type\": \"error\", \"message\": \"bad job\"}"));
+    }
+
+    @Test
+    void decodesResultWithSample() {
+        final AnalysisEvent.Result result = assertInstanceOf(AnalysisEvent.Result.class,
+                AnalysisEventDecoder.decode("{\"type\": \"result\", \"id\": 9,"
+                        + " \"status\": \"SUCCESS\","
+                        + " \"timings\": {\"load\": 12.5, \"formant\": 300, \"plot\": 40.25},"
+                        + " \"sample\": " + SAMPLE + "}"));
+
+        assertEquals(9, result.theJobId());
+        assertEquals(WorkflowResult.SUCCESS, result.theStatus());
+        assertEquals(List.of("load", "formant", "plot"),
+                List.copyOf(result.theTimings().keySet()));
+        assertEquals(300.0, result.theTimings().get("formant"));
+
+        final UserSampleDatabase.FormantSample sample = result.theSample();
+        assertArrayEquals(new double[] {0.01, 0.02}, sample.theTime());
+        assertArrayEquals(new double[] {110.5, 112.0}, sample.theF0());
+        assertArrayEquals(new double[] {500, 510}, sample.theF1());
+        assertArrayEquals(new double[] {1500, 1525.5}, sample.theF2());
+        assertArrayEquals(new double[] {505, 1512, 2500, 3500}, sample.theMedians());
+        assertArrayEquals(new byte[] {(byte) 0x89, 'P', 'N', 'G'}, sample.theScatterPlot());
+        assertEquals("{\"f0_med\": 111.25}", sample.theFeatures());
+        // The worker does not predict; the caller scores the row
+        assertNull(sample.theGenderLabel());
+        assertTrue(Double.isNaN(sample.theGenderScore()));
+    }
+
+    @Test
+    void decodesResultWithoutSample() {
+        assertEquals(new AnalysisEvent.Result(4, WorkflowResult.INVALID, Map.of(), null),
+                AnalysisEventDecoder.decode(
+                        "{\"type\": \"result\", \"id\": 4, \"status\": \"INVALID\"}"));
+        assertEquals(new AnalysisEvent.Result(5, WorkflowResult.FAILED, Map.of(), null),
+                AnalysisEventDecoder.decode("{\"type\": \"result\", \"id\": 5,"
+                        + " \"status\": \"FAILED\", \"sample\": null}"));
+    }
+
+    @Test
+    void keepsPredictionOfScoredSample() {
+        final String scored = SAMPLE.substring(0, SAMPLE.lastIndexOf('}'))
+                + ", \"gender_label\": \"ANDRO\", \"gender_score\": 0.5}";
+        final AnalysisEvent.Result result = assertInstanceOf(AnalysisEvent.Result.class,
+                AnalysisEventDecoder.decode("{\"type\": \"result\", \"id\": 1,"
+                        + " \"status\": \"SUCCESS\", \"sample\": " + scored + "}"));
+
+        assertEquals("ANDRO", result.theSample().theGenderLabel());
+        assertEquals(0.5, result.theSample().theGenderScore());
+    }
+
+    @Test
+    void unknownTypesAreUnknown() {
+        assertUnknown("{\"type\": \"telemetry\", \"id\": 1}");
+        assertUnknown("{\"id\": 1}");
+        assertUnknown("{\"type\": null}");
+    }
+
+    @Test
+    void malformedLinesAreUnknown() {
+        assertUnknown("");
+        assertUnknown("Traceback (most recent call last):");
+        assertUnknown("{\"type\": \"ready\", \"pid\": ");
+        assertUnknown("[\"ready\"]");
+        assertUnknown("42");
+    }
+
+    @Test
+    void unreadableMembersAreUnknown() {
+        assertUnknown("{\"type\": \"ready\", \"pid\": \"not a number\"}");
+        assertUnknown("{\"type\": \"result\", \"id\": 1, \"status\": \"DONE\"}");
+        assertUnknown("{\"type\": \"result\", \"id\": 1}");
+        assertUnknown("{\"type\": \"result\", \"id\": 1, \"status\": \"SUCCESS\","
+                + " \"timings\": {\"load\": \"fast\"}}");
+
+        // A sample missing a track or carrying a plot that is not base64
+        assertUnknown("{\"type\": \"result\", \"id\": 1, \"status\": \"SUCCESS\","
+                + " \"sample\": " + SAMPLE.replace("\"f1\"", "\"f1_hz\"") + "}");
+        assertUnknown("{\"type\": \"result\", \"id\": 1, \"status\": \"SUCCESS\","
+                + " \"sample\": " + SAMPLE.replace("iVBORw==", "not base64!") + "}");
+    }
+
+    /**
+     * Asserts that a line decodes into {@link AnalysisEvent.Unknown} carrying the line.
+     *
+     * @param theLine the line.
+     */
+    private static void assertUnknown(final String theLine) {
+        assertEquals(new AnalysisEvent.Unknown(theLine), AnalysisEventDecoder.decode(theLine));
+    }
+}
@@ -0,0 +1,324 @@
+"""
+Writes gender_predictions.csv: feature rows that reach every branch of the python script's
+__predict__, with the label and score __predict__ gives them, for GenderModelTest to check the
+Java GenderModel against.
+
+Run it from this directory, with the packages of requirements.txt installed:
+
+    python dump_gender_predictions.py
+
+Each row is scored by the script's own __predict__ with the trained gender_model.joblib. Where
+those packages can not be installed, --stand-ins runs the same __predict__ over minimal
+stand-ins instead: a one-row DataFrame, numpy's float64 and its round(), and the pipeline
+rebuilt from gender_model.json (median imputation, standard scaling and the logistic
+function). The rules, caps and rounding are still the script's.
+
+    python dump_gender_predictions.py --stand-ins
+
+A row lists the case, the 25 features feature_for_file measures (NaN where it could not), the
+label and the score. F4_med is a feature no rule reads, so each case sets it to move the
+model's probability where the case needs it.
+"""
+import contextlib
+import io
+import json
+import math
+import sys
+import types
+from pathlib import Path
+
+HERE = Path(__file__).resolve().parent
+TOOLKIT = HERE.parents[2] / "main" / "resources" / "VocalAnalysisToolKit"
+
+FEATURES = (
+    "F0_med", "F0_p5", "F0_p95", "F1_med", "F2_med", "F3_med", "F4_med",
+    "F2_over_F1", "F3_over_F2", "F4_over_F3",
+    "f0_mean_hz", "f0_sd_hz", "f0_min_hz", "f0_max_hz", "f0_p5_hz", "f0_p95_hz",
+    "range_semitones", "range_st_5_95", "slope_st_per_sec", "f0_sd_st",
+    "voiced_frac", "hnr_mean_db", "hnr_median_db", "hnr_voiced_fraction", "breathiness_index",
+)
+
+# A speaking voice no guardrail reacts to
+BASE = {
+    "F0_med": 165.0, "F0_p5": 125.0, "F0_p95": 215.0,
+    "F1_med": 480.0, "F2_med": 1700.0, "F3_med": 2720.0, "F4_med": 3800.0,
+    "F2_over_F1": 3.54, "F3_over_F2": 1.6, "F4_over_F3": 1.4,
+    "f0_mean_hz": 170.0, "f0_sd_hz": 55.0, "f0_min_hz": 85.0, "f0_max_hz": 400.0,
+    "f0_p5_hz": 105.0, "f0_p95_hz": 250.0,
+    "range_semitones": 24.0, "range_st_5_95": 12.5, "slope_st_per_sec": -0.04, "f0_sd_st": 4.4,
+    "voiced_frac": 0.6, "hnr_mean_db": 10.3, "hnr_median_db": 10.3,
+    "hnr_voiced_fraction": 0.6, "breathiness_index": -10.3,
+}
+
+NAN = math.nan
+
+# Each case overrides BASE
+CASES = {
+    # Confident FEMME
+    "femme": {"F0_med": 215.0, "F0_p5": 185.0, "f0_mean_hz": 220.0, "f0_p5_hz": 180.0,
+        "F1_med": 520.0, "hnr_mean_db": 14.0, "breathiness_index": -14.0, "voiced_frac": 0.62,
+        "f0_max_hz": 380.0, "range_semitones": 20.0, "F0_p95": 220.0, "F4_med": 3228.2},
+    # Confident FEMME probability, but F3 too low for FEMME
+    "femme_dark_f3": {"F0_med": 215.0, "F0_p5": 185.0, "f0_mean_hz": 220.0, "f0_p5_hz": 180.0,
+        "F1_med": 520.0, "hnr_mean_db": 14.0, "breathiness_index": -14.0, "voiced_frac": 0.62,
+        "F3_med": 2450.0, "f0_max_hz": 380.0, "range_semitones": 20.0, "F0_p95": 220.0,
+        "F4_med": 3491.9},
+    # Confident MASC, scored with the FEMME probability
+    "masc": {"F0_med": 110.0, "F0_p5": 90.0, "f0_mean_hz": 115.0, "F0_p95": 140.0,
+        "f0_max_hz": 200.0, "range_st_5_95": 8.0, "f0_sd_st": 2.5, "F4_med": 4599.2},
+    # No formants measured: the imputer fills them, every formant rule fails
+    "missing_formants": {"F1_med": NAN, "F2_med": NAN, "F3_med": NAN, "F4_med": NAN,
+        "F2_over_F1": NAN, "F3_over_F2": NAN, "F4_over_F3": NAN, "F0_med": 215.0, "F0_p5": 185.0,
+        "f0_mean_hz": 230.0},
+    # Nothing measured at all
+    "silent": {name: NAN for name in FEATURES},
+    # Expressive speech whose pitch center collapses, breathy enough to stay FEMME
+    "unstable_femme": {"F0_med": 200.0, "F0_p5": 120.0, "range_semitones": 30.0,
+        "breathiness_index": -12.0, "hnr_mean_db": 12.0, "f0_mean_hz": 205.0, "F4_med": 4484.2},
+    # The same without the breathiness
+    "unstable_masc": {"F0_med": 200.0, "F0_p5": 120.0, "range_semitones": 30.0, "f0_mean_hz": 205.0,
+        "F4_med": 4604.9},
+    # FEMME_FALSETTO
+    "femme_falsetto": {"F0_med": 320.0, "F0_p5": 300.0, "f0_min_hz": 295.0, "f0_p5_hz": 300.0,
+        "F2_med": 1600.0, "f0_mean_hz": 320.0, "F0_p95": 360.0, "f0_max_hz": 420.0,
+        "F4_med": 1466.9},
+    # ANDRO_FALSETTO over a dark, thin resonance
+    "andro_falsetto_resonance": {"F1_med": 300.0, "voiced_frac": 0.5, "F2_med": 1500.0,
+        "F2_over_F1": 4.4, "F4_med": 5008.2},
+    # ANDRO_FALSETTO from a high, flat, breathy falsetto
+    "andro_falsetto_breathy": {"F0_med": 250.0, "F0_p5": 220.0, "f0_p5_hz": 220.0,
+        "range_st_5_95": 8.0, "f0_sd_st": 3.0, "voiced_frac": 0.5, "breathiness_index": -20.0,
+        "hnr_mean_db": 20.0, "f0_mean_hz": 250.0, "F4_med": 1818.9},
+    # MASC_FALSETTO
+    "masc_falsetto": {"f0_min_hz": 75.0, "F0_med": 150.0, "f0_max_hz": 500.0, "range_st_5_95": 20.0,
+        "range_semitones": 30.0, "F3_over_F2": 1.5, "F2_over_F1": 3.0, "F4_med": 3385.2},
+    # Probabilities within the ANDRO threshold
+    "tie": {"F4_med": 4420.0},
+    # Not significant, leaning FEMME and breathy
+    "andro_femme": {"breathiness_index": -12.0, "hnr_mean_db": 12.0, "F4_med": 4326.3},
+    # Not significant, leaning FEMME without FEMME support
+    "andro_masc": {"F1_med": 430.0, "F4_med": 4494.6},
+    # Pitch spikes over a dark F1, penalized below ANDRO
+    "pitch_spike_dark": {"F1_med": 280.0, "f0_max_hz": 450.0, "F0_med": 200.0, "f0_mean_hz": 200.0,
+        "F4_med": 4848.1},
+    # Pitch spikes over an F1 of 400-410 Hz
+    "pitch_spike": {"F1_med": 405.0, "f0_max_hz": 450.0, "F0_med": 200.0, "f0_mean_hz": 200.0,
+        "F4_med": 4729.1},
+    # Unsupported FEMME at a probability close to one
+    "unsupported_near_certain": {"F1_med": 400.0, "F0_med": 180.0, "f0_mean_hz": 185.0,
+        "F0_p5": 150.0, "F4_med": 4808.6},
+    # Unsupported FEMME scored by F2/F1, with the low-F0 penalty
+    "unsupported_low_f0": {"F1_med": 420.0, "F0_med": 140.0, "f0_mean_hz": 150.0, "F0_p5": 120.0,
+        "F2_over_F1": 3.8, "F4_med": 4990.1},
+    # Unsupported FEMME scored by F2/F1
+    "unsupported_mid_f0": {"F1_med": 420.0, "F0_med": 155.0, "f0_mean_hz": 150.0, "F0_p5": 120.0,
+        "F2_over_F1": 3.8, "F4_med": 5245.6},
+    # Unsupported FEMME scored by the rounded F2/F1; numpy rounds 3.195 to 3.2
+    "unsupported_round2": {"F1_med": 420.0, "F0_med": 170.0, "f0_mean_hz": 170.0, "F0_p5": 140.0,
+        "F2_over_F1": 3.195, "F4_med": 4650.3},
+    # Unsupported FEMME with a low F3/F2
+    "unsupported_masc": {"F1_med": 420.0, "F0_med": 170.0, "f0_mean_hz": 170.0, "F0_p5": 140.0,
+        "F3_over_F2": 1.45, "F4_med": 4723.2},
+    # Confident MASC with soft-masc prosody
+    "soft_masc": {"F1_med": 430.0, "F0_med": 160.0, "f0_max_hz": 450.0, "F4_med": 4143.6},
+}
+
+
+def _format(value) -> str:
+    """
+    Formats a value the way Java's Double.parseDouble reads it.
+    :param value: The value.
+    :return: Its text.
+    """
+    return "NaN" if math.isnan(value) else repr(float(value))
+
+
+class _Float64(float):
+    """
+    numpy's float64: arithmetic stays float64, and round() scales, rounds half to even and
+    scales back, so round(0.285, 2) is 0.28 rather than python's exact 0.29.
+    """
+
+    def __round__(self, ndigits=None):
+        if ndigits is None:
+            return round(float(self))
+        scale = 10.0 ** ndigits
+        return _Float64(float(round(float(self) * scale)) / scale)
+
+    def __abs__(self):
+        return _Float64(abs(float(self)))
+
+    def __neg__(self):
+        return _Float64(-float(self))
+
+    def __add__(self, other):
+        return _Float64(float(self) + float(other))
+
+    def __radd__(self, other):
+        return _Float64(float(other) + float(self))
+
+    def __sub__(self, other):
+        return _Float64(float(self) - float(other))
+
+    def __rsub__(self, other):
+        return _Float64(float(other) - float(self))
+
+    def __mul__(self, other):
+        return _Float64(float(self) * float(other))
+
+    def __rmul__(self, other):
+        return _Float64(float(other) * float(self))
+
+    def __truediv__(self, other):
+        return _Float64(float(self) / float(other))
+
+    def __rtruediv__(self, other):
+        return _Float64(float(other) / float(self))
+
+
+class _Series:
+    """
+    A one-row pandas Series.
+    """
+
+    def __init__(self, value):
+        self.value = NAN if value is None else float(value)
+
+    def _apply(self, other, op):
+        return _Series(op(self.value, other.value if isinstance(other, _Series) else other))
+
+    def __add__(self, other):
+        return self._apply(other, lambda a, b: a + b)
+
+    def __sub__(self, other):
+        return self._apply(other, lambda a, b: a - b)
+
+    def __truediv__(self, other):
+        return self._apply(other, lambda a, b: a / b)
+
+    def clip(self, lo, hi):
+        return _Series(self.value if math.isnan(self.value) else min(max(self.value, lo), hi))
+
+    @property
+    def iloc(self):
+        return [_Float64(self.value)]
+
+
+class _DataFrame:
+    """
+    A one-row pandas DataFrame.
+    """
+
+    def __init__(self, rows):
+        self._columns = {name: _Series(value) for name, value in rows[0].items()} if rows else {}
+
+    @property
+    def columns(self):
+        return list(self._columns)
+
+    def __getitem__(self, name):
+        return self._columns[name]
+
+    def __setitem__(self, name, series):
+        self._columns[name] = series
+
+    def reindex(self, columns):
+        frame = _DataFrame([])
+        for name in columns:
+            frame[name] = self._columns.get(name, _Series(NAN))
+        return frame
+
+
+class _Pipeline:
+    """
+    The imputer, scaler and logistic regression, from the weights export_model wrote.
+    """
+
+    def __init__(self, export: dict):
+        self.export = export
+
+    def predict_proba(self, frame):
+        export = self.export
+        logit = export["intercept"]
+        for i, name in enumerate(export["features"]):
+            value = frame[name].value
+            if math.isnan(value):
+                value = export["impute_median"][i]
+            scaled = (value - export["scaler_mean"][i]) / export["scaler_scale"][i]
+            logit += export["coef"][i] * scaled
+        femme = 1.0 / (1.0 + math.exp(-logit))
+        return [[_Float64(1.0 - femme), _Float64(femme)]]
+
+
+class _Module(types.ModuleType):
+    """
+    A module whose every missing attribute is a placeholder type, enough for the annotations and
+    constants the script defines at import time.
+    """
+
+    def __getattr__(self, name):
+        if name.startswith("__"):
+            raise AttributeError(name)
+        return type(name, (), {"__init__": lambda self, *args, **kwargs: None})
+
+
+def _install_stand_ins() -> None:
+    """
+    Registers the stand-ins under the names the script imports.
+    """
+    with open(TOOLKIT / "gender_model.json", encoding="utf-8") as source:
+        export = json.load(source)
+
+    numpy = _Module("numpy")
+    numpy.float64 = _Float64
+    numpy.nan = NAN
+    numpy.isfinite = lambda value: math.isfinite(float(value))
+
+    pandas = _Module("pandas")
+    pandas.DataFrame = _DataFrame
+
+    joblib = _Module("joblib")
+    joblib.load = lambda _path: {
+        "pipeline": _Pipeline(export),
+        "Feature_names": list(export["features"]),
+        "caps": {name: tuple(cap) for name, cap in export["caps"].items()},
+    }
+
+    matplotlib = _Module("matplotlib")
+    matplotlib.use = lambda _backend: None
+    pyplot = _Module("matplotlib.pyplot")
+    matplotlib.pyplot = pyplot
+
+    parselmouth = _Module("parselmouth")
+    praat = _Module("parselmouth.praat")
+    praat.call = lambda *_args: None
+    parselmouth.praat = praat
+
+    sys.modules.update({
+        "numpy": numpy, "pandas": pandas, "joblib": joblib,
+        "matplotlib": matplotlib, "matplotlib.pyplot": pyplot,
+        "parselmouth": parselmouth, "parselmouth.praat": praat,
+    })
+
+
+def main() -> None:
+    if "--stand-ins" in sys.argv[1:]:
+        _install_stand_ins()
+    sys.path.insert(0, str(TOOLKIT))
+    import Vocal_Analysis_Script as script
+
+    script.MODEL_PATH = str(TOOLKIT / "gender_model.joblib")
+
+    with open(HERE / "gender_predictions.csv", "w", newline="\n") as out:
+        out.write(",".join(("case",) + FEATURES + ("label", "score")) + "\n")
+        for case, overrides in CASES.items():
+            features = dict(BASE, **overrides)
+            with contextlib.redirect_stdout(io.StringIO()):
+                label, score = script.__predict__(features)
+            values = [_format(features[name]) for name in FEATURES]
+            out.write(",".join([case] + values + [label, _format(score)]) + "\n")
+            print(f"{case}: {label} {float(score)}")
+
+
+if __name__ == "__main__":
+    main()
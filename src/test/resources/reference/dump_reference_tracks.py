@@ -0,0 +1,72 @@
+"""
+Writes the tracks parselmouth measures on the reference recordings, for the Java trackers'
+tests to compare against.
+
+Run it from this directory, with the packages of requirements.txt installed:
+
+    python dump_reference_tracks.py
+
+Every <name>.wav here (16-bit mono) gets a <name>.f0.csv holding the time and F0 of each
+Praat pitch frame, NaN where Praat found the frame unvoiced, and a <name>.formants.csv holding
+the time and F1-F4 of each to_formant_burg frame, NaN where the frame has fewer formants. The
+tracks come from the python script's own AnalysisContext, so they use exactly the settings the
+app analyzes with. This replaces the synthesis track synthesize_reference.py wrote for
+glide_vowel.wav.
+"""
+import math
+import sys
+from pathlib import Path
+
+HERE = Path(__file__).resolve().parent
+sys.path.insert(0, str(HERE.parents[2] / "main" / "resources" / "VocalAnalysisToolKit"))
+
+from Vocal_Analysis_Script import AnalysisContext  # noqa: E402
+
+
+def _format(value: float) -> str:
+    """
+    Formats a value the way Java's Double.parseDouble reads it.
+    :param value: The value.
+    :return: Its text.
+    """
+    return "NaN" if math.isnan(value) else repr(float(value))
+
+
+def dump_pitch(context: AnalysisContext, out_path: Path) -> None:
+    """
+    Writes the F0 of every Praat pitch frame.
+    :param context: The recording.
+    :param out_path: The dump to write.
+    """
+    pitch = context.pitch
+    f0 = pitch.selected_array["frequency"]
+    with open(out_path, "w", newline="\n") as out:
+        out.write("time,f0\n")
+        for time_, value in zip(pitch.xs(), f0):
+            out.write(f"{_format(time_)},{_format(value if value > 0 else math.nan)}\n")
+
+
+def dump_formants(context: AnalysisContext, out_path: Path) -> None:
+    """
+    Writes F1-F4 of every Praat formant frame.
+    :param context: The recording.
+    :param out_path: The dump to write.
+    """
+    formant = context.formant
+    with open(out_path, "w", newline="\n") as out:
+        out.write("time,f1,f2,f3,f4\n")
+        for time_ in formant.xs():
+            values = [formant.get_value_at_time(n, time_) for n in range(1, 5)]
+            out.write(",".join(_format(v) for v in [time_] + values) + "\n")
+
+
+def main() -> None:
+    for wav in sorted(HERE.glob("*.wav")):
+        context = AnalysisContext.load(str(wav))
+        dump_pitch(context, wav.with_suffix(".f0.csv"))
+        dump_formants(context, wav.with_suffix(".formants.csv"))
+        print(f"Dumped {wav.name}")
+
+
+if __name__ == "__main__":
+    main()
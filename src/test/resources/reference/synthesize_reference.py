@@ -0,0 +1,135 @@
+"""
+Writes glide_vowel.wav, the reference recording the Java trackers' tests always run on, and
+the track it was synthesized with in the dump format of dump_reference_tracks.py.
+
+It needs only the standard library. Run it from this directory:
+
+    python synthesize_reference.py
+
+The recording is 16-bit mono at 16 kHz: digital silence, a vowel whose pulse train glides
+from GLIDE_START_HZ to GLIDE_END_HZ, tilted down 6 dB per octave like a voice, through one
+resonator per formant, and silence again.
+glide_vowel.f0.csv holds the glide at the Praat pitch frame times and glide_vowel.formants.csv
+the resonators' F1-F4 at the Praat formant frame times, NaN outside the vowel. Run
+dump_reference_tracks.py afterwards to replace them with what parselmouth measures.
+"""
+import math
+import struct
+import wave
+from pathlib import Path
+
+HERE = Path(__file__).resolve().parent
+NAME = "glide_vowel"
+
+SAMPLE_RATE = 16000
+LEAD_SECONDS = 0.2
+VOWEL_SECONDS = 1.2
+TAIL_SECONDS = 0.2
+GLIDE_START_HZ = 110.0
+GLIDE_END_HZ = 170.0
+FORMANTS_HZ = (600.0, 1100.0, 2500.0, 3400.0, 4400.0)
+BANDWIDTHS_HZ = (80.0, 90.0, 120.0, 150.0, 200.0)
+PEAK = 0.5
+# The source's one-pole lowpass, cornered below the glide; a flat pulse train leaves LPC's
+# pre-emphasised spectrum rising, which pulls F1 up
+SOURCE_POLE = 0.97
+
+# Praat's frame layout for the script's settings: a 10 ms step, the window to_pitch uses for a
+# 75 Hz floor, and the Gaussian window of to_formant_burg, twice its nominal 25 ms
+TIME_STEP = 0.01
+PITCH_WINDOW = 3 / 75.0
+FORMANT_WINDOW = 2 * 0.025
+
+
+def f0_at(time_: float) -> float:
+    """
+    Gets the pitch of the vowel.
+    :param time_: Seconds from the start of the recording.
+    :return: The pitch in Hz, NaN outside the vowel.
+    """
+    into = time_ - LEAD_SECONDS
+    if into < 0 or into > VOWEL_SECONDS:
+        return math.nan
+    return GLIDE_START_HZ + (GLIDE_END_HZ - GLIDE_START_HZ) * into / VOWEL_SECONDS
+
+
+def synthesize() -> list[float]:
+    """
+    Synthesizes the recording.
+    :return: The samples, -1 to 1.
+    """
+    lead = int(LEAD_SECONDS * SAMPLE_RATE)
+    length = int(VOWEL_SECONDS * SAMPLE_RATE)
+    vowel = [0.0] * length
+    phase = 0.0
+    for i in range(length):
+        phase += f0_at(LEAD_SECONDS + i / SAMPLE_RATE) / SAMPLE_RATE
+        if phase >= 1:
+            phase -= 1
+            vowel[i] = 1.0
+
+    previous = 0.0
+    for i in range(length):
+        previous = vowel[i] + SOURCE_POLE * previous
+        vowel[i] = previous
+
+    for formant, bandwidth in zip(FORMANTS_HZ, BANDWIDTHS_HZ):
+        radius = math.exp(-math.pi * bandwidth / SAMPLE_RATE)
+        a1 = 2 * radius * math.cos(2 * math.pi * formant / SAMPLE_RATE)
+        a2 = -radius * radius
+        previous = before_previous = 0.0
+        for i in range(length):
+            value = vowel[i] + a1 * previous + a2 * before_previous
+            before_previous, previous = previous, value
+            vowel[i] = value
+
+    peak = max(abs(v) for v in vowel)
+    tail = int(TAIL_SECONDS * SAMPLE_RATE)
+    return [0.0] * lead + [v * PEAK / peak for v in vowel] + [0.0] * tail
+
+
+def frame_times(duration: float, window: float) -> list[float]:
+    """
+    Lays frames out the way Praat does: as many whole windows as fit, centred in the sound.
+    :param duration: The length of the recording in seconds.
+    :param window: The length of a frame's window in seconds.
+    :return: The frame centres.
+    """
+    count = int((duration - window) / TIME_STEP) + 1
+    first = (duration - (count - 1) * TIME_STEP) / 2
+    return [round(first + n * TIME_STEP, 6) for n in range(count)]
+
+
+def _format(value: float) -> str:
+    """
+    Formats a value the way Java's Double.parseDouble reads it.
+    :param value: The value.
+    :return: Its text.
+    """
+    return "NaN" if math.isnan(value) else repr(float(value))
+
+
+def main() -> None:
+    samples = synthesize()
+    with wave.open(str(HERE / f"{NAME}.wav"), "wb") as out:
+        out.setnchannels(1)
+        out.setsampwidth(2)
+        out.setframerate(SAMPLE_RATE)
+        out.writeframes(b"".join(struct.pack("<h", round(s * 32767)) for s in samples))
+
+    duration = len(samples) / SAMPLE_RATE
+    with open(HERE / f"{NAME}.f0.csv", "w", newline="\n") as out:
+        out.write("time,f0\n")
+        for time_ in frame_times(duration, PITCH_WINDOW):
+            out.write(f"{_format(time_)},{_format(f0_at(time_))}\n")
+    with open(HERE / f"{NAME}.formants.csv", "w", newline="\n") as out:
+        out.write("time,f1,f2,f3,f4\n")
+        for time_ in frame_times(duration, FORMANT_WINDOW):
+            voiced = not math.isnan(f0_at(time_))
+            values = [f if voiced else math.nan for f in FORMANTS_HZ[:4]]
+            out.write(",".join(_format(v) for v in [time_] + values) + "\n")
+    print(f"Wrote {NAME}.wav")
+
+
+if __name__ == "__main__":
+    main()
@@ -0,0 +1,102 @@
+"""
+Writes golden_tracks.json: tracks encoded by the python script's encode_track, for
+TrackCodecTest to check that the Java TrackCodec reads them and writes the same bytes.
+
+Run it from this directory, with the packages of requirements.txt installed:
+
+    python encode_golden_tracks.py
+
+encode_track needs numpy only for its float32 payload. Where the packages can not be
+installed, --stand-ins runs encode_track and its constants taken from the script's source
+with numpy.asarray(values, dtype="<f4").tobytes() standing in for numpy; struct packs float32
+the same way numpy converts to it.
+
+    python encode_golden_tracks.py --stand-ins
+
+Each entry holds the track's name, its values (NaN as the bare token NaN) and the blob in hex.
+"""
+import ast
+import json
+import math
+import struct
+import sys
+import zlib
+from pathlib import Path
+
+HERE = Path(__file__).resolve().parent
+TOOLKIT = HERE.parents[2] / "main" / "resources" / "VocalAnalysisToolKit"
+SCRIPT = TOOLKIT / "Vocal_Analysis_Script.py"
+
+
+def _tracks() -> dict:
+    """
+    Builds the tracks, one per path through encode_track.
+    :return: The tracks by name.
+    """
+    frames = 300
+    time_ = [round(i * 0.01, 2) for i in range(frames)]
+    f1 = [round(500 + 120 * math.sin(i / 25) + (i % 7) * 0.37, 5) for i in range(frames)]
+    f0 = [math.nan if i % 50 < 8 else round(180 + 40 * math.sin(i / 40), 5) for i in range(frames)]
+    return {
+        # Fixed point, deflated
+        "time": time_,
+        "f1": f1,
+        # Fixed point, too short to deflate
+        "short": [0.0, 0.01, 0.02, 0.03],
+        # Negative values and jumps that take several varint bytes
+        "jumps": [-1.5, 2500.25, -3000.0, 0.005, 0.015, 123456.789, -0.004],
+        # NaN: float32, deflated
+        "f0": f0,
+        # NaN: float32, too short to deflate
+        "unvoiced": [math.nan, 150.5, math.nan],
+        "empty": [],
+    }
+
+
+class _Float32Array:
+    """
+    numpy.asarray(values, dtype="<f4") as far as encode_track uses it.
+    """
+
+    def __init__(self, values, dtype):
+        assert dtype == "<f4"
+        self.values = list(values)
+
+    def tobytes(self) -> bytes:
+        return struct.pack(f"<{len(self.values)}f", *self.values)
+
+
+def _stand_in_encode_track():
+    """
+    Takes encode_track and the _TRACK constants out of the script's source.
+    :return: The script's encode_track.
+    """
+    tree = ast.parse(SCRIPT.read_text(encoding="utf-8"))
+    nodes = [node for node in tree.body
+             if (isinstance(node, ast.Assign)
+                 and all(isinstance(target, ast.Name) and target.id.startswith("_TRACK_")
+                         for target in node.targets))
+             or (isinstance(node, ast.FunctionDef) and node.name == "encode_track")]
+    numpy = type("numpy", (), {"asarray": staticmethod(_Float32Array)})
+    namespace = {"math": math, "struct": struct, "zlib": zlib, "np": numpy}
+    exec(compile(ast.Module(body=nodes, type_ignores=[]), str(SCRIPT), "exec"), namespace)
+    return namespace["encode_track"]
+
+
+def main() -> None:
+    if "--stand-ins" in sys.argv[1:]:
+        encode_track = _stand_in_encode_track()
+    else:
+        sys.path.insert(0, str(TOOLKIT))
+        from Vocal_Analysis_Script import encode_track
+
+    entries = [{"name": name, "values": values, "blob": encode_track(values).hex()}
+               for name, values in _tracks().items()]
+    with open(HERE / "golden_tracks.json", "w", newline="\n") as out:
+        out.write("[\n" + ",\n".join(json.dumps(entry) for entry in entries) + "\n]\n")
+    for entry in entries:
+        print(f"{entry['name']}: {len(entry['blob']) // 2} bytes")
+
+
+if __name__ == "__main__":
+    main()